@@ -20,6 +20,7 @@ import java.util.Properties;
 import org.jhlabs.scany.context.builder.ScanyConfigAssistant;
 import org.jhlabs.scany.context.rule.ClientRule;
 import org.jhlabs.scany.context.rule.RemoteHttpServiceRule;
+import org.jhlabs.scany.context.rule.ServerRule;
 import org.jhlabs.scany.context.type.RemoteMode;
 import org.jhlabs.scany.context.type.ServiceMode;
 import org.jhlabs.scany.util.xml.EasyNodelet;
@@ -73,6 +74,14 @@ public class RemoteHttpNodeletAdder implements EasyNodeletAdder {
 				rhsr.setUrl(text);
 			}
 		});
+		parser.addNodelet(xpath, "/remote/http/timeout", new EasyNodelet() {
+			public void process(Properties attributes, String text) throws Exception {
+				if(text != null && text.length() > 0) {
+					RemoteHttpServiceRule rhsr = (RemoteHttpServiceRule)assistant.peekObject();
+					rhsr.setTimeout(Integer.valueOf(text));
+				}
+			}
+		});
 
 		parser.addNodelet(xpath + "/remote/http", new MessageNodeletAdder(assistant));
 
@@ -86,6 +95,14 @@ public class RemoteHttpNodeletAdder implements EasyNodeletAdder {
 					cr.setAnyServiceRule(rhsr);
 				}
 			});
+		} else if(xpath.endsWith("/scany/server")) {
+			parser.addNodelet(xpath, "/remote/http/end()", new EasyNodelet() {
+				public void process(Properties attributes, String text) throws Exception {
+					RemoteHttpServiceRule rhsr = (RemoteHttpServiceRule)assistant.popObject();
+					ServerRule sr = (ServerRule)assistant.peekObject();
+					sr.setRemoteHttpServiceRule(rhsr);
+				}
+			});
 		}
 	}
 
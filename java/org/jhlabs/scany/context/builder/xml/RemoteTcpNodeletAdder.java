@@ -87,6 +87,28 @@ public class RemoteTcpNodeletAdder implements EasyNodeletAdder {
 				}
 			}
 		});
+		parser.addNodelet(xpath, "/remote/tcp/connection/pool", new EasyNodelet() {
+			public void process(Properties attributes, String text) throws Exception {
+				String min = attributes.getProperty("min");
+				String max = attributes.getProperty("max");
+				String healthCheckInterval = attributes.getProperty("healthCheckInterval");
+
+				RemoteTcpServiceRule rtsr = (RemoteTcpServiceRule)assistant.peekObject();
+
+				try {
+					if(min != null && min.length() > 0)
+						rtsr.setMinConnections(Integer.valueOf(min));
+
+					if(max != null && max.length() > 0)
+						rtsr.setMaxConnections(Integer.valueOf(max));
+
+					if(healthCheckInterval != null && healthCheckInterval.length() > 0)
+						rtsr.setHealthCheckInterval(Integer.valueOf(healthCheckInterval));
+				} catch(NumberFormatException e) {
+					throw new IllegalArgumentException("Check the connection pool options of remote tcp service.");
+				}
+			}
+		});
 
 		parser.addNodelet(xpath + "/remote/tcp", new MessageNodeletAdder(assistant));
 
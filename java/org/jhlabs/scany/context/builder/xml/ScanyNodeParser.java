@@ -110,6 +110,7 @@ public class ScanyNodeParser {
 		});
 
 		parser.addNodelet("/scany/server", new RemoteTcpNodeletAdder(assistant));
+		parser.addNodelet("/scany/server", new RemoteHttpNodeletAdder(assistant));
 
 		parser.addNodelet("/scany/server/end()", new EasyNodelet() {
 			public void process(Properties attributes, String text) throws Exception {
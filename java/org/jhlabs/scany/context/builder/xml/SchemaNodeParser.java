@@ -156,6 +156,69 @@ public class SchemaNodeParser {
 				}
 			}
 		});
+		parser.addNodelet("/schema/relation/nearRealTime", new EasyNodelet() {
+			public void process(Properties attributes, String text) throws Exception {
+				String refreshInterval = attributes.getProperty("refreshInterval");
+				String commitInterval = attributes.getProperty("commitInterval");
+				
+				Relation relation = (Relation)assistant.peekObject();
+				relation.setNearRealTime(true);
+				
+				try {
+					if(refreshInterval != null && refreshInterval.length() > 0)
+						relation.setRefreshInterval(Long.parseLong(refreshInterval));
+					
+					if(commitInterval != null && commitInterval.length() > 0)
+						relation.setCommitInterval(Long.parseLong(commitInterval));
+				} catch(NumberFormatException e) {
+					throw new IllegalArgumentException("Check the nearRealTime intervals on relation '" + relation.getId() + "'.");
+				}
+			}
+		});
+		parser.addNodelet("/schema/relation/indexing", new EasyNodelet() {
+			public void process(Properties attributes, String text) throws Exception {
+				String threads = attributes.getProperty("threads");
+				String queueCapacity = attributes.getProperty("queueCapacity");
+				
+				Relation relation = (Relation)assistant.peekObject();
+				
+				try {
+					if(threads != null && threads.length() > 0)
+						relation.setIndexingThreads(Integer.parseInt(threads));
+					
+					if(queueCapacity != null && queueCapacity.length() > 0)
+						relation.setIndexingQueueCapacity(Integer.parseInt(queueCapacity));
+				} catch(NumberFormatException e) {
+					throw new IllegalArgumentException("Check the indexing options on relation '" + relation.getId() + "'.");
+				}
+			}
+		});
+		parser.addNodelet("/schema/relation/search", new EasyNodelet() {
+			public void process(Properties attributes, String text) throws Exception {
+				String threads = attributes.getProperty("threads");
+				String cacheSize = attributes.getProperty("cacheSize");
+				String cacheMemory = attributes.getProperty("cacheMemory");
+				String filterCacheSize = attributes.getProperty("filterCacheSize");
+				
+				Relation relation = (Relation)assistant.peekObject();
+				
+				try {
+					if(threads != null && threads.length() > 0)
+						relation.setSearchThreads(Integer.parseInt(threads));
+					
+					if(cacheSize != null && cacheSize.length() > 0)
+						relation.setQueryCacheSize(Integer.parseInt(cacheSize));
+					
+					if(cacheMemory != null && cacheMemory.length() > 0)
+						relation.setQueryCacheMemory(Long.parseLong(cacheMemory));
+					
+					if(filterCacheSize != null && filterCacheSize.length() > 0)
+						relation.setFilterCacheSize(Integer.parseInt(filterCacheSize));
+				} catch(NumberFormatException e) {
+					throw new IllegalArgumentException("Check the search options on relation '" + relation.getId() + "'.");
+				}
+			}
+		});
 		parser.addNodelet("/schema/relation/recordKey", new EasyNodelet() {
 			public void process(Properties attributes, String text) throws Exception {
 				String separator = attributes.getProperty("join");
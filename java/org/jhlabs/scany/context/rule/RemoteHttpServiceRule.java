@@ -13,6 +13,8 @@ public class RemoteHttpServiceRule {
 	
 	private String url;
 	
+	private Integer timeout;
+
 	private MessageFormat messageFormat;
 	
 	private MessageRule keysignMessageRule;
@@ -51,6 +53,14 @@ public class RemoteHttpServiceRule {
 		this.url = url;
 	}
 
+	public Integer getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(Integer timeout) {
+		this.timeout = timeout;
+	}
+
 	public MessageFormat getMessageFormat() {
 		return messageFormat;
 	}
@@ -16,6 +16,12 @@ public class RemoteTcpServiceRule {
 	private Integer port;
 	
 	private Integer timeout;
+
+	private Integer minConnections;
+
+	private Integer maxConnections;
+
+	private Integer healthCheckInterval;
 	
 	private MessageFormat messageFormat;
 	
@@ -71,6 +77,30 @@ public class RemoteTcpServiceRule {
 		this.timeout = timeout;
 	}
 
+	public Integer getMinConnections() {
+		return minConnections;
+	}
+
+	public void setMinConnections(Integer minConnections) {
+		this.minConnections = minConnections;
+	}
+
+	public Integer getMaxConnections() {
+		return maxConnections;
+	}
+
+	public void setMaxConnections(Integer maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	public Integer getHealthCheckInterval() {
+		return healthCheckInterval;
+	}
+
+	public void setHealthCheckInterval(Integer healthCheckInterval) {
+		this.healthCheckInterval = healthCheckInterval;
+	}
+
 	public MessageFormat getMessageFormat() {
 		return messageFormat;
 	}
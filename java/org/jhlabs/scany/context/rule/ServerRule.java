@@ -5,6 +5,8 @@ public class ServerRule {
 
 	private RemoteTcpServiceRule remoteTcpServiceRule;
 	
+	private RemoteHttpServiceRule remoteHttpServiceRule;
+	
 	private OptimizingRule optimizingRule;
 
 	public RemoteTcpServiceRule getRemoteTcpServiceRule() {
@@ -15,6 +17,14 @@ public class ServerRule {
 		this.remoteTcpServiceRule = remoteServiceRule;
 	}
 
+	public RemoteHttpServiceRule getRemoteHttpServiceRule() {
+		return remoteHttpServiceRule;
+	}
+
+	public void setRemoteHttpServiceRule(RemoteHttpServiceRule remoteHttpServiceRule) {
+		this.remoteHttpServiceRule = remoteHttpServiceRule;
+	}
+
 	public OptimizingRule getOptimizingRule() {
 		return optimizingRule;
 	}
@@ -21,6 +21,8 @@ import java.util.Map;
 
 public final class DirectoryType extends Type {
 
+	private static final long serialVersionUID = 3763177743217930440L;
+
 	public static final DirectoryType FS;
 
 	public static final DirectoryType RAM;
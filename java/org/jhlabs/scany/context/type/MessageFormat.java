@@ -21,6 +21,8 @@ import java.util.Map;
 
 public final class MessageFormat extends Type {
 
+	private static final long serialVersionUID = -8247513217569057244L;
+
 	public static final MessageFormat XML;
 
 	public static final MessageFormat JSON;
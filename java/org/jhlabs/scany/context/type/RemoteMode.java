@@ -21,6 +21,8 @@ import java.util.Map;
 
 public final class RemoteMode extends Type {
 
+	private static final long serialVersionUID = 6845642098354606412L;
+
 	public static final RemoteMode TCP;
 
 	public static final RemoteMode HTTP;
@@ -21,6 +21,8 @@ import java.util.Map;
 
 public final class ServiceMode extends Type {
 
+	private static final long serialVersionUID = 5325045355490399138L;
+
 	public static final ServiceMode LOCAL;
 
 	public static final ServiceMode HTTP;
@@ -21,6 +21,8 @@ import java.util.Map;
 
 public final class SpoolingMode extends Type {
 
+	private static final long serialVersionUID = -7624135514448906943L;
+
 	public static final SpoolingMode FILE;
 
 	public static final SpoolingMode FTP;
@@ -15,10 +15,14 @@
  */
 package org.jhlabs.scany.context.type;
 
+import java.io.Serializable;
+
 /**
  * <p>Created: 2008. 04. 11 오후 6:04:16</p>
  */
-public abstract class Type {
+public abstract class Type implements Serializable {
+
+	private static final long serialVersionUID = -5204446549592917931L;
 
 	private final Object type;
 	
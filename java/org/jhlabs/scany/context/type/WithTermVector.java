@@ -23,6 +23,8 @@ import org.apache.lucene.document.Field;
 
 public final class WithTermVector extends Type {
 
+	private static final long serialVersionUID = 976779225050609487L;
+
 	public static final WithTermVector NO;
 
 	public static final WithTermVector YES;
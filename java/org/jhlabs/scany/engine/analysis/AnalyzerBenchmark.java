@@ -0,0 +1,179 @@
+/**
+ *
+ */
+package org.jhlabs.scany.engine.analysis;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.jhlabs.scany.engine.analysis.bigram.BigramAnalyzer;
+import org.jhlabs.scany.engine.analysis.csv.CSVAnalyzer;
+import org.jhlabs.scany.engine.analysis.kr.KoreanAnalyzer;
+import org.jhlabs.scany.engine.analysis.syllabic.SyllabicAnalyzer;
+
+/**
+ * 분석기의 tokenStream()과 reusableTokenStream()의 처리 시간과 문서당 메모리 할당량을 비교한다.
+ *
+ * <pre>
+ * 사용법: java org.jhlabs.scany.engine.analysis.AnalyzerBenchmark &lt;textfile&gt; [korean|bigram|syllabic|csv] [iterations]
+ *
+ * 텍스트 파일의 한 줄을 하나의 문서로 분석한다.
+ * 메모리 할당량은 JVM이 스레드별 할당량을 제공하는 경우(HotSpot)에만 출력한다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class AnalyzerBenchmark {
+
+	private static final String FIELD_NAME = "content";
+
+	private final List<String> documents;
+
+	private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+	private Method allocatedBytesMethod;
+
+	public AnalyzerBenchmark(List<String> documents) {
+		this.documents = documents;
+
+		try {
+			Class<?> hotspotThreadMXBean = Class.forName("com.sun.management.ThreadMXBean");
+
+			if(hotspotThreadMXBean.isInstance(threadMXBean))
+				allocatedBytesMethod = hotspotThreadMXBean.getMethod("getThreadAllocatedBytes", long.class);
+		} catch(Exception e) {
+			allocatedBytesMethod = null;
+		}
+	}
+
+	/**
+	 * 모든 문서를 분석한다.
+	 *
+	 * @param analyzer 분석기
+	 * @param reusable reusableTokenStream() 사용 여부
+	 * @return 분석된 토큰의 수
+	 * @throws IOException
+	 */
+	public long analyze(Analyzer analyzer, boolean reusable) throws IOException {
+		long tokens = 0;
+
+		for(String document : documents) {
+			StringReader reader = new StringReader(document);
+			TokenStream ts = reusable ? analyzer.reusableTokenStream(FIELD_NAME, reader) : analyzer.tokenStream(FIELD_NAME, reader);
+			ts.reset();
+
+			while(ts.incrementToken()) {
+				tokens++;
+			}
+
+			ts.end();
+			ts.close();
+		}
+
+		return tokens;
+	}
+
+	/**
+	 * 분석 시간과 문서당 메모리 할당량을 측정해서 출력한다.
+	 *
+	 * @param analyzer 분석기
+	 * @param reusable reusableTokenStream() 사용 여부
+	 * @param iterations 반복 횟수
+	 * @throws IOException
+	 */
+	public void run(Analyzer analyzer, boolean reusable, int iterations) throws IOException {
+		// warming up
+		analyze(analyzer, reusable);
+
+		long tokens = 0;
+		long allocated = getAllocatedBytes();
+		long startTime = System.nanoTime();
+
+		for(int i = 0; i < iterations; i++) {
+			tokens += analyze(analyzer, reusable);
+		}
+
+		long elapsed = System.nanoTime() - startTime;
+		long docs = (long)documents.size() * iterations;
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(analyzer.getClass().getSimpleName());
+		sb.append(reusable ? " reusableTokenStream" : " tokenStream");
+		sb.append(": ").append(docs).append(" docs, ").append(tokens).append(" tokens, ");
+		sb.append(elapsed / 1000000).append(" ms, ");
+		sb.append(elapsed / docs / 1000).append(" us/doc");
+
+		if(allocated != -1)
+			sb.append(", ").append((getAllocatedBytes() - allocated) / docs).append(" bytes/doc");
+
+		System.out.println(sb.toString());
+	}
+
+	private long getAllocatedBytes() {
+		if(allocatedBytesMethod == null)
+			return -1;
+
+		try {
+			return (Long)allocatedBytesMethod.invoke(threadMXBean, Thread.currentThread().getId());
+		} catch(Exception e) {
+			return -1;
+		}
+	}
+
+	private static Analyzer createAnalyzer(String name) {
+		if("bigram".equals(name))
+			return new BigramAnalyzer();
+		if("syllabic".equals(name))
+			return new SyllabicAnalyzer();
+		if("csv".equals(name))
+			return new CSVAnalyzer();
+
+		return new KoreanAnalyzer();
+	}
+
+	public static void main(String argv[]) {
+		if(argv.length < 1) {
+			System.out.println("Usage: java " + AnalyzerBenchmark.class.getName() + " <textfile> [korean|bigram|syllabic|csv] [iterations]");
+			return;
+		}
+
+		String analyzerName = (argv.length > 1) ? argv[1] : "korean";
+		int iterations = (argv.length > 2) ? Integer.parseInt(argv[2]) : 10;
+
+		try {
+			List<String> documents = new ArrayList<String>();
+			BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(argv[0]), "UTF-8"));
+
+			try {
+				String line;
+
+				while((line = reader.readLine()) != null) {
+					if(line.length() > 0)
+						documents.add(line);
+				}
+			} finally {
+				reader.close();
+			}
+
+			AnalyzerBenchmark benchmark = new AnalyzerBenchmark(documents);
+			Analyzer analyzer = createAnalyzer(analyzerName);
+
+			benchmark.run(analyzer, false, iterations);
+			benchmark.run(analyzer, true, iterations);
+		} catch(Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+}
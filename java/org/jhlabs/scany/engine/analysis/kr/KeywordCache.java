@@ -0,0 +1,365 @@
+/**
+ *
+ */
+package org.jhlabs.scany.engine.analysis.kr;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jhlabs.scany.engine.analysis.kr.dic.Dictionary;
+import org.jhlabs.scany.engine.analysis.kr.dic.DictionaryInstance;
+
+/**
+ * 어절별 색인어 추출 결과 캐시.
+ *
+ * <pre>
+ * KoreanFilter가 어절을 형태소 분석하고 띄어쓰기 분석해서 추출한 색인어 목록을 어절을 키로 저장한다.
+ * 같은 어절이 반복되는 경우가 많으므로 형태소 분석을 다시 하지 않고 저장된 색인어를 사용한다.
+ *
+ * 캐시는 스레드별로 유지하므로 잠금이 없다. 스레드마다 최대 항목 수를 넘으면 가장 오래 사용하지 않은 항목부터 제거한다(LRU).
+ * 추출 결과는 사전에 따라 달라지므로 캐시를 만든 사전(DictionaryInstance)과 현재 사전이 다르면 캐시를 비운다.
+ * 원어절 포함 여부(hasOrigin)와 bigram 여부(bigrammable)에 따라 추출 결과가 다르므로 옵션별로 따로 저장한다.
+ * 적중률 등의 통계는 모든 스레드의 합계이다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class KeywordCache {
+
+	/** 스레드별 기본 최대 항목 수 */
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	private static final int OPTION_COUNT = 4;
+
+	private static volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+	private static final AtomicLong hitCount = new AtomicLong();
+
+	private static final AtomicLong missCount = new AtomicLong();
+
+	private static final AtomicLong evictionCount = new AtomicLong();
+
+	private static final AtomicLong invalidationCount = new AtomicLong();
+
+	private static final ThreadLocal<KeywordCache> caches = new ThreadLocal<KeywordCache>() {
+		@Override
+		protected KeywordCache initialValue() {
+			return new KeywordCache();
+		}
+	};
+
+	/**
+	 * 캐시를 만든 사전. 이전 사전이 메모리에 남지 않도록 약한 참조로 가진다.
+	 */
+	private WeakReference<DictionaryInstance> dictionary;
+
+	private final Entries[] entries = new Entries[OPTION_COUNT];
+
+	private KeywordCache() {
+	}
+
+	/**
+	 * 어절에서 추출한 색인어 목록을 반환한다.
+	 * 어절을 문자 배열의 일부로 조회하므로 토큰의 문자열을 만들지 않는다.
+	 *
+	 * @param buffer 어절이 담긴 문자 배열
+	 * @param length 어절의 길이
+	 * @param hasOrigin 원어절 포함 여부
+	 * @param bigrammable bigram 여부
+	 * @return 색인어 목록, 캐시에 없으면 null
+	 */
+	public static Keywords get(char[] buffer, int length, boolean hasOrigin, boolean bigrammable) {
+		if(maxEntries <= 0)
+			return null;
+
+		Entries map = caches.get().getEntries(hasOrigin, bigrammable);
+		Keywords keywords = map.get(buffer, length);
+
+		if(keywords == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+
+		hitCount.incrementAndGet();
+
+		return keywords;
+	}
+
+	/**
+	 * 어절에서 추출한 색인어 목록을 저장한다.
+	 *
+	 * @param eojeol 어절
+	 * @param hasOrigin 원어절 포함 여부
+	 * @param bigrammable bigram 여부
+	 * @param keywords 색인어 목록
+	 */
+	public static void put(String eojeol, boolean hasOrigin, boolean bigrammable, Keywords keywords) {
+		if(maxEntries <= 0)
+			return;
+
+		caches.get().getEntries(hasOrigin, bigrammable).put(eojeol.toCharArray(), keywords);
+	}
+
+	private Entries getEntries(boolean hasOrigin, boolean bigrammable) {
+		DictionaryInstance current = Dictionary.getInstance();
+
+		if(dictionary == null || dictionary.get() != current) {
+			if(dictionary != null)
+				invalidationCount.incrementAndGet();
+
+			for(int i = 0; i < OPTION_COUNT; i++) {
+				entries[i] = null;
+			}
+
+			dictionary = new WeakReference<DictionaryInstance>(current);
+		}
+
+		int option = (hasOrigin ? 1 : 0) | (bigrammable ? 2 : 0);
+
+		if(entries[option] == null)
+			entries[option] = new Entries();
+
+		return entries[option];
+	}
+
+	/**
+	 * 스레드별 최대 항목 수를 지정한다. 0 이하이면 캐시를 사용하지 않는다.
+	 * 이미 만들어진 캐시에는 다음 항목을 저장할 때부터 적용된다.
+	 *
+	 * @param maxEntries 스레드별 최대 항목 수
+	 */
+	public static void setMaxEntries(int maxEntries) {
+		KeywordCache.maxEntries = maxEntries;
+	}
+
+	public static int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public static long getHitCount() {
+		return hitCount.get();
+	}
+
+	public static long getMissCount() {
+		return missCount.get();
+	}
+
+	public static long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	public static long getInvalidationCount() {
+		return invalidationCount.get();
+	}
+
+	/**
+	 * 캐시 적중률을 반환한다.
+	 * @return the hit ratio (0.0 ~ 1.0)
+	 */
+	public static double getHitRatio() {
+		long hits = hitCount.get();
+		long total = hits + missCount.get();
+
+		return (total == 0) ? 0.0 : (double)hits / total;
+	}
+
+	public static void resetStatistics() {
+		hitCount.set(0);
+		missCount.set(0);
+		evictionCount.set(0);
+		invalidationCount.set(0);
+	}
+
+	/**
+	 * 어절에서 추출한 색인어와 어절 안에서의 위치.
+	 * 한번 만들어진 후에는 변경되지 않으므로 캐시에 저장해서 공유한다.
+	 */
+	public static final class Keywords {
+
+		private final String[] texts;
+
+		private final int[] offsets;
+
+		/**
+		 * 생성자
+		 *
+		 * @param eojeol 어절
+		 * @param texts 색인어 목록
+		 */
+		public Keywords(String eojeol, String[] texts) {
+			this.texts = texts;
+			this.offsets = new int[texts.length];
+
+			for(int i = 0; i < texts.length; i++) {
+				offsets[i] = eojeol.indexOf(texts[i]);
+			}
+		}
+
+		public int size() {
+			return texts.length;
+		}
+
+		public String getText(int index) {
+			return texts[index];
+		}
+
+		/**
+		 * 어절 안에서 색인어의 위치를 반환한다.
+		 * @param index 색인어 번호
+		 * @return 어절 안에서의 위치, 어절에 포함되지 않은 색인어이면 -1
+		 */
+		public int getOffset(int index) {
+			return offsets[index];
+		}
+
+	}
+
+	/**
+	 * 문자 배열을 키로 하는 LRU 맵.
+	 * 조회할 때 키 문자열을 만들지 않도록 문자 배열의 일부로 조회한다.
+	 */
+	private static class Entries {
+
+		private Node[] table = new Node[256];
+
+		private int size;
+
+		/** LRU 목록의 시작. header.after가 가장 오래 사용하지 않은 항목이다. */
+		private final Node header = new Node(null, 0, null);
+
+		public Entries() {
+			header.before = header;
+			header.after = header;
+		}
+
+		public Keywords get(char[] buffer, int length) {
+			int hash = hash(buffer, length);
+
+			for(Node node = table[hash & (table.length - 1)]; node != null; node = node.next) {
+				if(node.hash == hash && node.equals(buffer, length)) {
+					node.unlink();
+					node.linkBefore(header);
+					return node.keywords;
+				}
+			}
+
+			return null;
+		}
+
+		public void put(char[] key, Keywords keywords) {
+			int hash = hash(key, key.length);
+			int index = hash & (table.length - 1);
+
+			for(Node node = table[index]; node != null; node = node.next) {
+				if(node.hash == hash && node.equals(key, key.length)) {
+					node.keywords = keywords;
+					node.unlink();
+					node.linkBefore(header);
+					return;
+				}
+			}
+
+			Node node = new Node(key, hash, keywords);
+			node.next = table[index];
+			table[index] = node;
+			node.linkBefore(header);
+
+			if(++size > table.length * 3 / 4)
+				resize();
+
+			while(size > maxEntries && header.after != header) {
+				remove(header.after);
+				evictionCount.incrementAndGet();
+			}
+		}
+
+		private void remove(Node node) {
+			int index = node.hash & (table.length - 1);
+			Node prev = null;
+
+			for(Node n = table[index]; n != null; prev = n, n = n.next) {
+				if(n == node) {
+					if(prev == null)
+						table[index] = n.next;
+					else
+						prev.next = n.next;
+
+					break;
+				}
+			}
+
+			node.unlink();
+			size--;
+		}
+
+		private void resize() {
+			Node[] newTable = new Node[table.length * 2];
+
+			for(Node node = header.after; node != header; node = node.after) {
+				int index = node.hash & (newTable.length - 1);
+				node.next = newTable[index];
+				newTable[index] = node;
+			}
+
+			table = newTable;
+		}
+
+		private static int hash(char[] buffer, int length) {
+			int h = 0;
+
+			for(int i = 0; i < length; i++) {
+				h = 31 * h + buffer[i];
+			}
+
+			return h ^ (h >>> 16);
+		}
+
+	}
+
+	private static class Node {
+
+		private final char[] key;
+
+		private final int hash;
+
+		private Keywords keywords;
+
+		/** 같은 버킷의 다음 항목 */
+		private Node next;
+
+		/** LRU 목록의 이전, 다음 항목 */
+		private Node before, after;
+
+		public Node(char[] key, int hash, Keywords keywords) {
+			this.key = key;
+			this.hash = hash;
+			this.keywords = keywords;
+		}
+
+		public boolean equals(char[] buffer, int length) {
+			if(key.length != length)
+				return false;
+
+			for(int i = 0; i < length; i++) {
+				if(key[i] != buffer[i])
+					return false;
+			}
+
+			return true;
+		}
+
+		public void unlink() {
+			before.after = after;
+			after.before = before;
+		}
+
+		public void linkBefore(Node existing) {
+			after = existing;
+			before = existing.before;
+			before.after = this;
+			existing.before = this;
+		}
+
+	}
+
+}
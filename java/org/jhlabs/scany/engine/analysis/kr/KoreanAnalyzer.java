@@ -17,6 +17,7 @@ package org.jhlabs.scany.engine.analysis.kr;
  * limitations under the License.
  */
 
+import java.io.IOException;
 import java.io.Reader;
 import java.util.Arrays;
 import java.util.List;
@@ -86,12 +87,37 @@ public final class KoreanAnalyzer extends Analyzer {
 	}
 	
 	public TokenStream tokenStream(String fieldName, Reader reader) {
-		final KoreanTokenizer src = new KoreanTokenizer(matchVersion, reader);
-		TokenStream tok = new KoreanFilter(src, bigrammable, hasOrigin);
-		tok = new LowerCaseFilter(matchVersion, tok);
+		return createStreams(reader).result;
+	}
+
+	/**
+	 * 스레드별로 저장된 토큰스트림을 재사용한다.
+	 * 토크나이저에 새로운 Reader만 지정하고, 토크나이저와 필터(형태소 분석기 포함)는 다시 만들지 않는다.
+	 */
+	@Override
+	public TokenStream reusableTokenStream(String fieldName, Reader reader) throws IOException {
+		SavedStreams streams = (SavedStreams)getPreviousTokenStream();
+
+		if(streams == null) {
+			streams = createStreams(reader);
+			setPreviousTokenStream(streams);
+		} else {
+			streams.source.reset(reader);
+			streams.filter.setBigrammable(bigrammable);
+			streams.filter.setHasOrigin(hasOrigin);
+		}
+
+		return streams.result;
+	}
+
+	private SavedStreams createStreams(Reader reader) {
+		SavedStreams streams = new SavedStreams();
+		streams.source = new KoreanTokenizer(matchVersion, reader);
+		streams.filter = new KoreanFilter(streams.source, bigrammable, hasOrigin);
+		TokenStream tok = new LowerCaseFilter(matchVersion, streams.filter);
 		tok = new StopFilter(matchVersion, tok, stopWordsSet);
-		tok = new SnowballFilter(tok);
-		return tok;
+		streams.result = new SnowballFilter(tok);
+		return streams;
 	}
 
 	/**
@@ -116,9 +142,33 @@ public final class KoreanAnalyzer extends Analyzer {
 		logger.trace("KoreanAnalyzer.dictionaryLocation: {}", KoreanAnalyzer.dictionaryLocation);
 	}
 
+	/**
+	 * 어절별 색인어 캐시의 스레드별 최대 항목 수를 지정한다. 0 이하이면 캐시를 사용하지 않는다.
+	 * 캐시는 모든 KoreanAnalyzer가 함께 사용하므로 분석기 인스턴스가 아닌 클래스에 지정한다.
+	 * @param keywordCacheSize
+	 * @see KeywordCache#setMaxEntries(int)
+	 */
+	public static void setKeywordCacheSize(int keywordCacheSize) {
+		KeywordCache.setMaxEntries(keywordCacheSize);
+		logger.trace("KeywordCache.maxEntries: {}", keywordCacheSize);
+	}
+
 	public static void setCharacterEncoding(String characterEncoding) {
 		KoreanAnalyzer.characterEncoding = characterEncoding;
 		logger.trace("KoreanAnalyzer.characterEncoding: {}", KoreanAnalyzer.characterEncoding);
 	}
-	
+
+	/**
+	 * 스레드별로 재사용하는 토큰스트림.
+	 */
+	private static final class SavedStreams {
+
+		private KoreanTokenizer source;
+
+		private KoreanFilter filter;
+
+		private TokenStream result;
+
+	}
+
 }
@@ -19,20 +19,19 @@ package org.jhlabs.scany.engine.analysis.kr;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
-import org.apache.lucene.analysis.Token;
 import org.apache.lucene.analysis.TokenFilter;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
 import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
 import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.jhlabs.scany.engine.analysis.kr.KeywordCache.Keywords;
 import org.jhlabs.scany.engine.analysis.kr.dic.Dictionary;
+import org.jhlabs.scany.engine.analysis.kr.dic.DictionaryInstance;
 import org.jhlabs.scany.engine.analysis.kr.ma.AnalysisOutput;
 import org.jhlabs.scany.engine.analysis.kr.ma.CompoundEntry;
 import org.jhlabs.scany.engine.analysis.kr.ma.MorphAnalyzer;
@@ -46,10 +45,6 @@ public class KoreanFilter extends TokenFilter {
 
 	private static final Logger logger = LoggerFactory.getLogger(KoreanFilter.class);
 
-	private LinkedList<Token> koreanQueue;
-
-	private LinkedList<Token> cjQueue;
-
 	private MorphAnalyzer morph;
 
 	WordSpaceAnalyzer wsAnal;
@@ -62,6 +57,29 @@ public class KoreanFilter extends TokenFilter {
 
 	private static final String ACRONYM_TYPE = KoreanTokenizerImpl.TOKEN_TYPES[KoreanTokenizerImpl.ACRONYM];
 
+	private static final String KOREAN_TYPE = KoreanTokenizer.TOKEN_TYPES[KoreanTokenizer.KOROREAN];
+
+	private static final String CJ_TYPE = KoreanTokenizer.TOKEN_TYPES[KoreanTokenizer.CJ];
+
+	private static final Keywords EMPTY_KEYWORDS = new Keywords("", new String[0]);
+
+	/** 아직 내보내지 않은 색인어 목록 */
+	private Keywords pendingKeywords;
+
+	/** 다음에 내보낼 색인어 번호 */
+	private int pendingIndex;
+
+	/** 색인어를 추출한 어절의 시작, 끝 위치 */
+	private int eojeolStartOffset, eojeolEndOffset;
+
+	/** 첫번째 색인어의 위치 증가값 */
+	private int eojeolPositionIncrement;
+
+	/** 아직 내보내지 않은 한자어의 한글 독음 */
+	private String pendingCJWord;
+
+	private int pendingCJEndOffset;
+
 	// this filters uses attribute type
 	private TypeAttribute typeAtt;
 
@@ -73,8 +91,6 @@ public class KoreanFilter extends TokenFilter {
 
 	public KoreanFilter(TokenStream input) {
 		super(input);
-		koreanQueue = new LinkedList<Token>();
-		cjQueue = new LinkedList<Token>();
 		morph = new MorphAnalyzer();
 		wsAnal = new WordSpaceAnalyzer();
 
@@ -131,21 +147,6 @@ public class KoreanFilter extends TokenFilter {
 	 * return null; }
 	 */
 
-	private void updateFromToken(Token token, CharTermAttribute term, TypeAttribute type, OffsetAttribute offset,
-			PositionIncrementAttribute posInc) {
-		if(token == null)
-			return;
-		if(termAtt != null) {
-			termAtt.copyBuffer(token.buffer(), 0, token.length());
-		}
-		if(typeAtt != null)
-			typeAtt.setType(token.type());
-		if(offsetAtt != null)
-			offsetAtt.setOffset(token.startOffset(), token.endOffset());
-		if(posIncrAtt != null)
-			posIncrAtt.setPositionIncrement(token.getPositionIncrement());
-	}
-
 	/**
 	 * Returns the next token in the stream, or null at EOS.
 	 * <p>
@@ -157,27 +158,30 @@ public class KoreanFilter extends TokenFilter {
 	public final boolean incrementToken() throws java.io.IOException {
 		this.clearAttributes();
 
-		if(koreanQueue.size() > 0) {
-			Token token = koreanQueue.removeFirst();
-			updateFromToken(token, termAtt, typeAtt, offsetAtt, posIncrAtt);
-			logger.debug("KoreanFilter::incrementToken() by queue term:{}", token);
-			return (token != null);
-		} else if(cjQueue.size() > 0) {
-			Token token = cjQueue.removeFirst();
-			updateFromToken(token, termAtt, typeAtt, offsetAtt, posIncrAtt);
-			logger.debug("KoreanFilter::incrementToken() term:{}", token);
-			return (token != null);
+		if(pendingKeywords != null) {
+			emitKeyword();
+			logger.debug("KoreanFilter::incrementToken() by queue term:{}", termAtt);
+			return true;
+		} else if(pendingCJWord != null) {
+			emitCJWord();
+			logger.debug("KoreanFilter::incrementToken() term:{}", termAtt);
+			return true;
 		}
 		boolean result = false;
 
 		int skippedPositions = 0;
 
+		// 하나의 토큰을 분석하는 동안 같은 사전을 사용한다.
+		DictionaryInstance pinned = Dictionary.pin();
+
 		try {
 			while(input.incrementToken()) {
-				if(typeAtt.type().equals(KoreanTokenizer.TOKEN_TYPES[KoreanTokenizer.KOROREAN])) {
+				String type = typeAtt.type();
+
+				if(type.equals(KOREAN_TYPE)) {
 					result = analysisKorean(skippedPositions);
-				} else if(typeAtt.type().equals(KoreanTokenizer.TOKEN_TYPES[KoreanTokenizer.CJ])) {
-					result = analysisCJ(skippedPositions);
+				} else if(type.equals(CJ_TYPE)) {
+					result = analysisCJ();
 				} else {
 					result = analysisETC();
 				}
@@ -194,33 +198,94 @@ public class KoreanFilter extends TokenFilter {
 		} catch(MorphException e) {
 			logger.debug("{}", e.getMessage(), e);
 			throw new IOException(e.getMessage());
+		} finally {
+			Dictionary.unpin(pinned);
 		}
 
 		return false;
 	}
 
+	@Override
+	public void reset() throws IOException {
+		super.reset();
+		pendingKeywords = null;
+		pendingCJWord = null;
+	}
+
 	/**
 	 * 한글을 분석한다.
+	 * 추출한 색인어 중 첫번째 색인어를 현재 토큰으로 내보내고, 나머지는 다음 호출에서 차례로 내보낸다.
 	 *
-	 * @param token
 	 * @param skipinc
 	 * @return
 	 * @throws MorphException
 	 */
-	@SuppressWarnings("unchecked")
 	private boolean analysisKorean(int skipinc) throws MorphException {
-		String input = termAtt.toString();
+		Keywords keywords = KeywordCache.get(termAtt.buffer(), termAtt.length(), hasOrigin, bigrammable);
+
+		if(keywords == null) {
+			String input = termAtt.toString();
+			keywords = extractKeywords(input);
+			KeywordCache.put(input, hasOrigin, bigrammable, keywords);
+		}
+
+		if(keywords.size() == 0)
+			return false;
+
+		pendingKeywords = keywords;
+		pendingIndex = 0;
+		eojeolStartOffset = offsetAtt.startOffset();
+		eojeolEndOffset = offsetAtt.endOffset();
+		eojeolPositionIncrement = posIncrAtt.getPositionIncrement() + skipinc;
+
+		emitKeyword();
+
+		return true;
+	}
+
+	/**
+	 * 다음 색인어를 현재 토큰의 속성에 기록한다.
+	 * 토큰 객체를 만들지 않고 캐시된 색인어 목록에서 바로 복사한다.
+	 */
+	private void emitKeyword() {
+		String text = pendingKeywords.getText(pendingIndex);
+		int index = pendingKeywords.getOffset(pendingIndex);
+
+		termAtt.setEmpty().append(text);
+		typeAtt.setType(KOREAN_TYPE);
+
+		if(index != -1)
+			offsetAtt.setOffset(eojeolStartOffset + index, eojeolStartOffset + index + text.length());
+		else
+			offsetAtt.setOffset(eojeolStartOffset, eojeolEndOffset);
+
+		posIncrAtt.setPositionIncrement(pendingIndex == 0 ? eojeolPositionIncrement : 0);
+
+		if(++pendingIndex == pendingKeywords.size())
+			pendingKeywords = null;
+	}
+
+	/**
+	 * 어절을 형태소 분석해서 색인어 목록을 추출한다.
+	 * 한 글자 색인어는 제외하며, 추출한 색인어가 없으면 빈 목록을 반환한다.
+	 *
+	 * @param input 어절
+	 * @return 색인어 목록
+	 * @throws MorphException
+	 */
+	@SuppressWarnings("unchecked")
+	private Keywords extractKeywords(String input) throws MorphException {
 		List<AnalysisOutput> outputs = morph.analyze(input);
 
 		if(outputs.size() == 0)
-			return false;
+			return EMPTY_KEYWORDS;
 
-		Map<String, Integer> map = new HashMap<String, Integer>();
+		Set<String> set = new HashSet<String>();
 		if(hasOrigin)
-			map.put(input, new Integer(1));
+			set.add(input);
 
 		if(outputs.get(0).getScore() == AnalysisOutput.SCORE_CORRECT) {
-			extractKeyword(outputs, map);
+			extractKeyword(outputs, set);
 		} else {
 			List<AnalysisOutput> list = wsAnal.analyze(input);
 
@@ -228,55 +293,32 @@ public class KoreanFilter extends TokenFilter {
 			if(list.size() > 1) {
 				for(AnalysisOutput o : list) {
 					if(hasOrigin)
-						map.put(o.getSource(), new Integer(1));
+						set.add(o.getSource());
 					results.addAll(morph.analyze(o.getSource()));
 				}
 			} else {
 				results.addAll(list);
 			}
 
-			extractKeyword(results, map);
+			extractKeyword(results, set);
 		}
 
-		Iterator<String> iter = map.keySet().iterator();
-		int i = 0;
-		Token token = null;
-		while(iter.hasNext()) {
-
-			String text = iter.next();
-
-			if(text.length() <= 1)
-				continue;
-
-			int index = input.indexOf(text);
-			token = new Token(text, offsetAtt.startOffset() + (index != -1 ? index : 0),
-					index != -1 ? offsetAtt.startOffset() + index + text.length() : offsetAtt.endOffset(),
-					KoreanTokenizer.TOKEN_TYPES[KoreanTokenizer.KOROREAN]);
-			if(i == 0)
-				token.setPositionIncrement(posIncrAtt.getPositionIncrement() + skipinc);
-			else
-				token.setPositionIncrement(0);
-			koreanQueue.add(token);
-			i++;
-
-			logger.debug("analysisKorean(), token:{}", token);
+		List<String> texts = new ArrayList<String>(set.size());
+		for(String text : set) {
+			if(text.length() > 1)
+				texts.add(text);
 		}
 
-		logger.debug("analysisKorean(), koreanQueue:{}", koreanQueue);
-
-		if(koreanQueue.size() == 0)
-			return false;
+		if(texts.size() == 0)
+			return EMPTY_KEYWORDS;
 
-		token = koreanQueue.removeFirst();
-		this.updateFromToken(token, termAtt, typeAtt, offsetAtt, posIncrAtt);
-
-		return true;
+		return new Keywords(input, texts.toArray(new String[texts.size()]));
 	}
 
-	private void extractKeyword(List<AnalysisOutput> outputs, Map<String, Integer> map) throws MorphException {
+	private void extractKeyword(List<AnalysisOutput> outputs, Set<String> set) throws MorphException {
 		for(AnalysisOutput output : outputs) {
 			if(output.getPos() != PatternConstants.POS_VERB) {
-				map.put(output.getStem(), new Integer(1));
+				set.add(output.getStem());
 			}
 
 			if(output.getScore() >= AnalysisOutput.SCORE_COMPOUNDS) {
@@ -284,60 +326,59 @@ public class KoreanFilter extends TokenFilter {
 				for(int jj = 0; jj < cnouns.size(); jj++) {
 					CompoundEntry cnoun = cnouns.get(jj);
 					if(cnoun.getWord().length() > 1)
-						map.put(cnoun.getWord(), new Integer(0));
+						set.add(cnoun.getWord());
 					if(jj == 0 && cnoun.getWord().length() == 1)
-						map.put(cnoun.getWord() + cnouns.get(jj + 1).getWord(), new Integer(0));
+						set.add(cnoun.getWord() + cnouns.get(jj + 1).getWord());
 					else if(jj > 1 && cnoun.getWord().length() == 1)
-						map.put(cnouns.get(jj).getWord() + cnoun.getWord(), new Integer(0));
+						set.add(cnouns.get(jj).getWord() + cnoun.getWord());
 				}
 			} else if(bigrammable) {
-				addBiagramToMap(output.getStem(), map);
+				addBiagramToSet(output.getStem(), set);
 			}
 		}
 
-		logger.debug("extractKeyword(), outputs:{}\r\n, map:{}", outputs, map);
+		logger.debug("extractKeyword(), outputs:{}\r\n, set:{}", outputs, set);
 	}
 
-	private void addBiagramToMap(String input, Map<String, Integer> map) {
+	private void addBiagramToSet(String input, Set<String> set) {
 		int offset = 0;
 		int strlen = input.length();
 		while(offset < strlen - 1) {
 			if(isAlphaNumChar(input.charAt(offset))) {
-				String text = findAlphaNumeric(input.substring(offset));
-				map.put(text, new Integer(0));
-				offset += text.length();
+				int end = offset + 1;
+				while(end < strlen && isAlphaNumChar(input.charAt(end)))
+					end++;
+				set.add(input.substring(offset, end));
+				offset = end;
 			} else {
-				String text = input.substring(offset, offset + 2 > strlen ? strlen : offset + 2);
-				map.put(text, new Integer(0));
+				set.add(input.substring(offset, offset + 2));
 				offset++;
 			}
 		}
 	}
 
-	private String findAlphaNumeric(String text) {
-		int pos = 0;
-		for(int i = 0; i < text.length(); i++) {
-			if(!isAlphaNumChar(text.charAt(i)))
-				break;
-			pos++;
-		}
-		return text.substring(0, pos);
-	}
-
-	private boolean analysisCJ(int skipinc) throws MorphException {
-		String input = termAtt.toString();
-		Token t = new Token(input, 0, offsetAtt.endOffset(), KoreanTokenizer.TOKEN_TYPES[KoreanTokenizer.CJ]);
-		t.setPositionIncrement(posIncrAtt.getPositionIncrement() + skipinc);
-		cjQueue.add(t);
-
-		String kor = Dictionary.getCJWord(input);
+	/**
+	 * 한자어는 원래 토큰을 그대로 내보내고, 사전에 한글 독음이 있으면 다음 호출에서 같은 위치로 내보낸다.
+	 *
+	 * @return
+	 * @throws MorphException
+	 */
+	private boolean analysisCJ() throws MorphException {
+		String kor = Dictionary.getCJWord(termAtt.toString());
 		if(kor != null) {
-			Token t1 = new Token(kor, 0, offsetAtt.endOffset(), KoreanTokenizer.TOKEN_TYPES[KoreanTokenizer.CJ]);
-			t1.setPositionIncrement(0);
-			cjQueue.add(t1);
+			pendingCJWord = kor;
+			pendingCJEndOffset = offsetAtt.endOffset();
 		}
 
-		return (cjQueue.removeFirst() != null);
+		return true;
+	}
+
+	private void emitCJWord() {
+		termAtt.setEmpty().append(pendingCJWord);
+		typeAtt.setType(CJ_TYPE);
+		offsetAtt.setOffset(0, pendingCJEndOffset);
+		posIncrAtt.setPositionIncrement(0);
+		pendingCJWord = null;
 	}
 
 	/*
@@ -389,4 +430,8 @@ public class KoreanFilter extends TokenFilter {
 	public void setHasOrigin(boolean has) {
 		hasOrigin = has;
 	}
+
+	public void setBigrammable(boolean bigrammable) {
+		this.bigrammable = bigrammable;
+	}
 }
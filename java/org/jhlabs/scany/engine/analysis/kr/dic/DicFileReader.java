@@ -21,6 +21,9 @@ import org.jhlabs.scany.util.Resources;
 public class DicFileReader {
 
 	private static final String COMMENT_SYMBOL = "//";
+
+	/** UTF-8 사전 파일의 첫 줄에 있을 수 있는 BOM(Byte Order Mark) */
+	private static final char BYTE_ORDER_MARK = '\uFEFF';
 	
 	private BufferedReader br = null;
 
@@ -38,6 +41,10 @@ public class DicFileReader {
 		if(line == null)
 			return null;
 		
+		// BOM이 남아 있으면 첫 줄의 주석을 알아보지 못하고 단어나 음절 특성으로 읽게 된다.
+		if(line.length() > 0 && line.charAt(0) == BYTE_ORDER_MARK)
+			line = line.substring(1);
+		
 		line = line.trim();
 		
 		if(line.length() == 0 || line.startsWith(COMMENT_SYMBOL))
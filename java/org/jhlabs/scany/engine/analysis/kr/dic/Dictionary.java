@@ -17,93 +17,237 @@ package org.jhlabs.scany.engine.analysis.kr.dic;
  * limitations under the License.
  */
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import org.jhlabs.scany.engine.analysis.kr.KoreanAnalyzer;
 import org.jhlabs.scany.engine.analysis.kr.ma.MorphException;
 import org.jhlabs.scany.engine.analysis.kr.ma.WordEntry;
-import org.jhlabs.scany.engine.analysis.kr.util.Trie;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * 한글 형태소 분석에 사용하는 사전.
+ * 
+ * <pre>
+ * 사전 데이터는 변경되지 않는 DictionaryInstance(스냅샷)에 있으며 하나의 volatile 참조로 공개된다.
+ * 사전을 다시 읽을 때에는 새로운 DictionaryInstance를 모두 만든 후에 참조만 교체하므로
+ * 분석 중인 스레드는 잠금 없이 이전 사전 또는 새로운 사전 중 하나를 온전하게 사용한다.
+ * 
+ * 하나의 어절을 분석하는 동안 같은 사전을 사용하도록 분석기는 pin()/unpin()으로 현재 스레드에 사전을 고정한다.
+ * 
+ *   DictionaryInstance pinned = Dictionary.pin();
+ *   try {
+ *       ...
+ *   } finally {
+ *       Dictionary.unpin(pinned);
+ *   }
+ * 
+ * 사용자 사전(UserDictionary)의 단어는 단어사전에 덧씌워진다. 사용자 사전을 변경하면 단어사전만 교체한 새로운 사전을
+ * 공개하므로 전체 사전을 다시 읽지 않는다. 사전 디렉토리가 지정되어 있으면 사용자 사전은 그 디렉토리의 user.dic에 저장된다.
+ * </pre>
+ */
 public class Dictionary {
 
 	private static final Logger logger = LoggerFactory.getLogger(Dictionary.class);
 
-	private static String dictionaryLocation;
+	private static final Object reloadLock = new Object();
 
-	private static String characterEncoding;
+	private static final ThreadLocal<DictionaryInstance> pinnedInstance = new ThreadLocal<DictionaryInstance>();
 
-	private static DictionaryInstance instance;
+	private static volatile DictionaryInstance instance;
 
-	private static boolean isLoading;
+	/** 사용자 사전, reloadLock으로 보호된다. */
+	private static UserDictionary userDictionary;
 
-	private static List<char[]> syllables;
+	static {
+		userDictionary = loadUserDictionary();
+		instance = load();
+	}
 
-	private static Trie<String, WordEntry> words;
+	private static DictionaryInstance load() {
+		String dictionaryLocation = KoreanAnalyzer.dictionaryLocation;
+		String characterEncoding = KoreanAnalyzer.characterEncoding;
+		logger.trace("Dictionary.dictionaryLocation: {}", dictionaryLocation);
+		logger.trace("Dictionary.characterEncoding: {}", characterEncoding);
+		DictionaryInstance base = new DictionaryInstance(dictionaryLocation, characterEncoding);
+		return base.withWords(userDictionary.applyTo(base.getWords()));
+	}
 
-	private static Set<String> josas;
+	private static UserDictionary loadUserDictionary() {
+		String dictionaryLocation = KoreanAnalyzer.dictionaryLocation;
 
-	private static Set<String> eomis;
+		if(dictionaryLocation == null || dictionaryLocation.length() == 0)
+			return new UserDictionary();
 
-	private static Set<String> prefixs;
+		File file = new File(dictionaryLocation, DictionaryInstance.USER_WORDS_DIC);
 
-	private static Set<String> suffixs;
+		try {
+			return new UserDictionary(file, KoreanAnalyzer.characterEncoding);
+		} catch(IOException e) {
+			logger.error("User dictionary loading failed. An empty user dictionary is used: " + file, e);
+			return new UserDictionary();
+		}
+	}
 
-	private static Map<String, WordEntry> uncompounds;
+	/**
+	 * 사전을 다시 읽는다.
+	 * 새로운 사전을 모두 읽은 후에 교체하며, 읽는 동안에도 분석은 이전 사전으로 계속된다.
+	 * 읽기에 실패하면 이전 사전을 그대로 사용한다.
+	 */
+	public static void reload() {
+		synchronized(reloadLock) {
+			logger.info("Dictionary reloading.");
 
-	private static Map<String, String> cjwords;
+			try {
+				instance = load();
+			} catch(RuntimeException e) {
+				logger.error("Dictionary reloading failed. The current dictionary is kept.", e);
+			}
+		}
+	}
 
-	static {
-		if(!isLoading && instance == null) {
-			isLoading = true;
-			load();
-			isLoading = false;
+	/**
+	 * 사용자 사전에 단어를 추가하고 새로운 사전을 공개한다. 이미 있는 단어이면 단어특성을 변경한다.
+	 * 
+	 * @param word 단어
+	 * @param features 단어특성, 예) 일반 명사는 UserDictionary.NOUN_FEATURES
+	 * @throws IOException 사용자 사전을 저장하지 못한 경우, 사전은 변경되지 않는다.
+	 */
+	public static void addUserWord(String word, String features) throws IOException {
+		synchronized(reloadLock) {
+			userDictionary.addWord(word, features);
+			publishWords(instance.getWords().withUserWord(word, features.toCharArray()));
+		}
+	}
+
+	/**
+	 * 사용자 사전에 명사를 추가한다.
+	 * 
+	 * @param word 명사
+	 * @throws IOException 사용자 사전을 저장하지 못한 경우, 사전은 변경되지 않는다.
+	 */
+	public static void addUserNoun(String word) throws IOException {
+		addUserWord(word, UserDictionary.NOUN_FEATURES);
+	}
+
+	/**
+	 * 사용자 사전에서 단어를 삭제하고 새로운 사전을 공개한다. 단어사전에 있는 단어도 없는 것으로 처리된다.
+	 * 
+	 * @param word 단어
+	 * @throws IOException 사용자 사전을 저장하지 못한 경우, 사전은 변경되지 않는다.
+	 */
+	public static void removeUserWord(String word) throws IOException {
+		synchronized(reloadLock) {
+			userDictionary.removeWord(word);
+			publishWords(instance.getWords().withoutUserWord(word));
 		}
 	}
 
-	private static void load() {
-		isLoading = true;
-		dictionaryLocation = KoreanAnalyzer.dictionaryLocation;
-		characterEncoding = KoreanAnalyzer.characterEncoding;
-		logger.trace("Dictionary.dictionaryLocation: {}", Dictionary.dictionaryLocation);
-		logger.trace("Dictionary.characterEncoding: {}", Dictionary.characterEncoding);
-		instance = new DictionaryInstance(dictionaryLocation, characterEncoding);
-		syllables = instance.getSyllables();
-		words = instance.getWords();
-		josas = instance.getJosas();
-		eomis = instance.getEomis();
-		prefixs = instance.getPrefixs();
-		suffixs = instance.getSuffixs();
-		uncompounds = instance.getUncompounds();
-		cjwords = instance.getCjwords();
+	/**
+	 * 사용자 사전을 교체한다. 예를 들어 다른 파일의 사용자 사전을 사용할 때 호출한다.
+	 * 
+	 * @param userDictionary 사용자 사전
+	 */
+	public static void setUserDictionary(UserDictionary userDictionary) {
+		synchronized(reloadLock) {
+			Dictionary.userDictionary = userDictionary;
+			publishUserDictionary();
+		}
 	}
 
-	public static void reload() {
-		if(!isLoading && instance != null) {
-			logger.info("Dictionary reloading.");
-			isLoading = true;
-			instance.clear();
-			instance = null;
-			load();
-			isLoading = false;
-		} else {
-			logger.error("Dictionary reloading failed.");
+	public static UserDictionary getUserDictionary() {
+		synchronized(reloadLock) {
+			return userDictionary;
 		}
 	}
 
-	public static Iterator findWithPrefix(String prefix) {
-		return words.getPrefixedBy(prefix);
+	/**
+	 * 현재 사전의 단어사전에 사용자 사전을 다시 덧씌워서 공개한다. FST와 나머지 사전 데이터는 공유한다.
+	 */
+	private static void publishUserDictionary() {
+		publishWords(userDictionary.applyTo(instance.getWords()));
+	}
+
+	/**
+	 * 현재 사전의 단어사전만 교체해서 공개한다.
+	 * 단어 하나를 변경할 때에는 사용자 사전 전체를 다시 덧씌우지 않고 변경한 단어만 적용한 단어사전을 전달한다.
+	 */
+	private static void publishWords(WordDictionary words) {
+		instance = instance.withWords(words);
+		logger.debug("User dictionary published. {} words", words.size());
+	}
+
+	/**
+	 * 현재 스레드에 고정된 사전, 고정된 사전이 없으면 현재 사전을 반환한다.
+	 * 
+	 * @return DictionaryInstance
+	 */
+	public static DictionaryInstance getInstance() {
+		DictionaryInstance pinned = pinnedInstance.get();
+
+		return (pinned != null) ? pinned : instance;
+	}
+
+	/**
+	 * 현재 사전을 현재 스레드에 고정한다. 이미 고정된 사전이 있으면 그대로 사용한다.
+	 * 반환값은 unpin()에 그대로 전달해야 한다.
+	 * 
+	 * @return 이미 고정되어 있던 사전, 없으면 null
+	 */
+	public static DictionaryInstance pin() {
+		DictionaryInstance pinned = pinnedInstance.get();
+
+		if(pinned == null)
+			pinnedInstance.set(instance);
+
+		return pinned;
+	}
+
+	/**
+	 * pin()으로 고정한 사전을 해제한다. 중첩된 pin()의 경우에는 가장 바깥쪽에서만 해제된다.
+	 * 
+	 * @param pinned pin()의 반환값
+	 */
+	public static void unpin(DictionaryInstance pinned) {
+		if(pinned == null)
+			pinnedInstance.remove();
+	}
+
+	public static Iterator<WordEntry> findWithPrefix(String prefix) {
+		return getInstance().getWords().getPrefixedBy(prefix);
+	}
+
+	/**
+	 * 주어진 접두어로 시작하는 단어가 있는지 확인한다.
+	 * findWithPrefix(prefix).hasNext()와 같지만 단어를 꺼내지 않는다.
+	 * 
+	 * @param prefix 접두어
+	 * @return
+	 */
+	public static boolean existWordPrefix(String prefix) {
+		return getInstance().getWords().existPrefix(prefix);
+	}
+
+	/**
+	 * 문자열의 start 위치에서 시작하는 단어들의 끝 위치를 찾는다.
+	 * 
+	 * @param text 문자열
+	 * @param start 단어의 시작 위치
+	 * @param end 단어를 찾을 끝 위치(exclusive)
+	 * @param ends 찾은 단어의 끝 위치(exclusive)를 짧은 단어부터 기록할 배열
+	 * @return 찾은 단어의 수
+	 */
+	public static int findWords(CharSequence text, int start, int end, int[] ends) {
+		return getInstance().getWords().findWords(text, start, end, ends);
 	}
 
 	public static WordEntry getWord(String key) {
 		if(key.length() == 0)
 			return null;
 
-		return (WordEntry)words.get(key);
+		return getInstance().getWords().get(key);
 	}
 
 	public static WordEntry getWordExceptVerb(String key) {
@@ -198,44 +342,45 @@ public class Dictionary {
 	}
 
 	public static WordEntry getUncompound(String key) {
-		return uncompounds.get(key);
+		return getInstance().getUncompounds().get(key);
 	}
 
 	public static String getCJWord(String key) {
-		return cjwords.get(key);
+		return getInstance().getCjwords().get(key);
 	}
 
 	public static boolean existJosa(String str) {
-		return josas.contains(str);
+		return getInstance().getJosas().contains(str);
 	}
 
 	public static boolean existEomi(String str) {
-		return eomis.contains(str);
+		return getInstance().getEomis().contains(str);
 	}
 
 	public static boolean existPrefix(String str) {
-		return prefixs.contains(str);
+		return getInstance().getPrefixs().contains(str);
 	}
 
 	public static boolean existSuffix(String str) {
-		return suffixs.contains(str);
+		return getInstance().getSuffixs().contains(str);
 	}
 
 	/**
 	 * 인덱스 값에 해당하는 음절의 특성을 반환한다.
-	 * 영자 또는 숫자일 경우는 모두 해당이 안되므로 가장 마지막 글자인 '힣' 의 음절특성을 반환한다.
+	 * 영자 또는 숫자일 경우는 모두 해당이 안되므로 음절특성 사전의 마지막 음절특성을 반환한다.
+	 * 음절특성은 SyllableRule의 인덱스 위치의 비트로 표시되며 SyllableRule.hasFeature()로 확인한다.
 	 * 
 	 * @param idx '가'(0xAC00)이 0부터 유니코드에 의해 한글음절을 순차적으로 나열한 값
 	 * @return
 	 * @throws Exception 
 	 */
-	public static char[] getSyllableFeature(int idx) throws MorphException {
-		if(idx < 0)
-			return syllables.get(syllables.size() - 1);
-		else if(idx < syllables.size())
-			return syllables.get(idx);
+	public static long getSyllableFeature(int idx) throws MorphException {
+		long[] syllables = getInstance().getSyllables();
+
+		if(idx >= 0 && idx < syllables.length)
+			return syllables[idx];
 
-		return syllables.get(syllables.size() - 1);
+		return syllables[syllables.length - 1];
 	}
 
 	/**
@@ -244,7 +389,7 @@ public class Dictionary {
 	 * @return
 	 * @throws Exception 
 	 */
-	public static char[] getSyllableFeature(char syl) throws MorphException {
+	public static long getSyllableFeature(char syl) throws MorphException {
 		int idx = syl - 0xAC00;
 		return getSyllableFeature(idx);
 	}
@@ -0,0 +1,51 @@
+/**
+ *
+ */
+package org.jhlabs.scany.engine.analysis.kr.dic;
+
+import java.io.File;
+
+import org.jhlabs.scany.util.Timer;
+
+/**
+ * 텍스트 사전 파일들을 컴파일해서 사전 이미지(DictionaryImage)를 만든다.
+ *
+ * <pre>
+ * 사용법: java org.jhlabs.scany.engine.analysis.kr.dic.DictionaryCompiler &lt;output&gt; [dictionaryLocation] [encoding]
+ *
+ * dictionaryLocation을 생략하면 dic.properties에 지정된 클래스패스의 사전 파일을 사용한다.
+ * 만든 이미지를 사전 디렉토리에 DictionaryInstance.DICTIONARY_IMAGE 이름으로 두면
+ * 텍스트 사전 대신 이미지를 읽는다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class DictionaryCompiler {
+
+	public static void compile(String dictionaryLocation, String encoding, File output) throws Exception {
+		DictionaryInstance instance = new DictionaryInstance(dictionaryLocation, encoding, false);
+
+		Timer timer = new Timer();
+		timer.start();
+		DictionaryImage.write(instance, output);
+		timer.stop("Dictionary Image Writing Time(" + output.getAbsolutePath() + ", " + output.length() + " bytes)");
+	}
+
+	public static void main(String argv[]) {
+		if(argv.length < 1) {
+			System.out.println("Usage: java " + DictionaryCompiler.class.getName() + " <output> [dictionaryLocation] [encoding]");
+			return;
+		}
+
+		String dictionaryLocation = (argv.length > 1) ? argv[1] : null;
+		String encoding = (argv.length > 2) ? argv[2] : null;
+
+		try {
+			compile(dictionaryLocation, encoding, new File(argv[0]));
+		} catch(Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+}
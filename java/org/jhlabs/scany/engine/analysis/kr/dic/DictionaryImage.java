@@ -0,0 +1,281 @@
+/**
+ *
+ */
+package org.jhlabs.scany.engine.analysis.kr.dic;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.store.OutputStreamDataOutput;
+import org.jhlabs.scany.engine.analysis.kr.ma.CompoundEntry;
+import org.jhlabs.scany.engine.analysis.kr.ma.WordEntry;
+
+/**
+ * 컴파일된 사전 이미지.
+ *
+ * <pre>
+ * 텍스트 사전 파일들을 하나의 바이너리 파일로 저장한 것이다.
+ * 음절특성, 단어사전(FST), 복합명사 예외, 조사, 어미, 접두사, 접미사, 한자 사전을 아래 순서대로 저장하며,
+ * 읽을 때에도 같은 순서대로 읽어야 한다.
+ *
+ *   header    : MAGIC(string), VERSION(int)
+ *   syllables : count(vint), features(long)...
+ *   words     : WordDictionary.save()
+ *   uncompounds, josas, eomis, prefixs, suffixs, cjwords
+ *   trailer   : TRAILER(int)
+ *
+ * 파일은 메모리에 매핑(memory-mapped)해서 읽으므로 텍스트 파싱과 FST 컴파일을 하지 않는다.
+ * 형식이 바뀌면 VERSION을 올려야 하며, 버전이 다른 이미지는 사용하지 않는다.
+ * </pre>
+ *
+ * @author Gulendol
+ *
+ * @see DictionaryCompiler
+ */
+public class DictionaryImage {
+
+	public static final String MAGIC = "SCANY-KR-DIC";
+
+	public static final int VERSION = 4;
+
+	private static final int TRAILER = 0x5343414E;
+
+	private final DataInput in;
+
+	private DictionaryImage(ByteBuffer buffer) throws IOException {
+		this.in = new ByteBufferDataInput(buffer);
+
+		String magic = in.readString();
+
+		if(!MAGIC.equals(magic))
+			throw new IOException("Not a dictionary image: " + magic);
+
+		int version = in.readInt();
+
+		if(version != VERSION)
+			throw new IOException("Unsupported dictionary image version: " + version + " (expected " + VERSION + ")");
+	}
+
+	/**
+	 * 사전 이미지 파일을 메모리에 매핑한다.
+	 *
+	 * @param file 사전 이미지 파일
+	 * @return DictionaryImage
+	 * @throws IOException 사전 이미지가 아니거나 버전이 다른 경우
+	 */
+	public static DictionaryImage open(File file) throws IOException {
+		FileInputStream fis = new FileInputStream(file);
+
+		try {
+			FileChannel channel = fis.getChannel();
+
+			return new DictionaryImage(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} finally {
+			fis.close();
+		}
+	}
+
+	/**
+	 * 클래스패스 리소스처럼 매핑할 수 없는 사전 이미지를 읽는다.
+	 *
+	 * @param is InputStream
+	 * @return DictionaryImage
+	 * @throws IOException 사전 이미지가 아니거나 버전이 다른 경우
+	 */
+	public static DictionaryImage open(InputStream is) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024 * 1024);
+		byte[] buffer = new byte[8192];
+		int len;
+
+		while((len = is.read(buffer)) != -1) {
+			bytes.write(buffer, 0, len);
+		}
+
+		return new DictionaryImage(ByteBuffer.wrap(bytes.toByteArray()));
+	}
+
+	public long[] readSyllables() throws IOException {
+		long[] syllables = new long[in.readVInt()];
+
+		for(int i = 0; i < syllables.length; i++) {
+			syllables[i] = in.readLong();
+		}
+
+		return syllables;
+	}
+
+	public WordDictionary readWords() throws IOException {
+		return WordDictionary.load(in);
+	}
+
+	public void readUncompounds(Map<String, WordEntry> uncompounds) throws IOException {
+		int count = in.readVInt();
+
+		for(int i = 0; i < count; i++) {
+			WordEntry entry = new WordEntry(in.readString(), in.readString().toCharArray());
+			entry.setCompounds(readCompounds(in));
+			uncompounds.put(entry.getWord(), entry);
+		}
+	}
+
+	public void readSet(Set<String> set) throws IOException {
+		int count = in.readVInt();
+
+		for(int i = 0; i < count; i++) {
+			set.add(in.readString());
+		}
+	}
+
+	public void readMap(Map<String, String> map) throws IOException {
+		int count = in.readVInt();
+
+		for(int i = 0; i < count; i++) {
+			map.put(in.readString(), in.readString());
+		}
+	}
+
+	/**
+	 * 모든 항목을 읽은 후에 호출해서 이미지가 잘리지 않았는지 확인한다.
+	 *
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		if(in.readInt() != TRAILER)
+			throw new IOException("Corrupted dictionary image.");
+	}
+
+	/**
+	 * 사전 데이터를 이미지 파일로 저장한다.
+	 *
+	 * @param instance 텍스트 사전에서 읽은 사전 데이터
+	 * @param file 저장할 파일
+	 * @throws IOException
+	 */
+	public static void write(DictionaryInstance instance, File file) throws IOException {
+		OutputStream os = new BufferedOutputStream(new FileOutputStream(file), 65536);
+
+		try {
+			DataOutput out = new OutputStreamDataOutput(os);
+
+			out.writeString(MAGIC);
+			out.writeInt(VERSION);
+
+			long[] syllables = instance.getSyllables();
+			out.writeVInt(syllables.length);
+
+			for(long features : syllables) {
+				out.writeLong(features);
+			}
+
+			instance.getWords().save(out);
+
+			Map<String, WordEntry> uncompounds = instance.getUncompounds();
+			out.writeVInt(uncompounds.size());
+
+			for(WordEntry entry : uncompounds.values()) {
+				out.writeString(entry.getWord());
+				out.writeString(new String(entry.getFeatures()));
+				writeCompounds(out, entry.getCompounds());
+			}
+
+			writeSet(out, instance.getJosas());
+			writeSet(out, instance.getEomis());
+			writeSet(out, instance.getPrefixs());
+			writeSet(out, instance.getSuffixs());
+
+			Map<String, String> cjwords = instance.getCjwords();
+			out.writeVInt(cjwords.size());
+
+			for(Map.Entry<String, String> entry : cjwords.entrySet()) {
+				out.writeString(entry.getKey());
+				out.writeString(entry.getValue());
+			}
+
+			out.writeInt(TRAILER);
+		} finally {
+			os.close();
+		}
+	}
+
+	static void writeCompounds(DataOutput out, List<CompoundEntry> compounds) throws IOException {
+		out.writeVInt(compounds.size());
+
+		for(CompoundEntry entry : compounds) {
+			out.writeString(entry.getWord());
+			out.writeInt(entry.getOffset());
+			out.writeByte((byte)(entry.isExist() ? 1 : 0));
+			out.writeString(String.valueOf(entry.getPos()));
+		}
+	}
+
+	static List<CompoundEntry> readCompounds(DataInput in) throws IOException {
+		int count = in.readVInt();
+		List<CompoundEntry> compounds = new ArrayList<CompoundEntry>(count);
+
+		for(int i = 0; i < count; i++) {
+			String word = in.readString();
+			int offset = in.readInt();
+			boolean exist = (in.readByte() == 1);
+			char pos = in.readString().charAt(0);
+
+			compounds.add(new CompoundEntry(word, offset, exist, pos));
+		}
+
+		return compounds;
+	}
+
+	private static void writeSet(DataOutput out, Set<String> set) throws IOException {
+		out.writeVInt(set.size());
+
+		for(String str : set) {
+			out.writeString(str);
+		}
+	}
+
+	/**
+	 * 매핑된 ByteBuffer를 Lucene의 DataInput으로 읽는다.
+	 */
+	private static class ByteBufferDataInput extends DataInput {
+
+		private final ByteBuffer buffer;
+
+		public ByteBufferDataInput(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public byte readByte() throws IOException {
+			try {
+				return buffer.get();
+			} catch(BufferUnderflowException e) {
+				throw new IOException("Unexpected end of dictionary image.");
+			}
+		}
+
+		@Override
+		public void readBytes(byte[] b, int offset, int len) throws IOException {
+			try {
+				buffer.get(b, offset, len);
+			} catch(BufferUnderflowException e) {
+				throw new IOException("Unexpected end of dictionary image.");
+			}
+		}
+
+	}
+
+}
@@ -7,6 +7,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -15,7 +16,6 @@ import java.util.Properties;
 import java.util.Set;
 
 import org.jhlabs.scany.engine.analysis.kr.ma.WordEntry;
-import org.jhlabs.scany.engine.analysis.kr.util.Trie;
 import org.jhlabs.scany.util.Resources;
 import org.jhlabs.scany.util.Timer;
 import org.slf4j.Logger;
@@ -52,6 +52,10 @@ public class DictionaryInstance {
 		
 	public static final String CJ_DIC = "cj.dic";
 	
+	public static final String USER_WORDS_DIC = "user.dic";
+	
+	public static final String DICTIONARY_IMAGE = "dictionary.image";
+	
 	public static final String DIC_PROPERTIES = "org/jhlabs/scany/engine/analysis/kr/res/dic.properties";
 	
 	private String dictionaryLocation;
@@ -60,9 +64,11 @@ public class DictionaryInstance {
 	
 	private Properties dicProperties;
 	
-	private List<char[]> syllables;
+	private boolean useImage;
+	
+	private long[] syllables;
 	
-	private Trie<String, WordEntry> words;
+	private WordDictionary words;
 
 	private Map<String, WordEntry> uncompounds;
 
@@ -77,6 +83,16 @@ public class DictionaryInstance {
 	private Map<String, String> cjwords;
 
 	protected DictionaryInstance(String dictionaryLocation, String encoding) {
+		this(dictionaryLocation, encoding, true);
+	}
+
+	/**
+	 * @param dictionaryLocation 사전 디렉토리
+	 * @param encoding 텍스트 사전의 문자 인코딩
+	 * @param useImage 사전 이미지가 있으면 텍스트 사전 대신 사용할지 여부
+	 */
+	protected DictionaryInstance(String dictionaryLocation, String encoding, boolean useImage) {
+		this.useImage = useImage;
 		this.dictionaryLocation = dictionaryLocation;
 		if(encoding != null && encoding.length() > 0)
 			this.encoding = encoding;
@@ -92,11 +108,45 @@ public class DictionaryInstance {
 		}
 	}
 
-	public List<char[]> getSyllables() {
+	/**
+	 * 단어사전만 다른 사전을 만든다. 나머지 사전 데이터는 변경되지 않으므로 공유한다.
+	 * 
+	 * @param source 원래 사전
+	 * @param words 단어사전
+	 */
+	private DictionaryInstance(DictionaryInstance source, WordDictionary words) {
+		this.dictionaryLocation = source.dictionaryLocation;
+		this.encoding = source.encoding;
+		this.dicProperties = source.dicProperties;
+		this.useImage = source.useImage;
+		this.syllables = source.syllables;
+		this.words = words;
+		this.uncompounds = source.uncompounds;
+		this.josas = source.josas;
+		this.eomis = source.eomis;
+		this.prefixs = source.prefixs;
+		this.suffixs = source.suffixs;
+		this.cjwords = source.cjwords;
+	}
+	
+	/**
+	 * 단어사전을 교체한 새로운 사전을 반환한다. 이 사전은 변경되지 않는다.
+	 * 
+	 * @param words 단어사전
+	 * @return 단어사전이 같으면 이 사전
+	 */
+	public DictionaryInstance withWords(WordDictionary words) {
+		if(words == this.words)
+			return this;
+		
+		return new DictionaryInstance(this, words);
+	}
+
+	public long[] getSyllables() {
 		return syllables;
 	}
 
-	public Trie<String, WordEntry> getWords() {
+	public WordDictionary getWords() {
 		return words;
 	}
 
@@ -123,25 +173,15 @@ public class DictionaryInstance {
 	public Map<String, String> getCjwords() {
 		return cjwords;
 	}
-	
-	public void clear() {
-		syllables.clear();
-		words.clear();
-		uncompounds.clear();
-		josas.clear();
-		eomis.clear();
-		prefixs.clear();
-		suffixs.clear();
-		cjwords.clear();
-		logger.debug("Dictionary data has been cleared.");
-	}
 
-	private void loadDictionary() {
+	private void loadDictionary() throws IOException {
 		Timer timer = new Timer();
-
-		try {
-			timer.start();
-			lookupDicFiles();
+		timer.start();
+		lookupDicFiles();
+		
+		if(useImage && loadImage()) {
+			timer.stop("Dictionary Image Loading Time");
+		} else {
 			loadSyllable();
 			loadWords();
 			loadUncompounds();
@@ -151,9 +191,15 @@ public class DictionaryInstance {
 			loadSuffix();
 			loadCJ();
 			timer.stop("Dictionary Loading Time");
-		} catch(Exception e) {
-			logger.error("", e);
 		}
+		
+		// 사전은 공개된 후에 변경되지 않는다.
+		uncompounds = Collections.unmodifiableMap(uncompounds);
+		josas = Collections.unmodifiableSet(josas);
+		eomis = Collections.unmodifiableSet(eomis);
+		prefixs = Collections.unmodifiableSet(prefixs);
+		suffixs = Collections.unmodifiableSet(suffixs);
+		cjwords = Collections.unmodifiableMap(cjwords);
 	}
 
 	private void lookupDicFiles() throws IOException {
@@ -177,6 +223,7 @@ public class DictionaryInstance {
 			dicList.add(PREFIX_DIC);
 			dicList.add(SUFFIX_DIC);
 			dicList.add(CJ_DIC);
+			dicList.add(DICTIONARY_IMAGE);
 			
 			for(String dic : dicList) {
 				File file = new File(dictionaryLocation, dic);
@@ -188,18 +235,92 @@ public class DictionaryInstance {
 		}
 	}
 	
+	/**
+	 * 사전 이미지가 있으면 이미지에서 사전을 읽는다.
+	 * 이미지가 없거나, 텍스트 사전 파일보다 오래되었거나, 읽을 수 없으면 false를 반환하고 텍스트 사전을 읽는다.
+	 * 
+	 * @return 사전 이미지를 읽었으면 true
+	 */
+	private boolean loadImage() {
+		Object value = dicProperties.get(DICTIONARY_IMAGE);
+		
+		if(value == null)
+			return false;
+		
+		logger.debug("{} - {}", DICTIONARY_IMAGE, value);
+		
+		try {
+			DictionaryImage image;
+			
+			if(value instanceof File) {
+				File imageFile = (File)value;
+				
+				for(Object dic : dicProperties.values()) {
+					if(dic instanceof File && dic != imageFile && ((File)dic).lastModified() > imageFile.lastModified()) {
+						logger.warn("Dictionary image is older than {}. Text dictionaries will be loaded.", dic);
+						return false;
+					}
+				}
+				
+				image = DictionaryImage.open(imageFile);
+			} else {
+				InputStream is = Resources.getResourceAsStream(value.toString());
+				
+				try {
+					image = DictionaryImage.open(is);
+				} finally {
+					is.close();
+				}
+			}
+			
+			long[] syllables = image.readSyllables();
+			WordDictionary words = image.readWords();
+			Map<String, WordEntry> uncompounds = new HashMap<String, WordEntry>();
+			image.readUncompounds(uncompounds);
+			Set<String> josas = new HashSet<String>();
+			image.readSet(josas);
+			Set<String> eomis = new HashSet<String>();
+			image.readSet(eomis);
+			Set<String> prefixs = new HashSet<String>();
+			image.readSet(prefixs);
+			Set<String> suffixs = new HashSet<String>();
+			image.readSet(suffixs);
+			Map<String, String> cjwords = new HashMap<String, String>();
+			image.readMap(cjwords);
+			image.close();
+			
+			this.syllables = syllables;
+			this.words = words;
+			this.uncompounds = uncompounds;
+			this.josas = josas;
+			this.eomis = eomis;
+			this.prefixs = prefixs;
+			this.suffixs = suffixs;
+			this.cjwords = cjwords;
+			
+			return true;
+		} catch(IOException e) {
+			logger.warn("Dictionary image loading failed. Text dictionaries will be loaded.", e);
+			return false;
+		}
+	}
+	
 	private void loadSyllable() throws IOException {
-		syllables = new ArrayList<char[]>();
 		DictionaryLoader loader = new DictionaryLoader(dicProperties, encoding);
-		loader.loadSyllable(SYLLABLE_FEATURE_DIC, syllables);
+		syllables = loader.loadSyllable(SYLLABLE_FEATURE_DIC);
 	}
 	
 	private void loadWords() throws IOException {
-		words = new Trie<String, WordEntry>(true);
+		WordDictionary.Builder builder = new WordDictionary.Builder();
 		DictionaryLoader loader = new DictionaryLoader(dicProperties, encoding);
-		loader.loadWords(TOTAL_WORDS_DIC, words);
-		loader.loadWords(EXTENSION_WORDS_DIC, words);
-		loader.loadCompounds(COMPOUNDS_DIC, words);
+		loader.loadWords(TOTAL_WORDS_DIC, builder);
+		loader.loadWords(EXTENSION_WORDS_DIC, builder);
+		loader.loadCompounds(COMPOUNDS_DIC, builder);
+
+		Timer timer = new Timer();
+		timer.start();
+		words = builder.build();
+		timer.stop("Word FST Compiling Time(" + words.size() + " words, " + words.sizeInBytes() + " bytes)");
 	}
 	
 	private void loadUncompounds() throws IOException {
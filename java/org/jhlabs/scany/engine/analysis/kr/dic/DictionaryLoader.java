@@ -6,6 +6,7 @@ package org.jhlabs.scany.engine.analysis.kr.dic;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -13,7 +14,6 @@ import java.util.Set;
 
 import org.jhlabs.scany.engine.analysis.kr.ma.CompoundEntry;
 import org.jhlabs.scany.engine.analysis.kr.ma.WordEntry;
-import org.jhlabs.scany.engine.analysis.kr.util.Trie;
 import org.jhlabs.scany.util.StringUtils;
 import org.jhlabs.scany.util.Timer;
 import org.slf4j.Logger;
@@ -39,7 +39,17 @@ public class DictionaryLoader {
 		this.encoding = encoding;
 	}
 
-	public void loadSyllable(String dic, List<char[]> syllables) throws IOException {
+	/**
+	 * 음절특성 사전을 읽는다.
+	 * 음절마다 '0'/'1'로 표시된 특성을 SyllableRule의 인덱스 위치의 비트로 묶어서 long 하나에 저장한다.
+	 * 
+	 * @param dic 음절특성 사전
+	 * @return '가'부터 순서대로 나열된 음절특성
+	 * @throws IOException
+	 */
+	public long[] loadSyllable(String dic) throws IOException {
+		long[] syllables = new long[11184];
+		
 		Object value = dicProperties.get(dic);
 		logger.debug("{} - {}", dic, value);
 
@@ -61,11 +71,15 @@ public class DictionaryLoader {
 			int cnt = 0;
 
 			while((line = reader.readLine()) != null) {
-				syllables.add(line.toCharArray());
-				cnt++;
+				if(cnt == syllables.length)
+					syllables = Arrays.copyOf(syllables, cnt * 2);
+				
+				syllables[cnt++] = toSyllableFeature(line);
 			}
 			
 			timer.setStopMessage(timer.getStopMessage() + "(" + cnt + ")");
+			
+			return Arrays.copyOf(syllables, cnt);
 		} finally {
 			if(reader != null)
 				reader.close();
@@ -73,7 +87,7 @@ public class DictionaryLoader {
 		}
 	}
 	
-	public void loadWords(String dic, Trie<String, WordEntry> words) throws IOException {
+	public void loadWords(String dic, WordDictionary.Builder words) throws IOException {
 		Object value = dicProperties.get(dic);
 		logger.debug("{} - {}", dic, value);
 		
@@ -96,9 +110,8 @@ public class DictionaryLoader {
 			
 			while((line = reader.readLine()) != null) {
 				String[] arr = StringUtils.split(line, ",");
-				if(arr.length == 2) {
-					WordEntry entry = new WordEntry(arr[0], arr[1].toCharArray());
-					words.add(entry.getWord(), entry);
+				if(arr.length == 2 && isWordFeatures(arr[1])) {
+					words.add(arr[0], arr[1].toCharArray());
 					cnt++;
 				}
 			}
@@ -111,7 +124,7 @@ public class DictionaryLoader {
 		}
 	}
 
-	public void loadCompounds(String dic, Trie<String, WordEntry> words) throws IOException {
+	public void loadCompounds(String dic, WordDictionary.Builder words) throws IOException {
 		Object value = dicProperties.get(dic);
 		logger.debug("{} - {}", dic, value);
 
@@ -135,9 +148,7 @@ public class DictionaryLoader {
 			while((line = reader.readLine()) != null) {
 				String[] arr = StringUtils.split(line, ":");
 				if(arr.length == 2) {
-					WordEntry entry = new WordEntry(arr[0], "20000X".toCharArray());
-					entry.setCompounds(createCompoundEntryList(arr[1]));
-					words.add(entry.getWord(), entry);
+					words.add(arr[0], "20000X".toCharArray(), createCompoundEntryList(arr[1]));
 					cnt++;
 				}
 			}
@@ -260,6 +271,31 @@ public class DictionaryLoader {
 		}
 	}
 	
+	/**
+	 * 단어특성인지 확인한다.
+	 * total.dic과 extension.dic의 첫 줄(예: "WORD,NVZDBIPSCC")은 단어특성의 이름을 나열한 제목이므로 단어로 읽지 않는다.
+	 * 단어특성은 명사 여부를 숫자로 표시하므로 첫 문자가 숫자가 아니면 제목으로 본다.
+	 */
+	private static boolean isWordFeatures(String features) {
+		return (features.length() > WordEntry.IDX_NOUN && Character.isDigit(features.charAt(WordEntry.IDX_NOUN)));
+	}
+	
+	private static long toSyllableFeature(String line) {
+		long features = 0L;
+		int length = Math.min(line.length(), Long.SIZE);
+		
+		for(int i = 0; i < length; i++) {
+			char c = line.charAt(i);
+			
+			if(c == '1')
+				features |= (1L << i);
+			else if(c != '0')
+				break;
+		}
+		
+		return features;
+	}
+	
 	private static List<CompoundEntry> createCompoundEntryList(String word) {
 		List<CompoundEntry> list = new ArrayList<CompoundEntry>();
 		String[] arr = StringUtils.split(word, ",");
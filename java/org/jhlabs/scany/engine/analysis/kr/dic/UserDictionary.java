@@ -0,0 +1,282 @@
+/**
+ *
+ */
+package org.jhlabs.scany.engine.analysis.kr.dic;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.jhlabs.scany.engine.analysis.kr.ma.WordEntry;
+import org.jhlabs.scany.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 사용자 사전.
+ *
+ * <pre>
+ * 전체 사전을 다시 읽지 않고 실행 중에 단어를 추가하거나 삭제한다.
+ * 사용자 사전의 단어는 단어사전보다 먼저 조회되며, 삭제한 단어는 단어사전에 있어도 없는 것으로 처리한다.
+ * 변경된 사용자 사전은 Dictionary가 단어사전에 덧씌워서 새로운 사전으로 공개하며, FST는 다시 컴파일하지 않는다.
+ *
+ * 사용자 사전 파일(user.dic)은 extension.dic과 같은 "단어,단어특성" 형식이며, 삭제한 단어는 "-단어"로 기록한다.
+ * 파일은 변경 기록(journal)으로 사용한다. 변경할 때마다 파일 끝에 한 줄만 추가하며, 읽을 때에는 순서대로 적용하므로
+ * 같은 단어는 마지막 줄이 유효하다. 기록된 줄이 유효한 단어보다 많이 쌓이면 유효한 단어만 임시 파일에 저장한 후 교체한다(compaction).
+ * 파일을 읽은 후 처음 변경할 때와 추가에 실패한 후에도 파일 전체를 다시 저장한다.
+ * 저장에 실패하면 변경을 취소한다. 모든 메소드는 동기화되어 있다.
+ * </pre>
+ *
+ * @author Gulendol
+ *
+ * @see Dictionary#addUserWord(String, String)
+ * @see Dictionary#removeUserWord(String)
+ */
+public class UserDictionary {
+
+	private static final Logger logger = LoggerFactory.getLogger(UserDictionary.class);
+
+	/** 삭제한 단어를 나타내는 기호 */
+	public static final String REMOVED_SYMBOL = "-";
+
+	/** 일반 명사의 단어특성 */
+	public static final String NOUN_FEATURES = "100000000X";
+
+	private static final String DELIMITER = ",";
+
+	/** 파일 전체를 다시 저장하는 최소 기록 줄 수 */
+	private static final int MIN_COMPACTION_LINES = 1000;
+
+	private final File file;
+
+	private final String encoding;
+
+	private final Map<String, char[]> words = new TreeMap<String, char[]>();
+
+	private final Set<String> removedWords = new TreeSet<String>();
+
+	/** 파일에 기록된 줄 수 */
+	private int journalLines;
+
+	/** 파일 끝에 추가할 수 있는 상태인지, false이면 다음 변경 때 파일 전체를 다시 저장한다. */
+	private boolean appendable;
+
+	/**
+	 * 파일에 저장하지 않는 사용자 사전을 만든다.
+	 */
+	public UserDictionary() {
+		this.file = null;
+		this.encoding = null;
+	}
+
+	/**
+	 * 사용자 사전 파일을 읽는다. 파일이 없으면 빈 사용자 사전으로 시작하고, 처음 변경할 때 파일을 만든다.
+	 *
+	 * @param file 사용자 사전 파일
+	 * @param encoding 문자 인코딩
+	 * @throws IOException
+	 */
+	public UserDictionary(File file, String encoding) throws IOException {
+		this.file = file;
+		this.encoding = encoding;
+
+		if(file.isFile())
+			load();
+	}
+
+	private void load() throws IOException {
+		DicFileReader reader = new DicFileReader(file, encoding);
+
+		try {
+			String line;
+
+			while((line = reader.readLine()) != null) {
+				if(line.startsWith(REMOVED_SYMBOL)) {
+					String word = line.substring(REMOVED_SYMBOL.length());
+					words.remove(word);
+					removedWords.add(word);
+				} else {
+					String[] arr = StringUtils.split(line, DELIMITER);
+
+					if(arr.length == 2 && isValidFeatures(arr[1])) {
+						words.put(arr[0], arr[1].toCharArray());
+						removedWords.remove(arr[0]);
+					} else {
+						logger.warn("Invalid user dictionary entry: {}", line);
+					}
+				}
+
+				journalLines++;
+			}
+		} finally {
+			reader.close();
+		}
+
+		logger.debug("User dictionary loaded. {} - {} words, {} removed words", new Object[] { file, words.size(), removedWords.size() });
+	}
+
+	/**
+	 * 단어를 추가한다. 이미 있는 단어이면 단어특성을 변경한다.
+	 *
+	 * @param word 단어
+	 * @param features 단어특성(WordEntry.IDX_REGURA까지의 특성을 가진 문자열)
+	 * @throws IOException 저장에 실패한 경우, 사용자 사전은 변경되지 않는다.
+	 */
+	public synchronized void addWord(String word, String features) throws IOException {
+		if(word == null || word.length() == 0 || word.startsWith(REMOVED_SYMBOL) || word.indexOf(DELIMITER) != -1)
+			throw new IllegalArgumentException("Invalid word: " + word);
+
+		if(!isValidFeatures(features))
+			throw new IllegalArgumentException("Invalid word features: " + features);
+
+		char[] oldFeatures = words.put(word, features.toCharArray());
+		boolean wasRemoved = removedWords.remove(word);
+
+		try {
+			write(word + DELIMITER + features);
+		} catch(IOException e) {
+			if(oldFeatures != null)
+				words.put(word, oldFeatures);
+			else
+				words.remove(word);
+
+			if(wasRemoved)
+				removedWords.add(word);
+
+			throw e;
+		}
+	}
+
+	/**
+	 * 단어를 삭제한다. 단어사전에 있는 단어도 없는 것으로 처리한다.
+	 *
+	 * @param word 단어
+	 * @throws IOException 저장에 실패한 경우, 사용자 사전은 변경되지 않는다.
+	 */
+	public synchronized void removeWord(String word) throws IOException {
+		if(word == null || word.length() == 0)
+			throw new IllegalArgumentException("Invalid word: " + word);
+
+		char[] oldFeatures = words.remove(word);
+		boolean added = removedWords.add(word);
+
+		try {
+			write(REMOVED_SYMBOL + word);
+		} catch(IOException e) {
+			if(oldFeatures != null)
+				words.put(word, oldFeatures);
+
+			if(added)
+				removedWords.remove(word);
+
+			throw e;
+		}
+	}
+
+	/**
+	 * 사용자 사전의 단어를 덧씌운 단어사전을 만든다.
+	 *
+	 * @param base 단어사전
+	 * @return WordDictionary
+	 */
+	public synchronized WordDictionary applyTo(WordDictionary base) {
+		return base.withUserWords(words, removedWords);
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public synchronized int size() {
+		return words.size();
+	}
+
+	public synchronized int getRemovedSize() {
+		return removedWords.size();
+	}
+
+	/**
+	 * 변경사항을 파일에 기록한다.
+	 * 파일 끝에 한 줄을 추가하며, 추가할 수 없는 상태이거나 기록된 줄이 많이 쌓였으면 파일 전체를 다시 저장한다.
+	 *
+	 * @param line 변경사항을 나타내는 한 줄
+	 * @throws IOException
+	 */
+	private void write(String line) throws IOException {
+		if(file == null)
+			return;
+
+		int entries = words.size() + removedWords.size();
+
+		if(!appendable || (journalLines >= MIN_COMPACTION_LINES && journalLines > entries * 2)) {
+			save();
+			return;
+		}
+
+		// 추가하는 도중에 실패하면 파일 끝이 온전하지 않을 수 있으므로 다음에는 파일 전체를 다시 저장한다.
+		appendable = false;
+
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), encoding);
+
+		try {
+			writer.write(line);
+			writer.write('\n');
+		} finally {
+			writer.close();
+		}
+
+		journalLines++;
+		appendable = true;
+	}
+
+	/**
+	 * 사용자 사전을 파일에 저장한다. 임시 파일에 모두 쓴 후에 교체하므로 저장 중에 실패해도 이전 파일이 남는다.
+	 *
+	 * @throws IOException
+	 */
+	private void save() throws IOException {
+		if(file == null)
+			return;
+
+		File temp = new File(file.getPath() + ".tmp");
+		Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), encoding));
+
+		try {
+			for(Map.Entry<String, char[]> entry : words.entrySet()) {
+				writer.write(entry.getKey());
+				writer.write(DELIMITER);
+				writer.write(entry.getValue());
+				writer.write('\n');
+			}
+
+			for(String word : removedWords) {
+				writer.write(REMOVED_SYMBOL);
+				writer.write(word);
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+
+		if(!temp.renameTo(file)) {
+			// 대상 파일이 있으면 교체하지 못하는 플랫폼이 있다.
+			if(!file.delete() || !temp.renameTo(file))
+				throw new IOException("Cannot replace user dictionary: " + file);
+		}
+
+		journalLines = words.size() + removedWords.size();
+		appendable = true;
+	}
+
+	private static boolean isValidFeatures(String features) {
+		return (features != null && features.length() > WordEntry.IDX_REGURA);
+	}
+
+}
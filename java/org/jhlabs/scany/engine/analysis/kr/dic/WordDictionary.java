@@ -0,0 +1,856 @@
+/**
+ *
+ */
+package org.jhlabs.scany.engine.analysis.kr.dic;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.util.IntsRef;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.IntsRefFSTEnum;
+import org.apache.lucene.util.fst.PositiveIntOutputs;
+import org.jhlabs.scany.engine.analysis.kr.ma.CompoundEntry;
+import org.jhlabs.scany.engine.analysis.kr.ma.WordEntry;
+
+/**
+ * FST(Finite State Transducer)로 컴파일된 단어사전.
+ *
+ * <pre>
+ * 단어의 음절(UTF-16 문자)을 입력으로, 단어특성과 복합명사 구성정보를 묶은 long 값을 출력으로 하는 FST이다.
+ * 단어사전의 단어특성 문자열은 종류가 많지 않으므로 공유 테이블에 한번씩만 저장하고,
+ * FST의 출력값에는 단어특성 번호(하위 16비트)와 복합명사 구성정보 번호(상위 비트)를 함께 기록한다.
+ * 단어마다 WordEntry와 char[]를 유지하던 Trie와 달리 사전 전체가 하나의 byte[]에 저장되며,
+ * WordEntry는 조회할 때 만들어서 반환한다.
+ *
+ * 키는 Trie(ignoreCase)와 같은 방식으로 소문자로 변환하여 저장하고 조회한다.
+ * 컴파일된 사전은 변경할 수 없으며 여러 스레드에서 동시에 조회할 수 있다.
+ *
+ * withUserWords()는 FST를 공유하고 사용자 사전의 단어를 덧씌운 새로운 사전을 만든다.
+ * 사용자 사전의 단어는 FST보다 먼저 조회되며, 삭제한 단어는 FST에 있어도 없는 것으로 처리한다.
+ * 단어 하나를 변경할 때에는 withUserWord(), withoutUserWord()로 현재 사용자 사전에 변경사항만 적용한다.
+ * </pre>
+ *
+ * @author Gulendol
+ *
+ */
+public class WordDictionary {
+
+	private static final int FEATURE_BITS = 16;
+
+	private static final long FEATURE_MASK = (1L << FEATURE_BITS) - 1;
+
+	private static final PositiveIntOutputs outputs = PositiveIntOutputs.getSingleton(true);
+
+	private static final char HANGUL_BEGIN = 0xAC00;
+
+	private static final char HANGUL_END = 0xD7A3;
+
+	private final FST<Long> fst;
+
+	/**
+	 * 첫 음절이 한글인 루트 arc. FST는 0x80 미만의 루트 arc만 캐시하므로 한글 단어의 첫 음절을 위해 따로 캐시한다.
+	 */
+	private final FST.Arc<Long>[] hangulRootArcs;
+
+	private final char[][] featureTable;
+
+	private final List<CompoundEntry>[] compoundTable;
+
+	/** FST에 저장된 단어의 수 */
+	private final int size;
+
+	/** 사용자 사전에서 추가하거나 변경한 단어와 단어특성, 사용자 사전이 없으면 null */
+	private final SortedMap<String, char[]> userWords;
+
+	/** 사용자 사전에서 삭제한 단어 */
+	private final Set<String> removedWords;
+
+	/** 사용자 사전을 반영한 단어의 수 */
+	private final int totalSize;
+
+	@SuppressWarnings("unchecked")
+	private WordDictionary(FST<Long> fst, char[][] featureTable, List<CompoundEntry>[] compoundTable, int size) throws IOException {
+		this.fst = fst;
+		this.featureTable = featureTable;
+		this.compoundTable = compoundTable;
+		this.size = size;
+		this.userWords = null;
+		this.removedWords = null;
+		this.totalSize = size;
+		this.hangulRootArcs = new FST.Arc[HANGUL_END - HANGUL_BEGIN + 1];
+
+		if(fst != null) {
+			FST.Arc<Long> arc = fst.getFirstArc(new FST.Arc<Long>());
+
+			if(fst.targetHasArcs(arc)) {
+				fst.readFirstTargetArc(arc, arc);
+
+				while(true) {
+					if(arc.label >= HANGUL_BEGIN && arc.label <= HANGUL_END)
+						hangulRootArcs[arc.label - HANGUL_BEGIN] = new FST.Arc<Long>().copyFrom(arc);
+
+					if(arc.isLast())
+						break;
+
+					fst.readNextArc(arc);
+				}
+			}
+		}
+	}
+
+	/**
+	 * FST와 단어특성 테이블을 공유하고 사용자 사전의 단어를 덧씌운다.
+	 */
+	private WordDictionary(WordDictionary base, SortedMap<String, char[]> userWords, Set<String> removedWords) {
+		this(base, userWords, removedWords, countWords(base, userWords, removedWords));
+	}
+
+	private WordDictionary(WordDictionary base, SortedMap<String, char[]> userWords, Set<String> removedWords, int totalSize) {
+		this.fst = base.fst;
+		this.featureTable = base.featureTable;
+		this.compoundTable = base.compoundTable;
+		this.size = base.size;
+		this.hangulRootArcs = base.hangulRootArcs;
+		this.userWords = userWords;
+		this.removedWords = removedWords;
+		this.totalSize = totalSize;
+	}
+
+	private static int countWords(WordDictionary base, SortedMap<String, char[]> userWords, Set<String> removedWords) {
+		int totalSize = base.size;
+
+		for(String word : userWords.keySet()) {
+			if(base.lookup(word) < 0)
+				totalSize++;
+		}
+
+		for(String word : removedWords) {
+			if(!userWords.containsKey(word) && base.lookup(word) >= 0)
+				totalSize--;
+		}
+
+		return totalSize;
+	}
+
+	/**
+	 * 사용자 사전의 단어를 덧씌운 사전을 만든다. FST는 다시 컴파일하지 않고 공유한다.
+	 * 이미 사용자 사전이 덧씌워진 사전이면 이전 사용자 사전을 대체한다.
+	 *
+	 * @param words 추가하거나 단어특성을 변경할 단어와 단어특성
+	 * @param removed 삭제할 단어
+	 * @return WordDictionary, 사용자 사전이 비어 있으면 FST만 조회하는 사전
+	 * @see UserDictionary
+	 */
+	public WordDictionary withUserWords(Map<String, char[]> words, Set<String> removed) {
+		if(userWords == null && words.isEmpty() && removed.isEmpty())
+			return this;
+
+		SortedMap<String, char[]> userWords = new TreeMap<String, char[]>();
+
+		for(Map.Entry<String, char[]> entry : words.entrySet()) {
+			userWords.put(canonicalCase(entry.getKey()), entry.getValue().clone());
+		}
+
+		Set<String> removedWords = new HashSet<String>();
+
+		for(String word : removed) {
+			removedWords.add(canonicalCase(word));
+		}
+
+		return new WordDictionary(this, Collections.unmodifiableSortedMap(userWords), Collections.unmodifiableSet(removedWords));
+	}
+
+	/**
+	 * 현재 사용자 사전에 단어 하나를 추가하거나 단어특성을 변경한 사전을 만든다.
+	 * 다른 사용자 사전의 단어는 다시 변환하지 않고, 단어의 수는 변경한 단어만 조회해서 계산한다.
+	 *
+	 * @param word 단어
+	 * @param features 단어특성
+	 * @return WordDictionary
+	 */
+	public WordDictionary withUserWord(String word, char[] features) {
+		String key = canonicalCase(word);
+		int totalSize = this.totalSize;
+
+		if(get(key) == null)
+			totalSize++;
+
+		SortedMap<String, char[]> userWords = copyUserWords();
+		userWords.put(key, features.clone());
+
+		Set<String> removedWords = copyRemovedWords();
+		removedWords.remove(key);
+
+		return new WordDictionary(this, Collections.unmodifiableSortedMap(userWords), Collections.unmodifiableSet(removedWords), totalSize);
+	}
+
+	/**
+	 * 현재 사용자 사전에서 단어 하나를 삭제한 사전을 만든다. FST에 있는 단어도 없는 것으로 처리한다.
+	 *
+	 * @param word 단어
+	 * @return WordDictionary
+	 */
+	public WordDictionary withoutUserWord(String word) {
+		String key = canonicalCase(word);
+		int totalSize = this.totalSize;
+
+		if(get(key) != null)
+			totalSize--;
+
+		SortedMap<String, char[]> userWords = copyUserWords();
+		userWords.remove(key);
+
+		Set<String> removedWords = copyRemovedWords();
+		removedWords.add(key);
+
+		return new WordDictionary(this, Collections.unmodifiableSortedMap(userWords), Collections.unmodifiableSet(removedWords), totalSize);
+	}
+
+	private SortedMap<String, char[]> copyUserWords() {
+		return (userWords == null) ? new TreeMap<String, char[]>() : new TreeMap<String, char[]>(userWords);
+	}
+
+	private Set<String> copyRemovedWords() {
+		return (removedWords == null) ? new HashSet<String>() : new HashSet<String>(removedWords);
+	}
+
+	/**
+	 * 단어를 조회한다.
+	 *
+	 * @param word 단어
+	 * @return 단어가 없으면 null
+	 */
+	public WordEntry get(String word) {
+		String key = canonicalCase(word);
+
+		if(userWords != null) {
+			char[] features = userWords.get(key);
+
+			if(features != null)
+				return new WordEntry(key, features);
+
+			if(removedWords.contains(key))
+				return null;
+		}
+
+		long output = lookup(key);
+
+		if(output < 0)
+			return null;
+
+		return toWordEntry(key, output);
+	}
+
+	/**
+	 * 주어진 접두어로 시작하는 단어가 있는지 확인한다.
+	 * FST에서 도달할 수 있는 모든 상태는 단어의 끝으로 이어지므로 접두어의 마지막 음절까지 arc가 있으면 된다.
+	 * 사용자 사전에서 삭제한 단어도 접두어를 찾을 때에는 남아 있는 것으로 처리한다.
+	 *
+	 * @param prefix 접두어
+	 * @return 접두어로 시작하는 단어가 있으면 true
+	 */
+	public boolean existPrefix(String prefix) {
+		String key = canonicalCase(prefix);
+
+		if(userWords != null) {
+			String ceiling = ceilingKey(key);
+
+			if(ceiling != null && ceiling.startsWith(key))
+				return true;
+		}
+
+		return existBasePrefix(key);
+	}
+
+	private boolean existBasePrefix(String key) {
+		if(fst == null)
+			return false;
+
+		if(key.length() == 0)
+			return true;
+
+		try {
+			FST.Arc<Long> arc = findRootArc(fst, key.charAt(0));
+
+			if(arc == null)
+				return false;
+
+			for(int i = 1; i < key.length(); i++) {
+				if(fst.findTargetArc(key.charAt(i), arc, arc) == null)
+					return false;
+			}
+		} catch(IOException e) {
+			throw new IllegalStateException(e);
+		}
+
+		return true;
+	}
+
+	/**
+	 * 문자열의 start 위치에서 시작하는 단어들을 찾는다.
+	 * FST를 한번만 따라가면서 단어가 끝나는 위치를 모두 기록하므로 부분 문자열을 만들지 않는다.
+	 *
+	 * @param text 문자열
+	 * @param start 단어의 시작 위치
+	 * @param end 단어를 찾을 끝 위치(exclusive)
+	 * @param ends 찾은 단어의 끝 위치(exclusive)를 짧은 단어부터 기록할 배열
+	 * @return 찾은 단어의 수, ends의 크기를 넘지 않는다.
+	 */
+	public int findWords(CharSequence text, int start, int end, int[] ends) {
+		if(userWords != null) {
+			WordEntry[] entries = new WordEntry[end - start + 1];
+			matchWords(text, start, end, entries);
+
+			int count = 0;
+
+			for(int i = 1; i < entries.length && count < ends.length; i++) {
+				if(entries[i] != null)
+					ends[count++] = start + i;
+			}
+
+			return count;
+		}
+
+		if(fst == null || start >= end)
+			return 0;
+
+		int count = 0;
+
+		try {
+			FST.Arc<Long> arc = findRootArc(fst, canonicalCase(text.charAt(start)));
+
+			for(int i = start + 1; arc != null && count < ends.length; i++) {
+				if(arc.isFinal())
+					ends[count++] = i;
+
+				if(i >= end)
+					break;
+
+				arc = fst.findTargetArc(canonicalCase(text.charAt(i)), arc, arc);
+			}
+		} catch(IOException e) {
+			throw new IllegalStateException(e);
+		}
+
+		return count;
+	}
+
+	/**
+	 * 문자열의 start 위치에서 시작하는 단어들을 찾는다.
+	 * FST를 한번만 따라가면서 단어가 끝나는 위치마다 WordEntry를 기록하고, 더 이상 따라갈 수 없는 위치를 반환한다.
+	 *
+	 * @param text 문자열
+	 * @param start 단어의 시작 위치
+	 * @param end 단어를 찾을 끝 위치(exclusive)
+	 * @param entries 길이가 i인 단어를 entries[i]에 기록할 배열, 단어가 아니면 null을 기록한다. 크기는 end - start + 1 이상이어야 한다.
+	 * @return text[start, 반환값)이 단어의 접두어가 되는 가장 큰 위치, 첫 음절로 시작하는 단어가 없으면 start
+	 */
+	public int matchWords(CharSequence text, int start, int end, WordEntry[] entries) {
+		Arrays.fill(entries, 0, end - start + 1, null);
+
+		int prefixEnd = matchBaseWords(text, start, end, entries);
+
+		if(userWords == null || start >= end)
+			return prefixEnd;
+
+		if(!removedWords.isEmpty()) {
+			for(int i = 1; i <= prefixEnd - start; i++) {
+				if(entries[i] != null && removedWords.contains(entries[i].getWord()))
+					entries[i] = null;
+			}
+		}
+
+		// 사용자 사전의 단어 중 첫 음절이 같은 단어들과 비교한다.
+		char first = canonicalCase(text.charAt(start));
+
+		for(Map.Entry<String, char[]> entry : userWords.tailMap(String.valueOf(first)).entrySet()) {
+			String word = entry.getKey();
+
+			if(word.charAt(0) != first)
+				break;
+
+			int matched = 1;
+
+			while(matched < word.length() && start + matched < end
+					&& canonicalCase(text.charAt(start + matched)) == word.charAt(matched)) {
+				matched++;
+			}
+
+			if(matched == word.length())
+				entries[matched] = new WordEntry(word, entry.getValue());
+
+			if(start + matched > prefixEnd)
+				prefixEnd = start + matched;
+		}
+
+		return prefixEnd;
+	}
+
+	private int matchBaseWords(CharSequence text, int start, int end, WordEntry[] entries) {
+		if(fst == null || start >= end)
+			return start;
+
+		try {
+			FST.Arc<Long> arc = findRootArc(fst, canonicalCase(text.charAt(start)));
+
+			if(arc == null)
+				return start;
+
+			long output = arc.output;
+			int i = start + 1;
+
+			while(true) {
+				if(arc.isFinal()) {
+					String word = canonicalCase(text.subSequence(start, i).toString());
+					entries[i - start] = toWordEntry(word, output + arc.nextFinalOutput);
+				}
+
+				if(i >= end || fst.findTargetArc(canonicalCase(text.charAt(i)), arc, arc) == null)
+					return i;
+
+				output += arc.output;
+				i++;
+			}
+		} catch(IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * 주어진 접두어로 시작하는 단어들을 사전 순서대로 반환한다.
+	 *
+	 * @param prefix 접두어
+	 * @return WordEntry의 Iterator
+	 */
+	public Iterator<WordEntry> getPrefixedBy(String prefix) {
+		String key = canonicalCase(prefix);
+		Iterator<WordEntry> iterator;
+
+		if(fst == null || !existBasePrefix(key))
+			iterator = Collections.<WordEntry>emptyList().iterator();
+		else
+			iterator = new PrefixIterator(fst, key);
+
+		if(userWords == null)
+			return iterator;
+
+		return new UserWordsIterator(iterator, key);
+	}
+
+	/**
+	 * 단어의 수
+	 */
+	public int size() {
+		return totalSize;
+	}
+
+	/**
+	 * FST가 사용하는 메모리(bytes)
+	 */
+	public int sizeInBytes() {
+		return (fst == null) ? 0 : fst.sizeInBytes();
+	}
+
+	/**
+	 * 컴파일된 사전을 저장한다. 사용자 사전의 단어는 저장하지 않는다.
+	 *
+	 * @param out DataOutput
+	 * @throws IOException
+	 * @see DictionaryImage
+	 */
+	public void save(DataOutput out) throws IOException {
+		out.writeVInt(size);
+		out.writeVInt(featureTable.length);
+
+		for(char[] features : featureTable) {
+			out.writeString(new String(features));
+		}
+
+		out.writeVInt(compoundTable.length);
+
+		for(List<CompoundEntry> compounds : compoundTable) {
+			DictionaryImage.writeCompounds(out, compounds);
+		}
+
+		if(fst == null) {
+			out.writeByte((byte)0);
+		} else {
+			out.writeByte((byte)1);
+			fst.save(out);
+		}
+	}
+
+	/**
+	 * save()로 저장한 사전을 읽는다.
+	 * FST는 다시 컴파일하지 않고 저장된 byte[]를 그대로 읽는다.
+	 *
+	 * @param in DataInput
+	 * @return WordDictionary
+	 * @throws IOException
+	 */
+	@SuppressWarnings("unchecked")
+	public static WordDictionary load(DataInput in) throws IOException {
+		int size = in.readVInt();
+		char[][] featureTable = new char[in.readVInt()][];
+
+		for(int i = 0; i < featureTable.length; i++) {
+			featureTable[i] = in.readString().toCharArray();
+		}
+
+		List<CompoundEntry>[] compoundTable = new List[in.readVInt()];
+
+		for(int i = 0; i < compoundTable.length; i++) {
+			compoundTable[i] = DictionaryImage.readCompounds(in);
+		}
+
+		FST<Long> fst = null;
+
+		if(in.readByte() == 1)
+			fst = new FST<Long>(in, outputs);
+
+		return new WordDictionary(fst, featureTable, compoundTable, size);
+	}
+
+	/**
+	 * @return 단어가 없으면 -1
+	 */
+	private long lookup(String key) {
+		if(fst == null || key.length() == 0)
+			return -1;
+
+		try {
+			FST.Arc<Long> arc = findRootArc(fst, key.charAt(0));
+
+			if(arc == null)
+				return -1;
+
+			long output = arc.output;
+
+			for(int i = 1; i < key.length(); i++) {
+				if(fst.findTargetArc(key.charAt(i), arc, arc) == null)
+					return -1;
+
+				output += arc.output;
+			}
+
+			if(!arc.isFinal())
+				return -1;
+
+			return output + arc.nextFinalOutput;
+		} catch(IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private String ceilingKey(String key) {
+		SortedMap<String, char[]> tail = userWords.tailMap(key);
+
+		return tail.isEmpty() ? null : tail.firstKey();
+	}
+
+	private FST.Arc<Long> findRootArc(FST<Long> fst, char c) throws IOException {
+		if(c >= HANGUL_BEGIN && c <= HANGUL_END) {
+			FST.Arc<Long> arc = hangulRootArcs[c - HANGUL_BEGIN];
+
+			return (arc == null) ? null : new FST.Arc<Long>().copyFrom(arc);
+		}
+
+		FST.Arc<Long> arc = fst.getFirstArc(new FST.Arc<Long>());
+
+		return fst.findTargetArc(c, arc, arc);
+	}
+
+	private WordEntry toWordEntry(String word, long output) {
+		WordEntry entry = new WordEntry(word, featureTable[(int)(output & FEATURE_MASK) - 1]);
+
+		int compoundId = (int)(output >>> FEATURE_BITS);
+
+		if(compoundId > 0)
+			entry.setCompounds(compoundTable[compoundId - 1]);
+
+		return entry;
+	}
+
+	private static String canonicalCase(String s) {
+		for(int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+
+			// 대부분의 키는 한글이므로 대소문자 변환이 필요 없으면 그대로 사용한다.
+			if(c >= 0x80 && (c < HANGUL_BEGIN || c > HANGUL_END) || c >= 'A' && c <= 'Z')
+				return s.toUpperCase(Locale.US).toLowerCase(Locale.US);
+		}
+
+		return s;
+	}
+
+	/**
+	 * canonicalCase(String)와 같은 변환을 한 문자에 적용한다.
+	 */
+	private static char canonicalCase(char c) {
+		if(c >= 0x80 && (c < HANGUL_BEGIN || c > HANGUL_END) || c >= 'A' && c <= 'Z')
+			return Character.toLowerCase(Character.toUpperCase(c));
+
+		return c;
+	}
+
+	private static IntsRef toIntsRef(String s, IntsRef ints) {
+		ints.grow(s.length());
+
+		for(int i = 0; i < s.length(); i++) {
+			ints.ints[i] = s.charAt(i);
+		}
+
+		ints.offset = 0;
+		ints.length = s.length();
+
+		return ints;
+	}
+
+	private class PrefixIterator implements Iterator<WordEntry> {
+
+		private final IntsRefFSTEnum<Long> fstEnum;
+
+		private final String prefix;
+
+		private IntsRefFSTEnum.InputOutput<Long> current;
+
+		public PrefixIterator(FST<Long> fst, String prefix) {
+			this.fstEnum = new IntsRefFSTEnum<Long>(fst);
+			this.prefix = prefix;
+
+			try {
+				current = fstEnum.seekCeil(toIntsRef(prefix, new IntsRef(prefix.length())));
+			} catch(IOException e) {
+				throw new IllegalStateException(e);
+			}
+
+			skipNonMatching();
+		}
+
+		public boolean hasNext() {
+			return (current != null);
+		}
+
+		public WordEntry next() {
+			if(current == null)
+				throw new NoSuchElementException();
+
+			IntsRef input = current.input;
+			char[] chars = new char[input.length];
+
+			for(int i = 0; i < input.length; i++) {
+				chars[i] = (char)input.ints[input.offset + i];
+			}
+
+			WordEntry entry = toWordEntry(new String(chars), current.output);
+
+			try {
+				current = fstEnum.next();
+			} catch(IOException e) {
+				throw new IllegalStateException(e);
+			}
+
+			skipNonMatching();
+
+			return entry;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		private void skipNonMatching() {
+			if(current == null)
+				return;
+
+			IntsRef input = current.input;
+
+			if(input.length < prefix.length()) {
+				current = null;
+				return;
+			}
+
+			for(int i = 0; i < prefix.length(); i++) {
+				if(input.ints[input.offset + i] != prefix.charAt(i)) {
+					current = null;
+					return;
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * FST의 단어와 사용자 사전의 단어를 사전 순서대로 합쳐서 반환한다.
+	 * 같은 단어는 사용자 사전의 단어를 반환하고, 삭제한 단어는 건너뛴다.
+	 */
+	private class UserWordsIterator implements Iterator<WordEntry> {
+
+		private final Iterator<WordEntry> baseIterator;
+
+		private final Iterator<Map.Entry<String, char[]>> userIterator;
+
+		private final String prefix;
+
+		private WordEntry nextBase;
+
+		private Map.Entry<String, char[]> nextUser;
+
+		public UserWordsIterator(Iterator<WordEntry> baseIterator, String prefix) {
+			this.baseIterator = baseIterator;
+			this.userIterator = userWords.tailMap(prefix).entrySet().iterator();
+			this.prefix = prefix;
+
+			advanceBase();
+			advanceUser();
+		}
+
+		public boolean hasNext() {
+			return (nextBase != null || nextUser != null);
+		}
+
+		public WordEntry next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+
+			int cmp;
+
+			if(nextBase == null)
+				cmp = 1;
+			else if(nextUser == null)
+				cmp = -1;
+			else
+				cmp = nextBase.getWord().compareTo(nextUser.getKey());
+
+			if(cmp < 0) {
+				WordEntry entry = nextBase;
+				advanceBase();
+				return entry;
+			}
+
+			if(cmp == 0)
+				advanceBase();
+
+			WordEntry entry = new WordEntry(nextUser.getKey(), nextUser.getValue());
+			advanceUser();
+
+			return entry;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		private void advanceBase() {
+			nextBase = null;
+
+			while(baseIterator.hasNext()) {
+				WordEntry entry = baseIterator.next();
+
+				if(!removedWords.contains(entry.getWord())) {
+					nextBase = entry;
+					return;
+				}
+			}
+		}
+
+		private void advanceUser() {
+			nextUser = null;
+
+			if(userIterator.hasNext()) {
+				Map.Entry<String, char[]> entry = userIterator.next();
+
+				if(entry.getKey().startsWith(prefix))
+					nextUser = entry;
+			}
+		}
+
+	}
+
+	/**
+	 * 단어를 모아서 WordDictionary를 컴파일한다.
+	 * 같은 단어를 다시 추가하면 나중에 추가한 단어특성으로 대체된다.
+	 */
+	public static class Builder {
+
+		private final TreeMap<String, Long> words = new TreeMap<String, Long>();
+
+		private final Map<String, Integer> featureIds = new HashMap<String, Integer>();
+
+		private final List<char[]> featureTable = new ArrayList<char[]>();
+
+		private final List<List<CompoundEntry>> compoundTable = new ArrayList<List<CompoundEntry>>();
+
+		public void add(String word, char[] features) {
+			add(word, features, null);
+		}
+
+		public void add(String word, char[] features, List<CompoundEntry> compounds) {
+			if(word.length() == 0)
+				return;
+
+			long output = getFeatureId(features);
+
+			if(compounds != null) {
+				compoundTable.add(compounds);
+				output |= ((long)compoundTable.size() << FEATURE_BITS);
+			}
+
+			words.put(canonicalCase(word), output);
+		}
+
+		public int size() {
+			return words.size();
+		}
+
+		@SuppressWarnings("unchecked")
+		public WordDictionary build() throws IOException {
+			org.apache.lucene.util.fst.Builder<Long> builder = new org.apache.lucene.util.fst.Builder<Long>(FST.INPUT_TYPE.BYTE2, outputs);
+			IntsRef scratch = new IntsRef(16);
+
+			for(Map.Entry<String, Long> entry : words.entrySet()) {
+				builder.add(toIntsRef(entry.getKey(), scratch), outputs.get(entry.getValue()));
+			}
+
+			FST<Long> fst = builder.finish();
+
+			return new WordDictionary(fst,
+					featureTable.toArray(new char[featureTable.size()][]),
+					compoundTable.toArray(new List[compoundTable.size()]),
+					words.size());
+		}
+
+		private int getFeatureId(char[] features) {
+			String key = new String(features);
+			Integer id = featureIds.get(key);
+
+			if(id == null) {
+				if(featureTable.size() == FEATURE_MASK)
+					throw new IllegalArgumentException("Too many word features: " + featureTable.size());
+
+				featureTable.add(features);
+				id = featureTable.size();
+				featureIds.put(key, id);
+			}
+
+			return id;
+		}
+
+	}
+
+}
@@ -6,9 +6,19 @@ import java.util.List;
 import java.util.regex.Pattern;
 
 import org.jhlabs.scany.engine.analysis.kr.dic.Dictionary;
+import org.jhlabs.scany.engine.analysis.kr.dic.DictionaryInstance;
 
 /**
  * 복합명사를 분해한다.
+ *
+ * <pre>
+ * 분해를 시작할 때 입력의 각 위치에서 시작하는 단어를 단어사전(FST)을 한번씩만 따라가며 모두 찾아 둔다(Lattice).
+ * 이후의 단어 조회는 부분 문자열을 만들지 않고 이 표에서 찾는다.
+ * 긴 복합명사는 앞, 뒤 부분으로 나누어 재귀적으로 분해하는데, 같은 구간이 여러 번 분해되므로
+ * 구간별 분해 결과를 저장해 두고 다시 사용한다(DP). 따라서 분해 결과는 구간을 나누는 규칙에 따라 결정되며
+ * 저장하지 않고 매번 분해할 때와 같다.
+ * </pre>
+ *
  * @author smlee
  *
  */
@@ -16,6 +26,9 @@ public class CompoundNounAnalyzer {
 
 	private static int score = 1;
 
+	/** 분해할 복합명사의 최대 길이. 이보다 긴 복합명사는 무시한다. */
+	private static final int MAX_COMPOUND_LENGTH = 20;
+
 	private boolean exactMach = true;
 
 	private static Pattern NUM_PATTERN;
@@ -45,54 +58,73 @@ public class CompoundNounAnalyzer {
 	public List analyze(String input, boolean isFirst) throws MorphException {
 
 		int len = input.length();
-		if(len < 3)
+		if(len < 3 || len > MAX_COMPOUND_LENGTH)
 			return new ArrayList();
 
-		List outputs = new ArrayList();
+		return analyze(new Lattice(input), 0, len, isFirst);
+
+	}
+
+	/**
+	 * 입력의 [start, end) 구간을 분해한다. 같은 구간을 다시 분해하면 저장된 결과를 복사해서 반환한다.
+	 */
+	private List<CompoundEntry> analyze(Lattice lattice, int start, int end, boolean isFirst) throws MorphException {
+
+		int len = end - start;
+		if(len < 3)
+			return new ArrayList<CompoundEntry>();
+
+		List<CompoundEntry> outputs = lattice.getResults(start, end, isFirst);
+		if(outputs != null)
+			return new ArrayList<CompoundEntry>(outputs);
+
+		outputs = new ArrayList<CompoundEntry>();
 
 		switch(len) {
 		case 3:
-			analyze3Word(input, outputs, isFirst);
+			analyze3Word(lattice, start, outputs, isFirst);
 			break;
 		case 4:
-			analyze4Word(input, outputs, isFirst);
+			analyze4Word(lattice, start, outputs, isFirst);
 			break;
 		case 5:
-			analyze5Word(input, outputs, isFirst);
+			analyze5Word(lattice, start, outputs, isFirst);
 			break;
 		case 6:
-			analyze6Word(input, outputs, isFirst);
+			analyze6Word(lattice, start, outputs, isFirst);
 			break;
 		default:
-			analyzeLongText(input, outputs, isFirst);
+			analyzeLongText(lattice, start, end, outputs, isFirst);
 		}
 
-		return outputs;
+		lattice.setResults(start, end, isFirst, outputs);
+
+		return new ArrayList<CompoundEntry>(outputs);
 
 	}
 
-	private void analyze3Word(String input, List outputs, boolean isFirst) throws MorphException {
+	private void analyze3Word(Lattice lattice, int start, List<CompoundEntry> outputs, boolean isFirst) throws MorphException {
 
 		int[] units1 = { 2, 1 };
-		CompoundEntry[] entries1 = analysisBySplited(units1, input, isFirst);
+		CompoundEntry[] entries1 = analysisBySplited(units1, lattice, start, isFirst);
 		if(entries1 != null && entries1[0].isExist() && entries1[1].isExist()) {
 			outputs.addAll(Arrays.asList(entries1));
 			return;
 		}
 
 		int[] units2 = { 1, 2 };
-		CompoundEntry[] entries2 = analysisBySplited(units2, input, isFirst);
+		CompoundEntry[] entries2 = analysisBySplited(units2, lattice, start, isFirst);
 		if(entries2 != null && entries2[0].isExist() && entries2[1].isExist()) {
 			outputs.addAll(Arrays.asList(entries2));
 		}
 
 	}
 
-	private void analyze4Word(String input, List outputs, boolean isFirst) throws MorphException {
+	private void analyze4Word(Lattice lattice, int start, List<CompoundEntry> outputs, boolean isFirst) throws MorphException {
 
 		if(!isFirst) {
 			int[] units0 = { 1, 3 };
-			CompoundEntry[] entries0 = analysisBySplited(units0, input, isFirst);
+			CompoundEntry[] entries0 = analysisBySplited(units0, lattice, start, isFirst);
 			if(entries0 != null && entries0[0].isExist() && entries0[1].isExist()) {
 				outputs.addAll(Arrays.asList(entries0));
 				return;
@@ -100,14 +132,14 @@ public class CompoundNounAnalyzer {
 		}
 
 		int[] units2 = { 1, 2, 1 };
-		CompoundEntry[] entries2 = analysisBySplited(units2, input, isFirst);
+		CompoundEntry[] entries2 = analysisBySplited(units2, lattice, start, isFirst);
 		if(entries2 != null && entries2[0].isExist() && entries2[1].isExist() && entries2[2].isExist()) {
 			outputs.addAll(Arrays.asList(entries2));
 			return;
 		}
 
 		int[] units1 = { 2, 2 };
-		CompoundEntry[] entries1 = analysisBySplited(units1, input, isFirst);
+		CompoundEntry[] entries1 = analysisBySplited(units1, lattice, start, isFirst);
 		if(entries1 != null && entries1[0].isExist() && entries1[1].isExist()) {
 			outputs.addAll(Arrays.asList(entries1));
 			return;
@@ -118,38 +150,38 @@ public class CompoundNounAnalyzer {
 		}
 	}
 
-	private void analyze5Word(String input, List outputs, boolean isFirst) throws MorphException {
+	private void analyze5Word(Lattice lattice, int start, List<CompoundEntry> outputs, boolean isFirst) throws MorphException {
 
 		int[] units1 = { 2, 3 };
-		CompoundEntry[] entries1 = analysisBySplited(units1, input, isFirst);
+		CompoundEntry[] entries1 = analysisBySplited(units1, lattice, start, isFirst);
 		if(entries1 != null && entries1[0].isExist() && entries1[1].isExist()) {
 			outputs.addAll(Arrays.asList(entries1));
 			return;
 		}
 
 		int[] units2 = { 3, 2 };
-		CompoundEntry[] entries2 = analysisBySplited(units2, input, isFirst);
+		CompoundEntry[] entries2 = analysisBySplited(units2, lattice, start, isFirst);
 		if(entries2 != null && entries2[0].isExist() && entries2[1].isExist()) {
 			outputs.addAll(Arrays.asList(entries2));
 			return;
 		}
 
 		int[] units_1 = { 4, 1 };
-		CompoundEntry[] entries_1 = analysisBySplited(units_1, input, isFirst);
+		CompoundEntry[] entries_1 = analysisBySplited(units_1, lattice, start, isFirst);
 		if(entries_1 != null && entries_1[0].isExist() && entries_1[1].isExist()) {
 			outputs.addAll(Arrays.asList(entries_1));
 			return;
 		}
 
 		int[] units3 = { 2, 2, 1 };
-		CompoundEntry[] entries3 = analysisBySplited(units3, input, isFirst);
+		CompoundEntry[] entries3 = analysisBySplited(units3, lattice, start, isFirst);
 		if(entries3 != null && entries3[0].isExist() && entries3[1].isExist() && entries3[2].isExist()) {
 			outputs.addAll(Arrays.asList(entries3));
 			return;
 		}
 
 		int[] units4 = { 2, 1, 2 };
-		CompoundEntry[] entries4 = analysisBySplited(units4, input, isFirst);
+		CompoundEntry[] entries4 = analysisBySplited(units4, lattice, start, isFirst);
 		if(entries4 != null && entries4[0].isExist() && entries4[1].isExist() && entries4[2].isExist()) {
 			outputs.addAll(Arrays.asList(entries4));
 			return;
@@ -174,52 +206,52 @@ public class CompoundNounAnalyzer {
 		}
 	}
 
-	private void analyze6Word(String input, List outputs, boolean isFirst) throws MorphException {
+	private void analyze6Word(Lattice lattice, int start, List<CompoundEntry> outputs, boolean isFirst) throws MorphException {
 
 		int[] units3 = { 2, 4 };
-		CompoundEntry[] entries3 = analysisBySplited(units3, input, isFirst);
+		CompoundEntry[] entries3 = analysisBySplited(units3, lattice, start, isFirst);
 		if(entries3 != null && entries3[0].isExist() && entries3[1].isExist()) {
 			outputs.addAll(Arrays.asList(entries3));
 			return;
 		}
 
 		int[] units4 = { 4, 2 };
-		CompoundEntry[] entries4 = analysisBySplited(units4, input, isFirst);
+		CompoundEntry[] entries4 = analysisBySplited(units4, lattice, start, isFirst);
 		if(entries4 != null && entries4[0].isExist() && entries4[1].isExist()) {
 			outputs.addAll(Arrays.asList(entries4));
 			return;
 		}
 
 		int[] units2 = { 3, 3 };
-		CompoundEntry[] entries2 = analysisBySplited(units2, input, isFirst);
+		CompoundEntry[] entries2 = analysisBySplited(units2, lattice, start, isFirst);
 		if(entries2 != null && entries2[0].isExist() && entries2[1].isExist()) {
 			outputs.addAll(Arrays.asList(entries2));
 			return;
 		}
 
 		int[] units6 = { 3, 2, 1 };
-		CompoundEntry[] entries6 = analysisBySplited(units6, input, isFirst);
+		CompoundEntry[] entries6 = analysisBySplited(units6, lattice, start, isFirst);
 		if(entries6 != null && entries6[0].isExist() && entries6[1].isExist()) {
 			outputs.addAll(Arrays.asList(entries6));
 			return;
 		}
 
 		int[] units7 = { 2, 3, 1 };
-		CompoundEntry[] entries7 = analysisBySplited(units7, input, isFirst);
+		CompoundEntry[] entries7 = analysisBySplited(units7, lattice, start, isFirst);
 		if(entries7 != null && entries7[0].isExist() && entries7[1].isExist()) {
 			outputs.addAll(Arrays.asList(entries7));
 			return;
 		}
 
 		int[] units1 = { 2, 2, 2 };
-		CompoundEntry[] entries1 = analysisBySplited(units1, input, isFirst);
+		CompoundEntry[] entries1 = analysisBySplited(units1, lattice, start, isFirst);
 		if(entries1 != null && entries1[0].isExist() && entries1[1].isExist() && entries1[2].isExist()) {
 			outputs.addAll(Arrays.asList(entries1));
 			return;
 		}
 
 		int[] units5 = { 2, 1, 2, 1 };
-		CompoundEntry[] entries5 = analysisBySplited(units5, input, isFirst);
+		CompoundEntry[] entries5 = analysisBySplited(units5, lattice, start, isFirst);
 		if(entries5 != null && entries5[0].isExist() && entries5[1].isExist() && entries5[2].isExist()
 				&& entries5[3].isExist()) {
 			outputs.addAll(Arrays.asList(entries5));
@@ -247,31 +279,29 @@ public class CompoundNounAnalyzer {
 
 	}
 
-	private void analyzeLongText(String input, List outputs, boolean isFirst) throws MorphException {
+	private void analyzeLongText(Lattice lattice, int start, int end, List<CompoundEntry> outputs, boolean isFirst)
+			throws MorphException {
 
-		int pos = input.length() / 2;
-		if(input.length() % 2 == 1)
+		int len = end - start;
+		int pos = len / 2;
+		if(len % 2 == 1)
 			pos++;
 
-		if(input.length() > 20)
-			return; // 20글자 이상의 복합명사는 무시함.
-
 		int score = 0;
-		List results = new ArrayList();
+		List<CompoundEntry> results = new ArrayList<CompoundEntry>();
 		boolean hasContain = false;
 
 		for(int i = pos; i >= 2; i--) {
 
-			String prev = input.substring(0, i);
-			String rear = input.substring(i);
+			int mid = start + i;
 
-			List<CompoundEntry> candidates = new ArrayList();
+			List<CompoundEntry> candidates = new ArrayList<CompoundEntry>();
 
-			CompoundEntry prevEntry = analyzeSingle(prev);
+			CompoundEntry prevEntry = analyzeSingle(lattice, start, mid);
 			if(prevEntry.isExist()) {
 				candidates.add(prevEntry);
 			} else {
-				List list = analyze(prev, true);
+				List<CompoundEntry> list = analyze(lattice, start, mid, true);
 				if(list.size() == 0) {
 					candidates.add(prevEntry);
 				} else {
@@ -279,27 +309,31 @@ public class CompoundNounAnalyzer {
 				}
 			}
 
+			// 앞 부분의 마지막 단어는 항상 mid에서 끝난다.
 			CompoundEntry e = candidates.get(candidates.size() - 1);
-			if(!hasContain && containWord(e.getWord(), input, i)) {
+			int eStart = mid - e.getWord().length();
+			if(!hasContain && containWord(lattice, eStart, mid, end)) {
 				i -= e.getWord().length() - 1;
 				hasContain = true;
 				continue;
 			}
 
-			CompoundEntry rearEntry = analyzeSingle(rear);
-			if(rearEntry.isExist() || rear.length() == 3) {
+			CompoundEntry rearEntry = analyzeSingle(lattice, mid, end);
+			if(rearEntry.isExist() || end - mid == 3) {
 				candidates.add(rearEntry);
 			} else {
-				List<CompoundEntry> list = analyze(rear, false);
+				List<CompoundEntry> list = analyze(lattice, mid, end, false);
 
 				if(list.size() == 0) {
 					if(!e.isExist())
-						candidates.set(candidates.size() - 1, analyzeSingle(e.getWord() + rearEntry.getWord()));
+						candidates.set(candidates.size() - 1, analyzeSingle(lattice, eStart, end));
 					else
 						candidates.add(rearEntry);
 				} else {
+					// 뒷 부분의 첫 단어는 항상 mid에서 시작한다.
 					if(!e.isExist())
-						candidates.set(candidates.size() - 1, analyzeSingle(e.getWord() + list.remove(0).getWord()));
+						candidates.set(candidates.size() - 1,
+								analyzeSingle(lattice, eStart, mid + list.remove(0).getWord().length()));
 					candidates.addAll(list);
 				}
 			}
@@ -341,24 +375,18 @@ public class CompoundNounAnalyzer {
 		return eval;
 	}
 
-	private boolean containWord(String before, String input, int pos) throws MorphException {
-
-		String prev = null;
-		for(int i = pos; i < input.length(); i++) {
-
-			String text = before + input.substring(pos, i + 1);
-			if(Dictionary.findWithPrefix(text).hasNext()) {
-				prev = text;
-				continue;
-			}
+	/**
+	 * input[before, pos)에 뒷 음절을 이어 붙여서 만들 수 있는 가장 긴 단어의 접두어가 명사이면 true를 반환한다.
+	 * 접두어가 구간의 끝(end)까지 이어지면 false를 반환한다.
+	 */
+	private boolean containWord(Lattice lattice, int before, int pos, int end) throws MorphException {
 
-			if(prev != null && Dictionary.getNoun(prev) != null)
-				return true;
+		int prefixEnd = lattice.getPrefixEnd(before);
 
-			break;
-		}
+		if(prefixEnd <= pos || prefixEnd >= end)
+			return false;
 
-		return false;
+		return lattice.getNoun(before, prefixEnd) != null;
 
 	}
 
@@ -475,24 +503,25 @@ public class CompoundNounAnalyzer {
 	//		
 	//	}
 
-	private CompoundEntry[] analysisBySplited(int[] units, String input, boolean isFirst) throws MorphException {
+	private CompoundEntry[] analysisBySplited(int[] units, Lattice lattice, int start, boolean isFirst)
+			throws MorphException {
 
 		CompoundEntry[] entries = new CompoundEntry[units.length];
 
-		int pos = 0;
-		String prev = null;
+		int pos = start;
+		int prev = start;
 
 		for(int i = 0; i < units.length; i++) {
 
-			String str = input.substring(pos, pos + units[i]);
+			int next = pos + units[i];
 
-			if(i != 0 && !validCompound(prev, str, isFirst && (i == 1), i))
+			if(i != 0 && !validCompound(lattice, prev, pos, next, isFirst && (i == 1), i))
 				return null;
 
-			entries[i] = analyzeSingle(str); // CompoundEntry 로 변환
+			entries[i] = analyzeSingle(lattice, pos, next); // CompoundEntry 로 변환
 
-			pos += units[i];
-			prev = str;
+			prev = pos;
+			pos = next;
 		}
 
 		return entries;
@@ -514,56 +543,68 @@ public class CompoundNounAnalyzer {
 	}
 
 	/**
-	 * 입력된 String 을 CompoundEntry 로 변환
-	 * @param input
+	 * 입력의 [start, end) 구간을 CompoundEntry 로 변환
+	 * 같은 구간은 같은 CompoundEntry를 반환한다.
+	 * @param lattice
+	 * @param start
+	 * @param end
 	 * @return
 	 * @throws MorphException
 	 */
-	private CompoundEntry analyzeSingle(String input) throws MorphException {
+	private CompoundEntry analyzeSingle(Lattice lattice, int start, int end) throws MorphException {
+
+		CompoundEntry single = lattice.getSingle(start, end);
+		if(single != null)
+			return single;
 
-		boolean success = false;
-		int score = AnalysisOutput.SCORE_ANALYSIS;
-		int ptn = PatternConstants.PTN_N;
 		char pos = PatternConstants.POS_NOUN;
-		if(input.length() == 1)
-			return new CompoundEntry(input, 0, true, pos);
-
-		WordEntry entry = Dictionary.getWordExceptVerb(input);
-		if(entry != null) {
-			score = AnalysisOutput.SCORE_CORRECT;
-			if(entry.getFeature(WordEntry.IDX_NOUN) != '1') {
-				ptn = PatternConstants.PTN_AID;
+		boolean exist = true;
+
+		if(end - start > 1) {
+			WordEntry entry = lattice.getWordExceptVerb(start, end);
+			exist = (entry != null);
+			if(exist && entry.getFeature(WordEntry.IDX_NOUN) != '1')
 				pos = PatternConstants.POS_AID;
-			}
 		}
 
-		return new CompoundEntry(input, 0, score == AnalysisOutput.SCORE_CORRECT, pos);
+		single = new CompoundEntry(lattice.getText(start, end), 0, exist, pos);
+		lattice.setSingle(start, end, single);
+
+		return single;
 
 	}
 
-	private boolean validCompound(String before, String after, boolean isFirst, int pos) throws MorphException {
+	/**
+	 * 입력의 [before, after) 구간의 단어와 [after, end) 구간의 단어가 복합명사를 이룰 수 있는지 확인한다.
+	 */
+	private boolean validCompound(Lattice lattice, int before, int after, int end, boolean isFirst, int pos)
+			throws MorphException {
 
-		if(pos == 1 && before.length() == 1 && (!isFirst || !Dictionary.existPrefix(before)))
+		int beforeLen = after - before;
+		int afterLen = end - after;
+
+		if(pos == 1 && beforeLen == 1 && (!isFirst || !lattice.existPrefix(before)))
 			return false;
 
-		if(after.length() == 1 && !Dictionary.existSuffix(after))
+		if(afterLen == 1 && !lattice.existSuffix(after))
 			return false;
 
-		if(pos != 1 && before.length() == 1) {
+		if(pos != 1 && beforeLen == 1) {
 
-			WordEntry entry1 = Dictionary.getUncompound(before + after);
+			WordEntry entry1 = lattice.getUncompound(before, end);
 			if(entry1 != null) {
 				List<CompoundEntry> compounds = entry1.getCompounds();
-				if(before.equals(compounds.get(0).getWord()) && after.equals(compounds.get(1).getWord()))
+				if(lattice.matches(before, after, compounds.get(0).getWord())
+						&& lattice.matches(after, end, compounds.get(1).getWord()))
 					return false;
 			}
 
 		}
 
-		WordEntry entry2 = after.length() == 1 ? null : Dictionary.getUncompound(after);
+		WordEntry entry2 = afterLen == 1 ? null : lattice.getUncompound(after, end);
 		if(entry2 != null) {
 			List<CompoundEntry> compounds = entry2.getCompounds();
-			if("*".equals(compounds.get(0).getWord()) && after.equals(compounds.get(1).getWord()))
+			if("*".equals(compounds.get(0).getWord()) && lattice.matches(after, end, compounds.get(1).getWord()))
 				return false;
 		}
 
@@ -571,4 +612,135 @@ public class CompoundNounAnalyzer {
 
 	}
 
+	/**
+	 * 분해하는 복합명사의 구간별 단어와 분해 결과.
+	 *
+	 * <pre>
+	 * 입력의 각 위치에서 단어사전(FST)을 한번만 따라가며 그 위치에서 시작하는 모든 단어와
+	 * 단어의 접두어가 되는 가장 긴 구간을 찾아 둔다.
+	 * 복합명사 예외(uncompounds), 구간 문자열, 분해 결과는 처음 사용할 때 구간별로 저장한다.
+	 * 분해하는 동안에는 분해를 시작할 때의 사전을 사용한다.
+	 * </pre>
+	 */
+	private static final class Lattice {
+
+		private final String input;
+
+		private final DictionaryInstance dictionary;
+
+		/** words[s][n]: input[s, s + n)이 단어이면 WordEntry */
+		private final WordEntry[][] words;
+
+		/** prefixEnds[s]: input[s, e)가 단어의 접두어가 되는 가장 큰 e */
+		private final int[] prefixEnds;
+
+		private final String[][] texts;
+
+		private final CompoundEntry[][] singles;
+
+		private final WordEntry[][] uncompounds;
+
+		private final boolean[][] uncompoundLoaded;
+
+		/** results[isFirst ? 1 : 0][s][n]: input[s, s + n)의 분해 결과 */
+		private final List<CompoundEntry>[][][] results;
+
+		@SuppressWarnings("unchecked")
+		public Lattice(String input) {
+			int len = input.length();
+
+			this.input = input;
+			this.dictionary = Dictionary.getInstance();
+			this.words = new WordEntry[len][];
+			this.prefixEnds = new int[len];
+			this.texts = new String[len][len + 1];
+			this.singles = new CompoundEntry[len][len + 1];
+			this.uncompounds = new WordEntry[len][len + 1];
+			this.uncompoundLoaded = new boolean[len][len + 1];
+			this.results = new List[2][len][len + 1];
+
+			for(int s = 0; s < len; s++) {
+				words[s] = new WordEntry[len - s + 1];
+				prefixEnds[s] = dictionary.getWords().matchWords(input, s, len, words[s]);
+			}
+		}
+
+		public String getText(int start, int end) {
+			String text = texts[start][end - start];
+
+			if(text == null) {
+				text = input.substring(start, end);
+				texts[start][end - start] = text;
+			}
+
+			return text;
+		}
+
+		public boolean matches(int start, int end, String word) {
+			return word.length() == end - start && input.regionMatches(start, word, 0, word.length());
+		}
+
+		public int getPrefixEnd(int start) {
+			return prefixEnds[start];
+		}
+
+		/**
+		 * @see Dictionary#getWordExceptVerb(String)
+		 */
+		public WordEntry getWordExceptVerb(int start, int end) {
+			WordEntry entry = words[start][end - start];
+
+			if(entry != null && (entry.getFeature(WordEntry.IDX_NOUN) == '1' || entry.getFeature(WordEntry.IDX_BUSA) == '1'))
+				return entry;
+
+			return null;
+		}
+
+		/**
+		 * @see Dictionary#getNoun(String)
+		 */
+		public WordEntry getNoun(int start, int end) {
+			WordEntry entry = words[start][end - start];
+
+			if(entry != null && entry.getFeature(WordEntry.IDX_NOUN) == '1')
+				return entry;
+
+			return null;
+		}
+
+		public WordEntry getUncompound(int start, int end) {
+			if(!uncompoundLoaded[start][end - start]) {
+				uncompounds[start][end - start] = dictionary.getUncompounds().get(getText(start, end));
+				uncompoundLoaded[start][end - start] = true;
+			}
+
+			return uncompounds[start][end - start];
+		}
+
+		public boolean existPrefix(int pos) {
+			return dictionary.getPrefixs().contains(getText(pos, pos + 1));
+		}
+
+		public boolean existSuffix(int pos) {
+			return dictionary.getSuffixs().contains(getText(pos, pos + 1));
+		}
+
+		public CompoundEntry getSingle(int start, int end) {
+			return singles[start][end - start];
+		}
+
+		public void setSingle(int start, int end, CompoundEntry single) {
+			singles[start][end - start] = single;
+		}
+
+		public List<CompoundEntry> getResults(int start, int end, boolean isFirst) {
+			return results[isFirst ? 1 : 0][start][end - start];
+		}
+
+		public void setResults(int start, int end, boolean isFirst, List<CompoundEntry> outputs) {
+			results[isFirst ? 1 : 0][start][end - start] = outputs;
+		}
+
+	}
+
 }
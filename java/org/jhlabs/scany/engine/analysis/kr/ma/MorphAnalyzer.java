@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.List;
 
 import org.jhlabs.scany.engine.analysis.kr.dic.Dictionary;
+import org.jhlabs.scany.engine.analysis.kr.dic.DictionaryInstance;
 import org.jhlabs.scany.engine.analysis.kr.ma.rule.ConstraintRule;
 import org.jhlabs.scany.engine.analysis.kr.ma.rule.EomiRule;
 import org.jhlabs.scany.engine.analysis.kr.ma.rule.IrregularRule;
@@ -73,6 +74,16 @@ public class MorphAnalyzer {
 	 * @throws MorphException
 	 */
 	public List analyze(String input, int pos) throws MorphException {
+		DictionaryInstance pinned = Dictionary.pin();
+
+		try {
+			return analyzeWord(input, pos);
+		} finally {
+			Dictionary.unpin(pinned);
+		}
+	}
+
+	private List analyzeWord(String input, int pos) throws MorphException {
 		List<AnalysisOutput> candidates = new ArrayList();
 		boolean isVerbOnly = MorphRule.hasVerbOnly(input);
 
@@ -190,8 +201,8 @@ public class MorphAnalyzer {
 			String stem = input.substring(0, i);
 			String eomi = input.substring(i);
 
-			char[] feature = Dictionary.getSyllableFeature(eomi.charAt(0));
-			if(!isVerbOnly && josaFlag && feature[SyllableRule.IDX_JOSA1] == '1') {
+			long feature = Dictionary.getSyllableFeature(eomi.charAt(0));
+			if(!isVerbOnly && josaFlag && SyllableRule.hasFeature(feature, SyllableRule.IDX_JOSA1)) {
 				analysisWithJosa(stem, eomi, candidates);
 			}
 
@@ -199,9 +210,9 @@ public class MorphAnalyzer {
 				analysisWithEomi(stem, eomi, candidates);
 			}
 
-			if(josaFlag && feature[SyllableRule.IDX_JOSA2] == '0')
+			if(josaFlag && !SyllableRule.hasFeature(feature, SyllableRule.IDX_JOSA2))
 				josaFlag = false;
-			if(eomiFlag && feature[SyllableRule.IDX_EOMI2] == '0')
+			if(eomiFlag && !SyllableRule.hasFeature(feature, SyllableRule.IDX_EOMI2))
 				eomiFlag = false;
 
 			if(!josaFlag && !eomiFlag)
@@ -329,8 +340,8 @@ public class MorphAnalyzer {
 				output.setScore(AnalysisOutput.SCORE_CORRECT);
 				MorphRule.buildPtnVM(output, candidates);
 
-				char[] features = Dictionary.getSyllableFeature(stem.charAt(stem.length() - 1)); // ㄹ불규칙일 경우
-				if(features[SyllableRule.IDX_YNPLN] == '0' || morphs[1].charAt(0) != 'ㄴ')
+				long features = Dictionary.getSyllableFeature(stem.charAt(stem.length() - 1)); // ㄹ불규칙일 경우
+				if(!SyllableRule.hasFeature(features, SyllableRule.IDX_YNPLN) || morphs[1].charAt(0) != 'ㄴ')
 					return;
 			}
 
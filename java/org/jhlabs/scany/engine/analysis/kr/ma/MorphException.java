@@ -19,6 +19,8 @@ package org.jhlabs.scany.engine.analysis.kr.ma;
 
 public class MorphException extends Exception {
 
+	private static final long serialVersionUID = 6911086902233189291L;
+
 	public MorphException() {
 		super();
 	}
@@ -49,7 +49,7 @@ public class EomiRule {
 		
 		String stem;
 		String eomi;
-		char[] efeature;
+		long efeature;
 		
 		for(int i=term.length();i>0;i--) {
 			
@@ -108,7 +108,7 @@ public class EomiRule {
 				else result[0] = stem.substring(0,stem.length()-1)+end;
 				result[1] = eomi;	
 				
-			}else if(efeature!=null&&efeature[SyllableRule.IDX_EOMI1]!='0'&&
+			}else if(SyllableRule.hasFeature(efeature, SyllableRule.IDX_EOMI1)&&
 				Dictionary.existEomi(eomi)) {
 				if(!(((jasos.length==2&&jasos[0]=='ㄹ')||(jasos.length==3&&jasos[2]=='ㄹ'))&&eomi.equals("러"))) { // ㄹ 불규칙은 예외
 					result[0] = stem;
@@ -116,7 +116,7 @@ public class EomiRule {
 				}
 			}
 
-			if(efeature!=null&&efeature[SyllableRule.IDX_EOMI2]=='0') break;
+			if(!SyllableRule.hasFeature(efeature, SyllableRule.IDX_EOMI2)) break;
 		}	
 
 		return result;
@@ -565,18 +565,18 @@ public class EomiRule {
 	 */
 	public static boolean IsNLMBSyl(char ech, char lch) throws MorphException {
 	
-		char[] features = Dictionary.getSyllableFeature(ech);
+		long features = Dictionary.getSyllableFeature(ech);
 
 		switch(lch) {
 
 			case 'ㄴ' :
-				return (features[SyllableRule.IDX_YNPNA]=='1' || features[SyllableRule.IDX_YNPLN]=='1');				
+				return (SyllableRule.hasFeature(features, SyllableRule.IDX_YNPNA) || SyllableRule.hasFeature(features, SyllableRule.IDX_YNPLN));				
 			case 'ㄹ' :
-				return (features[SyllableRule.IDX_YNPLA]=='1');
+				return (SyllableRule.hasFeature(features, SyllableRule.IDX_YNPLA));
 			case 'ㅁ' :
-				return (features[SyllableRule.IDX_YNPMA]=='1');		
+				return (SyllableRule.hasFeature(features, SyllableRule.IDX_YNPMA));		
 			case 'ㅂ' :
-				return (features[SyllableRule.IDX_YNPBA]=='1');					
+				return (SyllableRule.hasFeature(features, SyllableRule.IDX_YNPBA));					
 		}
 	
 		return false;
@@ -620,7 +620,7 @@ public class EomiRule {
 			strs[1] = "이"+end;				
 		} else if(chrs[0]!='ㅇ'&&
 				(chrs[1]=='ㅏ'||chrs[1]=='ㅓ'||chrs[1]=='ㅔ'||chrs[1]=='ㅐ')&&
-				(chrs.length==2 || Dictionary.getSyllableFeature(estem)[SyllableRule.IDX_YNPAH]=='1')&&
+				(chrs.length==2 || SyllableRule.hasFeature(Dictionary.getSyllableFeature(estem), SyllableRule.IDX_YNPAH))&&
 				(Dictionary.combineAndEomiCheck('어', end)!=null)) {		
 		
 			strs[0] = stem;
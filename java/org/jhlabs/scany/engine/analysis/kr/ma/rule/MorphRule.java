@@ -195,8 +195,8 @@ public class MorphRule {
 	public static boolean hasVerbOnly(String input) throws MorphException {
 
 		for(int i = input.length() - 1; i >= 0; i--) {
-			char[] feature = Dictionary.getSyllableFeature(input.charAt(i));
-			if(feature[SyllableRule.IDX_WDSURF] == '1' && input.length() > i)
+			long feature = Dictionary.getSyllableFeature(input.charAt(i));
+			if(SyllableRule.hasFeature(feature, SyllableRule.IDX_WDSURF) && input.length() > i)
 				return true;
 		}
 		return false;
@@ -312,7 +312,7 @@ public class NounRule {
 
 		for(int i = 1; i < str.length(); i++) {
 			String sub = str.substring(0, i + 1);
-			if(!Dictionary.findWithPrefix(sub).hasNext())
+			if(!Dictionary.existWordPrefix(sub))
 				break;
 			WordEntry entry = Dictionary.getCNoun(sub);
 			if(entry != null) {
@@ -364,11 +364,11 @@ public class NounRule {
 
 			String josa = input.substring(i);
 
-			char[] feature = Dictionary.getSyllableFeature(josa.charAt(0));
+			long feature = Dictionary.getSyllableFeature(josa.charAt(0));
 			if(josaFlag && Dictionary.existJosa(josa))
 				return true;
 
-			if(josaFlag && feature[SyllableRule.IDX_JOSA2] == '0')
+			if(josaFlag && !SyllableRule.hasFeature(feature, SyllableRule.IDX_JOSA2))
 				josaFlag = false;
 			if(!josaFlag)
 				break;
@@ -1,517 +1,256 @@
 package org.jhlabs.scany.engine.analysis.kr.ws;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 import org.jhlabs.scany.engine.analysis.kr.dic.Dictionary;
+import org.jhlabs.scany.engine.analysis.kr.dic.DictionaryInstance;
 import org.jhlabs.scany.engine.analysis.kr.ma.AnalysisOutput;
-import org.jhlabs.scany.engine.analysis.kr.ma.CompoundEntry;
 import org.jhlabs.scany.engine.analysis.kr.ma.MorphAnalyzer;
 import org.jhlabs.scany.engine.analysis.kr.ma.MorphException;
 import org.jhlabs.scany.engine.analysis.kr.ma.PatternConstants;
 import org.jhlabs.scany.engine.analysis.kr.ma.WordEntry;
 import org.jhlabs.scany.engine.analysis.kr.ma.rule.MorphRule;
-import org.jhlabs.scany.engine.analysis.kr.ma.rule.SyllableRule;
-import org.jhlabs.scany.engine.analysis.kr.ma.rule.VerbRule;
 
 /**
- * 
+ * 띄어쓰기가 되지 않은 문자열을 어절로 나눈다.
+ *
+ * <pre>
+ * 문자열의 각 위치에서 끝나는 가장 좋은 분할을 앞에서부터 한번에 계산한다(Viterbi).
+ * 분석 시간은 문자열의 길이에 비례하며, 실패하면 되돌아가서 다시 분석하던 이전의 탐색처럼
+ * 문자열이 길어질 때 분석 시간이 급격히 늘어나지 않는다.
+ * </pre>
+ *
  * @author smlee
  *
  */
 public class WordSpaceAnalyzer {
 
-	private MorphAnalyzer morphAnal;
-
-	public WordSpaceAnalyzer() {
-		morphAnal = new MorphAnalyzer();
-		morphAnal.setExactCompound(false);
-	}
-
-	public List analyze(String input) throws MorphException {
-
-		List stack = new ArrayList();
+	/** 동적 계획법에서 후보 어절의 최대 길이 */
+	public static final int MAX_EOJEOL_LENGTH = 12;
 
-		WSOutput output = new WSOutput();
+	/** 동적 계획법에서 찾는 조사, 어미의 최대 길이 */
+	private static final int MAX_ENDING_LENGTH = 5;
 
-		int wStart = 0;
+	/** 어절 하나를 추가하는 비용. 어절의 수가 적은 분할을 선택하게 한다. */
+	private static final int EOJEOL_COST = 100;
 
-		int sgCount = -9;
-
-		Map<Integer, Integer> fCounter = new HashMap();
-
-		for(int i = 0; i < input.length(); i++) {
-
-			char[] f = Dictionary.getSyllableFeature(input.charAt(i));
-
-			String prefix = i == input.length() - 1 ? "X" : input.substring(wStart, i + 2);
-			Iterator iter = Dictionary.findWithPrefix(prefix);
-
-			List<AnalysisOutput> candidates = new ArrayList();
-
-			WordEntry entry = null;
-
-			if(input.charAt(i) == '있' || input.charAt(i) == '없' || input.charAt(i) == '앞') {
-				addSingleWord(input.substring(wStart, i), candidates);
-
-				// 다음 음절이 2음절 이상 단어에 포함되어 있고 마지막 음절이 아니라면   띄워쓰기 위치가 아닐 가능성이 크다.
-				// 부사, 관형사, 감탄사 등 단일어일 가능성인 경우 띄워쓰기가 가능하나, 
-				// 이 경우는 다음 음절을 조사하여 
-			} else if(i != input.length() - 1 && iter.hasNext()) {
-				// 아무짓도 하지 않음.
-				sgCount = i;
-			} else if(!iter.hasNext() && (entry = Dictionary.getBusa(input.substring(wStart, i + 1))) != null) {
-				candidates.add(buildSingleOutput(entry));
-
-				// 현 음절이 조사나 어미가 시작되는 음절일 가능성이 있다면...	
-			} else if(f[SyllableRule.IDX_EOGAN] == '1' || f[SyllableRule.IDX_JOSA1] == '1') {
-				if(f[SyllableRule.IDX_JOSA1] == '1')
-					candidates.addAll(anlysisWithJosa(input.substring(wStart), i - wStart));
+	/**
+	 * 분석에 성공하지 못한(SCORE_CORRECT가 아닌) 어절의 음절당 비용.
+	 * 복합명사로 추정된 긴 어절 하나보다 분석에 성공한 여러 어절을 선택하게 한다.
+	 */
+	private static final int UNCERTAIN_COST = 40;
 
-				if(f[SyllableRule.IDX_EOGAN] == '1')
-					candidates.addAll(anlysisWithEomi(input.substring(wStart), i - wStart));
-			}
+	/** 어떤 후보에도 포함되지 않는 미등록 음절의 비용 */
+	private static final int UNKNOWN_COST = 200;
 
-			// 호보가 될 가능성이 높은 순으로 정렬한다.
-			Collections.sort(candidates, new WSOuputComparator());
-
-			// 길이가 가장 긴 단어를 단일어로 추가한다.
-			appendSingleWord(candidates);
-
-			// 분석에 실패한 단어를 
-			analysisCompouns(candidates);
-
-			// 호보가 될 가능성이 높은 순으로 정렬한다.
-			Collections.sort(candidates, new WSOuputComparator());
-
-			int reseult = validationAndAppend(output, candidates, input);
-			if(reseult == 1) {
-				i = output.getLastEnd() - 1;
-				wStart = output.getLastEnd();
-			} else if(reseult == -1) {
-				Integer index = fCounter.get(output.getLastEnd());
-				if(index == null)
-					index = output.getLastEnd();
-				else
-					index = index + 1;
-				i = index;
-				wStart = output.getLastEnd();
-				fCounter.put(output.getLastEnd(), index);
-			}
+	/**
+	 * 복합명사로 분해된 어절의 단위명사당 추가 비용.
+	 * 앞 어절의 조사까지 삼켜서 만든 복합명사(날씨가+정말, 위치한+회사)보다 어절을 나누는 분할을 선택하게 한다.
+	 */
+	private static final int COMPOUND_COST = 110;
 
-		}
+	/** 조사의 음절당 줄어드는 비용. 비용이 같으면 조사를 길게 분석한 분할(도서관에서 책을)을 선택한다. */
+	private static final int JOSA_BONUS = 2;
 
-		// 분석에 실패하였다면 원래 문자열을 되돌려 준다.
-		if(output.getLastEnd() < input.length()) {
+	private MorphAnalyzer morphAnal;
 
-			String source = input.substring(output.getLastEnd());
-			int score = Dictionary.getWord(source) == null ? AnalysisOutput.SCORE_ANALYSIS
-					: AnalysisOutput.SCORE_CORRECT;
-			AnalysisOutput o = new AnalysisOutput(source, null, null, PatternConstants.POS_NOUN,
-					PatternConstants.PTN_N, score);
+	public WordSpaceAnalyzer() {
+		morphAnal = new MorphAnalyzer();
+		morphAnal.setExactCompound(false);
+	}
 
-			o.setSource(source);
-			output.getPhrases().add(o);
-			morphAnal.confirmCNoun(o);
+	public List analyze(String input) throws MorphException {
+		DictionaryInstance pinned = Dictionary.pin();
 
+		try {
+			return analyzeLattice(input);
+		} finally {
+			Dictionary.unpin(pinned);
 		}
-
-		return output.getPhrases();
 	}
 
 	/**
-	 * 조사로 끝나는 어구를 분석한다.
-	 * @param snipt
-	 * @param js
-	 * @return
-	 * @throws MorphException
+	 * 문자열의 각 위치에서 끝나는 가장 좋은 분할을 앞에서부터 한번에 계산한다(Viterbi).
+	 * 각 위치에서 시작하는 어절의 후보는 다음과 같이 만든다.
+	 *   - 단어사전(FST)을 따라가며 찾은 단어
+	 *   - 조사사전, 어미사전에 있는 조사, 어미의 끝(가장 긴 조사, 어미만이 아니라 모두)
+	 * 후보 어절은 형태소 분석 결과의 점수로 평가하며, 어절의 수가 적고 분석 점수가 높은 분할을 선택한다.
+	 * 복합명사로 분석된 어절은 단위명사마다 비용이 늘어나므로, 각각 분석되는 어절로 나눌 수 있으면 나눈다.
+	 * 후보 어절의 길이는 MAX_EOJEOL_LENGTH로 제한되므로 문자열의 길이(n)에 대해 O(n·k) 번의 후보만 평가한다.
+	 * 어떤 후보도 없는 음절은 미등록 음절이 되며, 연속된 미등록 음절은 하나의 명사로 묶는다.
 	 */
-	private List anlysisWithJosa(String snipt, int js) throws MorphException {
+	private List analyzeLattice(String input) throws MorphException {
+		int length = input.length();
+		List<AnalysisOutput> phrases = new ArrayList<AnalysisOutput>();
+
+		if(length == 0)
+			return phrases;
 
-		List<AnalysisOutput> candidates = new ArrayList();
-		if(js < 1)
-			return candidates;
+		// costs[i]: input[0, i)를 분할하는 최소 비용, starts[i]: 그 분할의 마지막 어절의 시작 위치
+		int[] costs = new int[length + 1];
+		int[] starts = new int[length + 1];
+		AnalysisOutput[] outputs = new AnalysisOutput[length + 1];
 
-		int jend = findJosaEnd(snipt, js);
+		Arrays.fill(costs, Integer.MAX_VALUE);
+		costs[0] = 0;
 
-		if(jend == -1)
-			return candidates; // 타당한 조사가 아니라면...
+		int[] wordEnds = new int[MAX_EOJEOL_LENGTH];
+		boolean[] candidateEnds = new boolean[MAX_EOJEOL_LENGTH + 1];
 
-		String input = snipt.substring(0, jend);
+		for(int start = 0; start < length; start++) {
+			if(costs[start] == Integer.MAX_VALUE)
+				continue;
 
-		boolean josaFlag = true;
+			int limit = Math.min(length, start + MAX_EOJEOL_LENGTH);
 
-		for(int i = input.length() - 1; i > 0; i--) {
+			Arrays.fill(candidateEnds, false);
+			findCandidateEnds(input, start, limit, wordEnds, candidateEnds);
 
-			String stem = input.substring(0, i);
+			if(start == 0 && limit == length)
+				candidateEnds[length] = true;
 
-			String josa = input.substring(i);
+			for(int end = start + 1; end <= limit; end++) {
+				if(candidateEnds[end - start])
+					relax(input, start, end, costs, starts, outputs);
+			}
 
-			char[] feature = Dictionary.getSyllableFeature(josa.charAt(0));
+			// 후보가 없는 음절은 미등록 음절로 넘어간다.
+			int cost = costs[start] + UNKNOWN_COST;
 
-			if(josaFlag && feature[SyllableRule.IDX_JOSA1] == '1') {
-				morphAnal.analysisWithJosa(stem, josa, candidates);
+			if(cost < costs[start + 1]) {
+				costs[start + 1] = cost;
+				starts[start + 1] = start;
+				outputs[start + 1] = null;
 			}
+		}
 
-			if(josaFlag && feature[SyllableRule.IDX_JOSA2] == '0')
-				josaFlag = false;
+		for(int end = length; end > 0;) {
+			int start = starts[end];
 
-			if(!josaFlag)
-				break;
+			if(outputs[end] == null) {
+				// 연속된 미등록 음절을 하나로 묶는다.
+				while(start > 0 && outputs[start] == null)
+					start = starts[start];
 
-		}
+				phrases.add(buildNounOutput(input.substring(start, end)));
+			} else {
+				phrases.add(outputs[end]);
+			}
 
-		if(input.length() == 1) {
-			AnalysisOutput o = new AnalysisOutput(input, null, null, PatternConstants.POS_NOUN, PatternConstants.PTN_N,
-					AnalysisOutput.SCORE_ANALYSIS);
-			candidates.add(o);
+			end = start;
 		}
 
-		fillSourceString(input, candidates);
+		Collections.reverse(phrases);
 
-		return candidates;
+		return phrases;
 	}
 
 	/**
-	 * 조사의 첫음절부터 조사의 2음절이상에 사용될 수 있는 음절을 조사하여
-	 * 가장 큰 조사를 찾는다.
-	 * @param snipt
-	 * @param jstart
-	 * @return
+	 * start 위치에서 시작하는 어절이 끝날 수 있는 위치를 찾는다.
+	 * 
+	 * @param input 분석하고자 하는 전체 문자열
+	 * @param start 어절의 시작 위치
+	 * @param limit 어절의 끝 위치의 최대값
+	 * @param wordEnds 단어의 끝 위치를 받을 배열
+	 * @param candidateEnds 어절의 길이별 후보 여부
 	 * @throws MorphException
 	 */
-	private int findJosaEnd(String snipt, int jstart) throws MorphException {
-
-		int jend = jstart;
-
-		// [것을]이 명사를 이루는 경우는 없다.
-		if(snipt.charAt(jstart - 1) == '것' && (snipt.charAt(jstart) == '을'))
-			return jstart + 1;
-
-		if(snipt.length() > jstart + 2 && snipt.charAt(jstart + 1) == '스') { // 사랑스러운, 자랑스러운 같은 경우르 처리함.
-			char[] chrs = MorphRule.decompose(snipt.charAt(jstart + 2));
-
-			if(chrs.length >= 2 && chrs[0] == 'ㄹ' && chrs[1] == 'ㅓ')
-				return -1;
-		}
+	private void findCandidateEnds(String input, int start, int limit, int[] wordEnds, boolean[] candidateEnds)
+			throws MorphException {
+		int count = Dictionary.findWords(input, start, limit, wordEnds);
 
-		// 조사의 2음절로 사용될 수 마지막 음절을 찾는다.
-		for(int i = jstart + 1; i < snipt.length(); i++) {
-			char[] f = Dictionary.getSyllableFeature(snipt.charAt(i));
-			if(f[SyllableRule.IDX_JOSA2] == '0')
-				break;
-			jend = i;
+		for(int i = 0; i < count; i++) {
+			candidateEnds[wordEnds[i] - start] = true;
 		}
 
-		int start = jend;
-		boolean hasJosa = false;
-		for(int i = start; i >= jstart; i--) {
-			String str = snipt.substring(jstart, i + 1);
-			if(Dictionary.existJosa(str) && !findNounWithinStr(snipt, i, i + 2) && !isNounPart(snipt, jstart)) {
-				jend = i;
-				hasJosa = true;
-				break;
+		String snipt = input.substring(start, limit);
+
+		for(int i = 0; i < snipt.length(); i++) {
+			// 어간의 받침으로 시작하는 어미(한다, 갈까, 갑니다)는 어절의 첫음절에서도 시작할 수 있다.
+			char[] chrs = MorphRule.decompose(snipt.charAt(i));
+			String tail = null;
+
+			if(chrs.length == 3 && chrs[2] == 'ㄴ')
+				tail = '은' + snipt.substring(i + 1);
+			else if(chrs.length == 3 && chrs[2] == 'ㄹ')
+				tail = '을' + snipt.substring(i + 1);
+			else if(chrs.length == 3 && chrs[2] == 'ㅂ')
+				tail = '습' + snipt.substring(i + 1);
+
+			for(int j = i + 1; j <= snipt.length() && j - i <= MAX_ENDING_LENGTH; j++) {
+				if(i > 0 && (Dictionary.existJosa(snipt.substring(i, j)) || Dictionary.existEomi(snipt.substring(i, j))))
+					candidateEnds[j] = true;
+				else if(tail != null && Dictionary.existEomi(tail.substring(0, j - i)))
+					candidateEnds[j] = true;
 			}
 		}
 
-		if(!hasJosa)
-			return -1;
-
-		return jend + 1;
-
+		candidateEnds[0] = false;
 	}
 
 	/**
-	 * 향후 계산이나 원 문자열을 보여주기 위해 source string 을 저장한다.
-	 * @param source
-	 * @param candidates
+	 * input[start, end)를 하나의 어절로 분석해서 end까지의 비용이 줄어들면 갱신한다.
+	 * 분석에 성공하지 못한 어절은 음절마다 비용이 늘어나므로 길어질수록 불리하다.
 	 */
-	private void fillSourceString(String source, List<AnalysisOutput> candidates) {
-
-		for(AnalysisOutput o : candidates) {
-			o.setSource(source);
-		}
-
-	}
-
-	/**
-	 * 목록의 1번지가 가장 큰 길이를 가진다.
-	 * @param candidates
-	 */
-	private void appendSingleWord(List<AnalysisOutput> candidates) throws MorphException {
-
-		if(candidates.size() == 0)
+	private void relax(String input, int start, int end, int[] costs, int[] starts, AnalysisOutput[] outputs)
+			throws MorphException {
+		// 분석 점수와 관계없이(조사로 줄어드는 비용까지 빼더라도) 더 좋은 분할이 이미 있으면 분석하지 않는다.
+		if(costs[start] + EOJEOL_COST - JOSA_BONUS * MAX_ENDING_LENGTH >= costs[end])
 			return;
 
-		String source = candidates.get(0).getSource();
-
+		String source = input.substring(start, end);
+		AnalysisOutput o = null;
+		// 사전에 있는 명사나 부사는 형태소 분석을 하지 않는다.
 		WordEntry entry = Dictionary.getWordExceptVerb(source);
 
 		if(entry != null) {
-			candidates.add(buildSingleOutput(entry));
+			o = buildSingleOutput(entry);
 		} else {
+			List<AnalysisOutput> results = morphAnal.analyze(source);
 
-			if(candidates.get(0).getPatn() > PatternConstants.PTN_VM
-					&& candidates.get(0).getPatn() <= PatternConstants.PTN_VMXMJ)
+			if(results.size() == 0)
 				return;
 
-			if(source.length() < 5)
-				return;
-
-			AnalysisOutput o = new AnalysisOutput(source, null, null, PatternConstants.POS_NOUN,
-					PatternConstants.PTN_N, AnalysisOutput.SCORE_ANALYSIS);
-			o.setSource(source);
-			morphAnal.confirmCNoun(o);
-			if(o.getScore() == AnalysisOutput.SCORE_CORRECT)
-				candidates.add(o);
-		}
-	}
-
-	private void addSingleWord(String source, List<AnalysisOutput> candidates) throws MorphException {
-
-		WordEntry entry = Dictionary.getWordExceptVerb(source);
-
-		if(entry != null) {
-			candidates.add(buildSingleOutput(entry));
-		} else {
-			AnalysisOutput o = new AnalysisOutput(source, null, null, PatternConstants.POS_NOUN,
-					PatternConstants.PTN_N, AnalysisOutput.SCORE_ANALYSIS);
-			o.setSource(source);
-			morphAnal.confirmCNoun(o);
-			candidates.add(o);
-		}
-
-		//		Collections.sort(candidates, new WSOuputComparator());
-
-	}
-
-	private List anlysisWithEomi(String snipt, int estart) throws MorphException {
-
-		List<AnalysisOutput> candidates = new ArrayList();
-
-		int eend = findEomiEnd(snipt, estart);
-
-		// 동사앞에 명사분리
-		int vstart = 0;
-		for(int i = estart - 1; i >= 0; i--) {
-			Iterator iter = Dictionary.findWithPrefix(snipt.substring(i, estart));
-			if(iter.hasNext())
-				vstart = i;
-			else
-				break;
-		}
-
-		if(snipt.length() > eend && Dictionary.findWithPrefix(snipt.substring(vstart, eend + 1)).hasNext())
-			return candidates; // 다음음절까지 단어의 일부라면.. 분해를 안한다.
-
-		String pvword = null;
-		if(vstart != 0)
-			pvword = snipt.substring(0, vstart);
-
-		while(true) { // ㄹ,ㅁ,ㄴ 이기때문에 어미위치를 뒤로 잡았는데, 용언+어미의 형태가 아니라면.. 어구 끝을 하나 줄인다.
-			String input = snipt.substring(vstart, eend);
-			anlysisWithEomiDetail(input, candidates);
-			if(candidates.size() == 0)
-				break;
-			if(("ㄹ".equals(candidates.get(0).getEomi()) || "ㅁ".equals(candidates.get(0).getEomi()) || "ㄴ"
-					.equals(candidates.get(0).getEomi()))
-					&& eend > estart + 1
-					&& candidates.get(0).getPatn() != PatternConstants.PTN_VM
-					&& candidates.get(0).getPatn() != PatternConstants.PTN_NSM) {
-				eend--;
-			} else if(pvword != null && candidates.get(0).getPatn() >= PatternConstants.PTN_VM && // 명사 + 용언 어구 중에.. 용언어구로 단어를 이루는 경우는 없다.
-					candidates.get(0).getPatn() <= PatternConstants.PTN_VMXMJ && Dictionary.getWord(input) != null) {
-				candidates.clear();
-				break;
-			} else if(pvword != null && VerbRule.verbSuffix(candidates.get(0).getStem())
-					&& Dictionary.getNoun(pvword) != null) { // 명사 + 용언화 접미사 + 어미 처리
-				candidates.clear();
-				anlysisWithEomiDetail(snipt.substring(0, eend), candidates);
-				pvword = null;
-				break;
-			} else {
-				break;
-			}
+			o = results.get(0);
 		}
 
-		if(candidates.size() > 0 && pvword != null) {
-			AnalysisOutput o = new AnalysisOutput(pvword, null, null, PatternConstants.POS_NOUN,
-					PatternConstants.PTN_N, AnalysisOutput.SCORE_ANALYSIS);
-			morphAnal.confirmCNoun(o);
-
-			List<CompoundEntry> cnouns = o.getCNounList();
-			if(cnouns.size() == 0) {
-				boolean is = Dictionary.getWordExceptVerb(pvword) != null;
-				cnouns.add(new CompoundEntry(pvword, 0, is));
-			}
-
-			for(AnalysisOutput candidate : candidates) {
-				candidate.getCNounList().addAll(cnouns);
-				candidate.getCNounList().add(new CompoundEntry(candidate.getStem(), 0, true));
-				candidate.setStem(pvword + candidate.getStem()); // 이렇게 해야 WSOutput 에 복합명사 처리할 때 정상처리됨
-			}
-
-		}
-
-		fillSourceString(snipt.substring(0, eend), candidates);
-
-		return candidates;
-	}
-
-	private void anlysisWithEomiDetail(String input, List<AnalysisOutput> candidates) throws MorphException {
-
-		boolean eomiFlag = true;
-
-		int strlen = input.length();
-
-		char ch = input.charAt(strlen - 1);
-		char[] feature = Dictionary.getSyllableFeature(ch);
-
-		if(feature[SyllableRule.IDX_YNPNA] == '1' || feature[SyllableRule.IDX_YNPLA] == '1'
-				|| feature[SyllableRule.IDX_YNPMA] == '1')
-			morphAnal.analysisWithEomi(input, "", candidates);
-
-		for(int i = strlen - 1; i > 0; i--) {
-
-			String stem = input.substring(0, i);
-			String eomi = input.substring(i);
-
-			feature = Dictionary.getSyllableFeature(eomi.charAt(0));
-
-			if(eomiFlag) {
-				morphAnal.analysisWithEomi(stem, eomi, candidates);
-			}
+		if(o.getScore() == AnalysisOutput.SCORE_FAIL)
+			return;
 
-			if(eomiFlag && feature[SyllableRule.IDX_EOMI2] == '0')
-				eomiFlag = false;
+		int cost = costs[start] + EOJEOL_COST;
 
-			if(!eomiFlag)
-				break;
-		}
+		if(o.getScore() != AnalysisOutput.SCORE_CORRECT)
+			cost += UNCERTAIN_COST * (end - start);
 
-	}
+		if(o.getCNounList().size() > 1)
+			cost += COMPOUND_COST * (o.getCNounList().size() - 1);
 
-	/**
-	 * 어미의 첫음절부터 어미의 1음절이상에 사용될 수 있는 음절을 조사하여
-	 * 가장 큰 조사를 찾는다.
-	 * @param snipt
-	 * @param jstart
-	 * @return
-	 * @throws MorphException
-	 */
-	private int findEomiEnd(String snipt, int estart) throws MorphException {
-
-		int jend = 0;
-
-		String tail = null;
-		char[] chr = MorphRule.decompose(snipt.charAt(estart));
-		if(chr.length == 3 && (chr[2] == 'ㄴ')) {
-			tail = '은' + snipt.substring(estart + 1);
-		} else if(chr.length == 3 && (chr[2] == 'ㄹ')) {
-			tail = '을' + snipt.substring(estart + 1);
-		} else if(chr.length == 3 && (chr[2] == 'ㅂ')) {
-			tail = '습' + snipt.substring(estart + 1);
-		} else {
-			tail = snipt.substring(estart);
-		}
-
-		// 조사의 2음절로 사용될 수 마지막 음절을 찾는다.
-		int start = 0;
-		for(int i = 1; i < tail.length(); i++) {
-			char[] f = Dictionary.getSyllableFeature(tail.charAt(i));
-			if(f[SyllableRule.IDX_EOGAN] == '0')
-				break;
-			start = i;
-		}
+		if(o.getJosa() != null)
+			cost -= JOSA_BONUS * o.getJosa().length();
 
-		for(int i = start; i > 0; i--) { // 찾을 수 없더라도 1음절은 반드시 반환해야 한다.
-			String str = tail.substring(0, i + 1);
-			char[] chrs = MorphRule.decompose(tail.charAt(i));
-			if(Dictionary.existEomi(str)
-					|| (i < 2 && chrs.length == 3 && (chrs[2] == 'ㄹ' || chrs[2] == 'ㅁ' || chrs[2] == 'ㄴ'))) { // ㅁ,ㄹ,ㄴ이 연속된 용언은 없다, 사전을 보고 확인을 해보자
-				jend = i;
-				break;
-			}
+		if(cost < costs[end]) {
+			o.setSource(source);
+			costs[end] = cost;
+			starts[end] = start;
+			outputs[end] = o;
 		}
-
-		return estart + jend + 1;
-
 	}
 
 	/**
-	 * validation 후 후보가 될 가능성이 높은 최상위 것을 결과에 추가한다.
-	 * 
-	 * @param output
-	 * @param candidates
-	 * @param stack
+	 * 어절로 나눌 수 없는 문자열을 명사로 만든다.
 	 */
-	private int validationAndAppend(WSOutput output, List<AnalysisOutput> candidates, String input)
-			throws MorphException {
-
-		if(candidates.size() == 0)
-			return 0;
-
-		AnalysisOutput o = candidates.remove(0);
-		AnalysisOutput po = output.getPhrases().size() > 0 ? output.getPhrases().get(output.getPhrases().size() - 1)
-				: null;
-
-		String ejend = o.getSource().substring(o.getStem().length());
-
-		char[] chrs = po != null && po.getStem().length() > 0 ? MorphRule.decompose(po.getStem().charAt(
-				po.getStem().length() - 1)) : null;
-		String pjend = po != null && po.getStem().length() > 0 ? po.getSource().substring(po.getStem().length()) : null;
+	private AnalysisOutput buildNounOutput(String source) throws MorphException {
+		int score = Dictionary.getWord(source) == null ? AnalysisOutput.SCORE_ANALYSIS : AnalysisOutput.SCORE_CORRECT;
+		AnalysisOutput o = new AnalysisOutput(source, null, null, PatternConstants.POS_NOUN, PatternConstants.PTN_N,
+				score);
 
-		char ja = 'x'; // 임의의 문자
-		if(po != null
-				&& (po.getPatn() == PatternConstants.PTN_VM || po.getPatn() == PatternConstants.PTN_VMCM || po
-						.getPatn() == PatternConstants.PTN_VMXM)) {
-			char[] chs = MorphRule.decompose(po.getEomi().charAt(po.getEomi().length() - 1));
-			if(chs.length == 3)
-				ja = chs[2];
-			else if(chs.length == 1)
-				ja = chs[0];
-		}
-
-		int nEnd = output.getLastEnd() + o.getSource().length();
-
-		char[] f = nEnd < input.length() ? Dictionary.getSyllableFeature(input.charAt(nEnd)) : null;
+		o.setSource(source);
+		morphAnal.confirmCNoun(o);
 
-		// 밥먹고 같은 경우가 가능하나.. 먹고는 명사가 아니다.
-		if(po != null && po.getPatn() == PatternConstants.PTN_N && candidates.size() > 0
-				&& o.getPatn() == PatternConstants.PTN_VM && candidates.get(0).getPatn() == PatternConstants.PTN_N) {
-			o = candidates.remove(0);
-		} else if(po != null && po.getPatn() >= PatternConstants.PTN_VM && candidates.size() > 0
-				&& candidates.get(0).getPatn() == PatternConstants.PTN_N && (ja == 'ㄴ' || ja == 'ㄹ')) { // 다녀가ㄴ, 사,람(e) 로 분해 방지
-			o = candidates.remove(0);
-		}
-
-		//=============================================
-		if(o.getPos() == PatternConstants.POS_NOUN && MorphRule.hasVerbOnly(o.getStem())) {
-			output.removeLast();
-			return -1;
-		} else if(nEnd < input.length() && f[SyllableRule.IDX_JOSA1] == '1'
-				&& Dictionary.getNoun(o.getSource()) != null) {
-			return -1;
-		} else if(nEnd < input.length() && o.getScore() == AnalysisOutput.SCORE_ANALYSIS
-				&& Dictionary.findWithPrefix(ejend + input.charAt(nEnd)).hasNext()) { // 루씬하ㄴ 글형태소분석기 방지
-			return -1;
-		} else if(po != null && po.getPatn() == PatternConstants.PTN_VM && "ㅁ".equals(po.getEomi())
-				&& o.getStem().equals("하")) { // 다짐 합니다 로 분리되는 것 방지
-			output.removeLast();
-			return -1;
-		} else if(po != null && po.getPatn() == PatternConstants.PTN_N && VerbRule.verbSuffix(o.getStem())
-				&& !"있".equals(o.getStem())) { // 사랑받다, 사랑스러운을 처리, 그러나 있은 앞 단어와 결합하지 않는다.
-			output.removeLast();
-			return -1;
-		} else {
-			output.addPhrase(o);
-		}
-
-		return 1;
+		return o;
 	}
 
 	private AnalysisOutput buildSingleOutput(WordEntry entry) {
@@ -531,78 +270,4 @@ public class WordSpaceAnalyzer {
 
 		return o;
 	}
-
-	private void analysisCompouns(List<AnalysisOutput> candidates) throws MorphException {
-
-		// 복합명사 분해여부 결정하여 분해
-		boolean changed = false;
-		boolean correct = false;
-		for(AnalysisOutput o : candidates) {
-
-			if(o.getScore() == AnalysisOutput.SCORE_CORRECT) {
-				if(o.getPatn() != PatternConstants.PTN_NJ)
-					correct = true;
-				// "활성화해"가 [활성화(N),하(t),어야(e)] 분석성공하였는데 [활성/화해]분해되는 것을 방지
-				if("하".equals(o.getVsfx()))
-					break;
-				continue;
-			}
-
-			if(o.getPatn() <= PatternConstants.PTN_VM && o.getStem().length() > 2) {
-				if(!(correct && o.getPatn() == PatternConstants.PTN_N))
-					morphAnal.confirmCNoun(o);
-				if(o.getScore() == AnalysisOutput.SCORE_CORRECT)
-					changed = true;
-			}
-		}
-
-	}
-
-	/**
-	 * 문자열에 
-	 * @param str	분석하고자 하는 전체 문자열
-	 * @param ws	문자열에서 명사를 찾는 시작위치
-	 * @param es	문자열에서 명사를 찾는 끝 위치
-	 * @return
-	 * @throws MorphException
-	 */
-	private boolean findNounWithinStr(String str, int ws, int es) throws MorphException {
-
-		if(str.length() < es)
-			return false;
-
-		for(int i = es; i < str.length(); i++) {
-			char[] f = Dictionary.getSyllableFeature(str.charAt(i));
-			if(i == str.length() || (f[SyllableRule.IDX_JOSA1] == '1')) {
-				return (Dictionary.getWord(str.substring(ws, i)) != null);
-			}
-		}
-
-		return false;
-	}
-
-	private boolean isNounPart(String str, int jstart) throws MorphException {
-
-		if(true)
-			return false;
-
-		for(int i = jstart - 1; i >= 0; i--) {
-			if(Dictionary.getWordExceptVerb(str.substring(i, jstart + 1)) != null)
-				return true;
-
-		}
-
-		return false;
-
-	}
-
-	private void printCandidate(WSOutput output) {
-
-		List<AnalysisOutput> os = output.getPhrases();
-		for(AnalysisOutput o : os) {
-			System.out.print(o.toString() + "(" + o.getScore() + ")| ");
-		}
-		System.out.println("<==");
-
-	}
 }
@@ -15,10 +15,17 @@ import java.io.File;
 import java.io.IOException;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.RAMDirectory;
 import org.jhlabs.scany.context.type.DirectoryType;
+import org.jhlabs.scany.engine.index.AnyIndexerException;
+import org.jhlabs.scany.engine.index.BulkIndexer;
+import org.jhlabs.scany.engine.index.IndexWriterService;
+import org.jhlabs.scany.engine.search.FilterCache;
+import org.jhlabs.scany.engine.search.IndexSearcherManager;
+import org.jhlabs.scany.engine.search.QueryResultCache;
 import org.jhlabs.scany.engine.search.query.QueryTextParser;
 
 /**
@@ -29,6 +36,12 @@ import org.jhlabs.scany.engine.search.query.QueryTextParser;
  */
 public class Relation {
 
+	/** 준실시간 모드에서 IndexSearcher를 다시 여는 기본 주기(ms) */
+	public static final long DEFAULT_REFRESH_INTERVAL = 1000L;
+	
+	/** 준실시간 모드에서 커밋하는 기본 주기(ms) */
+	public static final long DEFAULT_COMMIT_INTERVAL = 60000L;
+
 	private Schema schema;
 
 	private String id;
@@ -56,6 +69,33 @@ public class Relation {
 	private int mergeFactor;
 	
 	private int maxMergeDocs;
+	
+	private boolean nearRealTime;
+	
+	private long refreshInterval = DEFAULT_REFRESH_INTERVAL;
+	
+	private long commitInterval = DEFAULT_COMMIT_INTERVAL;
+	
+	private int indexingThreads = 1;
+	
+	private int indexingQueueCapacity = BulkIndexer.DEFAULT_QUEUE_CAPACITY;
+	
+	private int searchThreads = 1;
+	
+	private int queryCacheSize;
+	
+	private long queryCacheMemory = QueryResultCache.DEFAULT_MAX_MEMORY;
+	
+	private int filterCacheSize = FilterCache.DEFAULT_MAX_FILTERS;
+	
+	private IndexSearcherManager indexSearcherManager;
+	
+	/** IndexWriterService의 생성, 참조 수, 종료를 보호한다. */
+	private final Object indexWriterServiceLock = new Object();
+	
+	private IndexWriterService indexWriterService;
+	
+	private int indexWriterServiceReferences;
 
 	public Relation() {
 	}
@@ -235,6 +275,117 @@ public class Relation {
 		this.maxMergeDocs = maxMergeDocs;
 	}
 	
+	/**
+	 * 준실시간(Near-real-time) 모드 여부를 반환한다.
+	 * 준실시간 모드에서는 트랜잭션마다 커밋하지 않고, 
+	 * refreshInterval 주기로 IndexWriter로부터 IndexSearcher를 다시 열고
+	 * commitInterval 주기로 커밋한다.
+	 * @return the nearRealTime
+	 */
+	public boolean isNearRealTime() {
+		return nearRealTime;
+	}
+
+	public void setNearRealTime(boolean nearRealTime) {
+		this.nearRealTime = nearRealTime;
+	}
+
+	/**
+	 * @return the refreshInterval (ms)
+	 */
+	public long getRefreshInterval() {
+		return refreshInterval;
+	}
+
+	public void setRefreshInterval(long refreshInterval) {
+		this.refreshInterval = refreshInterval;
+	}
+
+	/**
+	 * @return the commitInterval (ms)
+	 */
+	public long getCommitInterval() {
+		return commitInterval;
+	}
+
+	public void setCommitInterval(long commitInterval) {
+		this.commitInterval = commitInterval;
+	}
+
+	/**
+	 * 트랜잭션을 색인할 때 사용하는 작업 스레드의 수를 반환한다.
+	 * 1보다 크면 BulkIndexer를 이용해서 병렬로 색인한다.
+	 * @return the indexingThreads
+	 */
+	public int getIndexingThreads() {
+		return indexingThreads;
+	}
+
+	public void setIndexingThreads(int indexingThreads) {
+		this.indexingThreads = indexingThreads;
+	}
+
+	/**
+	 * @return the indexingQueueCapacity
+	 */
+	public int getIndexingQueueCapacity() {
+		return indexingQueueCapacity;
+	}
+
+	public void setIndexingQueueCapacity(int indexingQueueCapacity) {
+		this.indexingQueueCapacity = indexingQueueCapacity;
+	}
+
+	/**
+	 * 하나의 질의를 세그먼트별로 나누어 검색할 때 사용하는 스레드의 수를 반환한다.
+	 * 1보다 크면 세그먼트마다 별도의 스레드에서 검색한 후 결과를 병합한다.
+	 * @return the searchThreads
+	 */
+	public int getSearchThreads() {
+		return searchThreads;
+	}
+
+	public void setSearchThreads(int searchThreads) {
+		this.searchThreads = searchThreads;
+	}
+
+	/**
+	 * 검색결과 캐시의 최대 항목 수를 반환한다.
+	 * 0이면 검색결과를 캐시하지 않는다.
+	 * @return the queryCacheSize
+	 */
+	public int getQueryCacheSize() {
+		return queryCacheSize;
+	}
+
+	public void setQueryCacheSize(int queryCacheSize) {
+		this.queryCacheSize = queryCacheSize;
+	}
+
+	/**
+	 * @return the queryCacheMemory (bytes)
+	 */
+	public long getQueryCacheMemory() {
+		return queryCacheMemory;
+	}
+
+	public void setQueryCacheMemory(long queryCacheMemory) {
+		this.queryCacheMemory = queryCacheMemory;
+	}
+
+	/**
+	 * 캐시할 필터 조합의 최대 개수를 반환한다.
+	 * 0이면 필터의 비트셋을 캐시하지 않는다.
+	 * @return the filterCacheSize
+	 */
+	public int getFilterCacheSize() {
+		return filterCacheSize;
+	}
+
+	public void setFilterCacheSize(int filterCacheSize) {
+		this.filterCacheSize = filterCacheSize;
+	}
+
 	public Directory openDirectory() throws IOException {
 		Directory directory = null;
 		
@@ -251,4 +402,102 @@ public class Relation {
 		return directory;
 	}
 
+	/**
+	 * 릴레이션이 공유하는 IndexSearcherManager를 반환한다.
+	 * 처음 호출될 때 IndexSearcher를 연다.
+	 * @return the indexSearcherManager
+	 * @throws IOException
+	 */
+	public synchronized IndexSearcherManager getIndexSearcherManager() throws IOException {
+		if(indexSearcherManager == null)
+			indexSearcherManager = new IndexSearcherManager(this);
+		
+		return indexSearcherManager;
+	}
+	
+	/**
+	 * 색인이 변경되었음을 알린다.
+	 * 열려있는 IndexSearcher가 있으면 변경된 색인으로 교체한다.
+	 * @throws IOException
+	 */
+	public void refreshIndexSearcher() throws IOException {
+		IndexSearcherManager manager;
+		
+		synchronized(this) {
+			manager = indexSearcherManager;
+		}
+		
+		if(manager != null)
+			manager.maybeReopen();
+	}
+	
+	/**
+	 * 준실시간 모드에서 IndexWriter의 변경사항을 IndexSearcher에 반영한다.
+	 * 열려있는 IndexSearcher가 없으면 IndexWriter로부터 연다.
+	 * @param indexWriter 색인 중인 IndexWriter
+	 * @throws IOException
+	 */
+	public void refreshIndexSearcher(IndexWriter indexWriter) throws IOException {
+		IndexSearcherManager manager;
+		
+		synchronized(this) {
+			if(indexSearcherManager == null) {
+				indexSearcherManager = new IndexSearcherManager(this, indexWriter, true);
+				return;
+			}
+			
+			manager = indexSearcherManager;
+		}
+		
+		manager.maybeReopen(indexWriter, true);
+	}
+	
+	/**
+	 * 릴레이션이 공유하는 IndexWriterService를 획득한다.
+	 * 같은 릴레이션을 사용하는 서비스들은 하나의 IndexWriter를 공유하며,
+	 * 획득한 IndexWriterService는 사용이 끝나면 releaseIndexWriterService()로 반환해야 한다.
+	 * @return the index writer service
+	 */
+	public IndexWriterService acquireIndexWriterService() {
+		synchronized(indexWriterServiceLock) {
+			if(indexWriterService == null)
+				indexWriterService = new IndexWriterService(this);
+			
+			indexWriterServiceReferences++;
+			
+			return indexWriterService;
+		}
+	}
+	
+	/**
+	 * 획득한 IndexWriterService를 반환한다.
+	 * 마지막 사용자가 반환하면 IndexWriter를 닫는다.
+	 * 닫는 동안에는 다른 획득을 대기시켜서 새 IndexWriter가 쓰기 잠금을 얻지 못하는 일이 없도록 한다.
+	 * @param indexWriterService acquireIndexWriterService()로 획득한 IndexWriterService
+	 * @throws AnyIndexerException
+	 */
+	public void releaseIndexWriterService(IndexWriterService indexWriterService) throws AnyIndexerException {
+		synchronized(indexWriterServiceLock) {
+			if(indexWriterService != this.indexWriterService || indexWriterServiceReferences <= 0)
+				throw new IllegalStateException("IndexWriterService of relation '" + id + "' is not acquired.");
+			
+			if(--indexWriterServiceReferences > 0)
+				return;
+			
+			this.indexWriterService = null;
+			indexWriterService.close();
+		}
+	}
+	
+	/**
+	 * 열려있는 IndexSearcher를 닫는다.
+	 * @throws IOException
+	 */
+	public synchronized void closeIndexSearcher() throws IOException {
+		if(indexSearcherManager != null) {
+			indexSearcherManager.close();
+			indexSearcherManager = null;
+		}
+	}
+
 }
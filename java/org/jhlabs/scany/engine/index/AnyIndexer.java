@@ -10,6 +10,7 @@
  ******************************************************************************/
 package org.jhlabs.scany.engine.index;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.jhlabs.scany.engine.entity.Record;
@@ -25,10 +26,14 @@ public interface AnyIndexer {
 
 	public void insert(Record record) throws AnyIndexerException;
 
+	public void insertAll(Collection<Record> records) throws AnyIndexerException;
+
 	public void update(Record record) throws AnyIndexerException;
 
 	public void merge(Record record) throws AnyIndexerException;
 
+	public void mergeAll(Collection<Record> records) throws AnyIndexerException;
+
 	public void delete(Record record) throws AnyIndexerException;
 	
 	public void delete(String keyName, String keyValue) throws AnyIndexerException;
@@ -0,0 +1,396 @@
+/*******************************************************************************
+ * Copyright (c) 2008 Jeong Ju Ho.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors:
+ *     Jeong Ju Ho - initial API and implementation
+ ******************************************************************************/
+package org.jhlabs.scany.engine.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.jhlabs.scany.engine.entity.Record;
+import org.jhlabs.scany.engine.entity.RecordKeyPattern;
+import org.jhlabs.scany.engine.entity.Relation;
+import org.jhlabs.scany.engine.transaction.job.JobType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 대량 색인기.
+ *
+ * <pre>
+ * 형태소 분석은 IndexWriter.addDocument() 안에서 수행되므로 한 스레드로 색인하면 CPU 하나만 사용하게 된다.
+ * BulkIndexer는 색인 작업을 세 단계로 나누어 처리한다.
+ *
+ * 1. 변환: 레코드(Record)를 도큐먼트(Document)로 변환한다. (변환 스레드)
+ * 2. 색인: 여러 작업 스레드가 하나의 IndexWriter에 addDocument/updateDocument/deleteDocuments를 수행한다.
+ *     같은 레코드키를 가진 작업은 항상 같은 작업 스레드로 전달되므로 요청된 순서대로 반영된다.
+ * 3. 커밋: close()를 호출하면 남은 작업을 모두 반영한 후 커밋한다.
+ *
+ * 단계 사이의 대기열은 크기가 제한되어 있어서 색인 속도보다 빠르게 요청하면 요청한 스레드가 대기한다.
+ * 변환 스레드와 작업 스레드는 주어진 ExecutorService에서 실행하며, 주어지지 않으면 BulkIndexer가 만들고 finish()할 때 종료한다.
+ * insert는 레코드키의 중복 여부를 확인하지 않고 추가하므로 초기 적재 등에 사용해야 한다.
+ *
+ * 사용법
+ *     BulkIndexer bulkIndexer = new BulkIndexer(indexer, 4, 1000);
+ *     for(Record record : records)
+ *         bulkIndexer.insert(record);
+ *     bulkIndexer.close();
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class BulkIndexer {
+
+	private static final Logger logger = LoggerFactory.getLogger(BulkIndexer.class);
+
+	public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+	/** 작업 스레드에 종료를 알리는 표식 */
+	private static final Operation END_OF_OPERATIONS = new Operation(null, null, null, null);
+
+	private final LuceneIndexer indexer;
+
+	private final Relation relation;
+
+	private final IndexWriter indexWriter;
+
+	private final Analyzer analyzer;
+
+	private final BlockingQueue<Operation> conversionQueue;
+
+	private final List<BlockingQueue<Operation>> workerQueues;
+
+	private final ExecutorService ownExecutor;
+
+	private final CountDownLatch stopped;
+
+	private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+	private final AtomicLong submittedCount = new AtomicLong();
+
+	private final AtomicLong indexedCount = new AtomicLong();
+
+	private final long startTime;
+
+	private long finishTime;
+
+	private boolean finished;
+
+	/**
+	 * 생성자
+	 * 변환 스레드와 작업 스레드를 새로 만들어서 실행한다.
+	 *
+	 * @param indexer 색인기
+	 * @param threads 작업 스레드 수
+	 * @param queueCapacity 단계별 대기열의 크기
+	 * @throws AnyIndexerException
+	 */
+	public BulkIndexer(LuceneIndexer indexer, int threads, int queueCapacity) throws AnyIndexerException {
+		this(indexer, null, threads, queueCapacity);
+	}
+
+	/**
+	 * 생성자
+	 * 변환 스레드와 작업 스레드를 주어진 ExecutorService에서 실행한다.
+	 * ExecutorService는 threads + 1개의 작업을 동시에 실행할 수 있어야 한다.
+	 *
+	 * @param indexer 색인기
+	 * @param executor 스레드를 실행할 ExecutorService, null이면 새로 만든다.
+	 * @param threads 작업 스레드 수
+	 * @param queueCapacity 단계별 대기열의 크기
+	 * @throws AnyIndexerException
+	 */
+	BulkIndexer(LuceneIndexer indexer, ExecutorService executor, int threads, int queueCapacity) throws AnyIndexerException {
+		if(threads < 1)
+			throw new IllegalArgumentException("threads must be greater than 0.");
+
+		if(queueCapacity < 1)
+			throw new IllegalArgumentException("queueCapacity must be greater than 0.");
+
+		this.indexer = indexer;
+		this.relation = indexer.getRelation();
+		this.indexWriter = indexer.getIndexWriter();
+		this.analyzer = indexer.getAnalyzer();
+
+		if(executor == null) {
+			ownExecutor = Executors.newFixedThreadPool(threads + 1, new ThreadFactory() {
+				private final AtomicInteger threadNumber = new AtomicInteger();
+
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "scany-bulk-" + relation.getId() + "-" + threadNumber.getAndIncrement());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			executor = ownExecutor;
+		} else {
+			ownExecutor = null;
+		}
+
+		conversionQueue = new ArrayBlockingQueue<Operation>(queueCapacity);
+		workerQueues = new ArrayList<BlockingQueue<Operation>>(threads);
+		stopped = new CountDownLatch(threads + 1);
+
+		for(int i = 0; i < threads; i++) {
+			workerQueues.add(new ArrayBlockingQueue<Operation>(queueCapacity));
+		}
+
+		startTime = System.currentTimeMillis();
+
+		executor.execute(new Converter());
+
+		for(BlockingQueue<Operation> workerQueue : workerQueues) {
+			executor.execute(new Worker(workerQueue));
+		}
+	}
+
+	public BulkIndexer(LuceneIndexer indexer, int threads) throws AnyIndexerException {
+		this(indexer, threads, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * 레코드를 추가한다. 레코드키의 중복 여부는 확인하지 않는다.
+	 */
+	public void insert(Record record) throws AnyIndexerException {
+		submit(JobType.INSERT, record, null);
+	}
+
+	public void update(Record record) throws AnyIndexerException {
+		submit(JobType.UPDATE, record, null);
+	}
+
+	public void merge(Record record) throws AnyIndexerException {
+		submit(JobType.MERGE, record, null);
+	}
+
+	public void delete(Record record) throws AnyIndexerException {
+		submit(JobType.DELETE, record, null);
+	}
+
+	/**
+	 * 작업을 대기열에 등록한다.
+	 * 도큐먼트가 이미 생성되어 있으면 변환 단계에서 다시 생성하지 않는다.
+	 */
+	void submit(JobType jobType, Record record, Document document) throws AnyIndexerException {
+		checkFailure();
+
+		if(finished)
+			throw new IllegalStateException("BulkIndexer is already finished.");
+
+		String keyValue = relation.getRecordKeyPattern().combine(record);
+
+		put(conversionQueue, new Operation(jobType, keyValue, record, document));
+		submittedCount.incrementAndGet();
+	}
+
+	/**
+	 * 대기 중인 작업이 모두 IndexWriter에 반영될 때까지 기다린다. 커밋은 하지 않는다.
+	 *
+	 * @throws AnyIndexerException 작업 중에 실패한 경우
+	 */
+	public void finish() throws AnyIndexerException {
+		if(!finished) {
+			finished = true;
+
+			try {
+				conversionQueue.put(END_OF_OPERATIONS);
+				stopped.await();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failure.compareAndSet(null, e);
+			} finally {
+				if(ownExecutor != null)
+					ownExecutor.shutdown();
+			}
+
+			finishTime = System.currentTimeMillis();
+
+			if(logger.isDebugEnabled())
+				logger.debug("Bulk indexing of relation '{}': {} documents, {} docs/sec", new Object[] { relation.getId(), indexedCount.get(), getDocumentsPerSecond() });
+		}
+
+		checkFailure();
+	}
+
+	/**
+	 * 대기 중인 작업을 모두 반영한 후 커밋한다.
+	 *
+	 * @throws AnyIndexerException
+	 */
+	public void close() throws AnyIndexerException {
+		finish();
+		indexer.commit();
+	}
+
+	/**
+	 * 요청된 작업의 수를 반환한다.
+	 * @return the submitted count
+	 */
+	public long getSubmittedCount() {
+		return submittedCount.get();
+	}
+
+	/**
+	 * IndexWriter에 반영된 작업의 수를 반환한다.
+	 * @return the indexed count
+	 */
+	public long getIndexedCount() {
+		return indexedCount.get();
+	}
+
+	/**
+	 * 초당 색인된 도큐먼트의 수를 반환한다.
+	 * @return documents per second
+	 */
+	public double getDocumentsPerSecond() {
+		long endTime = (finishTime > 0) ? finishTime : System.currentTimeMillis();
+		long elapsed = Math.max(endTime - startTime, 1L);
+
+		return indexedCount.get() * 1000.0 / elapsed;
+	}
+
+	private void checkFailure() throws AnyIndexerException {
+		Throwable cause = failure.get();
+
+		if(cause != null)
+			throw new AnyIndexerException("대량 색인 작업에 실패했습니다.", cause);
+	}
+
+	private void put(BlockingQueue<Operation> queue, Operation operation) throws AnyIndexerException {
+		try {
+			queue.put(operation);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AnyIndexerException("대량 색인 작업이 중단되었습니다.", e);
+		}
+	}
+
+	private class Converter implements Runnable {
+
+		public void run() {
+			RecordKeyPattern recordKeyPattern = relation.getRecordKeyPattern();
+			String keyName = recordKeyPattern.getKeyName();
+
+			try {
+				while(true) {
+					Operation operation = conversionQueue.take();
+
+					if(operation == END_OF_OPERATIONS)
+						break;
+
+					// 실패한 이후의 작업은 버리고 종료 표식만 기다린다.
+					if(failure.get() != null)
+						continue;
+
+					try {
+						if(operation.document == null && operation.jobType != JobType.DELETE)
+							operation.document = indexer.createDocument(keyName, operation.keyValue, operation.record);
+
+						int index = (operation.keyValue.hashCode() & Integer.MAX_VALUE) % workerQueues.size();
+						workerQueues.get(index).put(operation);
+					} catch(AnyIndexerException e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			} catch(InterruptedException e) {
+				failure.compareAndSet(null, e);
+			} finally {
+				for(BlockingQueue<Operation> workerQueue : workerQueues) {
+					try {
+						workerQueue.put(END_OF_OPERATIONS);
+					} catch(InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+
+				stopped.countDown();
+			}
+		}
+
+	}
+
+	private class Worker implements Runnable {
+
+		private final BlockingQueue<Operation> queue;
+
+		public Worker(BlockingQueue<Operation> queue) {
+			this.queue = queue;
+		}
+
+		public void run() {
+			String keyName = relation.getRecordKeyPattern().getKeyName();
+
+			try {
+				while(true) {
+					Operation operation = queue.take();
+
+					if(operation == END_OF_OPERATIONS)
+						break;
+
+					if(failure.get() != null)
+						continue;
+
+					try {
+						if(operation.jobType == JobType.INSERT) {
+							indexWriter.addDocument(operation.document, analyzer);
+						} else if(operation.jobType == JobType.DELETE) {
+							indexWriter.deleteDocuments(new Term(keyName, operation.keyValue));
+						} else {
+							indexWriter.updateDocument(new Term(keyName, operation.keyValue), operation.document, analyzer);
+						}
+
+						indexer.changed(operation.keyValue, (operation.jobType != JobType.DELETE));
+						indexedCount.incrementAndGet();
+					} catch(Throwable e) {
+						indexer.invalidated();
+						failure.compareAndSet(null, e);
+					}
+				}
+			} catch(InterruptedException e) {
+				failure.compareAndSet(null, e);
+			} finally {
+				stopped.countDown();
+			}
+		}
+
+	}
+
+	private static class Operation {
+
+		private final JobType jobType;
+
+		private final String keyValue;
+
+		private final Record record;
+
+		private Document document;
+
+		public Operation(JobType jobType, String keyValue, Record record, Document document) {
+			this.jobType = jobType;
+			this.keyValue = keyValue;
+			this.record = record;
+			this.document = document;
+		}
+
+	}
+
+}
@@ -0,0 +1,1065 @@
+/*******************************************************************************
+ * Copyright (c) 2008 Jeong Ju Ho.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors:
+ *     Jeong Ju Ho - initial API and implementation
+ ******************************************************************************/
+package org.jhlabs.scany.engine.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermDocs;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.jhlabs.scany.context.ScanyContext;
+import org.jhlabs.scany.engine.entity.Attribute;
+import org.jhlabs.scany.engine.entity.Record;
+import org.jhlabs.scany.engine.entity.Relation;
+import org.jhlabs.scany.engine.search.IndexSearcherManager;
+import org.jhlabs.scany.engine.transaction.job.Job;
+import org.jhlabs.scany.engine.transaction.job.JobQueue;
+import org.jhlabs.scany.engine.transaction.job.JobType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 릴레이션(Relation) 하나에 대해 IndexWriter를 열어두고 트랜잭션들이 공유하도록 한다.
+ *
+ * <pre>
+ * 트랜잭션마다 IndexWriter를 열고 닫으면 쓰기 잠금, 세그먼트 플러시, fsync 비용이 매번 발생한다.
+ * IndexWriterService는 릴레이션이 소유하며(Relation.acquireIndexWriterService()) 마지막 사용자가 반환할 때까지 하나의 IndexWriter를 유지하고,
+ * 동시에 요청된 트랜잭션의 커밋을 모아서 한 번의 IndexWriter.commit()으로 처리한다(그룹 커밋).
+ *
+ * + 트랜잭션 반영
+ *     작업(Job)을 IndexWriter에 반영하기 전에 레코드키, 레코드 중복, 필수 속성을 먼저 검사한다.
+ *     검사에 실패한 트랜잭션은 IndexWriter에 아무 것도 반영하지 않고 예외를 발생한다.
+ *     반영 도중에 실패하면 그 트랜잭션의 레코드키를 모두 삭제하고 트랜잭션 이전의 도큐먼트를 다시 추가해서
+ *     실패한 트랜잭션의 변경사항만 되돌린다. 다른 트랜잭션이 반영한 변경사항과 커밋 대기열은 그대로 유지된다.
+ *     IOException이나 OutOfMemoryError처럼 IndexWriter 자체에 장애가 발생한 경우에만 IndexWriter를 롤백한다.
+ *
+ * + 그룹 커밋
+ *     트랜잭션은 반영 후 커밋 대기열에 등록되고, 먼저 도착한 트랜잭션이 대기열 전체를 커밋한다.
+ *     커밋 대기열을 넘겨받은 후 writeLock을 해제하고 커밋하므로 fsync 중에도 다른 트랜잭션을 검사하고 도큐먼트를 생성할 수 있다.
+ *     IndexWriter에 반영하고 실패 시 되돌리는 동안과 IndexWriter를 롤백하는 동안에는 commitLock으로 커밋을 배제하므로
+ *     일부만 반영된 트랜잭션이 커밋되거나 커밋 중인 IndexWriter가 롤백되지 않는다.
+ *     커밋에 실패하면 IndexWriter를 롤백하고 다시 열며, 커밋되지 않은 모든 트랜잭션은 예외를 받는다.
+ *
+ * + 색인기(AnyIndexer)
+ *     getIndexer()가 반환한 색인기는 close() 또는 rollback()을 호출할 때까지 IndexWriter를 독점한다.
+ *     색인기를 반환하기 전에 그때까지 반영된 트랜잭션을 커밋하고, 색인기를 사용하는 동안에는 트랜잭션이 대기하므로
+ *     색인기의 rollback()은 색인기로 변경한 내용만 버린다.
+ *
+ * + 준실시간(Near-real-time) 모드
+ *     릴레이션이 준실시간 모드이면 트랜잭션은 반영 즉시 반환되고 커밋을 기다리지 않는다.
+ *     refreshInterval 주기로 IndexWriter로부터 IndexSearcher를 다시 열어서 반영된 레코드를 검색할 수 있도록 하고,
+ *     commitInterval 주기로 커밋한다. 커밋 전에 장애가 발생하면 마지막 커밋 이후의 변경사항은 유실된다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class IndexWriterService {
+
+	private static final Logger logger = LoggerFactory.getLogger(IndexWriterService.class);
+
+	/** 트랜잭션 이전의 도큐먼트를 다시 생성할 수 없음을 나타내는 표식 */
+	private static final Document RESTORE_UNAVAILABLE = new Document();
+
+	private final Relation relation;
+
+	private final ReentrantLock writeLock = new ReentrantLock();
+
+	private final Condition indexerReleased = writeLock.newCondition();
+
+	private final Object commitMonitor = new Object();
+
+	/** IndexWriter.commit()과 트랜잭션의 반영, 되돌리기, IndexWriter 롤백을 서로 배제한다. writeLock보다 나중에 획득한다. */
+	private final ReentrantLock commitLock = new ReentrantLock();
+
+	private List<CommitTicket> pendingTickets = new ArrayList<CommitTicket>();
+
+	private final PendingRecords pendingRecords = new PendingRecords();
+
+	private Directory directory;
+
+	private IndexWriter indexWriter;
+
+	private LuceneIndexer indexer;
+
+	private LuceneIndexer exclusiveIndexer;
+
+	private Thread exclusiveIndexerOwner;
+
+	private volatile boolean closed;
+
+	private ScheduledExecutorService scheduler;
+
+	/** 트랜잭션을 여러 스레드로 나누어 반영할 때 사용하는 스레드 */
+	private ThreadPoolExecutor indexingExecutor;
+
+	private final AtomicLong commitCount = new AtomicLong();
+
+	private final AtomicLong transactionCount = new AtomicLong();
+
+	/**
+	 * 생성자
+	 * IndexWriter는 첫 트랜잭션이 반영될 때 열린다.
+	 *
+	 * @param relation the relation
+	 */
+	public IndexWriterService(Relation relation) {
+		this.relation = relation;
+	}
+
+	public Relation getRelation() {
+		return relation;
+	}
+
+	/**
+	 * IndexWriter를 독점하는 색인기를 반환한다.
+	 * 다른 색인기가 사용 중이면 반환될 때까지 기다린다.
+	 * 반환된 색인기는 반드시 close() 또는 rollback()을 호출해야 하며, 그 전까지 트랜잭션은 대기한다.
+	 *
+	 * @return the indexer
+	 * @throws AnyIndexerException
+	 */
+	public AnyIndexer getIndexer() throws AnyIndexerException {
+		CommitTicket ticket = new CommitTicket();
+		LuceneIndexer luceneIndexer;
+
+		writeLock.lock();
+
+		try {
+			awaitExclusiveIndexer();
+			ensureOpen();
+
+			luceneIndexer = new LuceneIndexer(this, true);
+			exclusiveIndexer = luceneIndexer;
+			exclusiveIndexerOwner = Thread.currentThread();
+			pendingTickets.add(ticket);
+		} finally {
+			writeLock.unlock();
+		}
+
+		// 이전 트랜잭션을 먼저 커밋해서 색인기의 rollback()이 다른 트랜잭션의 변경사항을 버리지 않도록 한다.
+		try {
+			awaitCommit(ticket);
+		} catch(AnyIndexerException e) {
+			writeLock.lock();
+
+			try {
+				if(exclusiveIndexer == luceneIndexer)
+					releaseExclusiveIndexer();
+			} finally {
+				writeLock.unlock();
+			}
+
+			throw e;
+		}
+
+		return luceneIndexer;
+	}
+
+	/**
+	 * 작업 대기열(JobQueue)의 작업을 반영하고 커밋될 때까지 기다린다.
+	 * 성공하면 작업 대기열은 비워지고, 실패하면 작업 대기열은 그대로 남는다.
+	 *
+	 * @param jobQueue the job queue
+	 * @throws AnyIndexerException
+	 */
+	public void execute(JobQueue jobQueue) throws AnyIndexerException {
+		CommitTicket ticket = new CommitTicket();
+
+		synchronized(jobQueue) {
+			writeLock.lock();
+
+			try {
+				awaitExclusiveIndexer();
+				ensureOpen();
+
+				List<Job> jobList = new ArrayList<Job>(jobQueue);
+				List<String> keyValueList = new ArrayList<String>(jobList.size());
+
+				for(Job job : jobList) {
+					keyValueList.add(relation.getRecordKeyPattern().combine(job.getRecord()));
+				}
+
+				// 레코드키의 존재여부를 확인하고, 반영에 실패하면 트랜잭션 이전의 도큐먼트를 구할 수 있도록 반영 전의 IndexSearcher를 고정한다.
+				IndexSearcherManager indexSearcherManager = getIndexSearcherManager();
+				IndexSearcher indexSearcher = (indexSearcherManager == null) ? null : indexSearcherManager.acquire();
+
+				try {
+					List<Document> documentList = prepare(jobList, keyValueList, indexSearcher);
+
+					// 반영을 시작해서 되돌리기까지 끝날 때까지 커밋하지 않도록 한다.
+					commitLock.lock();
+
+					try {
+						apply(jobList, keyValueList, documentList);
+					} catch(Exception e) {
+						AnyIndexerException aie = new AnyIndexerException("색인 반영에 실패했습니다.", e);
+						abort(keyValueList, indexSearcher, aie);
+						throw aie;
+					} catch(Error e) {
+						recover(e);
+						throw e;
+					} finally {
+						commitLock.unlock();
+					}
+
+					for(int i = 0; i < jobList.size(); i++) {
+						pendingRecords.put(keyValueList.get(i), documentList.get(i));
+					}
+				} finally {
+					release(indexSearcherManager, indexSearcher);
+				}
+
+				if(!relation.isNearRealTime())
+					pendingTickets.add(ticket);
+			} finally {
+				writeLock.unlock();
+			}
+
+			if(!relation.isNearRealTime())
+				awaitCommit(ticket);
+
+			jobQueue.clear();
+		}
+	}
+
+	/**
+	 * 지금까지 반영된 모든 작업을 커밋한다.
+	 *
+	 * @throws AnyIndexerException
+	 */
+	public void commit() throws AnyIndexerException {
+		CommitTicket ticket = new CommitTicket();
+
+		writeLock.lock();
+
+		try {
+			awaitExclusiveIndexer();
+			ensureOpen();
+			pendingTickets.add(ticket);
+		} finally {
+			writeLock.unlock();
+		}
+
+		awaitCommit(ticket);
+	}
+
+	/**
+	 * 대기 중인 커밋을 처리하고 IndexWriter를 닫는다.
+	 *
+	 * @throws AnyIndexerException
+	 */
+	public void close() throws AnyIndexerException {
+		stopScheduler();
+
+		writeLock.lock();
+
+		try {
+			if(exclusiveIndexer != null) {
+				logger.warn("Indexer of relation '" + relation.getId() + "' is not closed. Its uncommitted changes are rolled back.");
+				discard();
+				releaseExclusiveIndexer();
+			}
+		} catch(IOException e) {
+			logger.error("IndexWriter rollback failed.", e);
+		} finally {
+			writeLock.unlock();
+		}
+		
+		synchronized(commitMonitor) {
+			groupCommit();
+
+			writeLock.lock();
+
+			try {
+				closed = true;
+
+				if(indexWriter != null) {
+					indexWriter.close();
+					indexWriter = null;
+					indexer = null;
+				}
+
+				if(indexingExecutor != null) {
+					indexingExecutor.shutdown();
+					indexingExecutor = null;
+				}
+			} catch(IOException e) {
+				throw new AnyIndexerException("색인 작업 종료에 실패했습니다.", e);
+			} finally {
+				writeLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * 수행된 IndexWriter.commit() 횟수를 반환한다.
+	 * @return the commit count
+	 */
+	public long getCommitCount() {
+		return commitCount.get();
+	}
+
+	/**
+	 * 커밋된 트랜잭션의 수를 반환한다.
+	 * @return the transaction count
+	 */
+	public long getTransactionCount() {
+		return transactionCount.get();
+	}
+
+	/**
+	 * 색인기가 사용할 IndexWriter를 반환한다.
+	 * 독점이 끝난 색인기는 더 이상 IndexWriter를 사용할 수 없다.
+	 */
+	IndexWriter getIndexWriter(LuceneIndexer luceneIndexer) throws AnyIndexerException {
+		writeLock.lock();
+
+		try {
+			if(luceneIndexer != indexer)
+				checkExclusiveIndexer(luceneIndexer);
+
+			ensureOpen();
+			return indexWriter;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * 독점 색인기의 변경사항을 커밋한다.
+	 */
+	void commit(LuceneIndexer luceneIndexer) throws AnyIndexerException {
+		IndexWriter indexWriter;
+		long mark;
+
+		writeLock.lock();
+
+		try {
+			checkExclusiveIndexer(luceneIndexer);
+			ensureOpen();
+			indexWriter = this.indexWriter;
+			mark = pendingRecords.mark();
+		} finally {
+			writeLock.unlock();
+		}
+
+		commitLock.lock();
+
+		try {
+			indexWriter.commit();
+			commitCount.incrementAndGet();
+		} catch(IOException e) {
+			throw new AnyIndexerException("색인 커밋(commit)에 실패했습니다.", e);
+		} finally {
+			commitLock.unlock();
+		}
+
+		refreshIndexSearcher(indexWriter, mark);
+	}
+
+	/**
+	 * 주어진 레코드키 중에서 색인에 이미 존재하는 레코드키를 반환한다.
+	 * IndexReader를 새로 열지 않고 보관한 레코드 상태와 공유 IndexSearcher에서 확인한다.
+	 */
+	Set<String> findExistingKeyValues(LuceneIndexer luceneIndexer, String keyName, Collection<String> keyValues) throws AnyIndexerException {
+		writeLock.lock();
+
+		try {
+			if(luceneIndexer != indexer)
+				checkExclusiveIndexer(luceneIndexer);
+
+			ensureOpen();
+
+			IndexSearcherManager indexSearcherManager = getIndexSearcherManager();
+			IndexSearcher indexSearcher = (indexSearcherManager == null) ? null : indexSearcherManager.acquire();
+
+			try {
+				return findExistingKeyValues(indexSearcher, keyName, keyValues);
+			} finally {
+				release(indexSearcherManager, indexSearcher);
+			}
+		} catch(IOException e) {
+			throw new AnyIndexerException("색인 존재여부 확인에 실패했습니다.", e);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * 독점 색인기로 변경한 레코드키의 존재여부를 등록한다.
+	 */
+	void changed(String keyValue, boolean exists) {
+		writeLock.lock();
+
+		try {
+			pendingRecords.put(keyValue, exists);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * 독점 색인기로 레코드키별로 추적할 수 없는 변경을 했음을 등록한다.
+	 */
+	void invalidated() {
+		writeLock.lock();
+
+		try {
+			pendingRecords.invalidate();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * 독점 색인기의 변경사항을 커밋하고 독점을 해제한다.
+	 * 이미 독점이 해제된 색인기이면 아무 것도 하지 않는다.
+	 */
+	void close(LuceneIndexer luceneIndexer) throws AnyIndexerException {
+		writeLock.lock();
+
+		try {
+			if(exclusiveIndexer != luceneIndexer)
+				return;
+		} finally {
+			writeLock.unlock();
+		}
+
+		try {
+			commit(luceneIndexer);
+		} finally {
+			writeLock.lock();
+
+			try {
+				if(exclusiveIndexer == luceneIndexer)
+					releaseExclusiveIndexer();
+			} finally {
+				writeLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * 독점 색인기의 변경사항을 버리고 독점을 해제한다.
+	 * 색인기를 반환하기 전에 이전 트랜잭션을 커밋했으므로 색인기의 변경사항만 버려진다.
+	 */
+	void rollback(LuceneIndexer luceneIndexer) throws AnyIndexerException {
+		writeLock.lock();
+
+		try {
+			checkExclusiveIndexer(luceneIndexer);
+			discard();
+		} catch(IOException e) {
+			throw new AnyIndexerException("색인 작업 종료에 실패했습니다.", e);
+		} finally {
+			if(exclusiveIndexer == luceneIndexer)
+				releaseExclusiveIndexer();
+
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * 독점 색인기가 반환될 때까지 기다린다.
+	 * writeLock을 획득한 상태에서 호출해야 한다.
+	 */
+	private void awaitExclusiveIndexer() throws AnyIndexerException {
+		while(exclusiveIndexer != null) {
+			if(exclusiveIndexerOwner == Thread.currentThread())
+				throw new AnyIndexerException("The indexer of relation '" + relation.getId() + "' must be closed or rolled back first.");
+
+			indexerReleased.awaitUninterruptibly();
+		}
+	}
+
+	private void checkExclusiveIndexer(LuceneIndexer luceneIndexer) throws AnyIndexerException {
+		if(exclusiveIndexer != luceneIndexer)
+			throw new AnyIndexerException("The indexer of relation '" + relation.getId() + "' is already closed.");
+	}
+
+	private void releaseExclusiveIndexer() {
+		exclusiveIndexer = null;
+		exclusiveIndexerOwner = null;
+		indexerReleased.signalAll();
+	}
+
+	private void ensureOpen() throws AnyIndexerException {
+		if(closed)
+			throw new AnyIndexerException("IndexWriterService of relation '" + relation.getId() + "' is closed.");
+
+		if(indexWriter != null)
+			return;
+
+		try {
+			if(directory == null)
+				directory = relation.openDirectory();
+
+			IndexWriterConfig conf = new IndexWriterConfig(ScanyContext.LUCENE_VERSION, relation.getAnalyzer());
+			indexWriter = new IndexWriter(directory, conf);
+			indexer = new LuceneIndexer(this, false);
+			
+			if(relation.isNearRealTime() && scheduler == null)
+				startScheduler();
+		} catch(IOException e) {
+			throw new AnyIndexerException("색인기(AnyIndexer)를 초기화할 수 없습니다.", e);
+		}
+	}
+
+	/**
+	 * 준실시간 모드의 IndexSearcher 갱신 작업과 커밋 작업을 시작한다.
+	 */
+	private void startScheduler() {
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "scany-nrt-" + relation.getId());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				refresh();
+			}
+		}, relation.getRefreshInterval(), relation.getRefreshInterval(), TimeUnit.MILLISECONDS);
+		
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				try {
+					commit();
+				} catch(Exception e) {
+					logger.error("Periodic commit of relation '" + relation.getId() + "' failed.", e);
+				}
+			}
+		}, relation.getCommitInterval(), relation.getCommitInterval(), TimeUnit.MILLISECONDS);
+	}
+	
+	private void stopScheduler() {
+		ScheduledExecutorService scheduler;
+		
+		writeLock.lock();
+		
+		try {
+			scheduler = this.scheduler;
+			this.scheduler = null;
+		} finally {
+			writeLock.unlock();
+		}
+		
+		if(scheduler != null) {
+			scheduler.shutdown();
+			
+			try {
+				scheduler.awaitTermination(relation.getCommitInterval(), TimeUnit.MILLISECONDS);
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	/**
+	 * IndexWriter에 반영된 변경사항을 IndexSearcher에 반영한다.
+	 */
+	private void refresh() {
+		IndexWriter indexWriter;
+		long mark;
+		
+		writeLock.lock();
+		
+		try {
+			indexWriter = this.indexWriter;
+			mark = pendingRecords.mark();
+		} finally {
+			writeLock.unlock();
+		}
+		
+		if(indexWriter == null)
+			return;
+		
+		try {
+			relation.refreshIndexSearcher(indexWriter);
+		} catch(Exception e) {
+			logger.warn("Failed to refresh IndexSearcher of relation '" + relation.getId() + "'.", e);
+			return;
+		}
+
+		synced(indexWriter, mark);
+	}
+
+	/**
+	 * IndexSearcher가 주어진 순번까지의 변경사항을 포함하도록 교체되었으므로 보관한 레코드 상태를 제거한다.
+	 */
+	private void synced(IndexWriter indexWriter, long mark) {
+		writeLock.lock();
+
+		try {
+			if(this.indexWriter == indexWriter)
+				pendingRecords.synced(mark);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * writeLock을 획득한 상태에서 호출해야 한다.
+	 */
+	private Set<String> findExistingKeyValues(IndexSearcher indexSearcher, String keyName, Collection<String> keyValues) throws IOException {
+		if(indexSearcher != null && !pendingRecords.isStale())
+			return pendingRecords.findExistingKeyValues(indexSearcher.getIndexReader(), keyName, keyValues);
+
+		// 레코드키별로 추적하지 못한 변경이 있으면 IndexSearcher가 교체될 때까지 IndexWriter로부터 연 IndexReader에서 확인한다.
+		IndexReader indexReader = IndexReader.open(indexWriter, true);
+
+		try {
+			return PendingRecords.seekExistingKeyValues(indexReader, keyName, keyValues);
+		} finally {
+			indexReader.close();
+		}
+	}
+
+	private IndexSearcherManager getIndexSearcherManager() {
+		try {
+			return relation.getIndexSearcherManager();
+		} catch(IOException e) {
+			logger.debug("IndexSearcher of relation '{}' is not available. {}", relation.getId(), e.getMessage());
+			return null;
+		}
+	}
+
+	private void release(IndexSearcherManager indexSearcherManager, IndexSearcher indexSearcher) {
+		if(indexSearcher == null)
+			return;
+
+		try {
+			indexSearcherManager.release(indexSearcher);
+		} catch(IOException e) {
+			logger.warn("Failed to release IndexSearcher of relation '" + relation.getId() + "'.", e);
+		}
+	}
+
+	/**
+	 * 작업을 IndexWriter에 반영하기 전에 검사하고 도큐먼트를 생성한다.
+	 * 같은 트랜잭션 안에서 먼저 수행된 작업의 결과를 반영해서 레코드의 존재여부를 판단한다.
+	 */
+	private List<Document> prepare(List<Job> jobList, List<String> keyValueList, IndexSearcher indexSearcher) throws AnyIndexerException {
+		String keyName = relation.getRecordKeyPattern().getKeyName();
+		Map<String, Boolean> keyStateMap = new HashMap<String, Boolean>();
+		List<Document> documentList = new ArrayList<Document>(jobList.size());
+		Set<String> insertKeyValues = new HashSet<String>();
+
+		for(int i = 0; i < jobList.size(); i++) {
+			if(jobList.get(i).getJobType() == JobType.INSERT)
+				insertKeyValues.add(keyValueList.get(i));
+		}
+
+		// 등록할 레코드키의 존재여부를 보관한 레코드 상태와 고정한 IndexSearcher에서 한 번에 확인한다.
+		Set<String> existingKeyValues;
+
+		try {
+			existingKeyValues = findExistingKeyValues(indexSearcher, keyName, insertKeyValues);
+		} catch(IOException e) {
+			throw new AnyIndexerException("색인 존재여부 확인에 실패했습니다.", e);
+		}
+
+		for(int i = 0; i < jobList.size(); i++) {
+			Job job = jobList.get(i);
+			String keyValue = keyValueList.get(i);
+
+			if(job.getJobType() == JobType.INSERT) {
+				Boolean exists = keyStateMap.get(keyValue);
+
+				if(exists == null)
+					exists = existingKeyValues.contains(keyValue);
+
+				if(exists)
+					throw new RecordAlreadyExistsException(keyName, keyValue);
+			}
+
+			if(job.getJobType() == JobType.DELETE) {
+				keyStateMap.put(keyValue, Boolean.FALSE);
+				documentList.add(null);
+			} else {
+				keyStateMap.put(keyValue, Boolean.TRUE);
+				documentList.add(indexer.createDocument(keyName, keyValue, job.getRecord()));
+			}
+		}
+
+		return documentList;
+	}
+
+	private void apply(List<Job> jobList, List<String> keyValueList, List<Document> documentList) throws IOException, AnyIndexerException {
+		if(relation.getIndexingThreads() > 1 && jobList.size() > 1) {
+			// 형태소 분석 등 색인 비용이 큰 작업을 여러 스레드로 나누어 반영한다.
+			ThreadPoolExecutor executor = getIndexingExecutor();
+			BulkIndexer bulkIndexer = new BulkIndexer(indexer, executor, executor.getCorePoolSize() - 1, relation.getIndexingQueueCapacity());
+			
+			try {
+				for(int i = 0; i < jobList.size(); i++) {
+					Job job = jobList.get(i);
+					bulkIndexer.submit(job.getJobType(), job.getRecord(), documentList.get(i));
+				}
+			} finally {
+				bulkIndexer.finish();
+			}
+			
+			return;
+		}
+		
+		String keyName = relation.getRecordKeyPattern().getKeyName();
+
+		for(int i = 0; i < jobList.size(); i++) {
+			Job job = jobList.get(i);
+			Document document = documentList.get(i);
+
+			if(job.getJobType() == JobType.INSERT) {
+				indexer.addDocument(document);
+			} else if(job.getJobType() == JobType.DELETE) {
+				indexer.delete(keyName, keyValueList.get(i));
+			} else {
+				// UPDATE, MERGE 모두 기존 도큐먼트를 교체한다.
+				indexer.updateDocument(keyName, keyValueList.get(i), document);
+			}
+		}
+	}
+
+	/**
+	 * 트랜잭션마다 스레드를 만들지 않도록 변환 스레드와 작업 스레드를 유지한다.
+	 * 사용하지 않는 스레드는 일정 시간 후에 종료된다.
+	 * writeLock을 획득한 상태에서 호출해야 한다.
+	 */
+	private ThreadPoolExecutor getIndexingExecutor() {
+		if(indexingExecutor == null) {
+			int threads = relation.getIndexingThreads() + 1;
+
+			indexingExecutor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				private final AtomicInteger threadNumber = new AtomicInteger();
+
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "scany-indexing-" + relation.getId() + "-" + threadNumber.getAndIncrement());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			indexingExecutor.allowCoreThreadTimeOut(true);
+		}
+
+		return indexingExecutor;
+	}
+
+	/**
+	 * 반영에 실패한 트랜잭션을 처리한다.
+	 * IndexWriter 자체의 장애이면 IndexWriter를 롤백하고, 그렇지 않으면 실패한 트랜잭션의 변경사항만 되돌린다.
+	 * writeLock을 획득한 상태에서 호출해야 한다.
+	 */
+	private void abort(List<String> keyValueList, IndexSearcher indexSearcher, AnyIndexerException cause) {
+		if(!isWriterFailure(cause)) {
+			try {
+				if(compensate(keyValueList, indexSearcher)) {
+					logger.warn("Changes of the failed transaction of relation '" + relation.getId() + "' are reverted.", cause);
+					return;
+				}
+			} catch(Exception e) {
+				logger.error("Failed to revert changes of the failed transaction of relation '" + relation.getId() + "'.", e);
+			}
+		}
+
+		// 일부 작업만 반영되었는데 되돌릴 수 없으므로 커밋되지 않은 변경사항을 모두 버린다.
+		recover(cause);
+	}
+
+	private static boolean isWriterFailure(Throwable cause) {
+		for(Throwable t = cause; t != null; t = t.getCause()) {
+			if(t instanceof IOException || t instanceof Error || t instanceof AlreadyClosedException)
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * 트랜잭션의 레코드키를 모두 삭제한 후 트랜잭션 이전의 도큐먼트를 다시 추가한다.
+	 * 이전 도큐먼트는 보관한 레코드 상태에서 먼저 찾고, 없으면 반영 전에 고정한 IndexSearcher에서 찾는다.
+	 *
+	 * @return 이전 도큐먼트를 구할 수 없어서 되돌리지 못했으면 false
+	 */
+	private boolean compensate(List<String> keyValueList, IndexSearcher indexSearcher) throws IOException, AnyIndexerException {
+		if(pendingRecords.isStale())
+			return false;
+
+		String keyName = relation.getRecordKeyPattern().getKeyName();
+		Map<String, Document> previousDocuments = new LinkedHashMap<String, Document>();
+
+		for(String keyValue : keyValueList) {
+			if(previousDocuments.containsKey(keyValue))
+				continue;
+
+			if(pendingRecords.contains(keyValue)) {
+				// 독점 색인기로 변경해서 존재여부만 보관한 레코드는 이전 도큐먼트를 알 수 없다.
+				if(pendingRecords.exists(keyValue) && pendingRecords.get(keyValue) == null)
+					return false;
+
+				previousDocuments.put(keyValue, pendingRecords.get(keyValue));
+			} else {
+				if(indexSearcher == null)
+					return false;
+
+				Document document = loadDocument(indexSearcher.getIndexReader(), keyName, keyValue);
+
+				if(document == RESTORE_UNAVAILABLE)
+					return false;
+
+				previousDocuments.put(keyValue, document);
+			}
+		}
+
+		for(String keyValue : previousDocuments.keySet()) {
+			indexWriter.deleteDocuments(new Term(keyName, keyValue));
+		}
+
+		for(Document document : previousDocuments.values()) {
+			if(document != null)
+				indexer.addDocument(document);
+		}
+
+		return true;
+	}
+
+	/**
+	 * 색인에 저장된 필드로 레코드를 만들어서 도큐먼트를 다시 생성한다.
+	 * 저장하지 않고 색인만 하는 속성이 있으면 다시 생성할 수 없으므로 RESTORE_UNAVAILABLE을 반환한다.
+	 *
+	 * @return 레코드가 존재하지 않으면 null
+	 */
+	private Document loadDocument(IndexReader indexReader, String keyName, String keyValue) throws IOException, AnyIndexerException {
+		TermDocs termDocs = indexReader.termDocs(new Term(keyName, keyValue));
+
+		try {
+			if(!termDocs.next())
+				return null;
+
+			for(Attribute attribute : relation.getAttributeMap().values()) {
+				if(!attribute.isStorable() && !keyName.equals(attribute.getName()) && (attribute.isIndexable() || attribute.isAnalyzable()))
+					return RESTORE_UNAVAILABLE;
+			}
+
+			Document storedDocument = indexReader.document(termDocs.doc());
+			Record record = new Record();
+
+			for(String name : relation.getAttributeMap().getAttributeNames()) {
+				record.setValue(name, storedDocument.get(name));
+			}
+
+			return indexer.createDocument(keyName, keyValue, record);
+		} finally {
+			termDocs.close();
+		}
+	}
+
+	private void awaitCommit(CommitTicket ticket) throws AnyIndexerException {
+		synchronized(commitMonitor) {
+			if(!ticket.isDone())
+				groupCommit();
+		}
+
+		if(ticket.getFailure() != null)
+			throw new AnyIndexerException("색인 커밋(commit)에 실패했습니다.", ticket.getFailure());
+	}
+
+	/**
+	 * 커밋 대기열에 등록된 모든 트랜잭션을 한 번에 커밋한다.
+	 * commitMonitor를 획득한 상태에서 호출해야 한다.
+	 */
+	private void groupCommit() {
+		List<CommitTicket> tickets;
+		IndexWriter indexWriter;
+		long mark;
+
+		writeLock.lock();
+
+		try {
+			if(pendingTickets.isEmpty())
+				return;
+
+			tickets = pendingTickets;
+			pendingTickets = new ArrayList<CommitTicket>();
+			indexWriter = this.indexWriter;
+			mark = pendingRecords.mark();
+		} finally {
+			writeLock.unlock();
+		}
+
+		// fsync가 진행되는 동안에도 다른 트랜잭션을 검사할 수 있도록 writeLock을 해제한 상태에서 커밋한다.
+		// 반영 중인 트랜잭션이 없을 때만 커밋하도록 commitLock을 획득한다.
+		Exception failure = null;
+
+		commitLock.lock();
+
+		try {
+			// 대기열을 넘겨받은 후 다른 스레드가 IndexWriter를 롤백했으면 대기열의 트랜잭션도 버려졌다.
+			if(this.indexWriter != indexWriter)
+				failure = new AnyIndexerException("IndexWriter of relation '" + relation.getId() + "' was rolled back before commit.");
+			else
+				indexWriter.commit();
+		} catch(Exception e) {
+			failure = e;
+		} finally {
+			commitLock.unlock();
+		}
+
+		if(failure != null) {
+			for(CommitTicket ticket : tickets) {
+				ticket.done(failure);
+			}
+
+			writeLock.lock();
+
+			try {
+				// 이미 다른 스레드가 복구한 경우에는 새로 연 IndexWriter를 롤백하지 않는다.
+				if(this.indexWriter == indexWriter)
+					recover(failure);
+			} finally {
+				writeLock.unlock();
+			}
+
+			return;
+		}
+
+		commitCount.incrementAndGet();
+		transactionCount.addAndGet(tickets.size());
+
+		for(CommitTicket ticket : tickets) {
+			ticket.done(null);
+		}
+
+		refreshIndexSearcher(indexWriter, mark);
+	}
+
+	/**
+	 * 커밋된 색인으로 IndexSearcher를 교체하고 보관한 레코드 상태를 제거한다.
+	 *
+	 * @return IndexSearcher를 교체하지 못했으면 false
+	 */
+	private boolean refreshIndexSearcher(IndexWriter indexWriter, long mark) {
+		try {
+			relation.refreshIndexSearcher();
+		} catch(Exception e) {
+			logger.warn("Failed to refresh IndexSearcher of relation '" + relation.getId() + "'.", e);
+			return false;
+		}
+
+		synced(indexWriter, mark);
+
+		return true;
+	}
+
+	/**
+	 * 커밋되지 않은 변경사항을 모두 버리고 IndexWriter를 다시 연다.
+	 * writeLock을 획득한 상태에서 호출해야 한다.
+	 */
+	private void recover(Throwable cause) {
+		logger.error("IndexWriter of relation '" + relation.getId() + "' is rolled back.", cause);
+
+		for(CommitTicket ticket : pendingTickets) {
+			ticket.done(cause);
+		}
+
+		pendingTickets.clear();
+
+		try {
+			discard();
+		} catch(IOException e) {
+			logger.error("IndexWriter rollback failed.", e);
+		}
+
+		if(exclusiveIndexer != null)
+			releaseExclusiveIndexer();
+	}
+
+	/**
+	 * IndexWriter를 롤백하고 다음 작업에서 다시 열도록 한다.
+	 * 커밋 중이면 커밋이 끝난 후에 롤백한다.
+	 * writeLock을 획득한 상태에서 호출해야 한다.
+	 */
+	private void discard() throws IOException {
+		commitLock.lock();
+
+		try {
+			IndexWriter indexWriter = this.indexWriter;
+
+			this.indexWriter = null;
+			this.indexer = null;
+
+			// 버려진 변경사항을 볼 수 있는 IndexSearcher를 닫고, 다음 검색에서 커밋된 색인으로 다시 연다.
+			pendingRecords.clear();
+
+			try {
+				relation.closeIndexSearcher();
+			} catch(IOException e) {
+				logger.warn("Failed to close IndexSearcher of relation '" + relation.getId() + "'.", e);
+			}
+
+			if(indexWriter != null)
+				indexWriter.rollback();
+		} finally {
+			commitLock.unlock();
+		}
+	}
+
+	/**
+	 * 커밋 대기열에 등록된 트랜잭션 하나의 커밋 결과.
+	 */
+	private static class CommitTicket {
+
+		private volatile boolean done;
+
+		private volatile Throwable failure;
+
+		public boolean isDone() {
+			return done;
+		}
+
+		public Throwable getFailure() {
+			return failure;
+		}
+
+		public void done(Throwable failure) {
+			this.failure = failure;
+			this.done = true;
+		}
+
+	}
+
+}
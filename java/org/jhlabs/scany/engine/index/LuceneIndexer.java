@@ -11,7 +11,12 @@
 package org.jhlabs.scany.engine.index;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Document;
@@ -20,7 +25,6 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.Term;
-import org.apache.lucene.index.TermDocs;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.store.Directory;
 import org.jhlabs.scany.context.ScanyContext;
@@ -45,6 +49,16 @@ public class LuceneIndexer implements AnyIndexer {
 	private IndexWriter indexWriter;
 	
 	private Analyzer analyzer;
+	
+	private IndexWriterService indexWriterService;
+
+	private boolean exclusive;
+
+	/** IndexWriter를 단독으로 사용할 때 keyIndexReader 이후에 변경한 레코드키 */
+	private PendingRecords pendingRecords;
+
+	/** IndexWriter를 단독으로 사용할 때 레코드키의 존재여부를 확인하는 IndexReader */
+	private IndexReader keyIndexReader;
 
 	/**
 	 * 생성자
@@ -57,9 +71,28 @@ public class LuceneIndexer implements AnyIndexer {
 		initialize();
 	}
 
+	/**
+	 * IndexWriterService가 소유한 IndexWriter를 사용하는 색인기를 생성한다.
+	 * IndexWriterService.getIndexer()로 얻은 색인기는 close() 또는 rollback()을 호출할 때까지 IndexWriter를 독점하므로
+	 * rollback()은 이 색인기로 변경한 내용만 버린다.
+	 * 
+	 * @param indexWriterService the index writer service
+	 * @param exclusive IndexWriter를 독점하는 색인기이면 true, IndexWriterService가 트랜잭션 반영에 사용하면 false
+	 */
+	LuceneIndexer(IndexWriterService indexWriterService, boolean exclusive) {
+		this.relation = indexWriterService.getRelation();
+		this.indexWriterService = indexWriterService;
+		this.exclusive = exclusive;
+		this.analyzer = determineAnalyzer(relation);
+	}
+
 	protected Relation getRelation() {
 		return relation;
 	}
+	
+	Analyzer getAnalyzer() {
+		return analyzer;
+	}
 
 	private void initialize() throws AnyIndexerException {
 		try {
@@ -73,16 +106,35 @@ public class LuceneIndexer implements AnyIndexer {
 			//indexWriter.setMergeFactor(relation.getMergeFactor());
 			//indexWriter.setMaxMergeDocs(relation.getMaxMergeDocs());
 			
-			if(relation.getPerFieldAnalyzer() != null)
-				analyzer = relation.getPerFieldAnalyzer();
-			else
-				analyzer = relation.getAnalyzer();
+			analyzer = determineAnalyzer(relation);
+			
+			pendingRecords = new PendingRecords();
 
 		} catch(IOException e) {
 			throw new AnyIndexerException("색인기(AnyIndexer)를 초기화할 수 없습니다.", e);
 		}
 	}
 
+	private static Analyzer determineAnalyzer(Relation relation) {
+		if(relation.getPerFieldAnalyzer() != null)
+			return relation.getPerFieldAnalyzer();
+		else
+			return relation.getAnalyzer();
+	}
+	
+	/**
+	 * 색인 작업에 사용할 IndexWriter를 반환한다.
+	 * IndexWriterService를 공유하는 경우 장애 복구 후 교체된 IndexWriter를 반환할 수 있다.
+	 * @return the index writer
+	 * @throws AnyIndexerException
+	 */
+	IndexWriter getIndexWriter() throws AnyIndexerException {
+		if(indexWriterService != null)
+			return indexWriterService.getIndexWriter(this);
+		
+		return indexWriter;
+	}
+
 	public void insert(Record record) throws AnyIndexerException {
 		String keyName = relation.getRecordKeyPattern().getKeyName();
 		String keyValue = relation.getRecordKeyPattern().combine(record);
@@ -92,28 +144,96 @@ public class LuceneIndexer implements AnyIndexer {
 
 		try {
 			Document document = createDocument(keyName, keyValue, record); 
-			indexWriter.addDocument(document, analyzer);
+			addDocument(document);
+			changed(keyValue, true);
 		} catch(Exception e) {
+			invalidated();
 			throw new AnyIndexerException("색인 등록(insert)에 실패했습니다.", e);
 		}
 	}
 
-	public void merge(Record record) throws AnyIndexerException {
+	/**
+	 * 여러 레코드를 한꺼번에 등록한다.
+	 * 레코드키의 존재여부는 하나의 IndexReader에서 한 번에 확인하며,
+	 * 이미 존재하거나 서로 중복된 레코드키가 있으면 아무 것도 등록하지 않고 예외를 발생한다.
+	 */
+	public void insertAll(Collection<Record> records) throws AnyIndexerException {
 		String keyName = relation.getRecordKeyPattern().getKeyName();
-		String keyValue = relation.getRecordKeyPattern().combine(record);
+		List<String> keyValueList = new ArrayList<String>(records.size());
+		Set<String> keyValueSet = new HashSet<String>(records.size() * 2);
+		
+		for(Record record : records) {
+			String keyValue = relation.getRecordKeyPattern().combine(record);
+			
+			if(!keyValueSet.add(keyValue))
+				throw new RecordAlreadyExistsException(keyName, keyValue);
+			
+			keyValueList.add(keyValue);
+		}
+		
+		Set<String> existingKeyValues = findExistingKeyValues(keyName, keyValueSet);
+		
+		if(!existingKeyValues.isEmpty())
+			throw new RecordAlreadyExistsException(keyName, existingKeyValues.iterator().next());
+		
+		List<Document> documentList = new ArrayList<Document>(records.size());
+		int i = 0;
+		
+		for(Record record : records) {
+			documentList.add(createDocument(keyName, keyValueList.get(i++), record));
+		}
+		
+		try {
+			for(int j = 0; j < documentList.size(); j++) {
+				addDocument(documentList.get(j));
+				changed(keyValueList.get(j), true);
+			}
+		} catch(Exception e) {
+			invalidated();
+			throw new AnyIndexerException("색인 등록(insert)에 실패했습니다.", e);
+		}
+	}
 
-		if(exists(keyName, keyValue))
-			update(record);
-		else
-			insert(record);
+	/**
+	 * 레코드가 존재하면 갱신하고, 존재하지 않으면 등록한다.
+	 * IndexWriter.updateDocument()는 기존 도큐먼트가 없으면 추가만 하므로 존재여부를 확인하지 않는다.
+	 */
+	public void merge(Record record) throws AnyIndexerException {
+		update(record);
+	}
+	
+	/**
+	 * 여러 레코드를 한꺼번에 병합(merge)한다.
+	 */
+	public void mergeAll(Collection<Record> records) throws AnyIndexerException {
+		String keyName = relation.getRecordKeyPattern().getKeyName();
+		List<Document> documentList = new ArrayList<Document>(records.size());
+		List<String> keyValueList = new ArrayList<String>(records.size());
+		
+		for(Record record : records) {
+			String keyValue = relation.getRecordKeyPattern().combine(record);
+			keyValueList.add(keyValue);
+			documentList.add(createDocument(keyName, keyValue, record));
+		}
+		
+		try {
+			for(int i = 0; i < documentList.size(); i++) {
+				updateDocument(keyName, keyValueList.get(i), documentList.get(i));
+				changed(keyValueList.get(i), true);
+			}
+		} catch(Exception e) {
+			invalidated();
+			throw new AnyIndexerException("색인 병합(merge)에 실패했습니다.", e);
+		}
 	}
 	
 	private void update(String keyName, String keyValue, Record record) throws AnyIndexerException {
 		try {
 			Document document = createDocument(keyName, keyValue, record); 
-			Term term = new Term(keyName, keyValue);
-			indexWriter.updateDocument(term, document, analyzer);
+			updateDocument(keyName, keyValue, document);
+			changed(keyValue, true);
 		} catch(Exception e) {
+			invalidated();
 			throw new AnyIndexerException("색인 수정(update)에 실패했습니다.", e);
 		}
 	}
@@ -135,21 +255,29 @@ public class LuceneIndexer implements AnyIndexer {
 	public void delete(String keyName, String keyValue) throws AnyIndexerException {
 		try {
 			Term term = new Term(keyName, keyValue);
-			indexWriter.deleteDocuments(term);
+			getIndexWriter().deleteDocuments(term);
+			changed(keyValue, false);
 		} catch(Exception e) {
+			invalidated();
 			throw new AnyIndexerException("색인 삭제(delete)에 실패했습니다.", e);
 		}
 	}
 	
 	public void delete(List<FilterAttribute> filterAttributeList) throws AnyIndexerException {
+		if(filterAttributeList == null || filterAttributeList.size() == 0)
+			throw new AnyIndexerException("삭제 조건(FilterAttribute)이 지정되지 않았습니다.");
+		
 		try {
 			LuceneQueryBuilder queryBuilder = new LuceneQueryBuilder();
 			queryBuilder.addQuery(filterAttributeList);
 			Query query = queryBuilder.build();
 				
-			indexWriter.deleteDocuments(query);
+			getIndexWriter().deleteDocuments(query);
 		} catch(Exception e) {
 			throw new AnyIndexerException("색인 삭제(delete)에 실패했습니다.", e);
+		} finally {
+			// 조건으로 삭제된 레코드키는 알 수 없다.
+			invalidated();
 		}
 	}
 
@@ -158,7 +286,7 @@ public class LuceneIndexer implements AnyIndexer {
 	 */
 	public void optimize() throws AnyIndexerException {
 		try {
-			indexWriter.optimize();
+			getIndexWriter().optimize();
 		} catch(IOException e) {
 			throw new AnyIndexerException("색인 최적화(optimize) 작업에 실패했습니다.", e);
 		}
@@ -177,8 +305,15 @@ public class LuceneIndexer implements AnyIndexer {
 	 * 색인 작업을 종료한다.
 	 */
 	public void close() throws AnyIndexerException {
+		if(indexWriterService != null) {
+			indexWriterService.close(this);
+			return;
+		}
+		
 		try {
+			closeKeyIndexReader();
 			indexWriter.close();
+			relation.refreshIndexSearcher();
 		} catch(IOException e) {
 			throw new AnyIndexerException("색인 작업 종료에 실패했습니다.", e);
 		}
@@ -190,8 +325,14 @@ public class LuceneIndexer implements AnyIndexer {
 	 * @throws AnyIndexerException the any indexer exception
 	 */
 	public void commit() throws AnyIndexerException {
+		if(indexWriterService != null) {
+			indexWriterService.commit(this);
+			return;
+		}
+		
 		try {
 			indexWriter.commit();
+			relation.refreshIndexSearcher();
 		} catch(IOException e) {
 			throw new AnyIndexerException("색인 작업 종료에 실패했습니다.", e);
 		}
@@ -203,7 +344,13 @@ public class LuceneIndexer implements AnyIndexer {
 	 * @throws AnyIndexerException the any indexer exception
 	 */
 	public void rollback() throws AnyIndexerException {
+		if(indexWriterService != null) {
+			indexWriterService.rollback(this);
+			return;
+		}
+		
 		try {
+			closeKeyIndexReader();
 			indexWriter.rollback();
 		} catch(IOException e) {
 			throw new AnyIndexerException("색인 작업 종료에 실패했습니다.", e);
@@ -211,36 +358,111 @@ public class LuceneIndexer implements AnyIndexer {
 	}
 	
 	public boolean exists(String keyName, String keyValue) throws AnyIndexerException {
-		IndexReader indexReader = null;
+		return findExistingKeyValues(keyName, Collections.singleton(keyValue)).contains(keyValue);
+	}
+	
+	/**
+	 * 주어진 레코드키 중에서 색인에 이미 존재하는 레코드키를 반환한다.
+	 * 호출할 때마다 IndexReader를 열지 않고, 변경한 레코드키를 먼저 확인한 후 나머지는 열어둔 IndexReader에서 확인한다.
+	 * IndexWriterService를 사용하면 공유 IndexSearcher에서 확인한다.
+	 * 
+	 * @param keyName 레코드키 이름
+	 * @param keyValues 확인할 레코드키 값
+	 * @return 존재하는 레코드키 값
+	 * @throws AnyIndexerException
+	 */
+	Set<String> findExistingKeyValues(String keyName, Collection<String> keyValues) throws AnyIndexerException {
+		if(keyValues.isEmpty())
+			return new HashSet<String>();
 		
-		try {
-			indexReader = IndexReader.open(indexWriter, false);
+		if(indexWriterService != null)
+			return indexWriterService.findExistingKeyValues(this, keyName, keyValues);
+		
+		synchronized(pendingRecords) {
+			try {
+				// 조건으로 삭제했거나 변경한 레코드키가 너무 많으면 변경사항을 포함하도록 IndexReader를 다시 연다.
+				if(keyIndexReader == null || pendingRecords.isStale()) {
+					long mark = pendingRecords.mark();
+					IndexReader indexReader;
+					
+					if(keyIndexReader == null) {
+						indexReader = IndexReader.open(indexWriter, true);
+					} else {
+						indexReader = keyIndexReader.reopen(indexWriter, true);
+						
+						if(indexReader != keyIndexReader)
+							keyIndexReader.close();
+					}
+					
+					keyIndexReader = indexReader;
+					pendingRecords.synced(mark);
+				}
+				
+				return pendingRecords.findExistingKeyValues(keyIndexReader, keyName, keyValues);
+			} catch(IOException e) {
+				throw new AnyIndexerException("색인 존재여부 확인에 실패했습니다.", e);
+			}
+		}
+	}
+	
+	/**
+	 * 레코드키의 존재여부가 바뀌었음을 등록한다.
+	 * IndexWriterService가 트랜잭션 반영에 사용하는 색인기이면 IndexWriterService가 직접 등록한다.
+	 */
+	void changed(String keyValue, boolean exists) {
+		if(indexWriterService != null) {
+			if(exclusive)
+				indexWriterService.changed(keyValue, exists);
 			
-			Term term = new Term(keyName, keyValue);
-
-			TermDocs termDocs = indexReader.termDocs(term);
+			return;
+		}
+		
+		synchronized(pendingRecords) {
+			pendingRecords.put(keyValue, exists);
+		}
+	}
+	
+	/**
+	 * 레코드키별로 알 수 없는 변경이 있었음을 등록한다.
+	 */
+	void invalidated() {
+		if(indexWriterService != null) {
+			if(exclusive)
+				indexWriterService.invalidated();
 			
-			return termDocs.next();
-
-		} catch(Exception e) {
-			throw new AnyIndexerException("색인 존재여부 확인에 실패했습니다.", e);
-		} finally {
-			try {
-				if(indexReader != null)
-					indexReader.close();
-			} catch(Exception e2) {
-				e2.printStackTrace();
+			return;
+		}
+		
+		synchronized(pendingRecords) {
+			pendingRecords.invalidate();
+		}
+	}
+	
+	private void closeKeyIndexReader() throws IOException {
+		synchronized(pendingRecords) {
+			if(keyIndexReader != null) {
+				keyIndexReader.close();
+				keyIndexReader = null;
 			}
 		}
 	}
 	
+	void addDocument(Document document) throws IOException, AnyIndexerException {
+		getIndexWriter().addDocument(document, analyzer);
+	}
+	
+	void updateDocument(String keyName, String keyValue, Document document) throws IOException, AnyIndexerException {
+		Term term = new Term(keyName, keyValue);
+		getIndexWriter().updateDocument(term, document, analyzer);
+	}
+	
 	/**
 	 * 레코드(Record)를 도큐먼트(Document)로 전환 후 반환한다.
 	 * @param record
 	 * @return Record
 	 * @throws AnyIndexerException
 	 */
-	private Document createDocument(String keyName, String keyValue, Record record) throws AnyIndexerException {
+	Document createDocument(String keyName, String keyValue, Record record) throws AnyIndexerException {
 		try {
 			AttributeMap attributeMap = relation.getAttributeMap();
 
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2008 Jeong Ju Ho.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors:
+ *     Jeong Ju Ho - initial API and implementation
+ ******************************************************************************/
+package org.jhlabs.scany.engine.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermDocs;
+
+/**
+ * IndexWriter에 반영되었지만 공유 IndexSearcher에는 아직 보이지 않는 레코드의 상태를 레코드키별로 보관한다.
+ *
+ * <pre>
+ * 레코드키마다 마지막으로 반영된 도큐먼트를 보관하며, 삭제된 레코드는 null로 보관한다.
+ * 도큐먼트가 필요 없으면 존재여부만 보관할 수 있다.
+ * 변경사항에는 순번을 매기고, 변경사항을 포함한 IndexSearcher로 교체된 후에 synced()로 그 순번까지의 상태를 제거한다.
+ * 조건으로 삭제하는 등 레코드키별로 추적할 수 없는 변경이 있으면 그 변경을 포함한 IndexSearcher로 교체될 때까지
+ * 보관한 상태를 신뢰할 수 없다(stale). 보관한 레코드키가 MAX_ENTRIES를 넘을 때도 상태를 모두 버리고 stale이 된다.
+ *
+ * 동기화하지 않으므로 IndexWriterService는 writeLock을 획득한 상태에서 사용하고, LuceneIndexer는 자신을 동기화해서 사용한다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+class PendingRecords {
+
+	/** 보관할 레코드키의 최대 수 */
+	public static final int MAX_ENTRIES = 10000;
+
+	private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+	private long sequence;
+
+	private long staleSequence = -1;
+
+	/**
+	 * 레코드키의 변경사항을 등록한다.
+	 *
+	 * @param keyValue 레코드키 값
+	 * @param document 반영된 도큐먼트, 삭제된 경우 null
+	 */
+	public void put(String keyValue, Document document) {
+		put(new Entry(++sequence, (document != null), document), keyValue);
+	}
+
+	/**
+	 * 도큐먼트 없이 레코드키의 존재여부만 등록한다.
+	 *
+	 * @param keyValue 레코드키 값
+	 * @param exists 레코드가 존재하면 true, 삭제되었으면 false
+	 */
+	public void put(String keyValue, boolean exists) {
+		put(new Entry(++sequence, exists, null), keyValue);
+	}
+
+	private void put(Entry entry, String keyValue) {
+		entries.put(keyValue, entry);
+
+		if(entries.size() > MAX_ENTRIES) {
+			entries.clear();
+			invalidate();
+		}
+	}
+
+	/**
+	 * 레코드키별로 추적할 수 없는 변경이 있었음을 등록한다.
+	 */
+	public void invalidate() {
+		staleSequence = ++sequence;
+	}
+
+	public boolean isStale() {
+		return (staleSequence >= 0);
+	}
+
+	public boolean contains(String keyValue) {
+		return entries.containsKey(keyValue);
+	}
+
+	/**
+	 * 레코드키에 마지막으로 반영된 변경사항으로 존재여부를 반환한다.
+	 * contains()가 true인 레코드키에만 의미가 있다.
+	 */
+	public boolean exists(String keyValue) {
+		Entry entry = entries.get(keyValue);
+
+		return (entry != null && entry.exists);
+	}
+
+	/**
+	 * 레코드키에 마지막으로 반영된 도큐먼트를 반환한다.
+	 *
+	 * @param keyValue 레코드키 값
+	 * @return 삭제되었거나 존재여부만 등록되었거나 등록된 변경사항이 없으면 null
+	 */
+	public Document get(String keyValue) {
+		Entry entry = entries.get(keyValue);
+
+		return (entry == null) ? null : entry.document;
+	}
+
+	/**
+	 * 지금까지 등록된 변경사항의 마지막 순번을 반환한다.
+	 *
+	 * @return the sequence
+	 */
+	public long mark() {
+		return sequence;
+	}
+
+	/**
+	 * 주어진 순번까지의 변경사항이 IndexSearcher에 반영되었으므로 제거한다.
+	 *
+	 * @param mark IndexSearcher를 교체하기 전에 mark()로 구한 순번
+	 */
+	public void synced(long mark) {
+		Iterator<Entry> iterator = entries.values().iterator();
+
+		while(iterator.hasNext()) {
+			if(iterator.next().sequence <= mark)
+				iterator.remove();
+		}
+
+		if(staleSequence >= 0 && staleSequence <= mark)
+			staleSequence = -1;
+	}
+
+	/**
+	 * 변경사항이 모두 버려졌으므로 보관한 상태를 모두 제거한다.
+	 */
+	public void clear() {
+		entries.clear();
+		staleSequence = -1;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * 주어진 레코드키 중에서 존재하는 레코드키를 반환한다.
+	 * 등록된 변경사항을 먼저 확인하고, 나머지는 주어진 IndexReader에서 확인한다.
+	 * stale 상태이면 호출하지 말고 모든 변경사항을 포함한 IndexReader에서 seekExistingKeyValues()로 확인해야 한다.
+	 *
+	 * @param indexReader 등록된 변경사항 이전의 색인을 보는 IndexReader
+	 * @param keyName 레코드키 이름
+	 * @param keyValues 확인할 레코드키 값
+	 * @return 존재하는 레코드키 값
+	 * @throws IOException
+	 */
+	public Set<String> findExistingKeyValues(IndexReader indexReader, String keyName, Collection<String> keyValues) throws IOException {
+		Set<String> existingKeyValues = new HashSet<String>();
+		List<String> unknownKeyValues = new ArrayList<String>(keyValues.size());
+
+		for(String keyValue : keyValues) {
+			Entry entry = entries.get(keyValue);
+
+			if(entry == null)
+				unknownKeyValues.add(keyValue);
+			else if(entry.exists)
+				existingKeyValues.add(keyValue);
+		}
+
+		existingKeyValues.addAll(seekExistingKeyValues(indexReader, keyName, unknownKeyValues));
+
+		return existingKeyValues;
+	}
+
+	/**
+	 * 주어진 레코드키 중에서 IndexReader에 존재하는 레코드키를 반환한다.
+	 * 정렬된 순서로 TermDocs를 이동하며 확인한다.
+	 */
+	public static Set<String> seekExistingKeyValues(IndexReader indexReader, String keyName, Collection<String> keyValues) throws IOException {
+		Set<String> existingKeyValues = new HashSet<String>();
+
+		if(keyValues.isEmpty())
+			return existingKeyValues;
+
+		TermDocs termDocs = indexReader.termDocs();
+
+		try {
+			for(String keyValue : new TreeSet<String>(keyValues)) {
+				termDocs.seek(new Term(keyName, keyValue));
+
+				if(termDocs.next())
+					existingKeyValues.add(keyValue);
+			}
+		} finally {
+			termDocs.close();
+		}
+
+		return existingKeyValues;
+	}
+
+	private static class Entry {
+
+		private final long sequence;
+
+		private final boolean exists;
+
+		private final Document document;
+
+		public Entry(long sequence, boolean exists, Document document) {
+			this.sequence = sequence;
+			this.exists = exists;
+			this.document = document;
+		}
+
+	}
+
+}
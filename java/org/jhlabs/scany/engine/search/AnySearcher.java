@@ -48,6 +48,14 @@ public interface AnySearcher {
 	 */
 	public void setHitsPerPage(int hitsPerPage);
 
+	/**
+	 * 커서 검색(searchAfter)으로 얻은 다음 페이지의 커서를 반환한다.
+	 * 더 이상 검색결과가 없으면 null을 반환한다.
+	 * 
+	 * @return the next cursor
+	 */
+	public String getNextCursor();
+
 	public List<QueryAttribute> getQueryAttributeList();
 
 	public void setQueryAttributeList(List<QueryAttribute> queryAttributeList);
@@ -104,6 +112,18 @@ public interface AnySearcher {
 	 */
 	public void addSortAttribute(SortAttribute sortAttribute);
 
+	public List<String> getSelectAttributeList();
+
+	public void setSelectAttributeList(List<String> selectAttributeList);
+
+	/**
+	 * 검색결과로 반환할 속성을 추가한다.
+	 * 지정하지 않으면 모든 속성을 반환한다.
+	 * 
+	 * @param attributeName 속성명
+	 */
+	public void addSelectAttribute(String attributeName);
+
 	public Map<String, Summarizer> getSummarizerMap();
 
 	public void setSummarizerMap(Map<String, Summarizer> summarizerMap);
@@ -118,6 +138,8 @@ public interface AnySearcher {
 	
 	public void clearSortAttribute();
 	
+	public void clearSelectAttribute();
+	
 
 
 	/**
@@ -151,6 +173,26 @@ public interface AnySearcher {
 	 */
 	public RecordList search(String queryString, int pageNo) throws AnySearcherException;
 	
+	/**
+	 * 커서 이후의 다음 페이지를 검색한다.
+	 * 필터 컬럼만 지정했을 경우 사용한다.
+	 * @param cursor 이전 검색의 getNextCursor() 값, 첫 페이지는 null
+	 * @return
+	 * @throws AnySearcherException
+	 */
+	public RecordList searchAfter(String cursor) throws AnySearcherException;
+	
+	/**
+	 * 커서 이후의 다음 페이지를 검색한다.
+	 * 페이지의 깊이와 관계없이 hitsPerPage 개수만큼만 수집하므로 깊은 페이지를 탐색할 때 사용한다.
+	 * 다음 페이지의 커서는 getNextCursor()로 얻을 수 있다.
+	 * @param queryString 사용자가 입력한 질의문
+	 * @param cursor 이전 검색의 getNextCursor() 값, 첫 페이지는 null
+	 * @return hitsPerPage 개수 만큼의 Record를 반환한다.
+	 * @throws AnySearcherException
+	 */
+	public RecordList searchAfter(String queryString, String cursor) throws AnySearcherException;
+	
 	/**
 	 * 최근 레코드 또는 랜덤 레코드를 검색한다.
 	 * 검색 범위를 한정하기 위해서는 필터컬럼을 추가해야 한다.
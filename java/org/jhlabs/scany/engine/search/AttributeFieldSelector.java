@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2008 Jeong Ju Ho.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors:
+ *     Jeong Ju Ho - initial API and implementation
+ ******************************************************************************/
+package org.jhlabs.scany.engine.search;
+
+import java.util.Set;
+
+import org.apache.lucene.document.FieldSelector;
+import org.apache.lucene.document.FieldSelectorResult;
+
+/**
+ * 지정한 속성의 저장 필드만 읽어들이는 FieldSelector.
+ *
+ * <pre>
+ * 지정하지 않은 필드는 읽지 않고 건너뛰며(NO_LOAD),
+ * 지정한 필드를 모두 읽으면 나머지 필드는 확인하지 않고 읽기를 멈춘다(LOAD_AND_BREAK).
+ * 도큐먼트마다 새로 생성해서 사용해야 한다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class AttributeFieldSelector implements FieldSelector {
+
+	private static final long serialVersionUID = -2581236725034846395L;
+
+	private final Set<String> attributeNames;
+
+	private int remaining;
+
+	public AttributeFieldSelector(Set<String> attributeNames) {
+		this.attributeNames = attributeNames;
+		this.remaining = attributeNames.size();
+	}
+
+	public FieldSelectorResult accept(String fieldName) {
+		if(!attributeNames.contains(fieldName))
+			return FieldSelectorResult.NO_LOAD;
+
+		if(--remaining <= 0)
+			return FieldSelectorResult.LOAD_AND_BREAK;
+
+		return FieldSelectorResult.LOAD;
+	}
+
+}
@@ -10,6 +10,8 @@
  ******************************************************************************/
 package org.jhlabs.scany.engine.search;
 
+import java.io.Serializable;
+
 import org.jhlabs.scany.engine.entity.Attribute;
 
 
@@ -20,13 +22,15 @@ import org.jhlabs.scany.engine.entity.Attribute;
  * @author Gulendol
  *
  */
-public class FilterAttribute {
+public class FilterAttribute implements Serializable {
+
+	private static final long serialVersionUID = 3581460392372713394L;
 	
 	private FilterType filterType;
 	
 	private String attributeName;
 	
-	private Attribute attribute;
+	private transient Attribute attribute;
 	
 	private Object equalValue;
 	
@@ -48,7 +52,7 @@ public class FilterAttribute {
 	}
 	
 	public FilterAttribute(FilterType filterType, String attributeName, Object lowerValue, Object upperValue, boolean includeLower, boolean includeUpper, boolean essential) {
-		this.filterType = FilterType.EQUAL;
+		this.filterType = filterType;
 		this.attributeName = attributeName;
 		this.lowerValue = lowerValue;
 		this.upperValue = upperValue;
@@ -97,4 +101,23 @@ public class FilterAttribute {
 		return essential;
 	}
 
+	/**
+	 * 필터 조건을 문자열로 반환한다.
+	 * 같은 조건의 필터는 같은 문자열을 반환하므로 캐시 키로 사용한다.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(attributeName).append('|');
+		sb.append(filterType).append('|');
+		sb.append(equalValue).append('|');
+		sb.append(lowerValue).append('|');
+		sb.append(upperValue).append('|');
+		sb.append(includeLower).append('|');
+		sb.append(includeUpper).append('|');
+		sb.append(essential);
+		
+		return sb.toString();
+	}
+
 }
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2008 Jeong Ju Ho.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors:
+ *     Jeong Ju Ho - initial API and implementation
+ ******************************************************************************/
+package org.jhlabs.scany.engine.search;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.search.CachingWrapperFilter;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.QueryWrapperFilter;
+import org.jhlabs.scany.engine.search.query.LuceneQueryBuilder;
+
+/**
+ * 필터 속성(FilterAttribute)의 조합별로 Filter를 캐시한다.
+ *
+ * <pre>
+ * 같은 필터 조합에는 같은 CachingWrapperFilter를 반환하므로
+ * 세그먼트별로 한번 계산된 DocIdSet(비트셋)을 다음 질의에서 그대로 사용한다.
+ * CachingWrapperFilter는 세그먼트 리더를 키로 캐시하므로 색인이 변경되더라도
+ * 변경되지 않은 세그먼트의 비트셋은 다시 계산하지 않고, 병합되어 사라진 세그먼트의 비트셋은 함께 해제된다.
+ * 캐시할 필터 조합의 수를 넘으면 가장 오래 사용하지 않은 필터부터 제거한다(LRU).
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class FilterCache {
+
+	/** 캐시할 필터 조합의 기본 최대 개수 */
+	public static final int DEFAULT_MAX_FILTERS = 64;
+
+	private final int maxFilters;
+
+	private final Map<String, Filter> map;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	public FilterCache(int maxFilters) {
+		if(maxFilters < 1)
+			throw new IllegalArgumentException("maxFilters must be greater than 0.");
+
+		this.maxFilters = maxFilters;
+		this.map = new LinkedHashMap<String, Filter>(16, 0.75f, true) {
+			private static final long serialVersionUID = 5140233829315226137L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Filter> eldest) {
+				return size() > FilterCache.this.maxFilters;
+			}
+		};
+	}
+
+	/**
+	 * 필터 속성의 조합에 해당하는 Filter를 반환한다.
+	 *
+	 * @param filterAttributeList 필터 속성 목록
+	 * @return Filter
+	 */
+	public Filter getFilter(List<FilterAttribute> filterAttributeList) {
+		String key = createKey(filterAttributeList);
+
+		synchronized(map) {
+			Filter filter = map.get(key);
+
+			if(filter != null) {
+				hitCount.incrementAndGet();
+				return filter;
+			}
+
+			missCount.incrementAndGet();
+
+			filter = new CachingWrapperFilter(createFilter(filterAttributeList));
+			map.put(key, filter);
+
+			return filter;
+		}
+	}
+
+	public void clear() {
+		synchronized(map) {
+			map.clear();
+		}
+	}
+
+	public int size() {
+		synchronized(map) {
+			return map.size();
+		}
+	}
+
+	public int getMaxFilters() {
+		return maxFilters;
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * 캐시하지 않는 Filter를 만든다.
+	 *
+	 * @param filterAttributeList 필터 속성 목록
+	 * @return Filter
+	 */
+	public static Filter createFilter(List<FilterAttribute> filterAttributeList) {
+		return new QueryWrapperFilter(LuceneQueryBuilder.createFilterQuery(filterAttributeList));
+	}
+
+	private static String createKey(List<FilterAttribute> filterAttributeList) {
+		StringBuilder sb = new StringBuilder();
+
+		for(FilterAttribute filterAttribute : filterAttributeList) {
+			sb.append(filterAttribute).append(';');
+		}
+
+		return sb.toString();
+	}
+
+}
@@ -22,6 +22,8 @@ import org.jhlabs.scany.context.type.Type;
 
 public final class FilterType extends Type {
 
+	private static final long serialVersionUID = 7146212856045139842L;
+
 	public static final FilterType EQUAL;
 
 	public static final FilterType TEXT_RANGE;
@@ -61,4 +63,11 @@ public final class FilterType extends Type {
 	public static FilterType valueOf(Object type) {
 		return types.get(type);
 	}
+
+	/**
+	 * 직렬화된 타입을 읽을 때 상수를 반환해서 == 비교가 유지되도록 한다.
+	 */
+	private Object readResolve() {
+		return valueOf(getType());
+	}
 }
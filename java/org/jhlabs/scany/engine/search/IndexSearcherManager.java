@@ -0,0 +1,373 @@
+/*******************************************************************************
+ * Copyright (c) 2008 Jeong Ju Ho.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors:
+ *     Jeong Ju Ho - initial API and implementation
+ ******************************************************************************/
+package org.jhlabs.scany.engine.search;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.jhlabs.scany.engine.entity.Relation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 릴레이션(Relation) 단위로 하나의 IndexSearcher를 열어두고 공유한다.
+ *
+ * <pre>
+ * 질의마다 IndexSearcher를 새로 열면 세그먼트 파일, Term 인덱스, FieldCache를 매번 다시 읽게 된다.
+ * IndexSearcherManager는 IndexReader의 참조 카운트(incRef/decRef)를 이용해서
+ * 동시에 실행되는 질의들이 하나의 IndexSearcher를 공유하도록 하고,
+ * 색인이 변경되면 IndexReader.reopen()으로 새로운 IndexSearcher로 교체한다.
+ * 교체 전에 획득한 IndexSearcher는 반환(release)될 때까지 유효하다.
+ * 
+ * 준실시간(Near-real-time) 모드에서는 커밋된 색인 대신 IndexWriter로부터
+ * IndexReader를 열어서 커밋되지 않은 변경사항까지 검색할 수 있도록 한다.
+ * 
+ * 릴레이션의 searchThreads가 1보다 크면 IndexSearcher에 ExecutorService를 지정해서
+ * 하나의 질의를 세그먼트마다 별도의 스레드에서 검색하고, 세그먼트별 TopDocs를 병합한다.
+ * 점수순 검색과 정렬(Sort) 검색에 적용되며, Collector를 지정한 검색은 호출한 스레드에서 수행된다.
+ * 
+ * 릴레이션의 queryCacheSize가 0보다 크면 검색결과 캐시(QueryResultCache)를 두고,
+ * IndexSearcher가 교체될 때마다 캐시를 비운다.
+ * 필터의 비트셋은 세그먼트 단위로 캐시되므로(FilterCache) IndexSearcher가 교체되어도 비우지 않는다.
+ *
+ * 사용법
+ *     IndexSearcher indexSearcher = manager.acquire();
+ *     try {
+ *         ...
+ *     } finally {
+ *         manager.release(indexSearcher);
+ *     }
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class IndexSearcherManager {
+
+	private static final Logger logger = LoggerFactory.getLogger(IndexSearcherManager.class);
+
+	private final Relation relation;
+
+	private final ExecutorService executor;
+
+	private final QueryResultCache queryResultCache;
+
+	private final FilterCache filterCache;
+
+	private volatile IndexSearcher currentSearcher;
+	
+	private IndexWriter nrtIndexWriter;
+
+	private final Object reopenLock = new Object();
+
+	private final AtomicLong acquireCount = new AtomicLong();
+
+	private final AtomicLong releaseCount = new AtomicLong();
+
+	private final AtomicLong reopenCount = new AtomicLong();
+
+	/**
+	 * 세그먼트 검색 스레드를 사용할 수 있는 IndexSearcher의 참조 카운트.
+	 * 닫히지 않은 관리자 자신의 참조 1과 획득된 IndexSearcher의 수를 더한 값이며, 0이 되면 스레드를 종료한다.
+	 */
+	private final AtomicInteger executorRefCount = new AtomicInteger(1);
+
+	/**
+	 * 생성자
+	 * 색인 저장소(디렉토리)에 세그먼트 파일이 존재하지 않으면 예외를 발생한다.
+	 *
+	 * @param relation 릴레이션
+	 * @throws IOException
+	 */
+	public IndexSearcherManager(Relation relation) throws IOException {
+		this.relation = relation;
+		this.executor = createExecutor(relation);
+		this.queryResultCache = createQueryResultCache(relation);
+		this.filterCache = createFilterCache(relation);
+
+		Directory directory = relation.openDirectory();
+		IndexReader indexReader = IndexReader.open(directory, true);
+		swapSearcher(newIndexSearcher(indexReader));
+	}
+
+	/**
+	 * 준실시간(Near-real-time) 검색을 위해 IndexWriter로부터 IndexSearcher를 연다.
+	 *
+	 * @param relation 릴레이션
+	 * @param indexWriter 색인 중인 IndexWriter
+	 * @param applyAllDeletes 버퍼에 남아있는 삭제를 반영할지 여부
+	 * @throws IOException
+	 */
+	public IndexSearcherManager(Relation relation, IndexWriter indexWriter, boolean applyAllDeletes) throws IOException {
+		this.relation = relation;
+		this.executor = createExecutor(relation);
+		this.queryResultCache = createQueryResultCache(relation);
+		this.filterCache = createFilterCache(relation);
+		this.nrtIndexWriter = indexWriter;
+
+		IndexReader indexReader = IndexReader.open(indexWriter, applyAllDeletes);
+		swapSearcher(newIndexSearcher(indexReader));
+	}
+
+	public Relation getRelation() {
+		return relation;
+	}
+
+	/**
+	 * 검색결과 캐시를 반환한다.
+	 * 
+	 * @return 검색결과를 캐시하지 않으면 null
+	 */
+	public QueryResultCache getQueryResultCache() {
+		return queryResultCache;
+	}
+
+	/**
+	 * 필터 캐시를 반환한다.
+	 * 
+	 * @return 필터를 캐시하지 않으면 null
+	 */
+	public FilterCache getFilterCache() {
+		return filterCache;
+	}
+
+	/**
+	 * 현재 IndexSearcher를 획득한다.
+	 * 획득한 IndexSearcher는 반드시 release(IndexSearcher)를 호출해서 반환해야 한다.
+	 *
+	 * @return IndexSearcher
+	 */
+	public IndexSearcher acquire() {
+		IndexSearcher indexSearcher;
+
+		// close()가 IndexSearcher를 비운 후에는 획득할 수 없으므로, 스레드를 종료한 후에 참조 카운트가 늘어나지 않는다.
+		synchronized(this) {
+			indexSearcher = incRef();
+			executorRefCount.incrementAndGet();
+		}
+
+		acquireCount.incrementAndGet();
+
+		return indexSearcher;
+	}
+
+	/**
+	 * acquire()로 획득한 IndexSearcher를 반환한다.
+	 *
+	 * @param indexSearcher 획득했던 IndexSearcher
+	 * @throws IOException
+	 */
+	public void release(IndexSearcher indexSearcher) throws IOException {
+		if(indexSearcher == null)
+			return;
+
+		releaseCount.incrementAndGet();
+
+		try {
+			indexSearcher.getIndexReader().decRef();
+		} finally {
+			decExecutorRef();
+		}
+	}
+
+	/**
+	 * 색인이 변경되었으면 IndexReader를 다시 열고 IndexSearcher를 교체한다.
+	 * 다른 스레드가 이미 교체 중이면 기다렸다가 변경여부를 다시 확인한다.
+	 *
+	 * @return 교체되었으면 true
+	 * @throws IOException
+	 */
+	public boolean maybeReopen() throws IOException {
+		synchronized(reopenLock) {
+			IndexSearcher indexSearcher = incRef();
+
+			try {
+				IndexReader indexReader = indexSearcher.getIndexReader();
+				
+				if(indexReader.isCurrent())
+					return false;
+				
+				IndexReader newIndexReader = indexReader.reopen();
+
+				if(newIndexReader == indexReader)
+					return false;
+
+				swapSearcher(newIndexSearcher(newIndexReader));
+				reopenCount.incrementAndGet();
+
+				if(logger.isDebugEnabled())
+					logger.debug("IndexSearcher of relation '{}' reopened. version: {}", relation.getId(), newIndexReader.getVersion());
+
+				return true;
+			} finally {
+				indexSearcher.getIndexReader().decRef();
+			}
+		}
+	}
+
+	/**
+	 * IndexWriter로부터 IndexReader를 다시 열어서 커밋되지 않은 변경사항을 검색할 수 있도록 한다.
+	 * 변경사항이 없으면 IndexSearcher를 교체하지 않는다.
+	 *
+	 * @param indexWriter 색인 중인 IndexWriter
+	 * @param applyAllDeletes 버퍼에 남아있는 삭제를 반영할지 여부
+	 * @return 교체되었으면 true
+	 * @throws IOException
+	 */
+	public boolean maybeReopen(IndexWriter indexWriter, boolean applyAllDeletes) throws IOException {
+		synchronized(reopenLock) {
+			IndexSearcher indexSearcher = incRef();
+
+			try {
+				IndexReader indexReader = indexSearcher.getIndexReader();
+				
+				if(nrtIndexWriter == indexWriter && indexReader.isCurrent())
+					return false;
+
+				IndexReader newIndexReader = indexReader.reopen(indexWriter, applyAllDeletes);
+				
+				swapSearcher(newIndexSearcher(newIndexReader));
+				nrtIndexWriter = indexWriter;
+				reopenCount.incrementAndGet();
+
+				return true;
+			} finally {
+				indexSearcher.getIndexReader().decRef();
+			}
+		}
+	}
+
+	/**
+	 * 현재 IndexSearcher가 참조하는 색인의 버전을 반환한다.
+	 *
+	 * @return the index version
+	 */
+	public long getIndexVersion() {
+		IndexSearcher indexSearcher = incRef();
+
+		try {
+			return indexSearcher.getIndexReader().getVersion();
+		} finally {
+			try {
+				indexSearcher.getIndexReader().decRef();
+			} catch(IOException e) {
+				logger.warn("Failed to release IndexReader.", e);
+			}
+		}
+	}
+
+	/**
+	 * 관리 중인 IndexSearcher를 닫는다.
+	 * 이미 획득한 IndexSearcher는 반환될 때 닫힌다.
+	 * 세그먼트 검색 스레드는 획득한 IndexSearcher가 모두 반환된 후에 종료된다.
+	 *
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		boolean open;
+
+		synchronized(reopenLock) {
+			open = (currentSearcher != null);
+			swapSearcher(null);
+		}
+
+		if(open)
+			decExecutorRef();
+	}
+
+	public long getAcquireCount() {
+		return acquireCount.get();
+	}
+
+	public long getReleaseCount() {
+		return releaseCount.get();
+	}
+
+	public long getReopenCount() {
+		return reopenCount.get();
+	}
+
+	private IndexSearcher newIndexSearcher(IndexReader indexReader) {
+		if(executor == null)
+			return new IndexSearcher(indexReader);
+
+		return new IndexSearcher(indexReader, executor);
+	}
+
+	private static QueryResultCache createQueryResultCache(Relation relation) {
+		if(relation.getQueryCacheSize() <= 0)
+			return null;
+
+		return new QueryResultCache(relation.getQueryCacheSize(), relation.getQueryCacheMemory());
+	}
+
+	private static FilterCache createFilterCache(Relation relation) {
+		if(relation.getFilterCacheSize() <= 0)
+			return null;
+
+		return new FilterCache(relation.getFilterCacheSize());
+	}
+
+	private static ExecutorService createExecutor(final Relation relation) {
+		if(relation.getSearchThreads() <= 1)
+			return null;
+
+		return Executors.newFixedThreadPool(relation.getSearchThreads(), new ThreadFactory() {
+			private final AtomicInteger threadNumber = new AtomicInteger();
+
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "scany-search-" + relation.getId() + "-" + threadNumber.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	private void decExecutorRef() {
+		if(executorRefCount.decrementAndGet() == 0 && executor != null)
+			executor.shutdown();
+	}
+
+	private synchronized IndexSearcher incRef() {
+		IndexSearcher indexSearcher = currentSearcher;
+
+		if(indexSearcher == null)
+			throw new AlreadyClosedException("IndexSearcherManager of relation '" + relation.getId() + "' is closed.");
+
+		indexSearcher.getIndexReader().incRef();
+
+		return indexSearcher;
+	}
+
+	private void swapSearcher(IndexSearcher newSearcher) throws IOException {
+		IndexSearcher oldSearcher;
+
+		synchronized(this) {
+			oldSearcher = currentSearcher;
+			currentSearcher = newSearcher;
+		}
+
+		if(queryResultCache != null)
+			queryResultCache.invalidate(newSearcher != null ? newSearcher.getIndexReader() : null);
+
+		if(oldSearcher != null)
+			oldSearcher.getIndexReader().decRef();
+	}
+
+}
@@ -16,13 +16,16 @@ import java.util.List;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.queryParser.ParseException;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.FilteredQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldDocs;
-import org.apache.lucene.store.Directory;
 import org.jhlabs.scany.engine.entity.Record;
 import org.jhlabs.scany.engine.entity.RecordList;
 import org.jhlabs.scany.engine.entity.Relation;
@@ -32,6 +35,9 @@ import org.jhlabs.scany.engine.search.extract.RandomRecordExtractor;
 import org.jhlabs.scany.engine.search.extract.RecordExtractor;
 import org.jhlabs.scany.engine.search.extract.SequentialRecordExtractor;
 import org.jhlabs.scany.engine.search.paging.IterablePaging;
+import org.jhlabs.scany.engine.search.paging.PagingCollector;
+import org.jhlabs.scany.engine.search.paging.SearchAfterFieldCollector;
+import org.jhlabs.scany.engine.search.paging.SearchCursor;
 import org.jhlabs.scany.engine.search.query.LuceneQueryBuilder;
 import org.jhlabs.scany.engine.search.query.QueryBuilderException;
 
@@ -104,21 +110,123 @@ public class LuceneSearcher extends SearchModel implements AnySearcher {
 		if(page <= 0)
 			return null;
 
+		IndexSearcherManager indexSearcherManager = null;
+		IndexSearcher indexSearcher = null;
+		
 		try {
-			setQueryText(queryText);
+			indexSearcherManager = getRelation().getIndexSearcherManager();
+			indexSearcher = indexSearcherManager.acquire();
+			
+			QueryResultCache cache = indexSearcherManager.getQueryResultCache();
+			String cacheKey = null;
+			
 			setPage(page);
+			setQueryText(queryText);
+			
+			Query query = buildQuery((SearchModel)this);
+			
+			if(cache != null) {
+				cacheKey = QueryResultCache.createKey((SearchModel)this, query, "page:" + page);
+				QueryResultCache.Result result = cache.get(indexSearcher.getIndexReader(), cacheKey);
+				
+				if(result != null)
+					return restore(result);
+			}
 
 			RecordExtractor recordExtractor = new PagingRecordExtractor((SearchModel)this);
 			
-			search((SearchModel)this, recordExtractor);			
+			search((SearchModel)this, recordExtractor, indexSearcher, query);
+			
+			RecordList recordList = recordExtractor.getRecordList();
+			
+			if(cache != null)
+				cache.put(indexSearcher.getIndexReader(), cacheKey, new QueryResultCache.Result(recordList, getTotalRecords(), null, getParsedQueryText(), getQueryKeywords()));
 
-			return recordExtractor.getRecordList();
+			return recordList;
 
 		} catch(Exception e) {
 			throw new AnySearcherException("Search failed.", e);
+		} finally {
+			release(indexSearcherManager, indexSearcher);
 		}
 	}
 	
+	/**
+	 * 커서 이후의 다음 페이지를 검색한다.
+	 * 필터 컬럼만 지정했을 경우 사용한다.
+	 * @param cursor 이전 검색의 getNextCursor() 값, 첫 페이지는 null
+	 * @return
+	 * @throws AnySearcherException
+	 */
+	public RecordList searchAfter(String cursor) throws AnySearcherException {
+		return searchAfter(null, cursor);
+	}
+	
+	/**
+	 * 커서 이후의 다음 페이지를 검색한다.
+	 * 페이지 번호로 검색하면 앞선 페이지의 결과까지 모두 수집해야 하지만,
+	 * 커서를 이용하면 페이지의 깊이와 관계없이 hitsPerPage 개수만큼만 수집한다.
+	 * 다음 페이지의 커서는 getNextCursor()로 얻을 수 있으며, 더 이상 결과가 없으면 null이다.
+	 * 질의문과 필터, 정렬 조건은 커서를 얻었을 때와 같아야 한다.
+	 * @param queryText 사용자가 입력한 질의문
+	 * @param cursor 이전 검색의 getNextCursor() 값, 첫 페이지는 null
+	 * @return hitsPerPage 개수 만큼의 Record를 반환한다.
+	 * @throws AnySearcherException
+	 */
+	public RecordList searchAfter(String queryText, String cursor) throws AnySearcherException {
+		IndexSearcherManager indexSearcherManager = null;
+		IndexSearcher indexSearcher = null;
+		
+		try {
+			indexSearcherManager = getRelation().getIndexSearcherManager();
+			indexSearcher = indexSearcherManager.acquire();
+			
+			QueryResultCache cache = indexSearcherManager.getQueryResultCache();
+			String cacheKey = null;
+			
+			setNextCursor(null);
+			setQueryText(queryText);
+			
+			Query query = buildQuery((SearchModel)this);
+			
+			if(cache != null) {
+				cacheKey = QueryResultCache.createKey((SearchModel)this, query, "cursor:" + cursor);
+				QueryResultCache.Result result = cache.get(indexSearcher.getIndexReader(), cacheKey);
+				
+				if(result != null)
+					return restore(result);
+			}
+			
+			SearchCursor after = null;
+			
+			if(cursor != null)
+				after = SearchCursor.decode(cursor);
+			
+			RecordList recordList = searchAfter((SearchModel)this, after, indexSearcher, query);
+			
+			if(cache != null)
+				cache.put(indexSearcher.getIndexReader(), cacheKey, new QueryResultCache.Result(recordList, getTotalRecords(), getNextCursor(), getParsedQueryText(), getQueryKeywords()));
+			
+			return recordList;
+
+		} catch(Exception e) {
+			throw new AnySearcherException("Search failed.", e);
+		} finally {
+			release(indexSearcherManager, indexSearcher);
+		}
+	}
+	
+	/**
+	 * 캐시된 검색결과로 검색 상태를 복원한다.
+	 */
+	private RecordList restore(QueryResultCache.Result result) {
+		setParsedQuery(result.getParsedQueryText(), result.getQueryKeywords());
+		setTotalRecords(result.getTotalRecords());
+		setNextCursor(result.getNextCursor());
+		
+		return result.getRecordList();
+	}
+	
 	/**
 	 * 최근 레코드 또는 랜덤 레코드를 검색한다.
 	 * 검색 범위를 한정하기 위해서는 필터컬럼을 추가해야 한다.
@@ -195,18 +303,11 @@ public class LuceneSearcher extends SearchModel implements AnySearcher {
 		try {
 			setQueryText(queryText);
 			
-			Analyzer analyzer;
+			Query query = buildQuery((SearchModel)this);
+			Filter filter = buildFilter((SearchModel)this);
 			
-			if(getRelation().getPerFieldAnalyzer() != null)
-				analyzer = getRelation().getPerFieldAnalyzer();
-			else
-				analyzer = getRelation().getAnalyzer();
-			
-			LuceneQueryBuilder queryBuilder = new LuceneQueryBuilder();
-			queryBuilder.addQuery(getFilterAttributeList());
-			queryBuilder.addQuery(getParsedQueryText(), getQueryAttributeList(), analyzer);
-
-			Query query = queryBuilder.build();
+			if(filter != null)
+				query = new FilteredQuery(query, filter);
 			
 			IterablePaging iter = new IterablePaging((SearchModel)this, query, numHitsToCollect);
 			iter.skipTo(getStartRecord());
@@ -219,55 +320,159 @@ public class LuceneSearcher extends SearchModel implements AnySearcher {
 	}
 	
 	public static RecordList search(SearchModel searchModel, RecordExtractor recordExtractor) throws QueryBuilderException, RecordKeyException, IOException, ParseException {
-		IndexSearcher indexSearcher = null;
+		IndexSearcherManager indexSearcherManager = searchModel.getRelation().getIndexSearcherManager();
+		IndexSearcher indexSearcher = indexSearcherManager.acquire();
 		
 		try {
-			Directory directory = searchModel.getRelation().openDirectory();
-			indexSearcher = new IndexSearcher(directory);
-			
-			Analyzer analyzer;
-			
-			if(searchModel.getRelation().getPerFieldAnalyzer() != null)
-				analyzer = searchModel.getRelation().getPerFieldAnalyzer();
-			else
-				analyzer = searchModel.getRelation().getAnalyzer();
-			
-			LuceneQueryBuilder queryBuilder = new LuceneQueryBuilder();
-			queryBuilder.addQuery(searchModel.getFilterAttributeList());
-			queryBuilder.addQuery(searchModel.getParsedQueryText(), searchModel.getQueryAttributeList(), analyzer);
-			
-			Query query = queryBuilder.build();
-			query = indexSearcher.rewrite(query);
-			
-			List<SortAttribute> sortAttributeList = searchModel.getSortAttributeList();
-			Sort sort = null;
-			
-			if(sortAttributeList != null && sortAttributeList.size() > 0)
-				sort = SearchModelUtils.makeSort(searchModel.getSortAttributeList());
-
-			ScoreDoc[] docs = null;
-			
-			if(sort == null) {
-				TopDocs topDocs = indexSearcher.search(query, searchModel.getHitsPerPage());
-				docs = topDocs.scoreDocs;
-				searchModel.setTotalRecords(topDocs.totalHits);
-			} else {
-				TopFieldDocs topFieldDocs = indexSearcher.search(query, searchModel.getHitsPerPage(), sort);
-				docs = topFieldDocs.scoreDocs;
-				searchModel.setTotalRecords(topFieldDocs.totalHits);
-			}
+			return search(searchModel, recordExtractor, indexSearcher, buildQuery(searchModel));
+		} finally {
+			release(indexSearcherManager, indexSearcher);
+		}
+	}
+	
+	/**
+	 * 획득한 IndexSearcher로 생성한 Query의 검색을 수행한다.
+	 */
+	private static RecordList search(SearchModel searchModel, RecordExtractor recordExtractor, IndexSearcher indexSearcher, Query query) throws RecordKeyException, IOException {
+		query = indexSearcher.rewrite(query);
+		Filter filter = buildFilter(searchModel);
+		
+		Sort sort = makeSort(searchModel);
+		int numHitsToCollect = recordExtractor.getNumHitsToCollect();
 
-			recordExtractor.extract(indexSearcher.getIndexReader(), docs);
-			
-			return recordExtractor.getRecordList();
+		ScoreDoc[] docs = null;
+		
+		if(sort == null) {
+			TopDocs topDocs = indexSearcher.search(query, filter, numHitsToCollect);
+			docs = topDocs.scoreDocs;
+			searchModel.setTotalRecords(topDocs.totalHits);
+		} else {
+			TopFieldDocs topFieldDocs = indexSearcher.search(query, filter, numHitsToCollect, sort);
+			docs = topFieldDocs.scoreDocs;
+			searchModel.setTotalRecords(topFieldDocs.totalHits);
+		}
 
+		recordExtractor.extract(indexSearcher.getIndexReader(), docs);
+		
+		return recordExtractor.getRecordList();
+	}
+	
+	/**
+	 * 커서 이후의 도큐먼트를 hitsPerPage 개수만큼 수집한다.
+	 * 정렬하지 않으면 PagingCollector로, 정렬하면 SearchAfterFieldCollector로 수집하므로
+	 * 우선순위 큐의 크기는 페이지의 깊이와 관계없이 hitsPerPage로 유지된다.
+	 * 
+	 * @param searchModel 검색 모델
+	 * @param after 이전 페이지의 마지막 위치, 첫 페이지는 null
+	 * @return RecordList
+	 */
+	public static RecordList searchAfter(SearchModel searchModel, SearchCursor after) throws QueryBuilderException, RecordKeyException, IOException, ParseException {
+		IndexSearcherManager indexSearcherManager = searchModel.getRelation().getIndexSearcherManager();
+		IndexSearcher indexSearcher = indexSearcherManager.acquire();
+		
+		try {
+			return searchAfter(searchModel, after, indexSearcher, buildQuery(searchModel));
 		} finally {
-			try {
-				if(indexSearcher != null)
-					indexSearcher.close();
-			} catch(Exception e2) {
-				e2.printStackTrace();
-			}
+			release(indexSearcherManager, indexSearcher);
 		}
 	}
+	
+	private static RecordList searchAfter(SearchModel searchModel, SearchCursor after, IndexSearcher indexSearcher, Query query) throws RecordKeyException, IOException {
+		query = indexSearcher.rewrite(query);
+		Filter filter = buildFilter(searchModel);
+		
+		Sort sort = makeSort(searchModel);
+		int hitsPerPage = searchModel.getHitsPerPage();
+		
+		TopDocs topDocs;
+		
+		if(after != null && after.isSorted() != (sort != null))
+			throw new IllegalArgumentException("The cursor does not match the sort condition.");
+		
+		if(sort == null) {
+			PagingCollector collector;
+			
+			if(after == null)
+				collector = new PagingCollector(hitsPerPage);
+			else
+				collector = new PagingCollector(hitsPerPage, after.toScoreDoc());
+			
+			indexSearcher.search(query, filter, collector);
+			topDocs = collector.topDocs();
+		} else if(after == null) {
+			topDocs = indexSearcher.search(query, filter, hitsPerPage, sort);
+		} else {
+			SearchAfterFieldCollector collector = new SearchAfterFieldCollector(sort, hitsPerPage, (FieldDoc)after.toScoreDoc());
+			indexSearcher.search(query, filter, collector);
+			topDocs = collector.topDocs();
+		}
+		
+		ScoreDoc[] docs = topDocs.scoreDocs;
+		searchModel.setTotalRecords(topDocs.totalHits);
+		
+		if(docs.length > 0 && docs.length == hitsPerPage)
+			searchModel.setNextCursor(SearchCursor.valueOf(docs[docs.length - 1]).encode());
+		else
+			searchModel.setNextCursor(null);
+		
+		return searchModel.populateRecordList(indexSearcher.getIndexReader(), docs, 0, docs.length - 1);
+	}
+	
+	private static void release(IndexSearcherManager indexSearcherManager, IndexSearcher indexSearcher) {
+		if(indexSearcherManager == null || indexSearcher == null)
+			return;
+		
+		try {
+			indexSearcherManager.release(indexSearcher);
+		} catch(Exception e2) {
+			e2.printStackTrace();
+		}
+	}
+	
+	private static Query buildQuery(SearchModel searchModel) throws QueryBuilderException, ParseException {
+		Analyzer analyzer;
+		
+		if(searchModel.getRelation().getPerFieldAnalyzer() != null)
+			analyzer = searchModel.getRelation().getPerFieldAnalyzer();
+		else
+			analyzer = searchModel.getRelation().getAnalyzer();
+		
+		LuceneQueryBuilder queryBuilder = new LuceneQueryBuilder();
+		queryBuilder.addQuery(searchModel.getParsedQueryText(), searchModel.getQueryAttributeList(), analyzer);
+		
+		// 질의문 없이 필터만 지정하거나 순차 검색(seek)하는 경우에는 모든 도큐먼트를 대상으로 한다.
+		if(queryBuilder.isEmpty())
+			return new MatchAllDocsQuery();
+		
+		return queryBuilder.build();
+	}
+	
+	/**
+	 * 필터 속성을 점수 계산에 참여하지 않는 Filter로 만든다.
+	 * 릴레이션의 필터 캐시가 있으면 세그먼트별 비트셋이 캐시된 Filter를 반환한다.
+	 * 
+	 * @return 필터 속성이 없으면 null
+	 */
+	private static Filter buildFilter(SearchModel searchModel) throws IOException {
+		List<FilterAttribute> filterAttributeList = searchModel.getFilterAttributeList();
+		
+		if(filterAttributeList == null || filterAttributeList.size() == 0)
+			return null;
+		
+		FilterCache filterCache = searchModel.getRelation().getIndexSearcherManager().getFilterCache();
+		
+		if(filterCache == null)
+			return FilterCache.createFilter(filterAttributeList);
+		
+		return filterCache.getFilter(filterAttributeList);
+	}
+	
+	private static Sort makeSort(SearchModel searchModel) {
+		List<SortAttribute> sortAttributeList = searchModel.getSortAttributeList();
+		
+		if(sortAttributeList != null && sortAttributeList.size() > 0)
+			return SearchModelUtils.makeSort(sortAttributeList);
+		
+		return null;
+	}
 }
@@ -10,6 +10,8 @@
  ******************************************************************************/
 package org.jhlabs.scany.engine.search;
 
+import java.io.Serializable;
+
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.search.BooleanClause;
 import org.jhlabs.scany.engine.entity.Attribute;
@@ -23,7 +25,9 @@ import org.jhlabs.scany.engine.entity.Attribute;
  * @author Gulendol
  *
  */
-public class QueryAttribute {
+public class QueryAttribute implements Serializable {
+
+	private static final long serialVersionUID = -2791744432081837367L;
 
 	private String attributeName;
 	
@@ -33,9 +37,9 @@ public class QueryAttribute {
 	
 	private String analyzerId;
 	
-	private Analyzer analyzer;
+	private transient Analyzer analyzer;
 	
-	private Attribute attribute;
+	private transient Attribute attribute;
 
 	public QueryAttribute() {
 	}
@@ -0,0 +1,342 @@
+/*******************************************************************************
+ * Copyright (c) 2008 Jeong Ju Ho.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors:
+ *     Jeong Ju Ho - initial API and implementation
+ ******************************************************************************/
+package org.jhlabs.scany.engine.search;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.Query;
+import org.jhlabs.scany.engine.entity.Record;
+import org.jhlabs.scany.engine.entity.RecordList;
+import org.jhlabs.scany.engine.search.summarize.Summarizer;
+
+/**
+ * 릴레이션(Relation) 단위의 검색결과 캐시.
+ *
+ * <pre>
+ * 생성한 Query, 필터/정렬/반환 속성, 페이지 위치와 hitsPerPage로 만든 키에 검색결과를 저장한다.
+ * 캐시에 있으면 검색과 레코드 추출을 생략한다.
+ * 항목 수와 추정 메모리 사용량을 넘으면 가장 오래 사용하지 않은 항목부터 제거한다(LRU).
+ *
+ * 캐시는 IndexSearcherManager가 소유하며, IndexSearcher가 교체되면 비워진다.
+ * 검색결과는 그 결과를 만든 IndexReader가 현재 IndexReader일 때만 저장하고 반환하므로
+ * 교체 직전에 시작된 검색의 결과가 새로운 색인의 캐시에 섞이지 않는다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class QueryResultCache {
+
+	/** 캐시의 기본 최대 메모리 사용량(bytes) */
+	public static final long DEFAULT_MAX_MEMORY = 16L * 1024L * 1024L;
+
+	private static final int ENTRY_OVERHEAD = 96;
+
+	private static final int RECORD_OVERHEAD = 64;
+
+	private static final int VALUE_OVERHEAD = 48;
+
+	private final int maxEntries;
+
+	private final long maxMemory;
+
+	private final LinkedHashMap<String, Result> map;
+
+	private IndexReader currentReader;
+
+	private long memoryUsage;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	private final AtomicLong invalidationCount = new AtomicLong();
+
+	/**
+	 * 생성자
+	 *
+	 * @param maxEntries 최대 항목 수
+	 * @param maxMemory 최대 메모리 사용량(bytes)
+	 */
+	public QueryResultCache(int maxEntries, long maxMemory) {
+		if(maxEntries < 1)
+			throw new IllegalArgumentException("maxEntries must be greater than 0.");
+
+		this.maxEntries = maxEntries;
+		this.maxMemory = (maxMemory > 0) ? maxMemory : DEFAULT_MAX_MEMORY;
+		this.map = new LinkedHashMap<String, Result>(16, 0.75f, true);
+	}
+
+	/**
+	 * 캐시된 검색결과를 반환한다.
+	 *
+	 * @param indexReader 검색에 사용할 IndexReader
+	 * @param key 캐시 키
+	 * @return 캐시된 검색결과, 없으면 null
+	 */
+	public synchronized Result get(IndexReader indexReader, String key) {
+		Result result = null;
+
+		if(indexReader == currentReader)
+			result = map.get(key);
+
+		if(result == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+
+		hitCount.incrementAndGet();
+
+		return result;
+	}
+
+	/**
+	 * 검색결과를 저장한다.
+	 * 검색에 사용한 IndexReader가 이미 교체되었으면 저장하지 않는다.
+	 *
+	 * @param indexReader 검색에 사용한 IndexReader
+	 * @param key 캐시 키
+	 * @param result 검색결과
+	 */
+	public synchronized void put(IndexReader indexReader, String key, Result result) {
+		if(indexReader != currentReader)
+			return;
+
+		long size = estimateSize(key, result);
+
+		if(size > maxMemory)
+			return;
+
+		Result old = map.put(key, result);
+
+		if(old != null)
+			memoryUsage -= old.size;
+
+		result.size = size;
+		memoryUsage += size;
+
+		Iterator<Result> iter = map.values().iterator();
+
+		while(iter.hasNext() && (map.size() > maxEntries || memoryUsage > maxMemory)) {
+			Result eldest = iter.next();
+			memoryUsage -= eldest.size;
+			iter.remove();
+			evictionCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * 캐시를 비우고 새로운 IndexReader의 검색결과만 받아들인다.
+	 *
+	 * @param indexReader 교체된 IndexReader, 닫힌 경우에는 null
+	 */
+	public synchronized void invalidate(IndexReader indexReader) {
+		if(currentReader != null)
+			invalidationCount.incrementAndGet();
+
+		currentReader = indexReader;
+		clear();
+	}
+
+	public synchronized void clear() {
+		map.clear();
+		memoryUsage = 0;
+	}
+
+	public synchronized int size() {
+		return map.size();
+	}
+
+	/**
+	 * 캐시된 검색결과의 추정 메모리 사용량(bytes)을 반환한다.
+	 * @return the memory usage
+	 */
+	public synchronized long getMemoryUsage() {
+		return memoryUsage;
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public long getMaxMemory() {
+		return maxMemory;
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	public long getInvalidationCount() {
+		return invalidationCount.get();
+	}
+
+	/**
+	 * 캐시 적중률을 반환한다.
+	 * @return the hit ratio (0.0 ~ 1.0)
+	 */
+	public double getHitRatio() {
+		long hits = hitCount.get();
+		long total = hits + missCount.get();
+
+		return (total == 0) ? 0.0 : (double)hits / total;
+	}
+
+	/**
+	 * 검색 조건으로 캐시 키를 만든다.
+	 * 질의문과 질의 속성은 그것으로 생성한 Query의 toString()을 사용하므로
+	 * 공백이나 불용어처럼 원문은 달라도 같은 Query가 되는 검색은 같은 키를 가진다.
+	 *
+	 * @param searchModel 검색 모델
+	 * @param query 질의문과 질의 속성으로 생성한 Query
+	 * @param position 페이지 번호 또는 커서
+	 * @return 캐시 키
+	 */
+	public static String createKey(SearchModel searchModel, Query query, String position) {
+		StringBuilder sb = new StringBuilder(128);
+
+		sb.append("query=").append(query);
+		sb.append("\nposition=").append(position);
+		sb.append("\nhitsPerPage=").append(searchModel.getHitsPerPage());
+
+		sb.append("\nfilter=");
+		List<FilterAttribute> filterAttributeList = searchModel.getFilterAttributeList();
+
+		if(filterAttributeList != null) {
+			for(FilterAttribute filterAttribute : filterAttributeList) {
+				sb.append(filterAttribute).append(';');
+			}
+		}
+
+		sb.append("\nsort=");
+		List<SortAttribute> sortAttributeList = searchModel.getSortAttributeList();
+
+		if(sortAttributeList != null) {
+			for(SortAttribute sortAttribute : sortAttributeList) {
+				sb.append(sortAttribute.getAttributeName()).append('|');
+				sb.append(sortAttribute.getSortFieldType()).append('|');
+				sb.append(sortAttribute.isReverse()).append(';');
+			}
+		}
+
+		sb.append("\nselect=").append(searchModel.getSelectAttributeList());
+
+		sb.append("\nsummarizer=");
+		Map<String, Summarizer> summarizerMap = searchModel.getSummarizerMap();
+
+		if(summarizerMap != null) {
+			for(Map.Entry<String, Summarizer> entry : summarizerMap.entrySet()) {
+				sb.append(entry.getKey()).append('|');
+				sb.append(System.identityHashCode(entry.getValue())).append(';');
+			}
+		}
+
+		return sb.toString();
+	}
+
+	private static long estimateSize(String key, Result result) {
+		long size = ENTRY_OVERHEAD + key.length() * 2L;
+
+		if(result.recordList != null) {
+			for(Record record : result.recordList) {
+				size += RECORD_OVERHEAD;
+
+				for(Map.Entry<String, String> entry : record.getValues().entrySet()) {
+					size += VALUE_OVERHEAD;
+					size += entry.getKey().length() * 2L;
+
+					if(entry.getValue() != null)
+						size += entry.getValue().length() * 2L;
+				}
+			}
+		}
+
+		return size;
+	}
+
+	/**
+	 * 캐시된 검색결과.
+	 * 저장할 때와 반환할 때 레코드를 복사하므로 호출한 쪽에서 레코드를 변경해도 캐시에는 영향이 없다.
+	 */
+	public static class Result {
+
+		private final RecordList recordList;
+
+		private final int totalRecords;
+
+		private final String nextCursor;
+
+		private final String parsedQueryText;
+
+		private final String[] queryKeywords;
+
+		private long size;
+
+		public Result(RecordList recordList, int totalRecords, String nextCursor, String parsedQueryText, String[] queryKeywords) {
+			this.recordList = copy(recordList);
+			this.totalRecords = totalRecords;
+			this.nextCursor = nextCursor;
+			this.parsedQueryText = parsedQueryText;
+			this.queryKeywords = queryKeywords;
+		}
+
+		public RecordList getRecordList() {
+			return copy(recordList);
+		}
+
+		public int getTotalRecords() {
+			return totalRecords;
+		}
+
+		public String getNextCursor() {
+			return nextCursor;
+		}
+
+		public String getParsedQueryText() {
+			return parsedQueryText;
+		}
+
+		public String[] getQueryKeywords() {
+			return queryKeywords;
+		}
+
+		private static RecordList copy(RecordList recordList) {
+			if(recordList == null)
+				return null;
+
+			RecordList copy = new RecordList(recordList.size());
+
+			for(Record record : recordList) {
+				Record r = new Record();
+				r.getValues().putAll(record.getValues());
+				copy.add(r);
+			}
+
+			return copy;
+		}
+
+	}
+
+}
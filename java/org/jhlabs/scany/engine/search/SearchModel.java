@@ -14,8 +14,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.CorruptIndexException;
@@ -53,6 +55,8 @@ public class SearchModel {
 	private List<SortAttribute> sortAttributeList;
 	
 	private Map<String, Summarizer> summarizerMap;
+	
+	private Set<String> selectAttributeNames;
 
 	private String queryText;
 
@@ -69,6 +73,8 @@ public class SearchModel {
 	protected int startRecord = 0;
 	
 	protected boolean reverse;
+	
+	protected String nextCursor;
 
 	/**
 	 * 생성자
@@ -85,7 +91,7 @@ public class SearchModel {
 	 * 
 	 * @return Schema
 	 */
-	protected Relation getRelation() {
+	public Relation getRelation() {
 		return relation;
 	}
 
@@ -131,6 +137,20 @@ public class SearchModel {
 		this.startRecord = startRecord;
 	}
 
+	/**
+	 * 커서 검색(searchAfter)으로 얻은 다음 페이지의 커서를 반환한다.
+	 * 더 이상 검색결과가 없으면 null을 반환한다.
+	 * 
+	 * @return the next cursor
+	 */
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+
 	public boolean isReverse() {
 		return reverse;
 	}
@@ -173,6 +193,17 @@ public class SearchModel {
 		return parsedQueryText;
 	}
 	
+	/**
+	 * 캐시된 검색결과를 반환할 때 파싱된 질의문과 키워드를 복원한다.
+	 * 
+	 * @param parsedQueryText 파싱된 질의문
+	 * @param queryKeywords 질의 키워드
+	 */
+	protected void setParsedQuery(String parsedQueryText, String[] queryKeywords) {
+		this.parsedQueryText = parsedQueryText;
+		this.queryKeywords = queryKeywords;
+	}
+	
 	public String getParsedQueryText() {
 		return parsedQueryText;
 	}
@@ -317,6 +348,47 @@ public class SearchModel {
 		sortAttributeList.add(sortAttribute);
 	}
 
+	public List<String> getSelectAttributeList() {
+		if(selectAttributeNames == null)
+			return null;
+		
+		return new ArrayList<String>(selectAttributeNames);
+	}
+
+	public void setSelectAttributeList(List<String> selectAttributeList) {
+		Iterator<String> iter = selectAttributeList.iterator();
+		
+		while(iter.hasNext()) {
+			addSelectAttribute(iter.next());
+		}
+	}
+	
+	/**
+	 * 검색결과로 반환할 속성을 추가한다.
+	 * 
+	 * <pre>
+	 * 반환할 속성을 지정하면 지정한 속성의 저장 필드만 색인에서 읽어들인다.
+	 * 목록 화면처럼 일부 속성만 필요한 경우 큰 본문 필드를 읽지 않아도 된다.
+	 * 지정하지 않으면 모든 속성을 반환한다.
+	 * </pre>
+	 * 
+	 * @param attributeName 속성명
+	 */
+	public void addSelectAttribute(String attributeName) {
+		Attribute attribute = relation.getAttributeMap().get(attributeName);
+		
+		if(attribute == null)
+			throw new InvalidAttributeException(attributeName);
+		
+		if(!attribute.isStorable() && !attributeName.equals(relation.getRecordKeyPattern().getKeyName()))
+			throw new InvalidAttributeException(attributeName, "저장(storable)된 속성이어야 합니다.");
+		
+		if(selectAttributeNames == null)
+			selectAttributeNames = new LinkedHashSet<String>();
+		
+		selectAttributeNames.add(attributeName);
+	}
+
 	public Map<String, Summarizer> getSummarizerMap() {
 		if(summarizerMap == null)
 			return SearchModelUtils.extractDefaultSummarizerMap(relation.getAttributeMap());
@@ -359,6 +431,26 @@ public class SearchModel {
 		sortAttributeList = null;
 	}
 	
+	public void clearSelectAttribute() {
+		selectAttributeNames = null;
+	}
+	
+	/**
+	 * 반환할 속성으로 지정된 저장 필드만 읽어서 Document를 반환한다.
+	 * 
+	 * @param reader the reader
+	 * @param doc the document number
+	 * @return Document
+	 * @throws CorruptIndexException the corrupt index exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public Document loadDocument(IndexReader reader, int doc) throws CorruptIndexException, IOException {
+		if(selectAttributeNames == null)
+			return reader.document(doc);
+		
+		return reader.document(doc, new AttributeFieldSelector(selectAttributeNames));
+	}
+	
 	/**
 	 * 검색결과에서 지정한 범위 Document를 Column 리스트로 반환.
 	 *
@@ -378,7 +470,7 @@ public class SearchModel {
 			if(i >= docs.length)
 				break;
 			
-			Document document = reader.document(docs[i].doc);
+			Document document = loadDocument(reader, docs[i].doc);
 			Record record = createRecord(document);
 			recordList.add(record);
 			
@@ -412,7 +504,11 @@ public class SearchModel {
 		Record record = new Record();
 		AttributeMap attributeMap = relation.getAttributeMap();
 		
-		if(attributeMap != null) {
+		if(selectAttributeNames != null) {
+			for(String name : selectAttributeNames) {
+				record.setValue(name, document.get(name));
+			}
+		} else if(attributeMap != null) {
 			String[] names = attributeMap.getAttributeNames();
 			
 			for(int i = 0; i < names.length; i++) {
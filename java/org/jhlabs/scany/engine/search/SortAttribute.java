@@ -10,6 +10,8 @@
  ******************************************************************************/
 package org.jhlabs.scany.engine.search;
 
+import java.io.Serializable;
+
 import org.jhlabs.scany.engine.entity.Attribute;
 
 
@@ -21,11 +23,13 @@ import org.jhlabs.scany.engine.entity.Attribute;
  * @author Gulendol
  *
  */
-public class SortAttribute {
+public class SortAttribute implements Serializable {
+
+	private static final long serialVersionUID = -6620170512934405162L;
 
 	private String attributeName;
 	
-	private Attribute attribute;
+	private transient Attribute attribute;
 	
 	private SortFieldType sortFieldType;
 	
@@ -37,7 +41,7 @@ public class SortAttribute {
 		this.reverse = reverse;
 	}
 
-	protected String getAttributeName() {
+	public String getAttributeName() {
 		return attributeName;
 	}
 
@@ -23,6 +23,8 @@ import org.jhlabs.scany.context.type.Type;
 
 public final class SortFieldType extends Type {
 
+	private static final long serialVersionUID = -3012870374985311658L;
+
 	public static final SortFieldType SCORE;
 
 	public static final SortFieldType DOC;
@@ -57,4 +59,11 @@ public final class SortFieldType extends Type {
 	public static SortFieldType valueOf(Object type) {
 		return types.get(type);
 	}
+
+	/**
+	 * 직렬화된 타입을 읽을 때 상수를 반환해서 == 비교가 유지되도록 한다.
+	 */
+	private Object readResolve() {
+		return valueOf(getType());
+	}
 }
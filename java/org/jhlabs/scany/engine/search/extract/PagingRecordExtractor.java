@@ -25,6 +25,15 @@ public class PagingRecordExtractor extends RecordExtractor {
 		super(searchModel);
 	}
 
+	/**
+	 * 요청한 페이지까지의 도큐먼트를 모두 수집해야 한다.
+	 * 깊은 페이지는 LuceneSearcher.searchAfter()를 이용하는 것이 좋다.
+	 */
+	@Override
+	public int getNumHitsToCollect() {
+		return searchModel.getHitsPerPage() * Math.max(searchModel.getPage(), 1);
+	}
+
 	@Override
 	public void extract(IndexReader indexReader, ScoreDoc[] docs) throws RecordKeyException, CorruptIndexException, IOException {
 		if(docs == null)
@@ -39,7 +39,7 @@ public class RandomRecordExtractor extends RecordExtractor {
 			for(int i = 0; i < rdocs.length; i++) {
 				if(rdocs[i] != -1) {
 					int doc = docs[rdocs[i]].doc;
-					Record record = searchModel.createRecord(indexReader.document(doc));
+					Record record = searchModel.createRecord(searchModel.loadDocument(indexReader, doc));
 					recordList.add(record);
 				}
 			}
@@ -48,7 +48,7 @@ public class RandomRecordExtractor extends RecordExtractor {
 			if(searchModel.getSortAttributeList() != null && searchModel.getSortAttributeList().size() > 0) {
 				for(int i = 0; i < searchModel.getTotalRecords(); i++) {							
 					int doc = docs[i].doc;
-					Record record = searchModel.createRecord(indexReader.document(doc));
+					Record record = searchModel.createRecord(searchModel.loadDocument(indexReader, doc));
 					recordList.add(record);
 				}
 				
@@ -57,7 +57,7 @@ public class RandomRecordExtractor extends RecordExtractor {
 			} else {
 				for(int i = searchModel.getTotalRecords() - 1; i >= 0; i--) {
 					int doc = docs[i].doc;
-					Record record = searchModel.createRecord(indexReader.document(doc));
+					Record record = searchModel.createRecord(searchModel.loadDocument(indexReader, doc));
 					recordList.add(record);
 				}
 			}
@@ -32,6 +32,15 @@ public abstract class RecordExtractor {
 	public abstract void extract(IndexReader indexReader, ScoreDoc[] docs) throws RecordKeyException,
 			CorruptIndexException, IOException;
 
+	/**
+	 * 검색할 때 수집해야 하는 도큐먼트의 수를 반환한다.
+	 * 
+	 * @return the number of hits to collect
+	 */
+	public int getNumHitsToCollect() {
+		return searchModel.getHitsPerPage();
+	}
+
 	public RecordList getRecordList() {
 		return recordList;
 	}
@@ -42,7 +42,7 @@ public class SequentialRecordExtractor extends RecordExtractor {
 				if(!indexReader.isDeleted(i)) {					
 					if(n >= start && n < end) {
 						int doc = docs[i].doc;
-						Record record = searchModel.createRecord(indexReader.document(doc));
+						Record record = searchModel.createRecord(searchModel.loadDocument(indexReader, doc));
 						recordList.add(record);
 					}
 					
@@ -54,7 +54,7 @@ public class SequentialRecordExtractor extends RecordExtractor {
 				if(!indexReader.isDeleted(i)) {					
 					if(n >= start && n < end) {
 						int doc = docs[i].doc;
-						Record record = searchModel.createRecord(indexReader.document(doc));
+						Record record = searchModel.createRecord(searchModel.loadDocument(indexReader, doc));
 						recordList.add(record);
 					}
 					
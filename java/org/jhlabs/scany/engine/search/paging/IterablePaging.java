@@ -17,7 +17,6 @@ package org.jhlabs.scany.engine.search.paging;
  * limitations under the License.
  */
 
-import java.io.File;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -26,10 +25,9 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
-import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.FSDirectory;
 import org.jhlabs.scany.engine.entity.Record;
 import org.jhlabs.scany.engine.entity.RecordList;
+import org.jhlabs.scany.engine.search.IndexSearcherManager;
 import org.jhlabs.scany.engine.search.SearchModel;
 import org.jhlabs.scany.engine.search.extract.RecordExtractor;
 import org.jhlabs.scany.engine.search.extract.SequentialRecordExtractor;
@@ -68,6 +66,7 @@ public class IterablePaging implements Iterable<Record> {
 	public IterablePaging(SearchModel searchModel, Query query, int numHitsToCollect, TotalHitsRef totalHitsRef,
 			ProgressRef progressRef) throws IOException {
 		this.searchModel = searchModel;
+		this.query = query;
 		this.numHitsToCollect = numHitsToCollect;
 		this.totalHitsRef = totalHitsRef == null ? this.totalHitsRef : totalHitsRef;
 		this.progressRef = progressRef == null ? this.progressRef : progressRef;
@@ -195,11 +194,12 @@ public class IterablePaging implements Iterable<Record> {
 				collector = new PagingCollector(numHitsToCollect, scoreDocs[scoreDocs.length - 1]);
 			}
 			
+			IndexSearcherManager indexSearcherManager = null;
 			IndexSearcher indexSearcher = null;
 			
 			try {
-				Directory directory = FSDirectory.open(new File(searchModel.getDirectory()));
-				indexSearcher = new IndexSearcher(directory);
+				indexSearcherManager = searchModel.getRelation().getIndexSearcherManager();
+				indexSearcher = indexSearcherManager.acquire();
 
 				//query = indexSearcher.rewrite(query);
 				indexSearcher.search(query, collector);
@@ -220,8 +220,8 @@ public class IterablePaging implements Iterable<Record> {
 				throw new RuntimeException(e);
 			} finally {
 				try {
-					if(indexSearcher != null)
-						indexSearcher.close();
+					if(indexSearcherManager != null)
+						indexSearcherManager.release(indexSearcher);
 				} catch(Exception e2) {
 					e2.printStackTrace();
 				}
@@ -42,6 +42,8 @@ public class PagingCollector extends TopDocsCollector<ScoreDoc> {
 
 	private int numHits;
 
+	private int collectedHits;
+
 	public PagingCollector(int numHits) {
 		// creates an empty score doc so that i don't have to check for null
 		// each time.
@@ -83,6 +85,25 @@ public class PagingCollector extends TopDocsCollector<ScoreDoc> {
 		pqTop.doc = doc;
 		pqTop.score = score;
 		pqTop = pq.updateTop();
+		collectedHits++;
+	}
+
+	/**
+	 * 이전 페이지에서 수집된 도큐먼트를 제외하고 큐에 넣은 결과만 반환한다.
+	 * TopDocs.totalHits는 질의에 일치한 전체 도큐먼트의 수이다.
+	 */
+	@Override
+	public TopDocs topDocs() {
+		return topDocs(0, collectedHits < pq.size() ? collectedHits : pq.size());
+	}
+
+	/**
+	 * 마지막 페이지를 지나서 수집된 결과가 없어도 TopDocs.totalHits는 질의에 일치한 전체 도큐먼트의 수이다.
+	 * TopDocsCollector는 결과가 없으면 totalHits가 0인 EMPTY_TOPDOCS를 반환한다.
+	 */
+	@Override
+	protected TopDocs newTopDocs(ScoreDoc[] results, int start) {
+		return new TopDocs(totalHits, (results == null) ? new ScoreDoc[0] : results, Float.NaN);
 	}
 
 	@Override
@@ -96,11 +117,11 @@ public class PagingCollector extends TopDocsCollector<ScoreDoc> {
 	}
 
 	public ScoreDoc getLastScoreDoc(TopDocs topDocs) {
-		return topDocs.scoreDocs[(totalHits < numHits ? totalHits : numHits) - 1];
+		return topDocs.scoreDocs[(collectedHits < numHits ? collectedHits : numHits) - 1];
 	}
 
 	public ScoreDoc getLastScoreDoc(ScoreDoc[] scoreDocs) {
-		return scoreDocs[(totalHits < numHits ? totalHits : numHits) - 1];
+		return scoreDocs[(collectedHits < numHits ? collectedHits : numHits) - 1];
 	}
 
 	static final class HitQueue extends PriorityQueue<ScoreDoc> {
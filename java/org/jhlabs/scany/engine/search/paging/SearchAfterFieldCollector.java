@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2008 Jeong Ju Ho.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors:
+ *     Jeong Ju Ho - initial API and implementation
+ ******************************************************************************/
+package org.jhlabs.scany.engine.search.paging;
+
+import java.io.IOException;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FieldCache;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreCachingWrappingScorer;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldCollector;
+
+/**
+ * 정렬된 검색결과에서 커서 이후의 도큐먼트만 hitsPerPage 개수만큼 수집한다.
+ *
+ * <pre>
+ * 커서(이전 페이지의 마지막 FieldDoc)보다 앞서는 도큐먼트는 우선순위 큐에 넣지 않으므로
+ * 페이지가 깊어지더라도 크기가 hitsPerPage인 큐 하나만 사용한다.
+ * 정렬값은 TopFieldCollector의 FieldComparator가 사용하는 FieldCache 항목을 그대로 읽어서 비교하며,
+ * 정렬값이 같으면 도큐먼트 번호 순서를 따른다.
+ * SortFieldType에 정의된 SCORE, DOC, STRING, INT, FLOAT 정렬만 지원한다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class SearchAfterFieldCollector extends Collector {
+
+	private final TopFieldCollector delegate;
+
+	private final SortField[] sortFields;
+
+	private final FieldDoc after;
+
+	private final boolean needsScores;
+
+	private Scorer scorer;
+
+	private int docBase;
+
+	private int totalHits;
+
+	private Object[] currentReaderValues;
+
+	public SearchAfterFieldCollector(Sort sort, int numHits, FieldDoc after) throws IOException {
+		this.sortFields = sort.getSort();
+		this.after = after;
+
+		if(after.fields == null || after.fields.length != sortFields.length)
+			throw new IllegalArgumentException("The cursor does not match the sort fields.");
+
+		boolean needsScores = false;
+
+		for(SortField sortField : sortFields) {
+			int type = sortField.getType();
+
+			if(type == SortField.SCORE)
+				needsScores = true;
+			else if(type != SortField.DOC && type != SortField.STRING && type != SortField.INT && type != SortField.FLOAT)
+				throw new IllegalArgumentException("Unsupported sort field type: " + sortField);
+		}
+
+		this.needsScores = needsScores;
+		this.delegate = TopFieldCollector.create(sort, numHits, true, false, false, false);
+	}
+
+	@Override
+	public void setScorer(Scorer scorer) throws IOException {
+		if(needsScores)
+			scorer = new ScoreCachingWrappingScorer(scorer);
+
+		this.scorer = scorer;
+		delegate.setScorer(scorer);
+	}
+
+	@Override
+	public void collect(int doc) throws IOException {
+		totalHits++;
+
+		if(compareToAfter(doc) <= 0) {
+			// 이전 페이지까지 수집된 도큐먼트
+			return;
+		}
+
+		delegate.collect(doc);
+	}
+
+	@Override
+	public void setNextReader(IndexReader reader, int docBase) throws IOException {
+		this.docBase = docBase;
+
+		currentReaderValues = new Object[sortFields.length];
+
+		for(int i = 0; i < sortFields.length; i++) {
+			int type = sortFields[i].getType();
+
+			if(type == SortField.STRING)
+				currentReaderValues[i] = FieldCache.DEFAULT.getStringIndex(reader, sortFields[i].getField());
+			else if(type == SortField.INT)
+				currentReaderValues[i] = FieldCache.DEFAULT.getInts(reader, sortFields[i].getField());
+			else if(type == SortField.FLOAT)
+				currentReaderValues[i] = FieldCache.DEFAULT.getFloats(reader, sortFields[i].getField());
+		}
+
+		delegate.setNextReader(reader, docBase);
+	}
+
+	@Override
+	public boolean acceptsDocsOutOfOrder() {
+		return delegate.acceptsDocsOutOfOrder();
+	}
+
+	/**
+	 * 커서 이후에 수집된 검색결과를 반환한다.
+	 * TopDocs.totalHits는 수집된 결과가 아니라 질의에 일치한 전체 도큐먼트의 수이다.
+	 *
+	 * @return TopDocs
+	 */
+	public TopDocs topDocs() {
+		TopDocs topDocs = delegate.topDocs();
+		topDocs.totalHits = totalHits;
+
+		return topDocs;
+	}
+
+	public int getTotalHits() {
+		return totalHits;
+	}
+
+	/**
+	 * 정렬 순서상 도큐먼트가 커서보다 뒤에 있으면 양수를 반환한다.
+	 */
+	private int compareToAfter(int doc) throws IOException {
+		for(int i = 0; i < sortFields.length; i++) {
+			int c;
+			int type = sortFields[i].getType();
+
+			if(type == SortField.SCORE) {
+				// 점수는 높은 순서가 기본 정렬이다.
+				c = Float.compare((Float)after.fields[i], scorer.score());
+			} else if(type == SortField.DOC) {
+				c = compareInt(docBase + doc, (Integer)after.fields[i]);
+			} else if(type == SortField.STRING) {
+				FieldCache.StringIndex index = (FieldCache.StringIndex)currentReaderValues[i];
+				c = compareString(index.lookup[index.order[doc]], (String)after.fields[i]);
+			} else if(type == SortField.INT) {
+				c = compareInt(((int[])currentReaderValues[i])[doc], (Integer)after.fields[i]);
+			} else {
+				c = Float.compare(((float[])currentReaderValues[i])[doc], (Float)after.fields[i]);
+			}
+
+			if(sortFields[i].getReverse())
+				c = -c;
+
+			if(c != 0)
+				return c;
+		}
+
+		return compareInt(docBase + doc, after.doc);
+	}
+
+	private static int compareInt(int a, int b) {
+		return (a < b) ? -1 : ((a == b) ? 0 : 1);
+	}
+
+	private static int compareString(String a, String b) {
+		if(a == null)
+			return (b == null) ? 0 : -1;
+
+		if(b == null)
+			return 1;
+
+		return a.compareTo(b);
+	}
+
+}
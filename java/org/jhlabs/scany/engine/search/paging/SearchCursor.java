@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2008 Jeong Ju Ho.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors:
+ *     Jeong Ju Ho - initial API and implementation
+ ******************************************************************************/
+package org.jhlabs.scany.engine.search.paging;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+
+/**
+ * 이전 페이지의 마지막 검색결과 위치를 나타내는 커서.
+ *
+ * <pre>
+ * 정렬하지 않은 검색은 마지막 ScoreDoc(점수, 도큐먼트 번호)을,
+ * 정렬한 검색은 마지막 도큐먼트의 정렬값들을 함께 기록한다.
+ * 클라이언트에는 encode()로 변환한 문자열을 전달하고, 다음 페이지를 요청할 때 decode()로 복원한다.
+ * 도큐먼트 번호는 같은 색인 버전 안에서만 유효하므로 색인이 변경되면
+ * 점수 또는 정렬값이 같은 레코드 사이의 순서는 보장되지 않는다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class SearchCursor {
+
+	private static final byte NULL_VALUE = 0;
+
+	private static final byte STRING_VALUE = 1;
+
+	private static final byte INT_VALUE = 2;
+
+	private static final byte FLOAT_VALUE = 3;
+
+	private final int doc;
+
+	private final float score;
+
+	private final Object[] fields;
+
+	public SearchCursor(int doc, float score, Object[] fields) {
+		this.doc = doc;
+		this.score = score;
+		this.fields = fields;
+	}
+
+	public static SearchCursor valueOf(ScoreDoc scoreDoc) {
+		if(scoreDoc instanceof FieldDoc)
+			return new SearchCursor(scoreDoc.doc, scoreDoc.score, ((FieldDoc)scoreDoc).fields);
+
+		return new SearchCursor(scoreDoc.doc, scoreDoc.score, null);
+	}
+
+	public int getDoc() {
+		return doc;
+	}
+
+	public float getScore() {
+		return score;
+	}
+
+	/**
+	 * 정렬값을 반환한다. 정렬하지 않은 검색의 커서는 null을 반환한다.
+	 *
+	 * @return the fields
+	 */
+	public Object[] getFields() {
+		return fields;
+	}
+
+	public boolean isSorted() {
+		return (fields != null);
+	}
+
+	public ScoreDoc toScoreDoc() {
+		if(fields != null)
+			return new FieldDoc(doc, score, fields);
+
+		return new ScoreDoc(doc, score);
+	}
+
+	/**
+	 * 커서를 문자열로 변환한다.
+	 *
+	 * @return 16진수 문자열
+	 */
+	public String encode() {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+
+			out.writeInt(doc);
+			out.writeFloat(score);
+
+			if(fields == null) {
+				out.writeInt(-1);
+			} else {
+				out.writeInt(fields.length);
+
+				for(Object field : fields) {
+					if(field == null) {
+						out.writeByte(NULL_VALUE);
+					} else if(field instanceof String) {
+						out.writeByte(STRING_VALUE);
+						out.writeUTF((String)field);
+					} else if(field instanceof Integer) {
+						out.writeByte(INT_VALUE);
+						out.writeInt((Integer)field);
+					} else if(field instanceof Float) {
+						out.writeByte(FLOAT_VALUE);
+						out.writeFloat((Float)field);
+					} else {
+						throw new IllegalArgumentException("Unsupported sort value type: " + field.getClass().getName());
+					}
+				}
+			}
+
+			out.flush();
+
+			return toHex(bytes.toByteArray());
+		} catch(IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * encode()로 변환한 문자열로부터 커서를 복원한다.
+	 *
+	 * @param cursor 커서 문자열
+	 * @return SearchCursor
+	 * @throws IllegalArgumentException 올바른 커서 문자열이 아닌 경우
+	 */
+	public static SearchCursor decode(String cursor) {
+		try {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(fromHex(cursor)));
+
+			int doc = in.readInt();
+			float score = in.readFloat();
+			int length = in.readInt();
+			Object[] fields = null;
+
+			if(length >= 0) {
+				fields = new Object[length];
+
+				for(int i = 0; i < length; i++) {
+					byte type = in.readByte();
+
+					if(type == STRING_VALUE)
+						fields[i] = in.readUTF();
+					else if(type == INT_VALUE)
+						fields[i] = in.readInt();
+					else if(type == FLOAT_VALUE)
+						fields[i] = in.readFloat();
+					else if(type != NULL_VALUE)
+						throw new IllegalArgumentException("Invalid cursor: " + cursor);
+				}
+			}
+
+			if(in.available() > 0)
+				throw new IllegalArgumentException("Invalid cursor: " + cursor);
+
+			return new SearchCursor(doc, score, fields);
+		} catch(IOException e) {
+			throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return encode();
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+
+		for(byte b : bytes) {
+			sb.append(Character.forDigit((b >> 4) & 0x0F, 16));
+			sb.append(Character.forDigit(b & 0x0F, 16));
+		}
+
+		return sb.toString();
+	}
+
+	private static byte[] fromHex(String hex) {
+		if(hex == null || hex.length() % 2 != 0)
+			throw new IllegalArgumentException("Invalid cursor: " + hex);
+
+		byte[] bytes = new byte[hex.length() / 2];
+
+		for(int i = 0; i < bytes.length; i++) {
+			int high = Character.digit(hex.charAt(i * 2), 16);
+			int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+
+			if(high < 0 || low < 0)
+				throw new IllegalArgumentException("Invalid cursor: " + hex);
+
+			bytes[i] = (byte)((high << 4) | low);
+		}
+
+		return bytes;
+	}
+
+}
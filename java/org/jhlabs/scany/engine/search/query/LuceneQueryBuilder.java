@@ -39,6 +39,10 @@ import org.slf4j.LoggerFactory;
  * 현재 Scany에서 지정할 수 있는 검색 조항
  * QueryColumn - 질의문 분석 후 해당 컬럼을 검색
  * FilterColumn - 질의문 분석 없이 특정 값을 가진 컬럼을 가려냄 
+ * 
+ * 필터는 점수 계산에 참여하지 않도록 검색기에서 Filter로 적용하는 것이 좋다.
+ * (FilterCache 참고)
+ * 질의가 하나도 없으면 build()는 예외를 발생한다. 질의문 없이 필터만으로 검색하는 경우는 검색기에서 처리한다.
  * </pre>
  * 
  * <p>
@@ -86,6 +90,15 @@ public class LuceneQueryBuilder {
 		}
 	}
 
+	/**
+	 * 추가된 질의가 없는지 여부를 반환한다.
+	 * 
+	 * @return 질의가 없으면 true
+	 */
+	public boolean isEmpty() {
+		return queryList.isEmpty();
+	}
+
 	/**
 	 * 필터 쿼리를 만든다.
 	 * 필터링에 기준이 되는 값(키워드)은 파싱을 하지 않는 것이 특징이다.
@@ -98,10 +111,19 @@ public class LuceneQueryBuilder {
 		if(filterAttributeList == null || filterAttributeList.size() == 0)
 			return;
 		
-		if(filterAttributeList.size() == 1) {
-			queryList.add(createQuery((FilterAttribute)filterAttributeList.get(0)));
-			return;
-		}
+		queryList.add(createFilterQuery(filterAttributeList));
+	}
+
+	/**
+	 * 필터 속성 목록으로 하나의 Query를 만든다.
+	 * 필수(essential) 필터는 MUST, 나머지는 SHOULD로 결합한다.
+	 * 
+	 * @param filterAttributeList 필터 속성 목록
+	 * @return Query
+	 */
+	public static Query createFilterQuery(List<FilterAttribute> filterAttributeList) {
+		if(filterAttributeList.size() == 1)
+			return createQuery((FilterAttribute)filterAttributeList.get(0));
 		
 		Iterator<FilterAttribute> iter = filterAttributeList.iterator();
 		BooleanQuery booleanQuery = new BooleanQuery();
@@ -118,10 +140,10 @@ public class LuceneQueryBuilder {
 		
 		logger.debug("FilterAttribute {}", booleanQuery);
 		
-		queryList.add(booleanQuery);
+		return booleanQuery;
 	}
 
-	private Query createQuery(FilterAttribute filterAttribute) {
+	private static Query createQuery(FilterAttribute filterAttribute) {
 		FilterType filterType = filterAttribute.getFilterType();
 		String attributeName = filterAttribute.getAttributeName();
 		
@@ -192,6 +214,7 @@ public class LuceneQueryBuilder {
 			String[] fields = new String[queryAttributeList.size()];
 			BooleanClause.Occur[] flags = new BooleanClause.Occur[queryAttributeList.size()];
 			int index = 0;
+			boolean empty = true;
 			
 			for(QueryAttribute queryAttribute : queryAttributeList) {
 				queries[index] = queryAttribute.getKeyword();
@@ -204,9 +227,16 @@ public class LuceneQueryBuilder {
 				if(flags[index] == null)
 					flags[index] = BooleanClause.Occur.SHOULD;
 				
+				if(queries[index].length() > 0)
+					empty = false;
+				
 				index++;
 			}
 			
+			// 질의문이 없으면 필터만으로 검색한다.
+			if(empty)
+				return;
+			
 			Query query = MultiFieldQueryParser.parse(ScanyContext.LUCENE_VERSION, queries, fields, flags, analyzer);
 			queryList.add(query);
 
@@ -3,17 +3,36 @@ package org.jhlabs.scany.engine.transaction;
 import org.jhlabs.scany.engine.entity.Relation;
 import org.jhlabs.scany.engine.index.AnyIndexer;
 import org.jhlabs.scany.engine.index.AnyIndexerException;
+import org.jhlabs.scany.engine.index.IndexWriterService;
 import org.jhlabs.scany.engine.index.LuceneIndexer;
 import org.jhlabs.scany.engine.transaction.job.Job;
 import org.jhlabs.scany.engine.transaction.job.JobType;
 
 public class LuceneTransaction extends AbstractTransaction implements AnyTransaction {
 
+	private IndexWriterService indexWriterService;
+	
 	public LuceneTransaction(Relation relation) {
 		super(relation);
 	}
 
+	/**
+	 * IndexWriterService가 소유한 IndexWriter를 공유하는 트랜잭션을 생성한다.
+	 * 동시에 요청된 다른 트랜잭션과 함께 그룹 커밋된다.
+	 * 
+	 * @param indexWriterService the index writer service
+	 */
+	public LuceneTransaction(IndexWriterService indexWriterService) {
+		super(indexWriterService.getRelation());
+		this.indexWriterService = indexWriterService;
+	}
+
 	synchronized public void commit() throws AnyIndexerException {
+		if(indexWriterService != null) {
+			indexWriterService.execute(jobQueue);
+			return;
+		}
+		
 		AnyIndexer indexer = null;
 		
 		try {
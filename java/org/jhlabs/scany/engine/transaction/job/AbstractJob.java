@@ -3,6 +3,8 @@
  */
 package org.jhlabs.scany.engine.transaction.job;
 
+import java.io.Serializable;
+
 import org.jhlabs.scany.engine.entity.Record;
 
 /**
@@ -12,7 +14,9 @@ import org.jhlabs.scany.engine.entity.Record;
  * <p>Created: 2011. 11. 8. 오후 11:45:55</p>
  *
  */
-public class AbstractJob implements Job {
+public class AbstractJob implements Job, Serializable {
+
+	private static final long serialVersionUID = 5823169347401163224L;
 	
 	private final JobType jobType;
 	
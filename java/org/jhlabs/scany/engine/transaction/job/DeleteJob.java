@@ -13,6 +13,8 @@ import org.jhlabs.scany.engine.entity.Record;
  *
  */
 public class DeleteJob extends AbstractJob implements Job {
+
+	private static final long serialVersionUID = -4835164789425717281L;
 	
 	public DeleteJob(Record record) {
 		super(JobType.DELETE, record);
@@ -13,6 +13,8 @@ import org.jhlabs.scany.engine.entity.Record;
  *
  */
 public class InsertJob extends AbstractJob implements Job {
+
+	private static final long serialVersionUID = 4303655548513606123L;
 	
 	public InsertJob(Record record) {
 		super(JobType.INSERT, record);
@@ -3,6 +3,8 @@
  */
 package org.jhlabs.scany.engine.transaction.job;
 
+import java.io.Serializable;
+
 
 /**
  *
@@ -11,7 +13,9 @@ package org.jhlabs.scany.engine.transaction.job;
  * <p>Created: 2011. 11. 8. 오후 11:45:55</p>
  *
  */
-public class JobType {
+public class JobType implements Serializable {
+
+	private static final long serialVersionUID = -4409938227498213093L;
 
 	public static final JobType INSERT;
 	public static final JobType UPDATE;
@@ -34,4 +38,20 @@ public class JobType {
 	public String toString() {
 		return jobType;
 	}
+
+	/**
+	 * 직렬화된 작업 유형을 읽을 때 상수를 반환해서 == 비교가 유지되도록 한다.
+	 */
+	private Object readResolve() {
+		if(INSERT.jobType.equals(jobType))
+			return INSERT;
+		if(UPDATE.jobType.equals(jobType))
+			return UPDATE;
+		if(MERGE.jobType.equals(jobType))
+			return MERGE;
+		if(DELETE.jobType.equals(jobType))
+			return DELETE;
+
+		return this;
+	}
 }
@@ -13,6 +13,8 @@ import org.jhlabs.scany.engine.entity.Record;
  *
  */
 public class MergeJob extends AbstractJob implements Job {
+
+	private static final long serialVersionUID = -5748780824791984014L;
 	
 	public MergeJob(Record record) {
 		super(JobType.MERGE, record);
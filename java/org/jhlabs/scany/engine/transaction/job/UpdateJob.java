@@ -13,6 +13,8 @@ import org.jhlabs.scany.engine.entity.Record;
  *
  */
 public class UpdateJob extends AbstractJob implements Job {
+
+	private static final long serialVersionUID = -6378455601853490213L;
 	
 	public UpdateJob(Record record) {
 		super(JobType.UPDATE, record);
@@ -27,4 +27,10 @@ public interface AnyService {
 	
 	public AnyIndexer getIndexer(String relationId) throws AnyIndexerException;
 	
+	/**
+	 * 서비스가 사용 중인 자원(IndexWriter 등)을 반환한다.
+	 * 릴레이션이 공유하는 자원은 그 자원을 사용하는 마지막 서비스가 반환할 때 닫힌다.
+	 */
+	public void close();
+	
 }
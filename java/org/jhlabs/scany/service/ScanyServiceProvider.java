@@ -8,8 +8,13 @@ import org.jhlabs.scany.context.ScanyContextException;
 import org.jhlabs.scany.context.builder.ScanyContextBuilder;
 import org.jhlabs.scany.context.rule.ClientRule;
 import org.jhlabs.scany.context.rule.LocalServiceRule;
+import org.jhlabs.scany.context.rule.RemoteHttpServiceRule;
+import org.jhlabs.scany.context.rule.RemoteTcpServiceRule;
+import org.jhlabs.scany.context.type.RemoteMode;
 import org.jhlabs.scany.context.type.ServiceMode;
 import org.jhlabs.scany.service.local.LocalService;
+import org.jhlabs.scany.service.remote.http.RemoteHttpService;
+import org.jhlabs.scany.service.remote.tcp.RemoteTcpService;
 
 public class ScanyServiceProvider {
 	
@@ -30,12 +35,12 @@ public class ScanyServiceProvider {
 	}
 
 	public AnyService getAnyService() {
-		if(scanyContext.getLocalServiceRule() == null)
-			throw new ScanyContextException("Scany's local service is not defined.");
-
 		AnyService anyService = null;
 		
 		if(scanyContext.getClientRule() == null) {
+			if(scanyContext.getLocalServiceRule() == null)
+				throw new ScanyContextException("Scany's local service is not defined.");
+
 			anyService = new LocalService(scanyContext.getLocalServiceRule());
 		} else {
 			ClientRule clientRule = scanyContext.getClientRule();
@@ -43,6 +48,10 @@ public class ScanyServiceProvider {
 			
 			if(serviceMode == ServiceMode.LOCAL) {
 				anyService = new LocalService((LocalServiceRule)clientRule.getAnyServiceRule());
+			} else if(serviceMode == ServiceMode.REMOTE && clientRule.getRemoteMode() == RemoteMode.TCP) {
+				anyService = new RemoteTcpService((RemoteTcpServiceRule)clientRule.getAnyServiceRule());
+			} else if(serviceMode == ServiceMode.REMOTE && clientRule.getRemoteMode() == RemoteMode.HTTP) {
+				anyService = new RemoteHttpService((RemoteHttpServiceRule)clientRule.getAnyServiceRule());
 			} else {
 				throw new ScanyContextException("Sorry! Scany " + serviceMode + " service is not yet support.");
 			}
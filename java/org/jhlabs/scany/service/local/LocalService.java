@@ -3,11 +3,14 @@
  */
 package org.jhlabs.scany.service.local;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.jhlabs.scany.context.rule.LocalServiceRule;
 import org.jhlabs.scany.engine.entity.Relation;
 import org.jhlabs.scany.engine.index.AnyIndexer;
 import org.jhlabs.scany.engine.index.AnyIndexerException;
-import org.jhlabs.scany.engine.index.LuceneIndexer;
+import org.jhlabs.scany.engine.index.IndexWriterService;
 import org.jhlabs.scany.engine.search.AnySearcher;
 import org.jhlabs.scany.engine.search.AnySearcherException;
 import org.jhlabs.scany.engine.search.LuceneSearcher;
@@ -17,6 +20,8 @@ import org.jhlabs.scany.engine.transaction.LuceneTransaction;
 import org.jhlabs.scany.service.AbstractService;
 import org.jhlabs.scany.service.AnyService;
 import org.jhlabs.scany.service.NoSuchRelationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  *
@@ -27,7 +32,11 @@ import org.jhlabs.scany.service.NoSuchRelationException;
  */
 public class LocalService extends AbstractService implements AnyService {
 	
+	private static final Logger logger = LoggerFactory.getLogger(LocalService.class);
+	
 	private LocalServiceRule localServiceRule;
+	
+	private final Map<String, IndexWriterService> indexWriterServiceMap = new HashMap<String, IndexWriterService>();
 
 	public LocalService(LocalServiceRule localServiceRule) {
 		this.localServiceRule = localServiceRule;
@@ -57,7 +66,7 @@ public class LocalService extends AbstractService implements AnyService {
 		if(relation == null)
 			throw new NoSuchRelationException(relationId);
 		
-		return new LuceneTransaction(relation);
+		return new LuceneTransaction(getIndexWriterService(relation));
 	}
 	
 	public AnyIndexer getIndexer(String relationId) throws AnyIndexerException {
@@ -66,7 +75,45 @@ public class LocalService extends AbstractService implements AnyService {
 		if(relation == null)
 			throw new NoSuchRelationException(relationId);
 		
-		return new LuceneIndexer(relation);
+		return getIndexWriterService(relation).getIndexer();
+	}
+	
+	/**
+	 * 릴레이션이 공유하는 IndexWriterService를 반환한다.
+	 * 릴레이션마다 한 번만 획득하고 서비스가 종료(close)될 때 반환한다.
+	 * 
+	 * @param relation the relation
+	 * @return the index writer service
+	 */
+	protected IndexWriterService getIndexWriterService(Relation relation) {
+		synchronized(indexWriterServiceMap) {
+			IndexWriterService indexWriterService = indexWriterServiceMap.get(relation.getId());
+			
+			if(indexWriterService == null) {
+				indexWriterService = relation.acquireIndexWriterService();
+				indexWriterServiceMap.put(relation.getId(), indexWriterService);
+			}
+			
+			return indexWriterService;
+		}
+	}
+	
+	/**
+	 * 이 서비스가 획득한 IndexWriterService를 반환한다.
+	 * IndexWriter는 릴레이션을 사용하는 마지막 서비스가 반환할 때 닫히며, IndexSearcher는 릴레이션이 계속 공유한다.
+	 */
+	public void close() {
+		synchronized(indexWriterServiceMap) {
+			for(IndexWriterService indexWriterService : indexWriterServiceMap.values()) {
+				try {
+					indexWriterService.getRelation().releaseIndexWriterService(indexWriterService);
+				} catch(Exception e) {
+					logger.error("Failed to release IndexWriterService of relation '" + indexWriterService.getRelation().getId() + "'.", e);
+				}
+			}
+			
+			indexWriterServiceMap.clear();
+		}
 	}
 
 }
@@ -0,0 +1,217 @@
+/**
+ *
+ */
+package org.jhlabs.scany.service.message;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Iterator;
+
+import org.jhlabs.scany.engine.entity.Record;
+
+/**
+ * 응답 메시지(ResultMessage)를 문자 형식(JSON, XML)으로 채널에 바로 기록한다.
+ *
+ * <pre>
+ * 전체 문서를 메모리에 만들지 않고, 고정 크기의 문자 버퍼와 바이트 버퍼를 거쳐서 레코드 단위로 채널에 쓴다.
+ * 따라서 검색결과의 크기와 관계없이 사용하는 메모리가 일정하다.
+ *
+ *   begin(resultMessage, true);
+ *   while(...) write(record);
+ *   end();
+ *
+ * 레코드를 추출하는 대로 write()를 호출하면 되고, RecordList나 Iterator가 있으면 write(resultMessage, records)를 사용한다.
+ * 채널은 블로킹 모드여야 한다. 하나의 메시지를 기록하는 데에만 사용하며, 스레드에 안전하지 않다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public abstract class AbstractMessageWriter {
+
+	public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+	private final WritableByteChannel channel;
+
+	private final CharsetEncoder encoder;
+
+	private final CharBuffer charBuffer;
+
+	private final ByteBuffer byteBuffer;
+
+	private int records;
+
+	private boolean recordsStarted;
+
+	protected AbstractMessageWriter(WritableByteChannel channel, Charset charset, int bufferSize) {
+		this.channel = channel;
+		this.encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.charBuffer = CharBuffer.allocate(bufferSize);
+		this.byteBuffer = ByteBuffer.allocate(Math.max(bufferSize, 16));
+	}
+
+	/**
+	 * 응답 메시지와 레코드를 모두 기록한다.
+	 *
+	 * @param resultMessage 응답 메시지
+	 * @param records 레코드, null이면 응답 메시지의 recordIterator 또는 recordList를 기록한다.
+	 * @throws IOException
+	 */
+	public void write(ResultMessage resultMessage, Iterator<Record> records) throws IOException {
+		if(records == null)
+			records = resultMessage.getRecordIterator();
+
+		if(records == null && resultMessage.getRecordList() != null)
+			records = resultMessage.getRecordList().iterator();
+
+		begin(resultMessage, records != null);
+
+		if(records != null) {
+			while(records.hasNext()) {
+				write(records.next());
+			}
+		}
+
+		end();
+	}
+
+	public void write(ResultMessage resultMessage) throws IOException {
+		write(resultMessage, null);
+	}
+
+	/**
+	 * 응답 메시지의 레코드를 제외한 부분을 기록한다.
+	 *
+	 * @param resultMessage 응답 메시지
+	 * @param hasRecords 레코드 목록을 기록할지 여부, false이면 레코드 목록은 null로 기록한다.
+	 * @throws IOException
+	 */
+	public void begin(ResultMessage resultMessage, boolean hasRecords) throws IOException {
+		writeHeader(resultMessage, hasRecords);
+
+		if(hasRecords) {
+			writeRecordsStart();
+			recordsStarted = true;
+		}
+	}
+
+	/**
+	 * 레코드 하나를 기록한다. 버퍼가 차면 채널에 쓴다.
+	 *
+	 * @param record 레코드
+	 * @throws IOException
+	 */
+	public void write(Record record) throws IOException {
+		if(!recordsStarted)
+			throw new IllegalStateException("Records are not started.");
+
+		writeRecord(record, records++);
+	}
+
+	/**
+	 * 메시지를 마치고 버퍼에 남은 내용을 모두 채널에 쓴다.
+	 *
+	 * @throws IOException
+	 */
+	public void end() throws IOException {
+		if(recordsStarted)
+			writeRecordsEnd();
+
+		writeFooter();
+
+		drain(true);
+
+		while(encoder.flush(byteBuffer) == CoderResult.OVERFLOW) {
+			writeBytes();
+		}
+
+		writeBytes();
+	}
+
+	/**
+	 * 기록한 레코드의 수를 반환한다.
+	 *
+	 * @return the number of records
+	 */
+	public int getRecords() {
+		return records;
+	}
+
+	/**
+	 * 레코드 목록 앞의 내용을 기록한다.
+	 *
+	 * @param resultMessage 응답 메시지
+	 * @param hasRecords 이어서 레코드 목록을 기록하는지 여부
+	 */
+	protected abstract void writeHeader(ResultMessage resultMessage, boolean hasRecords) throws IOException;
+
+	protected abstract void writeRecordsStart() throws IOException;
+
+	protected abstract void writeRecord(Record record, int index) throws IOException;
+
+	protected abstract void writeRecordsEnd() throws IOException;
+
+	protected abstract void writeFooter() throws IOException;
+
+	protected void append(char c) throws IOException {
+		if(!charBuffer.hasRemaining())
+			drain(false);
+
+		charBuffer.put(c);
+	}
+
+	protected void append(String s) throws IOException {
+		int offset = 0;
+		int length = s.length();
+
+		while(offset < length) {
+			if(!charBuffer.hasRemaining())
+				drain(false);
+
+			int count = Math.min(charBuffer.remaining(), length - offset);
+			charBuffer.put(s, offset, offset + count);
+			offset += count;
+		}
+	}
+
+	/**
+	 * 문자 버퍼를 인코딩해서 채널에 쓴다.
+	 * 버퍼의 끝에서 잘린 서로게이트 문자는 다음 인코딩까지 남겨둔다.
+	 */
+	private void drain(boolean endOfInput) throws IOException {
+		charBuffer.flip();
+
+		while(true) {
+			CoderResult result = encoder.encode(charBuffer, byteBuffer, endOfInput);
+
+			if(result.isOverflow()) {
+				writeBytes();
+			} else if(result.isUnderflow()) {
+				break;
+			} else {
+				result.throwException();
+			}
+		}
+
+		writeBytes();
+		charBuffer.compact();
+	}
+
+	private void writeBytes() throws IOException {
+		byteBuffer.flip();
+
+		while(byteBuffer.hasRemaining()) {
+			channel.write(byteBuffer);
+		}
+
+		byteBuffer.clear();
+	}
+
+}
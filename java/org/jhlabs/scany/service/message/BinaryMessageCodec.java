@@ -0,0 +1,785 @@
+/**
+ *
+ */
+package org.jhlabs.scany.service.message;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.lucene.search.BooleanClause;
+import org.jhlabs.scany.engine.entity.Record;
+import org.jhlabs.scany.engine.entity.RecordList;
+import org.jhlabs.scany.engine.entity.Relation;
+import org.jhlabs.scany.engine.entity.Schema;
+import org.jhlabs.scany.engine.search.FilterAttribute;
+import org.jhlabs.scany.engine.search.FilterType;
+import org.jhlabs.scany.engine.search.QueryAttribute;
+import org.jhlabs.scany.engine.search.SortAttribute;
+import org.jhlabs.scany.engine.search.SortFieldType;
+import org.jhlabs.scany.engine.transaction.job.DeleteJob;
+import org.jhlabs.scany.engine.transaction.job.InsertJob;
+import org.jhlabs.scany.engine.transaction.job.Job;
+import org.jhlabs.scany.engine.transaction.job.JobQueue;
+import org.jhlabs.scany.engine.transaction.job.JobType;
+import org.jhlabs.scany.engine.transaction.job.MergeJob;
+import org.jhlabs.scany.engine.transaction.job.UpdateJob;
+
+/**
+ * MessageFormat.BINARY 형식의 메시지 코덱.
+ *
+ * <pre>
+ * Java 직렬화는 레코드마다 속성명을 반복해서 기록하므로, 속성명은 릴레이션의 AttributeMap에 선언된 순번으로 기록한다.
+ * 주고받는 양쪽은 같은 스키마를 사용해야 하며, 릴레이션의 속성 수가 다르면 메시지를 읽지 않는다.
+ * 스키마에 선언되지 않은 속성은 속성명을 그대로 기록한다.
+ *
+ *   message    : version(byte) kind(byte) relationId(string) attributeCount(varint) body
+ *   varint     : 7비트씩 나누어 하위 비트부터 기록한 부호 없는 정수, 부호 있는 정수는 zigzag로 변환한다.
+ *   string     : varint(UTF-8 바이트 수 + 1) UTF-8 바이트, 0은 null
+ *   attribute  : varint(순번 + 1), 0이면 이어서 속성명(string)
+ *   list       : varint(원소 수 + 1) 원소..., 0은 null
+ *   record     : list of (attribute string)
+ *
+ *   QueryMessage       : command queryText page hitsPerPage cursor startRecord reverse numHitsToCollect
+ *                        queryAttributes filterAttributes sortAttributes selectAttributes
+ *   TransactionMessage : list of (jobType record)
+ *   ResultMessage      : error totalRecords nextCursor list of record
+ *
+ * 중간 바이트 배열 없이 ByteBuffer에 바로 기록하며, 버퍼가 부족하면 두 배씩 늘린다.
+ * 여러 스레드에서 동시에 사용할 수 있다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class BinaryMessageCodec {
+
+	public static final byte VERSION = 1;
+
+	private static final byte QUERY = 1;
+
+	private static final byte TRANSACTION = 2;
+
+	private static final byte RESULT = 3;
+
+	private static final byte NULL_VALUE = 0;
+
+	private static final byte STRING_VALUE = 1;
+
+	private static final byte INT_VALUE = 2;
+
+	private static final byte LONG_VALUE = 3;
+
+	private static final byte FLOAT_VALUE = 4;
+
+	private static final byte DOUBLE_VALUE = 5;
+
+	private static final int INITIAL_BUFFER_SIZE = 512;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final AttributeIndex UNDECLARED = new AttributeIndex(new String[0]);
+
+	private final Schema schema;
+
+	private final Map<String, AttributeIndex> attributeIndexMap = new ConcurrentHashMap<String, AttributeIndex>();
+
+	/**
+	 * @param schema 속성 순번을 정할 스키마, null이면 모든 속성명을 그대로 기록한다.
+	 */
+	public BinaryMessageCodec(Schema schema) {
+		this.schema = schema;
+	}
+
+	/**
+	 * 메시지를 새 버퍼에 기록한다.
+	 *
+	 * @param message 메시지
+	 * @return 읽을 수 있도록 flip된 버퍼
+	 */
+	public ByteBuffer encode(Message message) {
+		ByteBuffer buffer = encode(message, ByteBuffer.allocate(INITIAL_BUFFER_SIZE));
+		buffer.flip();
+
+		return buffer;
+	}
+
+	/**
+	 * 메시지를 버퍼의 현재 위치부터 기록한다.
+	 * 버퍼가 부족하면 현재 위치 이전의 내용을 옮긴 더 큰 버퍼를 만든다.
+	 *
+	 * @param message 메시지
+	 * @param buffer 버퍼
+	 * @return 메시지가 기록된 버퍼, 위치는 메시지의 끝이다.
+	 */
+	public ByteBuffer encode(Message message, ByteBuffer buffer) {
+		Encoder encoder;
+
+		if(message instanceof QueryMessage) {
+			QueryMessage queryMessage = (QueryMessage)message;
+			encoder = new Encoder(buffer, QUERY, queryMessage.getRelationId());
+			encoder.writeQuery(queryMessage);
+		} else if(message instanceof TransactionMessage) {
+			TransactionMessage transactionMessage = (TransactionMessage)message;
+			encoder = new Encoder(buffer, TRANSACTION, transactionMessage.getRelationId());
+			encoder.writeTransaction(transactionMessage);
+		} else if(message instanceof ResultMessage) {
+			ResultMessage resultMessage = (ResultMessage)message;
+			encoder = new Encoder(buffer, RESULT, resultMessage.getRelationId());
+			encoder.writeResult(resultMessage);
+		} else {
+			throw new IllegalArgumentException("Unsupported message: " + message);
+		}
+
+		return encoder.buffer;
+	}
+
+	/**
+	 * 버퍼의 현재 위치부터 메시지를 읽는다.
+	 *
+	 * @param buffer 버퍼
+	 * @return 메시지
+	 * @throws IOException 메시지 형식이 잘못되었거나 스키마가 다른 경우
+	 */
+	public Message decode(ByteBuffer buffer) throws IOException {
+		try {
+			byte version = buffer.get();
+
+			if(version != VERSION)
+				throw new IOException("Unsupported binary message version: " + version);
+
+			byte kind = buffer.get();
+			Decoder decoder = new Decoder(buffer);
+
+			if(kind == QUERY)
+				return decoder.readQuery();
+			if(kind == TRANSACTION)
+				return decoder.readTransaction();
+			if(kind == RESULT)
+				return decoder.readResult();
+
+			throw new IOException("Unknown binary message kind: " + kind);
+		} catch(BufferUnderflowException e) {
+			throw new IOException("Truncated binary message.");
+		} catch(IllegalArgumentException e) {
+			throw new IOException("Invalid binary message. " + e.getMessage());
+		}
+	}
+
+	private AttributeIndex getAttributeIndex(String relationId) {
+		if(relationId == null || schema == null)
+			return UNDECLARED;
+
+		AttributeIndex attributeIndex = attributeIndexMap.get(relationId);
+
+		if(attributeIndex == null) {
+			Relation relation = schema.getRelation(relationId);
+
+			if(relation == null || relation.getAttributeMap() == null)
+				return UNDECLARED;
+
+			attributeIndex = new AttributeIndex(relation.getAttributeMap().getAttributeNames());
+			attributeIndexMap.put(relationId, attributeIndex);
+		}
+
+		return attributeIndex;
+	}
+
+	/**
+	 * 릴레이션의 속성 순번.
+	 */
+	private static final class AttributeIndex {
+
+		private final String[] names;
+
+		private final Map<String, Integer> ordinals;
+
+		public AttributeIndex(String[] names) {
+			this.names = names;
+			this.ordinals = new HashMap<String, Integer>(names.length * 2);
+
+			for(int i = 0; i < names.length; i++) {
+				ordinals.put(names[i], i);
+			}
+		}
+
+	}
+
+	private final class Encoder {
+
+		private ByteBuffer buffer;
+
+		private final AttributeIndex attributeIndex;
+
+		public Encoder(ByteBuffer buffer, byte kind, String relationId) {
+			this.buffer = buffer;
+			this.attributeIndex = getAttributeIndex(relationId);
+
+			ensure(2);
+			this.buffer.put(VERSION);
+			this.buffer.put(kind);
+			writeString(relationId);
+			writeVarint(attributeIndex.names.length);
+		}
+
+		public void writeQuery(QueryMessage queryMessage) {
+			writeString(queryMessage.getCommand());
+			writeString(queryMessage.getQueryText());
+			writeSignedVarint(queryMessage.getPage());
+			writeSignedVarint(queryMessage.getHitsPerPage());
+			writeString(queryMessage.getCursor());
+			writeSignedVarint(queryMessage.getStartRecord());
+			writeBoolean(queryMessage.isReverse());
+			writeSignedVarint(queryMessage.getNumHitsToCollect());
+
+			List<QueryAttribute> queryAttributeList = queryMessage.getQueryAttributeList();
+			writeSize(queryAttributeList);
+
+			if(queryAttributeList != null) {
+				for(QueryAttribute queryAttribute : queryAttributeList) {
+					writeAttribute(queryAttribute.getAttributeName());
+					writeString(queryAttribute.getKeyword());
+					writeString(queryAttribute.getBooleanClauseOccur() == null ? null : queryAttribute.getBooleanClauseOccur().name());
+					writeString(queryAttribute.getAnalyzerId());
+				}
+			}
+
+			List<FilterAttribute> filterAttributeList = queryMessage.getFilterAttributeList();
+			writeSize(filterAttributeList);
+
+			if(filterAttributeList != null) {
+				for(FilterAttribute filterAttribute : filterAttributeList) {
+					writeString(filterAttribute.getFilterType().toString());
+					writeAttribute(filterAttribute.getAttributeName());
+					writeValue(filterAttribute.getEqualValue());
+					writeValue(filterAttribute.getLowerValue());
+					writeValue(filterAttribute.getUpperValue());
+					writeBoolean(filterAttribute.isIncludeLower());
+					writeBoolean(filterAttribute.isIncludeUpper());
+					writeBoolean(filterAttribute.isEssential());
+				}
+			}
+
+			List<SortAttribute> sortAttributeList = queryMessage.getSortAttributeList();
+			writeSize(sortAttributeList);
+
+			if(sortAttributeList != null) {
+				for(SortAttribute sortAttribute : sortAttributeList) {
+					writeAttribute(sortAttribute.getAttributeName());
+					// SortFieldType은 Lucene SortField의 정수 상수이다.
+					writeVarint(sortAttribute.getSortFieldType() == null ? 0 : ((Integer)sortAttribute.getSortFieldType().getType()).intValue() + 1);
+					writeBoolean(sortAttribute.isReverse());
+				}
+			}
+
+			List<String> selectAttributeList = queryMessage.getSelectAttributeList();
+			writeSize(selectAttributeList);
+
+			if(selectAttributeList != null) {
+				for(String attributeName : selectAttributeList) {
+					writeAttribute(attributeName);
+				}
+			}
+		}
+
+		public void writeTransaction(TransactionMessage transactionMessage) {
+			JobQueue jobQueue = transactionMessage.getJobQueue();
+			writeSize(jobQueue);
+
+			if(jobQueue != null) {
+				for(Job job : jobQueue) {
+					writeString(job.getJobType().toString());
+					writeRecord(job.getRecord());
+				}
+			}
+		}
+
+		public void writeResult(ResultMessage resultMessage) {
+			writeString(resultMessage.getError());
+			writeSignedVarint(resultMessage.getTotalRecords());
+			writeString(resultMessage.getNextCursor());
+
+			RecordList recordList = resultMessage.getRecordList();
+			writeSize(recordList);
+
+			if(recordList != null) {
+				for(Record record : recordList) {
+					writeRecord(record);
+				}
+			}
+		}
+
+		private void writeRecord(Record record) {
+			Map<String, String> values = (record == null) ? null : record.getValues();
+
+			if(values == null) {
+				writeVarint(0);
+				return;
+			}
+
+			writeVarint(values.size() + 1);
+
+			for(Map.Entry<String, String> entry : values.entrySet()) {
+				writeAttribute(entry.getKey());
+				writeString(entry.getValue());
+			}
+		}
+
+		private void writeAttribute(String attributeName) {
+			Integer ordinal = attributeIndex.ordinals.get(attributeName);
+
+			if(ordinal != null) {
+				writeVarint(ordinal.intValue() + 1);
+			} else {
+				writeVarint(0);
+				writeString(attributeName);
+			}
+		}
+
+		/**
+		 * 필터의 값은 질의를 만들 때 형변환하므로 형을 함께 기록한다.
+		 */
+		private void writeValue(Object value) {
+			ensure(9);
+
+			if(value == null) {
+				buffer.put(NULL_VALUE);
+			} else if(value instanceof Integer) {
+				buffer.put(INT_VALUE);
+				writeSignedVarint(((Integer)value).intValue());
+			} else if(value instanceof Long) {
+				buffer.put(LONG_VALUE);
+				writeSignedVarlong(((Long)value).longValue());
+			} else if(value instanceof Float) {
+				buffer.put(FLOAT_VALUE);
+				buffer.putFloat(((Float)value).floatValue());
+			} else if(value instanceof Double) {
+				buffer.put(DOUBLE_VALUE);
+				buffer.putDouble(((Double)value).doubleValue());
+			} else {
+				buffer.put(STRING_VALUE);
+				writeString(value.toString());
+			}
+		}
+
+		private void writeSize(List<?> list) {
+			writeVarint(list == null ? 0 : list.size() + 1);
+		}
+
+		private void writeBoolean(boolean value) {
+			ensure(1);
+			buffer.put(value ? (byte)1 : (byte)0);
+		}
+
+		private void writeVarint(int value) {
+			ensure(5);
+
+			while((value & ~0x7F) != 0) {
+				buffer.put((byte)((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+
+			buffer.put((byte)value);
+		}
+
+		private void writeSignedVarint(int value) {
+			writeVarint((value << 1) ^ (value >> 31));
+		}
+
+		private void writeSignedVarlong(long value) {
+			value = (value << 1) ^ (value >> 63);
+			ensure(10);
+
+			while((value & ~0x7FL) != 0) {
+				buffer.put((byte)((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+
+			buffer.put((byte)value);
+		}
+
+		/**
+		 * 문자열을 UTF-8로 버퍼에 바로 기록한다.
+		 * 짝이 맞지 않는 서로게이트 문자는 String.getBytes()와 같이 '?'로 기록한다.
+		 */
+		private void writeString(String value) {
+			if(value == null) {
+				writeVarint(0);
+				return;
+			}
+
+			int length = value.length();
+			int bytes = 0;
+
+			for(int i = 0; i < length; i++) {
+				char c = value.charAt(i);
+
+				if(c < 0x80) {
+					bytes++;
+				} else if(c < 0x800) {
+					bytes += 2;
+				} else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+					bytes += 4;
+					i++;
+				} else if(isSurrogate(c)) {
+					bytes++;
+				} else {
+					bytes += 3;
+				}
+			}
+
+			writeVarint(bytes + 1);
+			ensure(bytes);
+
+			for(int i = 0; i < length; i++) {
+				char c = value.charAt(i);
+
+				if(c < 0x80) {
+					buffer.put((byte)c);
+				} else if(c < 0x800) {
+					buffer.put((byte)(0xC0 | (c >> 6)));
+					buffer.put((byte)(0x80 | (c & 0x3F)));
+				} else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+					int codePoint = Character.toCodePoint(c, value.charAt(++i));
+					buffer.put((byte)(0xF0 | (codePoint >> 18)));
+					buffer.put((byte)(0x80 | ((codePoint >> 12) & 0x3F)));
+					buffer.put((byte)(0x80 | ((codePoint >> 6) & 0x3F)));
+					buffer.put((byte)(0x80 | (codePoint & 0x3F)));
+				} else if(isSurrogate(c)) {
+					buffer.put((byte)'?');
+				} else {
+					buffer.put((byte)(0xE0 | (c >> 12)));
+					buffer.put((byte)(0x80 | ((c >> 6) & 0x3F)));
+					buffer.put((byte)(0x80 | (c & 0x3F)));
+				}
+			}
+		}
+
+		private boolean isSurrogate(char c) {
+			return (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE);
+		}
+
+		private void ensure(int required) {
+			if(buffer.remaining() >= required)
+				return;
+
+			int capacity = Math.max(buffer.capacity() * 2, buffer.position() + required);
+			ByteBuffer larger = buffer.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+
+			buffer.flip();
+			larger.put(buffer);
+			buffer = larger;
+		}
+
+	}
+
+	private final class Decoder {
+
+		private final ByteBuffer buffer;
+
+		private final String relationId;
+
+		private final AttributeIndex attributeIndex;
+
+		public Decoder(ByteBuffer buffer) throws IOException {
+			this.buffer = buffer;
+			this.relationId = readString();
+
+			int attributeCount = readVarint();
+			AttributeIndex attributeIndex = getAttributeIndex(relationId);
+
+			if(attributeCount > 0 && attributeIndex == UNDECLARED)
+				throw new IOException("The relation '" + relationId + "' is not declared in the schema.");
+
+			if(attributeCount > 0 && attributeCount != attributeIndex.names.length)
+				throw new IOException("The relation '" + relationId + "' has " + attributeIndex.names.length + " attributes, but the message was written with " + attributeCount + ".");
+
+			this.attributeIndex = (attributeCount == 0) ? UNDECLARED : attributeIndex;
+		}
+
+		public QueryMessage readQuery() throws IOException {
+			QueryMessage queryMessage = new QueryMessage();
+			queryMessage.setRelationId(relationId);
+			queryMessage.setCommand(readString());
+			queryMessage.setQueryText(readString());
+			queryMessage.setPage(readSignedVarint());
+			queryMessage.setHitsPerPage(readSignedVarint());
+			queryMessage.setCursor(readString());
+			queryMessage.setStartRecord(readSignedVarint());
+			queryMessage.setReverse(readBoolean());
+			queryMessage.setNumHitsToCollect(readSignedVarint());
+
+			int size = readSize();
+
+			if(size >= 0) {
+				List<QueryAttribute> queryAttributeList = new ArrayList<QueryAttribute>(size);
+
+				for(int i = 0; i < size; i++) {
+					QueryAttribute queryAttribute = new QueryAttribute();
+					queryAttribute.setAttributeName(readAttribute());
+					queryAttribute.setKeyword(readString());
+
+					String occur = readString();
+
+					if(occur != null)
+						queryAttribute.setBooleanClauseOccur(BooleanClause.Occur.valueOf(occur));
+
+					queryAttribute.setAnalyzerId(readString());
+					queryAttributeList.add(queryAttribute);
+				}
+
+				queryMessage.setQueryAttributeList(queryAttributeList);
+			}
+
+			size = readSize();
+
+			if(size >= 0) {
+				List<FilterAttribute> filterAttributeList = new ArrayList<FilterAttribute>(size);
+
+				for(int i = 0; i < size; i++) {
+					FilterType filterType = FilterType.valueOf(readString());
+
+					if(filterType == null)
+						throw new IOException("Unknown filter type.");
+
+					String attributeName = readAttribute();
+					Object equalValue = readValue();
+					Object lowerValue = readValue();
+					Object upperValue = readValue();
+					boolean includeLower = readBoolean();
+					boolean includeUpper = readBoolean();
+					boolean essential = readBoolean();
+
+					if(filterType == FilterType.EQUAL)
+						filterAttributeList.add(new FilterAttribute(attributeName, equalValue, essential));
+					else
+						filterAttributeList.add(new FilterAttribute(filterType, attributeName, lowerValue, upperValue, includeLower, includeUpper, essential));
+				}
+
+				queryMessage.setFilterAttributeList(filterAttributeList);
+			}
+
+			size = readSize();
+
+			if(size >= 0) {
+				List<SortAttribute> sortAttributeList = new ArrayList<SortAttribute>(size);
+
+				for(int i = 0; i < size; i++) {
+					String attributeName = readAttribute();
+					int type = readVarint();
+					SortFieldType sortFieldType = null;
+
+					if(type > 0) {
+						sortFieldType = SortFieldType.valueOf(Integer.valueOf(type - 1));
+
+						if(sortFieldType == null)
+							throw new IOException("Unknown sort field type: " + (type - 1));
+					}
+
+					sortAttributeList.add(new SortAttribute(attributeName, sortFieldType, readBoolean()));
+				}
+
+				queryMessage.setSortAttributeList(sortAttributeList);
+			}
+
+			size = readSize();
+
+			if(size >= 0) {
+				List<String> selectAttributeList = new ArrayList<String>(size);
+
+				for(int i = 0; i < size; i++) {
+					selectAttributeList.add(readAttribute());
+				}
+
+				queryMessage.setSelectAttributeList(selectAttributeList);
+			}
+
+			return queryMessage;
+		}
+
+		public TransactionMessage readTransaction() throws IOException {
+			TransactionMessage transactionMessage = new TransactionMessage();
+			transactionMessage.setRelationId(relationId);
+
+			int size = readSize();
+
+			if(size >= 0) {
+				JobQueue jobQueue = new JobQueue();
+
+				for(int i = 0; i < size; i++) {
+					String jobType = readString();
+					Record record = readRecord();
+
+					if(JobType.INSERT.toString().equals(jobType))
+						jobQueue.add(new InsertJob(record));
+					else if(JobType.UPDATE.toString().equals(jobType))
+						jobQueue.add(new UpdateJob(record));
+					else if(JobType.MERGE.toString().equals(jobType))
+						jobQueue.add(new MergeJob(record));
+					else if(JobType.DELETE.toString().equals(jobType))
+						jobQueue.add(new DeleteJob(record));
+					else
+						throw new IOException("Unknown job type: " + jobType);
+				}
+
+				transactionMessage.setJobQueue(jobQueue);
+			}
+
+			return transactionMessage;
+		}
+
+		public ResultMessage readResult() throws IOException {
+			ResultMessage resultMessage = new ResultMessage();
+			resultMessage.setRelationId(relationId);
+			resultMessage.setError(readString());
+			resultMessage.setTotalRecords(readSignedVarint());
+			resultMessage.setNextCursor(readString());
+
+			int size = readSize();
+
+			if(size >= 0) {
+				RecordList recordList = new RecordList(size);
+
+				for(int i = 0; i < size; i++) {
+					recordList.add(readRecord());
+				}
+
+				resultMessage.setRecordList(recordList);
+			}
+
+			return resultMessage;
+		}
+
+		private Record readRecord() throws IOException {
+			int size = readSize();
+
+			if(size < 0)
+				return null;
+
+			Record record = new Record();
+			Map<String, String> values = new HashMap<String, String>(size * 2);
+
+			for(int i = 0; i < size; i++) {
+				String attributeName = readAttribute();
+				values.put(attributeName, readString());
+			}
+
+			record.setValues(values);
+
+			return record;
+		}
+
+		private String readAttribute() throws IOException {
+			int ordinal = readVarint();
+
+			if(ordinal == 0)
+				return readString();
+
+			if(ordinal > attributeIndex.names.length)
+				throw new IOException("Unknown attribute ordinal: " + (ordinal - 1));
+
+			return attributeIndex.names[ordinal - 1];
+		}
+
+		private Object readValue() throws IOException {
+			byte tag = buffer.get();
+
+			switch(tag) {
+			case NULL_VALUE:
+				return null;
+			case STRING_VALUE:
+				return readString();
+			case INT_VALUE:
+				return Integer.valueOf(readSignedVarint());
+			case LONG_VALUE:
+				return Long.valueOf(readSignedVarlong());
+			case FLOAT_VALUE:
+				return Float.valueOf(buffer.getFloat());
+			case DOUBLE_VALUE:
+				return Double.valueOf(buffer.getDouble());
+			default:
+				throw new IOException("Unknown value tag: " + tag);
+			}
+		}
+
+		/**
+		 * 목록의 원소 수를 읽는다. null 목록은 -1이다.
+		 * 원소는 적어도 1바이트이므로, 남은 바이트보다 많은 원소 수는 잘못된 메시지이다.
+		 */
+		private int readSize() throws IOException {
+			int size = readVarint() - 1;
+
+			if(size < -1 || size > buffer.remaining())
+				throw new IOException("Invalid list size: " + size);
+
+			return size;
+		}
+
+		private boolean readBoolean() {
+			return (buffer.get() != 0);
+		}
+
+		private int readVarint() throws IOException {
+			int value = 0;
+
+			for(int shift = 0; shift < 32; shift += 7) {
+				byte b = buffer.get();
+				value |= (b & 0x7F) << shift;
+
+				if((b & 0x80) == 0)
+					return value;
+			}
+
+			throw new IOException("Malformed varint.");
+		}
+
+		private int readSignedVarint() throws IOException {
+			int value = readVarint();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		private long readSignedVarlong() throws IOException {
+			long value = 0;
+
+			for(int shift = 0; shift < 64; shift += 7) {
+				byte b = buffer.get();
+				value |= (long)(b & 0x7F) << shift;
+
+				if((b & 0x80) == 0)
+					return (value >>> 1) ^ -(value & 1);
+			}
+
+			throw new IOException("Malformed varint.");
+		}
+
+		private String readString() throws IOException {
+			int length = readVarint() - 1;
+
+			if(length < 0)
+				return null;
+
+			if(length > buffer.remaining())
+				throw new IOException("Invalid string length: " + length);
+
+			String value;
+
+			if(buffer.hasArray()) {
+				value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF_8);
+				buffer.position(buffer.position() + length);
+			} else {
+				byte[] bytes = new byte[length];
+				buffer.get(bytes);
+				value = new String(bytes, UTF_8);
+			}
+
+			return value;
+		}
+
+	}
+
+}
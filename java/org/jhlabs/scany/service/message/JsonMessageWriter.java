@@ -0,0 +1,140 @@
+/**
+ *
+ */
+package org.jhlabs.scany.service.message;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+import org.jhlabs.scany.engine.entity.Record;
+
+/**
+ * 응답 메시지를 JSON 형식으로 기록한다.
+ *
+ * <pre>
+ * {"relationId":"...","totalRecords":0,"nextCursor":null,"error":null,
+ *  "records":[{"attributeName":"value",...},...]}
+ *
+ * 레코드 목록이 없으면 records는 null이다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class JsonMessageWriter extends AbstractMessageWriter {
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	public JsonMessageWriter(WritableByteChannel channel, Charset charset, int bufferSize) {
+		super(channel, charset, bufferSize);
+	}
+
+	@Override
+	protected void writeHeader(ResultMessage resultMessage, boolean hasRecords) throws IOException {
+		append("{\"relationId\":");
+		appendString(resultMessage.getRelationId());
+		append(",\"totalRecords\":");
+		append(String.valueOf(resultMessage.getTotalRecords()));
+		append(",\"nextCursor\":");
+		appendString(resultMessage.getNextCursor());
+		append(",\"error\":");
+		appendString(resultMessage.getError());
+		append(",\"records\":");
+
+		if(!hasRecords)
+			append("null");
+	}
+
+	@Override
+	protected void writeRecordsStart() throws IOException {
+		append('[');
+	}
+
+	@Override
+	protected void writeRecord(Record record, int index) throws IOException {
+		if(index > 0)
+			append(',');
+
+		if(record == null || record.getValues() == null) {
+			append("null");
+			return;
+		}
+
+		append('{');
+
+		boolean first = true;
+
+		for(Map.Entry<String, String> entry : record.getValues().entrySet()) {
+			if(!first)
+				append(',');
+
+			appendString(entry.getKey());
+			append(':');
+			appendString(entry.getValue());
+			first = false;
+		}
+
+		append('}');
+	}
+
+	@Override
+	protected void writeRecordsEnd() throws IOException {
+		append(']');
+	}
+
+	@Override
+	protected void writeFooter() throws IOException {
+		append('}');
+	}
+
+	/**
+	 * 문자열을 JSON 문자열로 기록한다.
+	 * 자바스크립트에서 줄바꿈으로 해석되는 U+2028, U+2029도 이스케이프한다.
+	 */
+	private void appendString(String value) throws IOException {
+		if(value == null) {
+			append("null");
+			return;
+		}
+
+		append('"');
+
+		int length = value.length();
+
+		for(int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+
+			switch(c) {
+			case '"':
+				append("\\\"");
+				break;
+			case '\\':
+				append("\\\\");
+				break;
+			case '\n':
+				append("\\n");
+				break;
+			case '\r':
+				append("\\r");
+				break;
+			case '\t':
+				append("\\t");
+				break;
+			default:
+				if(c < 0x20 || c == 0x2028 || c == 0x2029) {
+					append("\\u");
+					append(HEX_DIGITS[(c >> 12) & 0xF]);
+					append(HEX_DIGITS[(c >> 8) & 0xF]);
+					append(HEX_DIGITS[(c >> 4) & 0xF]);
+					append(HEX_DIGITS[c & 0xF]);
+				} else {
+					append(c);
+				}
+			}
+		}
+
+		append('"');
+	}
+
+}
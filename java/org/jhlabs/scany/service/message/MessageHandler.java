@@ -0,0 +1,173 @@
+/**
+ *
+ */
+package org.jhlabs.scany.service.message;
+
+import java.util.Iterator;
+
+import org.jhlabs.scany.engine.entity.Record;
+import org.jhlabs.scany.engine.entity.RecordList;
+import org.jhlabs.scany.engine.search.AnySearcher;
+import org.jhlabs.scany.engine.search.FilterAttribute;
+import org.jhlabs.scany.engine.search.QueryAttribute;
+import org.jhlabs.scany.engine.search.SearchModel;
+import org.jhlabs.scany.engine.search.SortAttribute;
+import org.jhlabs.scany.engine.transaction.AnyTransaction;
+import org.jhlabs.scany.engine.transaction.job.Job;
+import org.jhlabs.scany.engine.transaction.job.JobType;
+import org.jhlabs.scany.service.AnyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 원격 서비스가 받은 메시지를 로컬 서비스(AnyService)로 처리하고 응답 메시지를 만든다.
+ *
+ * <pre>
+ * 처리 중에 발생한 예외는 던지지 않고 응답 메시지의 error에 담는다.
+ * 여러 스레드에서 동시에 호출할 수 있다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class MessageHandler {
+
+	private static final Logger logger = LoggerFactory.getLogger(MessageHandler.class);
+
+	private final AnyService anyService;
+
+	public MessageHandler(AnyService anyService) {
+		this.anyService = anyService;
+	}
+
+	/**
+	 * 메시지를 처리한다.
+	 *
+	 * @param message 검색 메시지 또는 트랜잭션 메시지
+	 * @return 응답 메시지
+	 */
+	public ResultMessage handle(Message message) {
+		try {
+			if(message instanceof QueryMessage)
+				return query((QueryMessage)message);
+
+			if(message instanceof TransactionMessage)
+				return transact((TransactionMessage)message);
+
+			throw new IllegalArgumentException("Unsupported message: " + (message == null ? null : message.getClass().getName()));
+		} catch(Exception e) {
+			String error = describe(e);
+			logger.warn("Failed to handle message. {}", error);
+
+			ResultMessage resultMessage = new ResultMessage();
+			resultMessage.setError(error);
+
+			return resultMessage;
+		}
+	}
+
+	private ResultMessage query(QueryMessage queryMessage) throws Exception {
+		AnySearcher searcher = anyService.getSearcher(queryMessage.getRelationId());
+		searcher.setHitsPerPage(queryMessage.getHitsPerPage());
+
+		if(queryMessage.getQueryAttributeList() != null) {
+			for(QueryAttribute queryAttribute : queryMessage.getQueryAttributeList()) {
+				searcher.addQueryAttribute(queryAttribute);
+			}
+		}
+
+		if(queryMessage.getFilterAttributeList() != null) {
+			for(FilterAttribute filterAttribute : queryMessage.getFilterAttributeList()) {
+				searcher.addFilterAttribute(filterAttribute);
+			}
+		}
+
+		if(queryMessage.getSortAttributeList() != null) {
+			for(SortAttribute sortAttribute : queryMessage.getSortAttributeList()) {
+				searcher.addSortAttribute(sortAttribute);
+			}
+		}
+
+		if(queryMessage.getSelectAttributeList() != null) {
+			for(String attributeName : queryMessage.getSelectAttributeList()) {
+				searcher.addSelectAttribute(attributeName);
+			}
+		}
+
+		String command = queryMessage.getCommand();
+		RecordList recordList = null;
+		Iterator<Record> recordIterator = null;
+
+		if(QueryMessage.SEARCH.equals(command)) {
+			recordList = searcher.search(queryMessage.getQueryText(), queryMessage.getPage());
+		} else if(QueryMessage.SEARCH_AFTER.equals(command)) {
+			recordList = searcher.searchAfter(queryMessage.getQueryText(), queryMessage.getCursor());
+		} else if(QueryMessage.RANDOM.equals(command)) {
+			recordList = searcher.random(queryMessage.getQueryText());
+		} else if(QueryMessage.SEEK.equals(command)) {
+			recordList = searcher.seek(queryMessage.getStartRecord(), queryMessage.getHitsPerPage(), queryMessage.isReverse());
+		} else if(QueryMessage.ITERATE.equals(command)) {
+			// 레코드를 목록으로 모으지 않고 응답을 기록할 때 하나씩 추출한다.
+			((SearchModel)searcher).setStartRecord(queryMessage.getStartRecord());
+			recordIterator = searcher.interator(queryMessage.getQueryText(), queryMessage.getNumHitsToCollect());
+		} else {
+			throw new IllegalArgumentException("Unknown query command: " + command);
+		}
+
+		ResultMessage resultMessage = new ResultMessage();
+		resultMessage.setRelationId(queryMessage.getRelationId());
+		resultMessage.setRecordList(recordList);
+		resultMessage.setRecordIterator(recordIterator);
+		resultMessage.setTotalRecords(searcher.getTotalRecords());
+		resultMessage.setNextCursor(searcher.getNextCursor());
+
+		return resultMessage;
+	}
+
+	private ResultMessage transact(TransactionMessage transactionMessage) throws Exception {
+		AnyTransaction transaction = anyService.getTransaction(transactionMessage.getRelationId());
+		int jobs = 0;
+
+		if(transactionMessage.getJobQueue() != null) {
+			for(Job job : transactionMessage.getJobQueue()) {
+				if(job.getJobType() == JobType.INSERT) {
+					transaction.insert(job.getRecord());
+				} else if(job.getJobType() == JobType.UPDATE) {
+					transaction.update(job.getRecord());
+				} else if(job.getJobType() == JobType.MERGE) {
+					transaction.merge(job.getRecord());
+				} else if(job.getJobType() == JobType.DELETE) {
+					transaction.delete(job.getRecord());
+				} else {
+					throw new IllegalArgumentException("Unknown job type: " + job.getJobType());
+				}
+
+				jobs++;
+			}
+		}
+
+		transaction.commit();
+
+		ResultMessage resultMessage = new ResultMessage();
+		resultMessage.setRelationId(transactionMessage.getRelationId());
+		resultMessage.setTotalRecords(jobs);
+
+		return resultMessage;
+	}
+
+	/**
+	 * 예외와 원인 예외를 클라이언트에 전달할 문자열로 만든다.
+	 */
+	private static String describe(Throwable t) {
+		StringBuilder sb = new StringBuilder(t.toString());
+		Throwable cause = t.getCause();
+
+		while(cause != null && cause != t) {
+			sb.append("; caused by ").append(cause.toString());
+			t = cause;
+			cause = cause.getCause();
+		}
+
+		return sb.toString();
+	}
+
+}
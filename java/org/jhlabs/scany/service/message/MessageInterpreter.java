@@ -1,9 +1,28 @@
 /**
- * 
+ *
  */
 package org.jhlabs.scany.service.message;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+
+import org.jhlabs.scany.context.type.MessageFormat;
+import org.jhlabs.scany.engine.entity.Record;
+import org.jhlabs.scany.engine.entity.Schema;
+
 /**
+ * 메시지 형식(MessageFormat)에 맞는 코덱을 골라서 응답 메시지를 기록한다.
+ *
+ * <pre>
+ * JSON, XML은 AbstractMessageWriter로 레코드를 하나씩 채널에 바로 기록하므로 검색결과의 크기와 관계없이 메모리가 일정하다.
+ * BINARY는 레코드 수를 먼저 기록하는 형식이므로 BinaryMessageCodec으로 전체를 인코딩한 후에 기록한다.
+ * 메시지 형식을 지정하지 않으면 JSON을 사용한다. 여러 스레드에서 동시에 사용할 수 있다.
+ * </pre>
  *
  * @author Gulendol
  *
@@ -12,4 +31,121 @@ package org.jhlabs.scany.service.message;
  */
 public class MessageInterpreter {
 
+	public static final String DEFAULT_CHARACTER_ENCODING = "UTF-8";
+
+	private final MessageFormat messageFormat;
+
+	private final Charset charset;
+
+	private final BinaryMessageCodec binaryMessageCodec;
+
+	private int bufferSize = AbstractMessageWriter.DEFAULT_BUFFER_SIZE;
+
+	/**
+	 * @param messageFormat 메시지 형식, null이면 JSON
+	 * @param characterEncoding JSON, XML의 문자 인코딩, null이면 UTF-8
+	 * @param schema BINARY 형식의 속성 순번을 정할 스키마
+	 */
+	public MessageInterpreter(MessageFormat messageFormat, String characterEncoding, Schema schema) {
+		this.messageFormat = (messageFormat == null) ? MessageFormat.JSON : messageFormat;
+		this.charset = Charset.forName(characterEncoding == null ? DEFAULT_CHARACTER_ENCODING : characterEncoding);
+		this.binaryMessageCodec = new BinaryMessageCodec(schema);
+	}
+
+	public MessageFormat getMessageFormat() {
+		return messageFormat;
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * JSON, XML을 기록할 때 사용할 버퍼의 크기(문자 수)를 지정한다.
+	 *
+	 * @param bufferSize the buffer size
+	 */
+	public void setBufferSize(int bufferSize) {
+		this.bufferSize = bufferSize;
+	}
+
+	public BinaryMessageCodec getBinaryMessageCodec() {
+		return binaryMessageCodec;
+	}
+
+	/**
+	 * 메시지 형식의 Content-Type을 반환한다.
+	 *
+	 * @return the content type
+	 */
+	public String getContentType() {
+		if(messageFormat == MessageFormat.XML)
+			return "application/xml; charset=" + charset.name();
+		if(messageFormat == MessageFormat.BINARY)
+			return "application/octet-stream";
+
+		return "application/json; charset=" + charset.name();
+	}
+
+	/**
+	 * 레코드를 하나씩 기록할 writer를 만든다. BINARY 형식은 지원하지 않는다.
+	 *
+	 * @param channel 채널
+	 * @return AbstractMessageWriter
+	 */
+	public AbstractMessageWriter createWriter(WritableByteChannel channel) {
+		if(messageFormat == MessageFormat.XML)
+			return new XmlMessageWriter(channel, charset, bufferSize);
+		if(messageFormat == MessageFormat.JSON)
+			return new JsonMessageWriter(channel, charset, bufferSize);
+
+		throw new UnsupportedOperationException("Streaming is not supported for " + messageFormat + " format.");
+	}
+
+	/**
+	 * 응답 메시지를 채널에 기록한다.
+	 *
+	 * @param resultMessage 응답 메시지
+	 * @param channel 채널
+	 * @throws IOException
+	 */
+	public void write(ResultMessage resultMessage, WritableByteChannel channel) throws IOException {
+		write(resultMessage, null, channel);
+	}
+
+	/**
+	 * 응답 메시지와 레코드를 채널에 기록한다.
+	 *
+	 * @param resultMessage 응답 메시지, recordList 대신 records를 기록한다.
+	 * @param records 레코드, null이면 응답 메시지의 recordIterator 또는 recordList를 기록한다.
+	 * @param channel 채널
+	 * @throws IOException
+	 */
+	public void write(ResultMessage resultMessage, Iterator<Record> records, WritableByteChannel channel) throws IOException {
+		if(messageFormat != MessageFormat.BINARY) {
+			createWriter(channel).write(resultMessage, records);
+			return;
+		}
+
+		// 바이너리 형식은 레코드의 수를 먼저 기록하므로 레코드를 모두 추출한 후에 기록한다.
+		if(records != null)
+			resultMessage.setRecordIterator(records);
+
+		resultMessage.collectRecords();
+
+		ByteBuffer buffer = binaryMessageCodec.encode(resultMessage);
+
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	public void write(ResultMessage resultMessage, OutputStream out) throws IOException {
+		write(resultMessage, null, Channels.newChannel(out));
+	}
+
 }
@@ -4,10 +4,21 @@
 package org.jhlabs.scany.service.message;
 
 import java.io.Serializable;
+import java.util.List;
 
+import org.jhlabs.scany.engine.search.FilterAttribute;
+import org.jhlabs.scany.engine.search.QueryAttribute;
 import org.jhlabs.scany.engine.search.SearchModel;
+import org.jhlabs.scany.engine.search.SortAttribute;
 
 /**
+ * 원격 서비스에 요청하는 검색 메시지.
+ *
+ * <pre>
+ * 릴레이션 ID와 검색 명령(search, searchAfter, random, seek), 그리고 SearchModel의 검색 조건을 담는다.
+ * 검색 조건의 속성(Attribute)과 분석기는 보내지 않으며, 서버가 자신의 스키마에서 다시 찾아서 검증한다.
+ * 요약기(Summarizer)는 서버 스키마의 기본 설정을 따른다.
+ * </pre>
  *
  * @author Gulendol
  *
@@ -18,10 +29,161 @@ public class QueryMessage extends AbstractMessage implements Message, Serializab
 
 	private static final long serialVersionUID = -1180197750724560282L;
 
-	private SearchModel searchModel;
-	
+	public static final String SEARCH = "search";
+
+	public static final String SEARCH_AFTER = "searchAfter";
+
+	public static final String RANDOM = "random";
+
+	public static final String SEEK = "seek";
+
+	public static final String ITERATE = "iterate";
+
+	private String relationId;
+
+	private String command = SEARCH;
+
+	private String queryText;
+
+	private int page = 1;
+
+	private int hitsPerPage = 10;
+
+	private String cursor;
+
+	private int startRecord;
+
+	private boolean reverse;
+
+	private int numHitsToCollect;
+
+	private List<QueryAttribute> queryAttributeList;
+
+	private List<FilterAttribute> filterAttributeList;
+
+	private List<SortAttribute> sortAttributeList;
+
+	private List<String> selectAttributeList;
+
+	public QueryMessage() {
+	}
+
+	/**
+	 * SearchModel의 검색 조건으로 검색 메시지를 만든다.
+	 *
+	 * @param searchModel the search model
+	 */
 	public QueryMessage(SearchModel searchModel) {
-		this.searchModel = searchModel;
+		this.relationId = searchModel.getRelation().getId();
+		this.hitsPerPage = searchModel.getHitsPerPage();
+		this.queryAttributeList = searchModel.getQueryAttributeList();
+		this.filterAttributeList = searchModel.getFilterAttributeList();
+		this.sortAttributeList = searchModel.getSortAttributeList();
+		this.selectAttributeList = searchModel.getSelectAttributeList();
+	}
+
+	public String getRelationId() {
+		return relationId;
+	}
+
+	public void setRelationId(String relationId) {
+		this.relationId = relationId;
+	}
+
+	public String getCommand() {
+		return command;
+	}
+
+	public void setCommand(String command) {
+		this.command = command;
+	}
+
+	public String getQueryText() {
+		return queryText;
+	}
+
+	public void setQueryText(String queryText) {
+		this.queryText = queryText;
+	}
+
+	public int getPage() {
+		return page;
+	}
+
+	public void setPage(int page) {
+		this.page = page;
 	}
-	
+
+	public int getHitsPerPage() {
+		return hitsPerPage;
+	}
+
+	public void setHitsPerPage(int hitsPerPage) {
+		this.hitsPerPage = hitsPerPage;
+	}
+
+	public String getCursor() {
+		return cursor;
+	}
+
+	public void setCursor(String cursor) {
+		this.cursor = cursor;
+	}
+
+	public int getStartRecord() {
+		return startRecord;
+	}
+
+	public void setStartRecord(int startRecord) {
+		this.startRecord = startRecord;
+	}
+
+	public boolean isReverse() {
+		return reverse;
+	}
+
+	public void setReverse(boolean reverse) {
+		this.reverse = reverse;
+	}
+
+	public int getNumHitsToCollect() {
+		return numHitsToCollect;
+	}
+
+	public void setNumHitsToCollect(int numHitsToCollect) {
+		this.numHitsToCollect = numHitsToCollect;
+	}
+
+	public List<QueryAttribute> getQueryAttributeList() {
+		return queryAttributeList;
+	}
+
+	public void setQueryAttributeList(List<QueryAttribute> queryAttributeList) {
+		this.queryAttributeList = queryAttributeList;
+	}
+
+	public List<FilterAttribute> getFilterAttributeList() {
+		return filterAttributeList;
+	}
+
+	public void setFilterAttributeList(List<FilterAttribute> filterAttributeList) {
+		this.filterAttributeList = filterAttributeList;
+	}
+
+	public List<SortAttribute> getSortAttributeList() {
+		return sortAttributeList;
+	}
+
+	public void setSortAttributeList(List<SortAttribute> sortAttributeList) {
+		this.sortAttributeList = sortAttributeList;
+	}
+
+	public List<String> getSelectAttributeList() {
+		return selectAttributeList;
+	}
+
+	public void setSelectAttributeList(List<String> selectAttributeList) {
+		this.selectAttributeList = selectAttributeList;
+	}
+
 }
@@ -4,8 +4,20 @@
 package org.jhlabs.scany.service.message;
 
 import java.io.Serializable;
+import java.util.Iterator;
+
+import org.jhlabs.scany.engine.entity.Record;
+import org.jhlabs.scany.engine.entity.RecordList;
 
 /**
+ * 검색 메시지 또는 트랜잭션 메시지에 대한 응답 메시지.
+ *
+ * <pre>
+ * 처리에 실패하면 error에 실패 사유를 담고, recordList는 null이다.
+ * 트랜잭션 메시지의 응답은 recordList 없이 처리한 작업의 수를 totalRecords에 담는다.
+ * 순차 검색(ITERATE)의 응답은 recordList 대신 recordIterator에 레코드를 담아서, JSON, XML로 기록할 때 레코드를 하나씩 추출하면서 기록한다.
+ * recordIterator는 직렬화되지 않으므로, 레코드의 수를 먼저 기록하는 형식으로 보낼 때는 collectRecords()로 목록을 만든다.
+ * </pre>
  *
  * @author Gulendol
  *
@@ -16,4 +28,96 @@ public class ResultMessage extends AbstractMessage implements Message, Serializa
 
 	private static final long serialVersionUID = 8026856248716692250L;
 
+	private String relationId;
+
+	private RecordList recordList;
+
+	private transient Iterator<Record> recordIterator;
+
+	private int totalRecords;
+
+	private String nextCursor;
+
+	private String error;
+
+	/**
+	 * 요청 메시지의 릴레이션 ID를 반환한다.
+	 * 바이너리 형식은 레코드의 속성명을 이 릴레이션의 속성 순번으로 기록한다.
+	 *
+	 * @return the relation id
+	 */
+	public String getRelationId() {
+		return relationId;
+	}
+
+	public void setRelationId(String relationId) {
+		this.relationId = relationId;
+	}
+
+	public RecordList getRecordList() {
+		return recordList;
+	}
+
+	public void setRecordList(RecordList recordList) {
+		this.recordList = recordList;
+	}
+
+	public Iterator<Record> getRecordIterator() {
+		return recordIterator;
+	}
+
+	/**
+	 * recordList 대신 기록할 레코드를 지정한다. 레코드는 기록할 때 추출된다.
+	 *
+	 * @param recordIterator the record iterator
+	 */
+	public void setRecordIterator(Iterator<Record> recordIterator) {
+		this.recordIterator = recordIterator;
+	}
+
+	/**
+	 * recordIterator의 레코드를 모두 recordList로 옮긴다. recordIterator가 없으면 아무것도 하지 않는다.
+	 */
+	public void collectRecords() {
+		if(recordIterator == null)
+			return;
+
+		RecordList recordList = new RecordList();
+
+		while(recordIterator.hasNext()) {
+			recordList.add(recordIterator.next());
+		}
+
+		this.recordList = recordList;
+		this.recordIterator = null;
+	}
+
+	public int getTotalRecords() {
+		return totalRecords;
+	}
+
+	public void setTotalRecords(int totalRecords) {
+		this.totalRecords = totalRecords;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+	public boolean isSuccess() {
+		return (error == null);
+	}
+
 }
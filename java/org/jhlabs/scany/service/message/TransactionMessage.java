@@ -8,6 +8,8 @@ import java.io.Serializable;
 import org.jhlabs.scany.engine.transaction.job.JobQueue;
 
 /**
+ * 원격 서비스에 요청하는 트랜잭션 메시지.
+ * 릴레이션 ID와 커밋할 작업 큐를 담으며, 서버는 하나의 트랜잭션으로 커밋한다.
  *
  * @author Gulendol
  *
@@ -18,6 +20,32 @@ public class TransactionMessage extends AbstractMessage implements Message, Seri
 
 	private static final long serialVersionUID = 1378325630457487475L;
 
+	private String relationId;
+
 	private JobQueue jobQueue;
-	
+
+	public TransactionMessage() {
+	}
+
+	public TransactionMessage(String relationId, JobQueue jobQueue) {
+		this.relationId = relationId;
+		this.jobQueue = jobQueue;
+	}
+
+	public String getRelationId() {
+		return relationId;
+	}
+
+	public void setRelationId(String relationId) {
+		this.relationId = relationId;
+	}
+
+	public JobQueue getJobQueue() {
+		return jobQueue;
+	}
+
+	public void setJobQueue(JobQueue jobQueue) {
+		this.jobQueue = jobQueue;
+	}
+
 }
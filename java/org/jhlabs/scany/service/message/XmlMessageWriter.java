@@ -0,0 +1,142 @@
+/**
+ *
+ */
+package org.jhlabs.scany.service.message;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+import org.jhlabs.scany.engine.entity.Record;
+
+/**
+ * 응답 메시지를 XML 형식으로 기록한다.
+ *
+ * <pre>
+ * &lt;?xml version="1.0" encoding="UTF-8"?&gt;
+ * &lt;result relationId="..." totalRecords="0" nextCursor="..."&gt;
+ *   &lt;error&gt;...&lt;/error&gt;
+ *   &lt;records&gt;
+ *     &lt;record&gt;&lt;value name="attributeName"&gt;...&lt;/value&gt;...&lt;/record&gt;
+ *   &lt;/records&gt;
+ * &lt;/result&gt;
+ *
+ * 속성명은 XML 이름으로 쓸 수 없는 문자를 포함할 수 있으므로 요소명 대신 name 속성으로 기록한다.
+ * XML에서 허용하지 않는 제어 문자는 기록하지 않는다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class XmlMessageWriter extends AbstractMessageWriter {
+
+	private final Charset charset;
+
+	public XmlMessageWriter(WritableByteChannel channel, Charset charset, int bufferSize) {
+		super(channel, charset, bufferSize);
+		this.charset = charset;
+	}
+
+	@Override
+	protected void writeHeader(ResultMessage resultMessage, boolean hasRecords) throws IOException {
+		append("<?xml version=\"1.0\" encoding=\"");
+		append(charset.name());
+		append("\"?>\n<result");
+
+		if(resultMessage.getRelationId() != null) {
+			append(" relationId=\"");
+			appendEscaped(resultMessage.getRelationId());
+			append('"');
+		}
+
+		append(" totalRecords=\"");
+		append(String.valueOf(resultMessage.getTotalRecords()));
+		append('"');
+
+		if(resultMessage.getNextCursor() != null) {
+			append(" nextCursor=\"");
+			appendEscaped(resultMessage.getNextCursor());
+			append('"');
+		}
+
+		append('>');
+
+		if(resultMessage.getError() != null) {
+			append("<error>");
+			appendEscaped(resultMessage.getError());
+			append("</error>");
+		}
+	}
+
+	@Override
+	protected void writeRecordsStart() throws IOException {
+		append("<records>");
+	}
+
+	@Override
+	protected void writeRecord(Record record, int index) throws IOException {
+		append("<record>");
+
+		if(record != null && record.getValues() != null) {
+			for(Map.Entry<String, String> entry : record.getValues().entrySet()) {
+				append("<value name=\"");
+				appendEscaped(entry.getKey());
+
+				if(entry.getValue() == null) {
+					append("\"/>");
+				} else {
+					append("\">");
+					appendEscaped(entry.getValue());
+					append("</value>");
+				}
+			}
+		}
+
+		append("</record>");
+	}
+
+	@Override
+	protected void writeRecordsEnd() throws IOException {
+		append("</records>");
+	}
+
+	@Override
+	protected void writeFooter() throws IOException {
+		append("</result>\n");
+	}
+
+	private void appendEscaped(String value) throws IOException {
+		int length = value.length();
+
+		for(int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+
+			switch(c) {
+			case '<':
+				append("&lt;");
+				break;
+			case '>':
+				append("&gt;");
+				break;
+			case '&':
+				append("&amp;");
+				break;
+			case '"':
+				append("&quot;");
+				break;
+			case '\'':
+				append("&apos;");
+				break;
+			case '\t':
+			case '\n':
+			case '\r':
+				append(c);
+				break;
+			default:
+				if(c >= 0x20 && c != 0xFFFE && c != 0xFFFF)
+					append(c);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,150 @@
+/**
+ *
+ */
+package org.jhlabs.scany.service.remote;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.jhlabs.scany.engine.entity.Record;
+import org.jhlabs.scany.engine.entity.RecordList;
+import org.jhlabs.scany.engine.entity.Relation;
+import org.jhlabs.scany.engine.search.AnySearcher;
+import org.jhlabs.scany.engine.search.AnySearcherException;
+import org.jhlabs.scany.engine.search.SearchModel;
+import org.jhlabs.scany.service.message.QueryMessage;
+import org.jhlabs.scany.service.message.ResultMessage;
+
+/**
+ * 검색 조건을 검색 메시지로 만들어서 원격 서버에 보내고 응답을 기다린다.
+ * 메시지를 주고받는 방법은 전송 방식별 하위 클래스가 send()로 구현한다.
+ *
+ * @author Gulendol
+ */
+public abstract class AbstractRemoteSearcher extends SearchModel implements AnySearcher {
+
+	public AbstractRemoteSearcher(Relation relation) throws AnySearcherException {
+		super(relation);
+	}
+
+	public RecordList search(String queryString) throws AnySearcherException {
+		return search(queryString, 1);
+	}
+
+	public RecordList search(int pageNo) throws AnySearcherException {
+		return search(null, pageNo);
+	}
+
+	public RecordList search(String queryString, int pageNo) throws AnySearcherException {
+		if(pageNo <= 0)
+			return null;
+
+		setPage(pageNo);
+
+		QueryMessage queryMessage = createQueryMessage(QueryMessage.SEARCH, queryString);
+		queryMessage.setPage(pageNo);
+
+		return execute(queryMessage).getRecordList();
+	}
+
+	public RecordList searchAfter(String cursor) throws AnySearcherException {
+		return searchAfter(null, cursor);
+	}
+
+	public RecordList searchAfter(String queryString, String cursor) throws AnySearcherException {
+		setNextCursor(null);
+
+		QueryMessage queryMessage = createQueryMessage(QueryMessage.SEARCH_AFTER, queryString);
+		queryMessage.setCursor(cursor);
+
+		return execute(queryMessage).getRecordList();
+	}
+
+	public RecordList random() throws AnySearcherException {
+		return random(null);
+	}
+
+	public RecordList random(String queryString) throws AnySearcherException {
+		return execute(createQueryMessage(QueryMessage.RANDOM, queryString)).getRecordList();
+	}
+
+	public RecordList seek(int start, int maxRecords, boolean reverse) throws AnySearcherException {
+		if(start < 0)
+			return null;
+
+		setPage(1);
+		setStartRecord(start);
+		setHitsPerPage(maxRecords);
+		setReverse(reverse);
+
+		QueryMessage queryMessage = createQueryMessage(QueryMessage.SEEK, null);
+		queryMessage.setStartRecord(start);
+		queryMessage.setReverse(reverse);
+
+		return execute(queryMessage).getRecordList();
+	}
+
+	public Iterator<Record> interator(int numHitsToCollect) throws AnySearcherException {
+		return interator(null, numHitsToCollect);
+	}
+
+	/**
+	 * 원격 서버에서 수집한 레코드의 반복자를 반환한다.
+	 * 레코드는 한 번에 모두 받는다.
+	 */
+	public Iterator<Record> interator(String queryString, int numHitsToCollect) throws AnySearcherException {
+		QueryMessage queryMessage = createQueryMessage(QueryMessage.ITERATE, queryString);
+		queryMessage.setStartRecord(getStartRecord());
+		queryMessage.setNumHitsToCollect(numHitsToCollect);
+
+		RecordList recordList = execute(queryMessage).getRecordList();
+
+		if(recordList == null)
+			recordList = new RecordList();
+
+		return recordList.iterator();
+	}
+
+	/**
+	 * 검색 메시지를 원격 서버에 보내고 응답을 받는다.
+	 *
+	 * @param queryMessage 검색 메시지
+	 * @return 응답 메시지
+	 * @throws IOException 서버와 메시지를 주고받을 수 없는 경우
+	 */
+	protected abstract ResultMessage send(QueryMessage queryMessage) throws IOException;
+
+	/**
+	 * 오류 메시지에 표시할 원격 서버의 주소를 반환한다.
+	 */
+	protected abstract String getEndpoint();
+
+	private QueryMessage createQueryMessage(String command, String queryString) {
+		setQueryText(queryString);
+
+		QueryMessage queryMessage = new QueryMessage(this);
+		queryMessage.setCommand(command);
+		queryMessage.setQueryText(queryString);
+
+		return queryMessage;
+	}
+
+	private ResultMessage execute(QueryMessage queryMessage) throws AnySearcherException {
+		ResultMessage resultMessage;
+
+		try {
+			resultMessage = send(queryMessage);
+		} catch(Exception e) {
+			throw new AnySearcherException("Remote search failed. " + getEndpoint(), e);
+		}
+
+		if(!resultMessage.isSuccess())
+			throw new AnySearcherException("Remote search failed. " + resultMessage.getError());
+
+		setTotalRecords(resultMessage.getTotalRecords());
+		setNextCursor(resultMessage.getNextCursor());
+
+		return resultMessage;
+	}
+
+}
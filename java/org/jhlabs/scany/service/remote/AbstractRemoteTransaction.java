@@ -0,0 +1,64 @@
+package org.jhlabs.scany.service.remote;
+
+import java.io.IOException;
+
+import org.jhlabs.scany.engine.entity.Relation;
+import org.jhlabs.scany.engine.index.AnyIndexerException;
+import org.jhlabs.scany.engine.transaction.AbstractTransaction;
+import org.jhlabs.scany.engine.transaction.AnyTransaction;
+import org.jhlabs.scany.engine.transaction.job.JobQueue;
+import org.jhlabs.scany.service.message.ResultMessage;
+import org.jhlabs.scany.service.message.TransactionMessage;
+
+/**
+ * 쌓아둔 작업을 commit()할 때 하나의 트랜잭션 메시지로 원격 서버에 보낸다.
+ * 메시지를 주고받는 방법은 전송 방식별 하위 클래스가 send()로 구현한다.
+ *
+ * @author Gulendol
+ */
+public abstract class AbstractRemoteTransaction extends AbstractTransaction implements AnyTransaction {
+
+	public AbstractRemoteTransaction(Relation relation) {
+		super(relation);
+	}
+
+	public void commit() throws AnyIndexerException {
+		if(jobQueue.isEmpty())
+			return;
+
+		JobQueue jobs = new JobQueue();
+		jobs.addAll(jobQueue);
+
+		ResultMessage resultMessage;
+
+		try {
+			resultMessage = send(new TransactionMessage(relation.getId(), jobs));
+		} catch(Exception e) {
+			throw new AnyIndexerException("Remote transaction failed. " + getEndpoint(), e);
+		}
+
+		if(!resultMessage.isSuccess())
+			throw new AnyIndexerException("Remote transaction failed. " + resultMessage.getError());
+
+		jobQueue.clear();
+	}
+
+	public void rollback() {
+		jobQueue.clear();
+	}
+
+	/**
+	 * 트랜잭션 메시지를 원격 서버에 보내고 응답을 받는다.
+	 *
+	 * @param transactionMessage 트랜잭션 메시지
+	 * @return 응답 메시지
+	 * @throws IOException 서버와 메시지를 주고받을 수 없는 경우
+	 */
+	protected abstract ResultMessage send(TransactionMessage transactionMessage) throws IOException;
+
+	/**
+	 * 오류 메시지에 표시할 원격 서버의 주소를 반환한다.
+	 */
+	protected abstract String getEndpoint();
+
+}
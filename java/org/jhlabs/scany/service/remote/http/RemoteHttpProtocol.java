@@ -0,0 +1,111 @@
+/**
+ *
+ */
+package org.jhlabs.scany.service.remote.http;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+
+/**
+ * 원격 HTTP 서버(RemoteHttpServer)와 클라이언트가 주고받는 요청의 형식.
+ *
+ * <pre>
+ * GET  {contextPath}/{relationId}/{command}?q=...&amp;page=1&amp;hitsPerPage=10&amp;format=json
+ * GET  {contextPath}/{relationId}/{command}?m={hex}&amp;format=binary
+ * POST {contextPath}/{relationId}/transaction?format=binary   (본문: BINARY 형식의 트랜잭션 메시지)
+ *
+ * command는 QueryMessage의 명령(search, searchAfter, random, seek, iterate)과 같다.
+ * m은 BINARY 형식으로 인코딩한 검색 메시지를 16진수 문자열로 바꾼 것이며, 있으면 다른 검색 조건 파라미터는 무시한다.
+ * format을 지정하지 않으면 서버에 설정한 메시지 형식으로 응답한다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+final class RemoteHttpProtocol {
+
+	public static final String DEFAULT_CONTEXT_PATH = "/scany";
+
+	public static final String TRANSACTION = "transaction";
+
+	public static final String PARAM_MESSAGE = "m";
+
+	public static final String PARAM_FORMAT = "format";
+
+	public static final String PARAM_QUERY = "q";
+
+	public static final String PARAM_PAGE = "page";
+
+	public static final String PARAM_HITS_PER_PAGE = "hitsPerPage";
+
+	public static final String PARAM_CURSOR = "cursor";
+
+	public static final String PARAM_START = "start";
+
+	public static final String PARAM_REVERSE = "reverse";
+
+	public static final String PARAM_NUM_HITS_TO_COLLECT = "numHitsToCollect";
+
+	public static final String PARAM_SELECT = "select";
+
+	public static final String PARAM_FILTER = "filter";
+
+	public static final String PARAM_SORT = "sort";
+
+	/** 트랜잭션 메시지 본문의 최대 크기 */
+	public static final int MAX_BODY_SIZE = 64 * 1024 * 1024;
+
+	private static final String URL_ENCODING = "UTF-8";
+
+	private RemoteHttpProtocol() {
+	}
+
+	public static String toHex(ByteBuffer buffer) {
+		StringBuilder sb = new StringBuilder(buffer.remaining() * 2);
+
+		for(int i = buffer.position(); i < buffer.limit(); i++) {
+			byte b = buffer.get(i);
+			sb.append(Character.forDigit((b >> 4) & 0x0F, 16));
+			sb.append(Character.forDigit(b & 0x0F, 16));
+		}
+
+		return sb.toString();
+	}
+
+	public static ByteBuffer fromHex(String hex) {
+		if(hex.length() % 2 != 0)
+			throw new IllegalArgumentException("Invalid message parameter.");
+
+		byte[] bytes = new byte[hex.length() / 2];
+
+		for(int i = 0; i < bytes.length; i++) {
+			int high = Character.digit(hex.charAt(i * 2), 16);
+			int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+
+			if(high < 0 || low < 0)
+				throw new IllegalArgumentException("Invalid message parameter.");
+
+			bytes[i] = (byte)((high << 4) | low);
+		}
+
+		return ByteBuffer.wrap(bytes);
+	}
+
+	public static String encode(String value) {
+		try {
+			return URLEncoder.encode(value, URL_ENCODING);
+		} catch(UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public static String decode(String value) {
+		try {
+			return URLDecoder.decode(value, URL_ENCODING);
+		} catch(UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -1,62 +1,40 @@
-/**
- * 
- */
-package org.jhlabs.scany.service.remote.http;
-
-import java.util.Iterator;
-
-import org.jhlabs.scany.engine.entity.Record;
-import org.jhlabs.scany.engine.entity.RecordList;
-import org.jhlabs.scany.engine.entity.Relation;
-import org.jhlabs.scany.engine.search.AnySearcher;
-import org.jhlabs.scany.engine.search.AnySearcherException;
-import org.jhlabs.scany.engine.search.SearchModel;
-
-/**
- *
- * @author Gulendol
- *
- * <p>Created: 2011. 11. 6. 오후 4:46:36</p>
- *
- */
-public class RemoteHttpSearcher extends SearchModel implements AnySearcher {
-
-	public RemoteHttpSearcher(Relation relation) throws AnySearcherException {
-		super(relation);
-	}
-
-	public RecordList search(String queryString) throws AnySearcherException {
-		return null;
-	}
-
-	public RecordList search(int pageNo) throws AnySearcherException {
-		return null;
-	}
-
-	public RecordList search(String queryString, int pageNo) throws AnySearcherException {
-		return null;
-	}
-
-	public RecordList random() throws AnySearcherException {
-		return null;
-	}
-
-	public RecordList random(String queryString) throws AnySearcherException {
-		return null;
-	}
-
-	public RecordList seek(int start, int maxRecords, boolean reverse) throws AnySearcherException {
-		return null;
-	}
-
-	public Iterator<Record> interator(int numHitsToCollect) throws AnySearcherException {
-		// TODO Auto-generated method stub
-		return null;
-	}
-
-	public Iterator<Record> interator(String queryString, int numHitsToCollect) throws AnySearcherException {
-		// TODO Auto-generated method stub
-		return null;
-	}
-
-}
+/**
+ *
+ */
+package org.jhlabs.scany.service.remote.http;
+
+import java.io.IOException;
+
+import org.jhlabs.scany.engine.entity.Relation;
+import org.jhlabs.scany.engine.search.AnySearcherException;
+import org.jhlabs.scany.service.message.QueryMessage;
+import org.jhlabs.scany.service.message.ResultMessage;
+import org.jhlabs.scany.service.remote.AbstractRemoteSearcher;
+
+/**
+ * 검색 메시지를 원격 HTTP 서버에 보낸다.
+ * 같은 검색의 응답은 ETag로 재검증하므로 색인이 바뀌지 않았으면 서버에서 다시 검색하지 않는다.
+ *
+ * @author Gulendol
+ *
+ * <p>Created: 2011. 11. 6. 오후 4:46:36</p>
+ *
+ */
+public class RemoteHttpSearcher extends AbstractRemoteSearcher {
+
+	private final RemoteHttpService remoteHttpService;
+
+	public RemoteHttpSearcher(Relation relation, RemoteHttpService remoteHttpService) throws AnySearcherException {
+		super(relation);
+		this.remoteHttpService = remoteHttpService;
+	}
+
+	protected ResultMessage send(QueryMessage queryMessage) throws IOException {
+		return remoteHttpService.execute(queryMessage);
+	}
+
+	protected String getEndpoint() {
+		return remoteHttpService.getUrl();
+	}
+
+}
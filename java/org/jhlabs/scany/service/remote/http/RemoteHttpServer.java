@@ -0,0 +1,667 @@
+/**
+ *
+ */
+package org.jhlabs.scany.service.remote.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jhlabs.scany.context.ScanyContext;
+import org.jhlabs.scany.context.builder.ScanyContextBuilder;
+import org.jhlabs.scany.context.rule.RemoteHttpServiceRule;
+import org.jhlabs.scany.context.rule.ServerRule;
+import org.jhlabs.scany.context.type.MessageFormat;
+import org.jhlabs.scany.engine.entity.Relation;
+import org.jhlabs.scany.engine.search.FilterAttribute;
+import org.jhlabs.scany.engine.search.SortAttribute;
+import org.jhlabs.scany.engine.search.SortFieldType;
+import org.jhlabs.scany.service.AnyService;
+import org.jhlabs.scany.service.NoSuchRelationException;
+import org.jhlabs.scany.service.local.LocalService;
+import org.jhlabs.scany.service.message.BinaryMessageCodec;
+import org.jhlabs.scany.service.message.Message;
+import org.jhlabs.scany.service.message.MessageHandler;
+import org.jhlabs.scany.service.message.MessageInterpreter;
+import org.jhlabs.scany.service.message.QueryMessage;
+import org.jhlabs.scany.service.message.ResultMessage;
+import org.jhlabs.scany.service.message.TransactionMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 원격 HTTP 검색 서버.
+ *
+ * <pre>
+ * JDK에 포함된 HTTP 서버를 사용하므로 별도의 서블릿 컨테이너 없이 로컬 서비스 옆에서 바로 실행할 수 있다.
+ * 스키마의 모든 릴레이션에 대해 검색(search, searchAfter, random, seek, iterate)과 트랜잭션을 제공한다.
+ * 요청의 형식은 RemoteHttpProtocol을 참고한다.
+ *
+ * 연결은 HTTP/1.1 keep-alive로 유지하며, 응답은 chunked 전송으로 메시지 형식(MessageFormat)에 맞게 바로 기록한다.
+ * 검색 응답에는 색인의 버전을 ETag로 붙이고, If-None-Match가 같으면 검색하지 않고 304를 보낸다.
+ * 색인이 바뀌면 버전도 바뀌므로 클라이언트나 프록시는 Cache-Control: no-cache로 저장한 결과를 재검증해서 쓸 수 있다.
+ * random은 요청마다 결과가 다르므로 ETag를 붙이지 않는다.
+ *
+ * url의 호스트와 포트에 바인딩하며, 경로가 없으면 /scany를 사용한다. 포트를 0으로 지정하면 임의의 포트를 사용한다.
+ * </pre>
+ *
+ * @author Gulendol
+ *
+ * @see RemoteHttpProtocol
+ * @see MessageHandler
+ */
+public class RemoteHttpServer {
+
+	private static final Logger logger = LoggerFactory.getLogger(RemoteHttpServer.class);
+
+	public static final int DEFAULT_PORT = 9780;
+
+	private final RemoteHttpServiceRule remoteHttpServiceRule;
+
+	private final AnyService anyService;
+
+	private final MessageHandler messageHandler;
+
+	private final BinaryMessageCodec binaryMessageCodec;
+
+	private final Map<MessageFormat, MessageInterpreter> messageInterpreters = new LinkedHashMap<MessageFormat, MessageInterpreter>();
+
+	private final MessageInterpreter defaultMessageInterpreter;
+
+	private int workerThreads = Runtime.getRuntime().availableProcessors() * 2;
+
+	private String contextPath;
+
+	private HttpServer httpServer;
+
+	private ExecutorService workers;
+
+	private volatile boolean running;
+
+	public RemoteHttpServer(RemoteHttpServiceRule remoteHttpServiceRule, AnyService anyService) {
+		this.remoteHttpServiceRule = remoteHttpServiceRule;
+		this.anyService = anyService;
+		this.messageHandler = new MessageHandler(anyService);
+
+		MessageFormat[] messageFormats = new MessageFormat[] { MessageFormat.JSON, MessageFormat.XML, MessageFormat.BINARY };
+
+		for(MessageFormat messageFormat : messageFormats) {
+			MessageInterpreter messageInterpreter = new MessageInterpreter(messageFormat, remoteHttpServiceRule.getCharacterEncoding(), remoteHttpServiceRule.getSchema());
+			messageInterpreters.put(messageFormat, messageInterpreter);
+		}
+
+		MessageFormat messageFormat = remoteHttpServiceRule.getMessageFormat();
+		this.defaultMessageInterpreter = messageInterpreters.get(messageFormat == null ? MessageFormat.JSON : messageFormat);
+		this.binaryMessageCodec = messageInterpreters.get(MessageFormat.BINARY).getBinaryMessageCodec();
+	}
+
+	public int getWorkerThreads() {
+		return workerThreads;
+	}
+
+	/**
+	 * 요청을 처리할 작업 스레드의 수를 지정한다. 기본값은 코어 수의 두 배이다.
+	 *
+	 * @param workerThreads the worker threads
+	 */
+	public void setWorkerThreads(int workerThreads) {
+		this.workerThreads = workerThreads;
+	}
+
+	/**
+	 * 서버를 시작한다.
+	 *
+	 * @throws IOException 포트를 바인딩할 수 없는 경우
+	 */
+	public synchronized void start() throws IOException {
+		if(running)
+			throw new IllegalStateException("Server already started.");
+
+		URL url = parseUrl(remoteHttpServiceRule.getUrl());
+		String host = url.getHost();
+		int port = (url.getPort() == -1) ? DEFAULT_PORT : url.getPort();
+		InetSocketAddress address = (host == null || host.length() == 0) ? new InetSocketAddress(port) : new InetSocketAddress(host, port);
+
+		contextPath = url.getPath();
+
+		if(contextPath == null || contextPath.length() == 0 || contextPath.equals("/"))
+			contextPath = RemoteHttpProtocol.DEFAULT_CONTEXT_PATH;
+		else if(contextPath.endsWith("/"))
+			contextPath = contextPath.substring(0, contextPath.length() - 1);
+
+		workers = Executors.newFixedThreadPool(workerThreads, new NamedThreadFactory("scany-http-worker-"));
+
+		httpServer = HttpServer.create(address, 1024);
+		httpServer.createContext(contextPath + "/", new RequestHandler());
+		httpServer.setExecutor(workers);
+		httpServer.start();
+
+		running = true;
+
+		logger.info("Remote HTTP server started. http://{}:{}{} ({} workers)", new Object[] { httpServer.getAddress().getHostName(), getPort(), contextPath, workerThreads });
+	}
+
+	/**
+	 * 서버를 종료한다. 처리 중인 요청은 최대 10초까지 기다린다.
+	 */
+	public synchronized void stop() {
+		if(!running)
+			return;
+
+		running = false;
+
+		httpServer.stop(0);
+		workers.shutdown();
+
+		try {
+			workers.awaitTermination(10, TimeUnit.SECONDS);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		logger.info("Remote HTTP server stopped.");
+	}
+
+	/**
+	 * 바인딩된 포트를 반환한다.
+	 *
+	 * @return the port
+	 */
+	public int getPort() {
+		return httpServer.getAddress().getPort();
+	}
+
+	public String getContextPath() {
+		return contextPath;
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	private static URL parseUrl(String url) throws MalformedURLException {
+		if(url == null || url.length() == 0)
+			return new URL("http", "", DEFAULT_PORT, RemoteHttpProtocol.DEFAULT_CONTEXT_PATH);
+
+		return new URL(url);
+	}
+
+	/**
+	 * {contextPath}/{relationId}/{command} 요청을 처리한다.
+	 */
+	private final class RequestHandler implements HttpHandler {
+
+		public void handle(HttpExchange exchange) throws IOException {
+			try {
+				dispatch(exchange);
+			} catch(IOException e) {
+				logger.debug("Failed to send response to {} - {}", exchange.getRemoteAddress(), e.toString());
+			} catch(Exception e) {
+				logger.error("Unexpected error while handling " + exchange.getRequestURI(), e);
+			} finally {
+				exchange.close();
+			}
+		}
+
+		private void dispatch(HttpExchange exchange) throws IOException {
+			Map<String, List<String>> parameters = parseParameters(exchange.getRequestURI().getRawQuery());
+			String format = getParameter(parameters, RemoteHttpProtocol.PARAM_FORMAT);
+			MessageInterpreter messageInterpreter = defaultMessageInterpreter;
+
+			if(format != null) {
+				messageInterpreter = messageInterpreters.get(MessageFormat.valueOf(format));
+
+				if(messageInterpreter == null) {
+					sendError(exchange, defaultMessageInterpreter, 400, "Unknown message format: " + format);
+					return;
+				}
+			}
+
+			String path = exchange.getRequestURI().getRawPath().substring(contextPath.length() + 1);
+			int slash = path.indexOf('/');
+
+			if(slash <= 0 || slash == path.length() - 1 || path.indexOf('/', slash + 1) != -1) {
+				sendError(exchange, messageInterpreter, 404, "Not found: " + exchange.getRequestURI().getPath());
+				return;
+			}
+
+			String relationId = RemoteHttpProtocol.decode(path.substring(0, slash));
+			String command = path.substring(slash + 1);
+			String method = exchange.getRequestMethod();
+
+			if(RemoteHttpProtocol.TRANSACTION.equals(command)) {
+				if(!"POST".equals(method)) {
+					exchange.getResponseHeaders().set("Allow", "POST");
+					sendError(exchange, messageInterpreter, 405, "Method not allowed: " + method);
+					return;
+				}
+
+				transact(exchange, messageInterpreter, relationId);
+			} else if(isQueryCommand(command)) {
+				if(!"GET".equals(method) && !"HEAD".equals(method)) {
+					exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+					sendError(exchange, messageInterpreter, 405, "Method not allowed: " + method);
+					return;
+				}
+
+				query(exchange, messageInterpreter, relationId, command, parameters);
+			} else {
+				sendError(exchange, messageInterpreter, 404, "Unknown command: " + command);
+			}
+		}
+
+		private void query(HttpExchange exchange, MessageInterpreter messageInterpreter, String relationId, String command, Map<String, List<String>> parameters) throws IOException {
+			QueryMessage queryMessage;
+
+			try {
+				queryMessage = createQueryMessage(parameters);
+			} catch(Exception e) {
+				sendError(exchange, messageInterpreter, 400, e.getMessage());
+				return;
+			}
+
+			queryMessage.setRelationId(relationId);
+			queryMessage.setCommand(command);
+
+			Relation relation;
+
+			try {
+				relation = anyService.getSearchModel(relationId).getRelation();
+			} catch(NoSuchRelationException e) {
+				sendError(exchange, messageInterpreter, 404, "No such relation: " + relationId);
+				return;
+			} catch(Exception e) {
+				sendError(exchange, messageInterpreter, 500, e.toString());
+				return;
+			}
+
+			// 검색 전의 버전을 ETag로 쓴다. 검색 중에 색인이 바뀌어도 다음 요청에서 다시 검색하게 된다.
+			String etag = QueryMessage.RANDOM.equals(command) ? null : getETag(relation);
+
+			if(etag != null && matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+				Headers headers = exchange.getResponseHeaders();
+				headers.set("ETag", etag);
+				headers.set("Cache-Control", "no-cache");
+				exchange.sendResponseHeaders(304, -1);
+				return;
+			}
+
+			ResultMessage resultMessage = messageHandler.handle(queryMessage);
+
+			send(exchange, messageInterpreter, resultMessage.isSuccess() ? 200 : 500, resultMessage, etag);
+		}
+
+		private void transact(HttpExchange exchange, MessageInterpreter messageInterpreter, String relationId) throws IOException {
+			Message message;
+
+			try {
+				message = binaryMessageCodec.decode(readBody(exchange));
+			} catch(IOException e) {
+				sendError(exchange, messageInterpreter, 400, e.getMessage());
+				return;
+			}
+
+			if(!(message instanceof TransactionMessage)) {
+				sendError(exchange, messageInterpreter, 400, "Not a transaction message.");
+				return;
+			}
+
+			TransactionMessage transactionMessage = (TransactionMessage)message;
+			transactionMessage.setRelationId(relationId);
+
+			try {
+				anyService.getSearchModel(relationId);
+			} catch(NoSuchRelationException e) {
+				sendError(exchange, messageInterpreter, 404, "No such relation: " + relationId);
+				return;
+			} catch(Exception e) {
+				sendError(exchange, messageInterpreter, 500, e.toString());
+				return;
+			}
+
+			ResultMessage resultMessage = messageHandler.handle(transactionMessage);
+
+			send(exchange, messageInterpreter, resultMessage.isSuccess() ? 200 : 500, resultMessage, null);
+		}
+
+		private void sendError(HttpExchange exchange, MessageInterpreter messageInterpreter, int status, String error) throws IOException {
+			ResultMessage resultMessage = new ResultMessage();
+			resultMessage.setError(error);
+
+			send(exchange, messageInterpreter, status, resultMessage, null);
+		}
+
+		/**
+		 * 응답 메시지를 chunked 전송으로 기록한다. HEAD 요청이면 헤더만 보낸다.
+		 */
+		private void send(HttpExchange exchange, MessageInterpreter messageInterpreter, int status, ResultMessage resultMessage, String etag) throws IOException {
+			Headers headers = exchange.getResponseHeaders();
+			headers.set("Content-Type", messageInterpreter.getContentType());
+
+			if(etag != null && status == 200) {
+				headers.set("ETag", etag);
+				headers.set("Cache-Control", "no-cache");
+			} else {
+				headers.set("Cache-Control", "no-store");
+			}
+
+			if("HEAD".equals(exchange.getRequestMethod())) {
+				exchange.sendResponseHeaders(status, -1);
+				return;
+			}
+
+			exchange.sendResponseHeaders(status, 0);
+			messageInterpreter.write(resultMessage, Channels.newChannel(exchange.getResponseBody()));
+		}
+
+	}
+
+	private boolean isQueryCommand(String command) {
+		return QueryMessage.SEARCH.equals(command)
+				|| QueryMessage.SEARCH_AFTER.equals(command)
+				|| QueryMessage.RANDOM.equals(command)
+				|| QueryMessage.SEEK.equals(command)
+				|| QueryMessage.ITERATE.equals(command);
+	}
+
+	/**
+	 * 검색 메시지를 만든다.
+	 * m 파라미터가 있으면 BINARY 형식의 검색 메시지를 읽고, 없으면 검색 조건 파라미터로 만든다.
+	 *
+	 * <pre>
+	 * q=질의어, page=1, hitsPerPage=10, cursor=..., start=0, reverse=false, numHitsToCollect=0
+	 * select=속성명,... (반복 가능)
+	 * filter=속성명:값 (반복 가능)
+	 * sort=속성명[:string|int|float|score|doc][:desc] (반복 가능)
+	 * </pre>
+	 */
+	private QueryMessage createQueryMessage(Map<String, List<String>> parameters) throws IOException {
+		String m = getParameter(parameters, RemoteHttpProtocol.PARAM_MESSAGE);
+
+		if(m != null) {
+			Message message = binaryMessageCodec.decode(RemoteHttpProtocol.fromHex(m));
+
+			if(!(message instanceof QueryMessage))
+				throw new IOException("Not a query message.");
+
+			return (QueryMessage)message;
+		}
+
+		QueryMessage queryMessage = new QueryMessage();
+		queryMessage.setQueryText(getParameter(parameters, RemoteHttpProtocol.PARAM_QUERY));
+		queryMessage.setPage(getIntParameter(parameters, RemoteHttpProtocol.PARAM_PAGE, queryMessage.getPage()));
+		queryMessage.setHitsPerPage(getIntParameter(parameters, RemoteHttpProtocol.PARAM_HITS_PER_PAGE, queryMessage.getHitsPerPage()));
+		queryMessage.setCursor(getParameter(parameters, RemoteHttpProtocol.PARAM_CURSOR));
+		queryMessage.setStartRecord(getIntParameter(parameters, RemoteHttpProtocol.PARAM_START, 0));
+		queryMessage.setReverse(Boolean.valueOf(getParameter(parameters, RemoteHttpProtocol.PARAM_REVERSE)).booleanValue());
+		queryMessage.setNumHitsToCollect(getIntParameter(parameters, RemoteHttpProtocol.PARAM_NUM_HITS_TO_COLLECT, 0));
+
+		List<String> values = parameters.get(RemoteHttpProtocol.PARAM_SELECT);
+
+		if(values != null) {
+			List<String> selectAttributeList = new ArrayList<String>();
+
+			for(String value : values) {
+				for(String attributeName : value.split(",")) {
+					if(attributeName.trim().length() > 0)
+						selectAttributeList.add(attributeName.trim());
+				}
+			}
+
+			queryMessage.setSelectAttributeList(selectAttributeList);
+		}
+
+		values = parameters.get(RemoteHttpProtocol.PARAM_FILTER);
+
+		if(values != null) {
+			List<FilterAttribute> filterAttributeList = new ArrayList<FilterAttribute>();
+
+			for(String value : values) {
+				int colon = value.indexOf(':');
+
+				if(colon <= 0)
+					throw new IllegalArgumentException("Invalid filter parameter: " + value);
+
+				filterAttributeList.add(new FilterAttribute(value.substring(0, colon), value.substring(colon + 1), true));
+			}
+
+			queryMessage.setFilterAttributeList(filterAttributeList);
+		}
+
+		values = parameters.get(RemoteHttpProtocol.PARAM_SORT);
+
+		if(values != null) {
+			List<SortAttribute> sortAttributeList = new ArrayList<SortAttribute>();
+
+			for(String value : values) {
+				sortAttributeList.add(parseSortAttribute(value));
+			}
+
+			queryMessage.setSortAttributeList(sortAttributeList);
+		}
+
+		return queryMessage;
+	}
+
+	private SortAttribute parseSortAttribute(String value) {
+		String[] tokens = value.split(":");
+		SortFieldType sortFieldType = SortFieldType.STRING;
+		boolean reverse = false;
+
+		for(int i = 1; i < tokens.length; i++) {
+			if("desc".equals(tokens[i]))
+				reverse = true;
+			else if("asc".equals(tokens[i]))
+				reverse = false;
+			else if("string".equals(tokens[i]))
+				sortFieldType = SortFieldType.STRING;
+			else if("int".equals(tokens[i]))
+				sortFieldType = SortFieldType.INT;
+			else if("float".equals(tokens[i]))
+				sortFieldType = SortFieldType.FLOAT;
+			else if("score".equals(tokens[i]))
+				sortFieldType = SortFieldType.SCORE;
+			else if("doc".equals(tokens[i]))
+				sortFieldType = SortFieldType.DOC;
+			else
+				throw new IllegalArgumentException("Invalid sort parameter: " + value);
+		}
+
+		if(tokens.length == 0 || tokens[0].length() == 0)
+			throw new IllegalArgumentException("Invalid sort parameter: " + value);
+
+		return new SortAttribute(tokens[0], sortFieldType, reverse);
+	}
+
+	/**
+	 * 릴레이션의 색인 버전으로 ETag를 만든다. 색인을 열 수 없으면 null을 반환한다.
+	 */
+	private String getETag(Relation relation) {
+		try {
+			return "\"" + Long.toHexString(relation.getIndexSearcherManager().getIndexVersion()) + "\"";
+		} catch(Exception e) {
+			logger.debug("Failed to read index version of relation '{}' - {}", relation.getId(), e.toString());
+			return null;
+		}
+	}
+
+	/**
+	 * If-None-Match 헤더에 ETag가 있는지 확인한다.
+	 */
+	private static boolean matches(String ifNoneMatch, String etag) {
+		if(ifNoneMatch == null)
+			return false;
+
+		for(String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+
+			if(tag.startsWith("W/"))
+				tag = tag.substring(2);
+
+			if(tag.equals("*") || tag.equals(etag))
+				return true;
+		}
+
+		return false;
+	}
+
+	private static ByteBuffer readBody(HttpExchange exchange) throws IOException {
+		String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+
+		if(contentLength != null) {
+			try {
+				if(Long.parseLong(contentLength) > RemoteHttpProtocol.MAX_BODY_SIZE)
+					throw new IOException("Request body too large: " + contentLength);
+			} catch(NumberFormatException e) {
+				throw new IOException("Invalid Content-Length: " + contentLength);
+			}
+		}
+
+		InputStream in = exchange.getRequestBody();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int n;
+
+		while((n = in.read(buffer)) != -1) {
+			if(out.size() + n > RemoteHttpProtocol.MAX_BODY_SIZE)
+				throw new IOException("Request body too large.");
+
+			out.write(buffer, 0, n);
+		}
+
+		return ByteBuffer.wrap(out.toByteArray());
+	}
+
+	private static Map<String, List<String>> parseParameters(String rawQuery) {
+		Map<String, List<String>> parameters = new LinkedHashMap<String, List<String>>();
+
+		if(rawQuery == null || rawQuery.length() == 0)
+			return parameters;
+
+		for(String pair : rawQuery.split("&")) {
+			if(pair.length() == 0)
+				continue;
+
+			int equals = pair.indexOf('=');
+			String name = RemoteHttpProtocol.decode(equals == -1 ? pair : pair.substring(0, equals));
+			String value = (equals == -1) ? "" : RemoteHttpProtocol.decode(pair.substring(equals + 1));
+
+			List<String> values = parameters.get(name);
+
+			if(values == null) {
+				values = new ArrayList<String>(1);
+				parameters.put(name, values);
+			}
+
+			values.add(value);
+		}
+
+		return parameters;
+	}
+
+	private static String getParameter(Map<String, List<String>> parameters, String name) {
+		List<String> values = parameters.get(name);
+
+		if(values == null || values.isEmpty())
+			return null;
+
+		return values.get(0);
+	}
+
+	private static int getIntParameter(Map<String, List<String>> parameters, String name, int defaultValue) {
+		String value = getParameter(parameters, name);
+
+		if(value == null || value.length() == 0)
+			return defaultValue;
+
+		try {
+			return Integer.parseInt(value);
+		} catch(NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid " + name + " parameter: " + value);
+		}
+	}
+
+	/**
+	 * 이름을 붙인 데몬 스레드를 만든다.
+	 */
+	private static final class NamedThreadFactory implements ThreadFactory {
+
+		private final String prefix;
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		public NamedThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, prefix + count.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	}
+
+	/**
+	 * 설정 파일의 server 설정으로 서버를 시작한다.
+	 *
+	 * @param argv 설정 파일의 위치
+	 */
+	public static void main(String argv[]) {
+		if(argv.length < 1) {
+			System.out.println("Usage: java " + RemoteHttpServer.class.getName() + " <scany-config.xml>");
+			return;
+		}
+
+		try {
+			ScanyContextBuilder builder = new ScanyContextBuilder();
+			ScanyContext scanyContext = builder.build(argv[0]);
+			ServerRule serverRule = scanyContext.getServerRule();
+
+			if(serverRule == null || serverRule.getRemoteHttpServiceRule() == null)
+				throw new IllegalArgumentException("Scany's remote http server is not defined.");
+
+			if(scanyContext.getLocalServiceRule() == null)
+				throw new IllegalArgumentException("Scany's local service is not defined.");
+
+			// 바이너리 형식의 속성 순번은 로컬 서비스의 스키마를 따른다.
+			if(serverRule.getRemoteHttpServiceRule().getSchema() == null)
+				serverRule.getRemoteHttpServiceRule().setSchema(scanyContext.getLocalServiceRule().getSchema());
+
+			final AnyService anyService = new LocalService(scanyContext.getLocalServiceRule());
+			final RemoteHttpServer server = new RemoteHttpServer(serverRule.getRemoteHttpServiceRule(), anyService);
+
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+				public void run() {
+					server.stop();
+					anyService.close();
+				}
+			});
+
+			server.start();
+		} catch(Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+}
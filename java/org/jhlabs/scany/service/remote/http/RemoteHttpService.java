@@ -1,42 +1,274 @@
 /**
- * 
+ *
  */
 package org.jhlabs.scany.service.remote.http;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jhlabs.scany.context.rule.RemoteHttpServiceRule;
+import org.jhlabs.scany.engine.entity.Relation;
 import org.jhlabs.scany.engine.index.AnyIndexer;
 import org.jhlabs.scany.engine.index.AnyIndexerException;
 import org.jhlabs.scany.engine.search.AnySearcher;
 import org.jhlabs.scany.engine.search.AnySearcherException;
 import org.jhlabs.scany.engine.search.SearchModel;
 import org.jhlabs.scany.engine.transaction.AnyTransaction;
+import org.jhlabs.scany.service.AbstractService;
 import org.jhlabs.scany.service.AnyService;
+import org.jhlabs.scany.service.NoSuchRelationException;
+import org.jhlabs.scany.service.message.BinaryMessageCodec;
+import org.jhlabs.scany.service.message.Message;
+import org.jhlabs.scany.service.message.QueryMessage;
+import org.jhlabs.scany.service.message.ResultMessage;
+import org.jhlabs.scany.service.message.TransactionMessage;
 
 /**
+ * 원격 HTTP 서버(RemoteHttpServer)를 사용하는 서비스.
+ *
+ * <pre>
+ * 메시지는 BINARY 형식으로 주고받으며, 연결은 HttpURLConnection의 keep-alive로 재사용한다.
+ * 검색 응답에 ETag가 있으면 최근 응답을 보관해 두었다가 같은 검색을 할 때 If-None-Match로 재검증한다.
+ * 색인이 바뀌지 않았으면 서버는 검색하지 않고 304만 보내므로 보관한 응답을 그대로 쓴다.
+ * </pre>
  *
  * @author Gulendol
  *
  * <p>Created: 2011. 11. 6. 오후 4:46:36</p>
  *
  */
-public class RemoteHttpService implements AnyService {
+public class RemoteHttpService extends AbstractService implements AnyService {
+
+	public static final int DEFAULT_TIMEOUT = 10000;
+
+	/** 보관할 검색 응답의 최대 수 */
+	private static final int MAX_CACHED_RESULTS = 256;
+
+	/** 보관할 검색 응답 하나의 최대 크기 */
+	private static final int MAX_CACHED_RESULT_SIZE = 64 * 1024;
+
+	private final RemoteHttpServiceRule remoteHttpServiceRule;
+
+	private final BinaryMessageCodec binaryMessageCodec;
+
+	private final String baseUrl;
+
+	private final int timeout;
+
+	private final Map<String, CachedResult> cachedResults;
+
+	public RemoteHttpService(RemoteHttpServiceRule remoteHttpServiceRule) {
+		this.remoteHttpServiceRule = remoteHttpServiceRule;
+		this.binaryMessageCodec = new BinaryMessageCodec(remoteHttpServiceRule.getSchema());
+		this.timeout = (remoteHttpServiceRule.getTimeout() == null) ? DEFAULT_TIMEOUT : remoteHttpServiceRule.getTimeout().intValue();
+
+		String url = remoteHttpServiceRule.getUrl();
+
+		if(url == null || url.length() == 0)
+			throw new IllegalArgumentException("The url of remote http service is not specified.");
+
+		while(url.endsWith("/")) {
+			url = url.substring(0, url.length() - 1);
+		}
+
+		this.baseUrl = url;
+		this.cachedResults = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+				return size() > MAX_CACHED_RESULTS;
+			}
+		};
+	}
 
 	public AnySearcher getSearcher(String relationId) throws AnySearcherException {
-		// TODO Auto-generated method stub
-		return null;
+		return new RemoteHttpSearcher(getRelation(relationId), this);
 	}
 
 	public SearchModel getSearchModel(String relationId) throws AnySearcherException {
-		// TODO Auto-generated method stub
-		return null;
+		return new SearchModel(getRelation(relationId));
 	}
 
 	public AnyTransaction getTransaction(String relationId) {
-		// TODO Auto-generated method stub
-		return null;
+		return new RemoteHttpTransaction(getRelation(relationId), this);
 	}
 
 	public AnyIndexer getIndexer(String relationId) throws AnyIndexerException {
 		throw new UnsupportedOperationException("Only local service.");
 	}
 
+	public String getUrl() {
+		return baseUrl;
+	}
+
+	/**
+	 * 검색 메시지를 GET으로 보내고 응답을 받는다.
+	 *
+	 * @param queryMessage 검색 메시지
+	 * @return 응답 메시지
+	 * @throws IOException 서버에 연결할 수 없거나 응답을 읽을 수 없는 경우
+	 */
+	ResultMessage execute(QueryMessage queryMessage) throws IOException {
+		String url = baseUrl + "/" + RemoteHttpProtocol.encode(queryMessage.getRelationId()) + "/" + queryMessage.getCommand()
+				+ "?" + RemoteHttpProtocol.PARAM_FORMAT + "=binary"
+				+ "&" + RemoteHttpProtocol.PARAM_MESSAGE + "=" + RemoteHttpProtocol.toHex(binaryMessageCodec.encode(queryMessage));
+
+		CachedResult cachedResult = QueryMessage.RANDOM.equals(queryMessage.getCommand()) ? null : getCachedResult(url);
+
+		HttpURLConnection connection = open(url);
+
+		if(cachedResult != null)
+			connection.setRequestProperty("If-None-Match", cachedResult.etag);
+
+		int status = connection.getResponseCode();
+
+		if(status == HttpURLConnection.HTTP_NOT_MODIFIED && cachedResult != null) {
+			read(connection, status);
+			return decodeResult(cachedResult.body, status);
+		}
+
+		byte[] body = read(connection, status);
+		ResultMessage resultMessage = decodeResult(body, status);
+		String etag = connection.getHeaderField("ETag");
+
+		if(status == HttpURLConnection.HTTP_OK && etag != null && body.length <= MAX_CACHED_RESULT_SIZE) {
+			synchronized(cachedResults) {
+				cachedResults.put(url, new CachedResult(etag, body));
+			}
+		}
+
+		return resultMessage;
+	}
+
+	/**
+	 * 트랜잭션 메시지를 POST로 보내고 응답을 받는다.
+	 *
+	 * @param transactionMessage 트랜잭션 메시지
+	 * @return 응답 메시지
+	 * @throws IOException 서버에 연결할 수 없거나 응답을 읽을 수 없는 경우
+	 */
+	ResultMessage execute(TransactionMessage transactionMessage) throws IOException {
+		String url = baseUrl + "/" + RemoteHttpProtocol.encode(transactionMessage.getRelationId()) + "/" + RemoteHttpProtocol.TRANSACTION
+				+ "?" + RemoteHttpProtocol.PARAM_FORMAT + "=binary";
+
+		ByteBuffer buffer = binaryMessageCodec.encode(transactionMessage);
+
+		HttpURLConnection connection = open(url);
+		connection.setRequestMethod("POST");
+		connection.setRequestProperty("Content-Type", "application/octet-stream");
+		connection.setDoOutput(true);
+		connection.setFixedLengthStreamingMode(buffer.remaining());
+
+		OutputStream out = connection.getOutputStream();
+
+		try {
+			out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+		} finally {
+			out.close();
+		}
+
+		int status = connection.getResponseCode();
+
+		return decodeResult(read(connection, status), status);
+	}
+
+	private HttpURLConnection open(String url) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection)new URL(url).openConnection();
+		connection.setConnectTimeout(timeout);
+		connection.setReadTimeout(timeout);
+		connection.setUseCaches(false);
+
+		return connection;
+	}
+
+	private CachedResult getCachedResult(String url) {
+		synchronized(cachedResults) {
+			return cachedResults.get(url);
+		}
+	}
+
+	/**
+	 * 응답 본문을 끝까지 읽는다. 끝까지 읽고 닫아야 연결을 재사용할 수 있다.
+	 */
+	private byte[] read(HttpURLConnection connection, int status) throws IOException {
+		InputStream in = (status >= 400) ? connection.getErrorStream() : connection.getInputStream();
+
+		if(in == null)
+			return new byte[0];
+
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int n;
+
+			while((n = in.read(buffer)) != -1) {
+				out.write(buffer, 0, n);
+			}
+
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	private ResultMessage decodeResult(byte[] body, int status) throws IOException {
+		Message message = null;
+
+		if(body.length > 0) {
+			try {
+				message = binaryMessageCodec.decode(ByteBuffer.wrap(body));
+			} catch(IOException e) {
+				if(status == HttpURLConnection.HTTP_OK)
+					throw e;
+			}
+		}
+
+		if(!(message instanceof ResultMessage))
+			throw new IOException("Unexpected response from " + baseUrl + ": HTTP " + status);
+
+		return (ResultMessage)message;
+	}
+
+	private Relation getRelation(String relationId) {
+		Relation relation = null;
+
+		if(remoteHttpServiceRule.getSchema() != null)
+			relation = remoteHttpServiceRule.getSchema().getRelation(relationId);
+
+		if(relation == null)
+			throw new NoSuchRelationException(relationId);
+
+		return relation;
+	}
+
+	public void close() {
+		synchronized(cachedResults) {
+			cachedResults.clear();
+		}
+	}
+
+	/**
+	 * ETag와 함께 보관한 BINARY 형식의 검색 응답.
+	 * 사용할 때마다 새로 읽으므로 호출자가 레코드를 변경해도 보관한 응답에는 영향이 없다.
+	 */
+	private static final class CachedResult {
+
+		private final String etag;
+
+		private final byte[] body;
+
+		public CachedResult(String etag, byte[] body) {
+			this.etag = etag;
+			this.body = body;
+		}
+
+	}
+
 }
@@ -1,20 +1,32 @@
-package org.jhlabs.scany.service.remote.http;
-
-import org.jhlabs.scany.engine.entity.Relation;
-import org.jhlabs.scany.engine.transaction.AbstractTransaction;
-
-public class RemoteHttpTransaction extends AbstractTransaction {
-
-	public RemoteHttpTransaction(Relation relation) {
-		super(relation);
-	}
-	
-	public void commit() {
-		
-	}
-
-	public void rollback() {
-		
-	}
-}
-
+package org.jhlabs.scany.service.remote.http;
+
+import java.io.IOException;
+
+import org.jhlabs.scany.engine.entity.Relation;
+import org.jhlabs.scany.service.message.ResultMessage;
+import org.jhlabs.scany.service.message.TransactionMessage;
+import org.jhlabs.scany.service.remote.AbstractRemoteTransaction;
+
+/**
+ * 트랜잭션 메시지를 POST로 원격 HTTP 서버에 보낸다.
+ *
+ * @author Gulendol
+ */
+public class RemoteHttpTransaction extends AbstractRemoteTransaction {
+
+	private final RemoteHttpService remoteHttpService;
+
+	public RemoteHttpTransaction(Relation relation, RemoteHttpService remoteHttpService) {
+		super(relation);
+		this.remoteHttpService = remoteHttpService;
+	}
+
+	protected ResultMessage send(TransactionMessage transactionMessage) throws IOException {
+		return remoteHttpService.execute(transactionMessage);
+	}
+
+	protected String getEndpoint() {
+		return remoteHttpService.getUrl();
+	}
+
+}
@@ -0,0 +1,250 @@
+/**
+ *
+ */
+package org.jhlabs.scany.service.remote.tcp;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jhlabs.scany.service.message.BinaryMessageCodec;
+import org.jhlabs.scany.service.message.Message;
+import org.jhlabs.scany.service.message.ResultMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 원격 TCP 서버와의 연결 하나.
+ *
+ * <pre>
+ * 여러 스레드가 하나의 연결을 공유하며, 응답을 기다리지 않고 요청을 이어서 보낸다(pipelining).
+ * 요청마다 연결 안에서 고유한 요청 ID를 붙이고, 응답을 읽는 스레드가 요청 ID로 RemoteTcpFuture를 찾아서 완료한다.
+ * 연결은 RemoteTcpConnectionPool이 만들고 관리한다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class RemoteTcpConnection {
+
+	private static final Logger logger = LoggerFactory.getLogger(RemoteTcpConnection.class);
+
+	private final Socket socket;
+
+	private final OutputStream out;
+
+	private final DataInputStream in;
+
+	private final Object writeLock = new Object();
+
+	private final AtomicInteger nextRequestId = new AtomicInteger();
+
+	private final Map<Integer, RemoteTcpFuture> pendingRequests = new ConcurrentHashMap<Integer, RemoteTcpFuture>();
+
+	private final BinaryMessageCodec codec;
+
+	private final Thread reader;
+
+	private volatile long lastActiveTime = System.currentTimeMillis();
+
+	private volatile boolean closed;
+
+	/**
+	 * 서버에 연결하고 응답을 읽을 스레드를 시작한다.
+	 *
+	 * @param address 서버 주소
+	 * @param connectTimeout 연결 제한 시간(ms), 0이면 제한하지 않는다.
+	 * @param codec 바이너리 코덱, null이면 Java 직렬화 형식을 사용한다.
+	 * @throws IOException 연결할 수 없는 경우
+	 */
+	public RemoteTcpConnection(InetSocketAddress address, int connectTimeout, BinaryMessageCodec codec) throws IOException {
+		this.codec = codec;
+		socket = new Socket();
+
+		try {
+			socket.setTcpNoDelay(true);
+			socket.setKeepAlive(true);
+			socket.connect(address, connectTimeout);
+
+			out = socket.getOutputStream();
+			in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 16 * 1024));
+		} catch(IOException e) {
+			socket.close();
+			throw e;
+		}
+
+		reader = new Thread(new Runnable() {
+			public void run() {
+				read();
+			}
+		}, "scany-tcp-client-" + socket.getLocalPort());
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * 메시지를 보낸다.
+	 *
+	 * @param message 메시지
+	 * @return 응답
+	 * @throws IOException 보내지 못한 경우, 연결은 닫힌다.
+	 */
+	public RemoteTcpFuture send(Message message) throws IOException {
+		return send(RemoteTcpFrame.encode(0, message, codec));
+	}
+
+	/**
+	 * 연결 상태를 확인하기 위해 PING을 보낸다.
+	 *
+	 * @return 응답, 응답 메시지는 null이다.
+	 * @throws IOException 보내지 못한 경우, 연결은 닫힌다.
+	 */
+	public RemoteTcpFuture ping() throws IOException {
+		return send(RemoteTcpFrame.ping(0));
+	}
+
+	/**
+	 * 인코딩된 프레임에 이 연결의 요청 ID를 지정해서 보낸다.
+	 * 요청 ID 외에는 프레임을 변경하지 않으므로, 보내지 못하면 다른 연결로 다시 보낼 수 있다.
+	 *
+	 * @param frame 인코딩된 프레임
+	 * @return 응답
+	 * @throws IOException 보내지 못한 경우, 연결은 닫힌다.
+	 */
+	RemoteTcpFuture send(ByteBuffer frame) throws IOException {
+		if(closed)
+			throw new IOException("Connection closed. " + this);
+
+		int requestId = nextRequestId.incrementAndGet();
+		RemoteTcpFuture future = new RemoteTcpFuture(this, requestId);
+		pendingRequests.put(requestId, future);
+
+		if(closed) {
+			pendingRequests.remove(requestId);
+			throw new IOException("Connection closed. " + this);
+		}
+
+		byte[] bytes = frame.array();
+		int offset = frame.arrayOffset() + frame.position();
+
+		try {
+			synchronized(writeLock) {
+				frame.putInt(frame.position() + 4, requestId);
+				out.write(bytes, offset, frame.remaining());
+			}
+		} catch(IOException e) {
+			pendingRequests.remove(requestId);
+			close(e);
+			throw e;
+		}
+
+		lastActiveTime = System.currentTimeMillis();
+
+		return future;
+	}
+
+	void remove(int requestId) {
+		pendingRequests.remove(requestId);
+	}
+
+	private void read() {
+		try {
+			while(!closed) {
+				int length = in.readInt();
+
+				if(length < RemoteTcpFrame.HEADER_SIZE - 4 || length > RemoteTcpFrame.MAX_FRAME_SIZE)
+					throw new IOException("Invalid frame length: " + length);
+
+				int requestId = in.readInt();
+				byte type = in.readByte();
+				byte[] payload = new byte[length - (RemoteTcpFrame.HEADER_SIZE - 4)];
+				in.readFully(payload);
+
+				lastActiveTime = System.currentTimeMillis();
+
+				RemoteTcpFuture future = pendingRequests.remove(requestId);
+
+				if(future == null) {
+					// 취소된 요청의 응답
+					continue;
+				}
+
+				if(type == RemoteTcpFrame.PING) {
+					future.complete(null);
+				} else {
+					try {
+						future.complete((ResultMessage)RemoteTcpFrame.decode(type, payload, codec));
+					} catch(IOException e) {
+						future.fail(e);
+					}
+				}
+			}
+		} catch(EOFException e) {
+			close(new IOException("Connection closed by server. " + this));
+		} catch(IOException e) {
+			close(e);
+		}
+	}
+
+	/**
+	 * 응답을 기다리는 요청의 수를 반환한다.
+	 *
+	 * @return the pending requests
+	 */
+	public int getPendingRequests() {
+		return pendingRequests.size();
+	}
+
+	/**
+	 * 마지막으로 요청을 보내거나 응답을 받은 시각을 반환한다.
+	 *
+	 * @return the last active time
+	 */
+	public long getLastActiveTime() {
+		return lastActiveTime;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	public void close() {
+		close(new IOException("Connection closed. " + this));
+	}
+
+	private void close(IOException cause) {
+		synchronized(this) {
+			if(closed)
+				return;
+
+			closed = true;
+		}
+
+		try {
+			socket.close();
+		} catch(IOException e) {
+			// ignore
+		}
+
+		for(RemoteTcpFuture future : pendingRequests.values()) {
+			future.fail(cause);
+		}
+
+		pendingRequests.clear();
+
+		logger.debug("Connection closed. {} - {}", this, cause.getMessage());
+	}
+
+	@Override
+	public String toString() {
+		return socket.getLocalPort() + " -> " + socket.getRemoteSocketAddress();
+	}
+
+}
@@ -0,0 +1,420 @@
+/**
+ *
+ */
+package org.jhlabs.scany.service.remote.tcp;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jhlabs.scany.context.rule.RemoteTcpServiceRule;
+import org.jhlabs.scany.context.type.MessageFormat;
+import org.jhlabs.scany.service.message.BinaryMessageCodec;
+import org.jhlabs.scany.service.message.Message;
+import org.jhlabs.scany.service.message.ResultMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 원격 TCP 서버 하나(host:port)에 대한 연결 풀.
+ *
+ * <pre>
+ * 같은 서버를 같은 설정(메시지 형식, binary 형식의 스키마, 제한 시간, 연결 수, 상태 확인 주기)으로 사용하는
+ * 모든 RemoteTcpService가 하나의 풀을 공유하며, 마지막 서비스가 반환하면 풀을 닫는다.
+ * 요청은 응답을 기다리는 요청이 가장 적은 연결로 보내고, 모든 연결이 maxPipelinedRequests 이상의 요청을 기다리고 있으면
+ * maxConnections까지 연결을 늘린다. 검색할 때마다 연결하지 않으므로 연결 지연과 TIME_WAIT 소켓이 생기지 않는다.
+ * 새로운 연결은 잠금 안에서 자리만 예약하고 잠금 밖에서 연결하므로, 연결하는 동안에도 다른 요청은 기존 연결을 사용한다.
+ *
+ * 제한 시간(timeout)은 소켓이 아니라 요청마다 적용한다. 제한 시간을 넘긴 요청은 취소하지만 연결은 계속 사용한다.
+ * healthCheckInterval마다 오래 사용하지 않은 연결에 PING을 보내서 응답이 없는 연결을 닫고,
+ * minConnections를 넘는 유휴 연결을 정리한 후, 연결이 minConnections보다 적으면 다시 연결한다.
+ * 메시지 형식이 binary이면 BinaryMessageCodec으로 주고받는다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class RemoteTcpConnectionPool {
+
+	private static final Logger logger = LoggerFactory.getLogger(RemoteTcpConnectionPool.class);
+
+	public static final int DEFAULT_TIMEOUT = 10000;
+
+	public static final int DEFAULT_MIN_CONNECTIONS = 1;
+
+	public static final int DEFAULT_MAX_CONNECTIONS = 8;
+
+	public static final int DEFAULT_HEALTH_CHECK_INTERVAL = 30000;
+
+	private static final int MAX_PIPELINED_REQUESTS = 64;
+
+	private static final Map<List<Object>, RemoteTcpConnectionPool> pools = new HashMap<List<Object>, RemoteTcpConnectionPool>();
+
+	private final List<Object> key;
+
+	private final String name;
+
+	private final InetSocketAddress address;
+
+	private final int timeout;
+
+	private final int minConnections;
+
+	private final int maxConnections;
+
+	private final int healthCheckInterval;
+
+	private final BinaryMessageCodec codec;
+
+	private final List<RemoteTcpConnection> connections = new CopyOnWriteArrayList<RemoteTcpConnection>();
+
+	private final ScheduledExecutorService healthChecker;
+
+	private int referenceCount;
+
+	/** 자리를 예약하고 연결 중인 연결의 수, 풀(this)로 보호된다. */
+	private int connecting;
+
+	private volatile boolean closed;
+
+	private RemoteTcpConnectionPool(List<Object> key, RemoteTcpServiceRule remoteTcpServiceRule) {
+		this.key = key;
+
+		int port = (remoteTcpServiceRule.getPort() == null) ? RemoteTcpServer.DEFAULT_PORT : remoteTcpServiceRule.getPort().intValue();
+		this.name = remoteTcpServiceRule.getHost() + ":" + port;
+		this.address = new InetSocketAddress(remoteTcpServiceRule.getHost(), port);
+
+		this.timeout = valueOf(remoteTcpServiceRule.getTimeout(), DEFAULT_TIMEOUT);
+		this.maxConnections = Math.max(1, valueOf(remoteTcpServiceRule.getMaxConnections(), DEFAULT_MAX_CONNECTIONS));
+		this.minConnections = Math.min(maxConnections, valueOf(remoteTcpServiceRule.getMinConnections(), DEFAULT_MIN_CONNECTIONS));
+		this.healthCheckInterval = valueOf(remoteTcpServiceRule.getHealthCheckInterval(), DEFAULT_HEALTH_CHECK_INTERVAL);
+
+		if(remoteTcpServiceRule.getMessageFormat() == MessageFormat.BINARY)
+			this.codec = new BinaryMessageCodec(remoteTcpServiceRule.getSchema());
+		else
+			this.codec = null;
+
+		healthChecker = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "scany-tcp-pool-" + RemoteTcpConnectionPool.this.name);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		if(healthCheckInterval > 0) {
+			healthChecker.scheduleWithFixedDelay(new Runnable() {
+				public void run() {
+					checkHealth();
+				}
+			}, healthCheckInterval, healthCheckInterval, TimeUnit.MILLISECONDS);
+		}
+
+		// 최소 연결은 첫 요청을 지연시키지 않도록 미리 만든다.
+		healthChecker.execute(new Runnable() {
+			public void run() {
+				fill();
+			}
+		});
+	}
+
+	/**
+	 * 서버의 연결 풀을 반환한다. 같은 설정의 풀이 없으면 새로 만든다.
+	 * 사용이 끝나면 release()로 반환해야 한다.
+	 *
+	 * @param remoteTcpServiceRule 원격 TCP 서비스 설정
+	 * @return RemoteTcpConnectionPool
+	 */
+	public static RemoteTcpConnectionPool acquire(RemoteTcpServiceRule remoteTcpServiceRule) {
+		if(remoteTcpServiceRule.getHost() == null)
+			throw new IllegalArgumentException("The host of remote tcp service is not specified.");
+
+		List<Object> key = createKey(remoteTcpServiceRule);
+
+		synchronized(pools) {
+			RemoteTcpConnectionPool pool = pools.get(key);
+
+			if(pool == null) {
+				pool = new RemoteTcpConnectionPool(key, remoteTcpServiceRule);
+				pools.put(key, pool);
+			}
+
+			pool.referenceCount++;
+
+			return pool;
+		}
+	}
+
+	/**
+	 * 풀을 반환한다. 풀을 사용하는 서비스가 더 이상 없으면 모든 연결을 닫는다.
+	 */
+	public void release() {
+		synchronized(pools) {
+			if(--referenceCount > 0)
+				return;
+
+			pools.remove(key);
+		}
+
+		close();
+	}
+
+	/**
+	 * 메시지를 보낸다. 응답을 기다리지 않는다.
+	 * 연결이 끊어져서 보내지 못하면 다른 연결로 한 번 더 보낸다.
+	 *
+	 * @param message 메시지
+	 * @return 응답
+	 * @throws IOException 보내지 못한 경우
+	 */
+	public RemoteTcpFuture send(Message message) throws IOException {
+		ByteBuffer frame = RemoteTcpFrame.encode(0, message, codec);
+		IOException failure = null;
+
+		for(int i = 0; i < 2; i++) {
+			RemoteTcpConnection connection = getConnection();
+
+			try {
+				return connection.send(frame);
+			} catch(IOException e) {
+				connections.remove(connection);
+				failure = e;
+			}
+		}
+
+		throw failure;
+	}
+
+	/**
+	 * 메시지를 보내고 제한 시간(timeout)까지 응답을 기다린다.
+	 *
+	 * @param message 메시지
+	 * @return 응답 메시지
+	 * @throws IOException 보내지 못했거나 제한 시간 안에 응답을 받지 못한 경우
+	 */
+	public ResultMessage execute(Message message) throws IOException {
+		RemoteTcpFuture future = send(message);
+
+		try {
+			return future.get(timeout, TimeUnit.MILLISECONDS);
+		} catch(TimeoutException e) {
+			future.cancel(false);
+			throw new IOException(e.getMessage());
+		} catch(ExecutionException e) {
+			if(e.getCause() instanceof IOException)
+				throw (IOException)e.getCause();
+
+			throw new IOException(String.valueOf(e.getCause()));
+		} catch(InterruptedException e) {
+			future.cancel(false);
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for response.");
+		}
+	}
+
+	/**
+	 * 응답을 기다리는 요청이 가장 적은 연결을 반환한다.
+	 * 모든 연결이 바쁘면 maxConnections까지 연결을 늘린다.
+	 * 사용할 수 있는 연결이 없고 연결할 자리도 모두 예약되어 있으면 다른 스레드의 연결을 기다린다.
+	 */
+	private RemoteTcpConnection getConnection() throws IOException {
+		RemoteTcpConnection connection = getLeastPendingConnection();
+
+		if(connection != null && (connection.getPendingRequests() < MAX_PIPELINED_REQUESTS || connections.size() >= maxConnections))
+			return connection;
+
+		synchronized(this) {
+			while(true) {
+				if(closed)
+					throw new IOException("Connection pool closed. " + name);
+
+				removeClosedConnections();
+
+				connection = getLeastPendingConnection();
+
+				if(connection != null && (connection.getPendingRequests() < MAX_PIPELINED_REQUESTS || connections.size() + connecting >= maxConnections))
+					return connection;
+
+				if(connections.size() + connecting < maxConnections)
+					break;
+
+				try {
+					wait(timeout);
+				} catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for connection.");
+				}
+			}
+
+			connecting++;
+		}
+
+		return connect();
+	}
+
+	private RemoteTcpConnection getLeastPendingConnection() {
+		RemoteTcpConnection least = null;
+
+		for(RemoteTcpConnection connection : connections) {
+			if(!connection.isClosed() && (least == null || connection.getPendingRequests() < least.getPendingRequests()))
+				least = connection;
+		}
+
+		return least;
+	}
+
+	/**
+	 * 예약한 자리에 연결한다. 호출하기 전에 풀(this)의 잠금 안에서 connecting을 늘려서 자리를 예약해야 하며,
+	 * 연결은 잠금 밖에서 한다. 연결에 성공하거나 실패하면 예약한 자리를 반환한다.
+	 */
+	private RemoteTcpConnection connect() throws IOException {
+		try {
+			RemoteTcpConnection connection = new RemoteTcpConnection(address, timeout, codec);
+
+			synchronized(this) {
+				if(closed) {
+					connection.close();
+					throw new IOException("Connection pool closed. " + name);
+				}
+
+				connections.add(connection);
+			}
+
+			logger.debug("Connected to {}. {} connections", name, connections.size());
+
+			return connection;
+		} finally {
+			synchronized(this) {
+				connecting--;
+				notifyAll();
+			}
+		}
+	}
+
+	private void removeClosedConnections() {
+		for(RemoteTcpConnection connection : connections) {
+			if(connection.isClosed())
+				connections.remove(connection);
+		}
+	}
+
+	/**
+	 * 연결이 minConnections보다 적으면 연결을 만든다.
+	 */
+	private void fill() {
+		try {
+			while(true) {
+				synchronized(this) {
+					if(closed || connections.size() + connecting >= minConnections)
+						return;
+
+					connecting++;
+				}
+
+				connect();
+			}
+		} catch(IOException e) {
+			logger.warn("Cannot connect to remote tcp server {} - {}", name, e.toString());
+		}
+	}
+
+	private void checkHealth() {
+		long now = System.currentTimeMillis();
+
+		for(RemoteTcpConnection connection : connections) {
+			if(connection.isClosed() || connection.getPendingRequests() > 0 || now - connection.getLastActiveTime() < healthCheckInterval)
+				continue;
+
+			if(connections.size() > minConnections) {
+				// 최소 연결을 넘는 유휴 연결은 닫는다.
+				connections.remove(connection);
+				connection.close();
+				continue;
+			}
+
+			try {
+				connection.ping().get(timeout, TimeUnit.MILLISECONDS);
+			} catch(Exception e) {
+				logger.warn("Remote tcp connection is not healthy. {} - {}", connection, e.toString());
+				connections.remove(connection);
+				connection.close();
+			}
+		}
+
+		synchronized(this) {
+			removeClosedConnections();
+		}
+
+		fill();
+	}
+
+	/**
+	 * 모든 연결을 닫는다. 응답을 기다리는 요청은 실패한다.
+	 */
+	public void close() {
+		synchronized(this) {
+			if(closed)
+				return;
+
+			closed = true;
+		}
+
+		healthChecker.shutdownNow();
+
+		for(RemoteTcpConnection connection : connections) {
+			connection.close();
+		}
+
+		connections.clear();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * 열려 있는 연결의 수를 반환한다.
+	 *
+	 * @return the connection count
+	 */
+	public int getConnectionCount() {
+		return connections.size();
+	}
+
+	/**
+	 * 풀을 구분하는 키를 만든다. 서버 주소와 함께 풀의 동작에 영향을 주는 설정을 모두 포함한다.
+	 * binary 형식은 스키마로 메시지를 인코딩하므로 스키마 인스턴스도 구분한다. Schema는 equals()를 재정의하지 않으므로 인스턴스로 비교된다.
+	 */
+	private static List<Object> createKey(RemoteTcpServiceRule remoteTcpServiceRule) {
+		boolean binary = (remoteTcpServiceRule.getMessageFormat() == MessageFormat.BINARY);
+
+		return Arrays.<Object>asList(
+				remoteTcpServiceRule.getHost(),
+				valueOf(remoteTcpServiceRule.getPort(), RemoteTcpServer.DEFAULT_PORT),
+				remoteTcpServiceRule.getMessageFormat(),
+				binary ? remoteTcpServiceRule.getSchema() : null,
+				valueOf(remoteTcpServiceRule.getTimeout(), DEFAULT_TIMEOUT),
+				valueOf(remoteTcpServiceRule.getMinConnections(), DEFAULT_MIN_CONNECTIONS),
+				valueOf(remoteTcpServiceRule.getMaxConnections(), DEFAULT_MAX_CONNECTIONS),
+				valueOf(remoteTcpServiceRule.getHealthCheckInterval(), DEFAULT_HEALTH_CHECK_INTERVAL));
+	}
+
+	private static int valueOf(Integer value, int defaultValue) {
+		return (value == null) ? defaultValue : value.intValue();
+	}
+
+}
@@ -0,0 +1,265 @@
+/**
+ *
+ */
+package org.jhlabs.scany.service.remote.tcp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.ByteBuffer;
+
+import org.jhlabs.scany.service.message.BinaryMessageCodec;
+import org.jhlabs.scany.service.message.Message;
+import org.jhlabs.scany.service.message.QueryMessage;
+import org.jhlabs.scany.service.message.ResultMessage;
+import org.jhlabs.scany.service.message.TransactionMessage;
+
+/**
+ * 원격 TCP 서비스의 프레임 형식.
+ *
+ * <pre>
+ * 하나의 연결로 여러 요청을 응답을 기다리지 않고 보낼 수 있도록 모든 프레임에 요청 ID를 붙인다.
+ * 서버는 요청을 받은 순서와 관계없이 처리가 끝난 순서대로 응답하며, 응답은 요청과 같은 요청 ID를 가진다.
+ *
+ *   length    : int, 이후에 오는 바이트 수(requestId + type + payload)
+ *   requestId : int, 요청 ID
+ *   type      : byte, QUERY, TRANSACTION, RESULT, PING, BINARY 플래그를 더할 수 있다.
+ *   payload   : 메시지, PING은 payload가 없다.
+ *
+ * PING은 연결 상태를 확인하기 위한 것으로, 서버는 작업 스레드를 거치지 않고 같은 요청 ID의 PING으로 바로 응답한다.
+ * 정수는 big-endian이며, 메시지는 Java 직렬화로 기록한다.
+ * 역직렬화할 때는 메시지를 구성하는 클래스만 허용한다.
+ * BINARY 플래그가 있으면 메시지는 BinaryMessageCodec 형식이며, 서버는 요청과 같은 형식으로 응답한다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public final class RemoteTcpFrame {
+
+	/** length 필드를 포함한 헤더의 크기 */
+	public static final int HEADER_SIZE = 9;
+
+	/** 프레임의 최대 크기 */
+	public static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+
+	public static final byte QUERY = 1;
+
+	public static final byte TRANSACTION = 2;
+
+	public static final byte RESULT = 3;
+
+	public static final byte PING = 4;
+
+	/** payload가 BinaryMessageCodec 형식임을 나타내는 플래그 */
+	public static final byte BINARY = 0x40;
+
+	private static final String[] ALLOWED_CLASS_PREFIXES = {
+		"org.jhlabs.scany.",
+		"java.lang.",
+		"java.util.",
+		"org.apache.lucene.search.BooleanClause"
+	};
+
+	private RemoteTcpFrame() {
+	}
+
+	/**
+	 * 메시지를 프레임으로 만든다. 반환된 버퍼는 바로 채널에 쓸 수 있도록 flip되어 있다.
+	 *
+	 * @param requestId 요청 ID
+	 * @param message 메시지
+	 * @return ByteBuffer
+	 * @throws IOException
+	 */
+	public static ByteBuffer encode(int requestId, Message message) throws IOException {
+		return encode(requestId, message, null);
+	}
+
+	/**
+	 * 메시지를 프레임으로 만든다. 코덱이 있으면 BINARY 형식으로 기록한다.
+	 *
+	 * @param requestId 요청 ID
+	 * @param message 메시지
+	 * @param codec 바이너리 코덱, null이면 Java 직렬화로 기록한다.
+	 * @return ByteBuffer
+	 * @throws IOException
+	 */
+	public static ByteBuffer encode(int requestId, Message message, BinaryMessageCodec codec) throws IOException {
+		// 프레임은 길이를 먼저 기록하므로 순차 검색의 레코드는 모두 추출한 후에 기록한다.
+		if(message instanceof ResultMessage)
+			((ResultMessage)message).collectRecords();
+
+		if(codec != null) {
+			ByteBuffer buffer = ByteBuffer.allocate(512);
+			buffer.position(HEADER_SIZE);
+			buffer = codec.encode(message, buffer);
+			buffer.flip();
+
+			return header(buffer, requestId, (byte)(getType(message) | BINARY));
+		}
+
+		FrameOutputStream bytes = new FrameOutputStream();
+
+		for(int i = 0; i < HEADER_SIZE; i++) {
+			bytes.write(0);
+		}
+
+		ObjectOutputStream oos = new ObjectOutputStream(bytes);
+		oos.writeObject(message);
+		oos.close();
+
+		return header(bytes.toByteBuffer(), requestId, getType(message));
+	}
+
+	private static ByteBuffer header(ByteBuffer buffer, int requestId, byte type) throws IOException {
+		if(buffer.remaining() > MAX_FRAME_SIZE)
+			throw new IOException("Frame too large: " + buffer.remaining() + " bytes");
+
+		buffer.putInt(0, buffer.remaining() - 4);
+		buffer.putInt(4, requestId);
+		buffer.put(8, type);
+
+		return buffer;
+	}
+
+	/**
+	 * payload가 없는 PING 프레임을 만든다.
+	 *
+	 * @param requestId 요청 ID
+	 * @return ByteBuffer
+	 */
+	public static ByteBuffer ping(int requestId) {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+		buffer.putInt(HEADER_SIZE - 4);
+		buffer.putInt(requestId);
+		buffer.put(PING);
+		buffer.flip();
+
+		return buffer;
+	}
+
+	/**
+	 * 프레임의 payload를 메시지로 읽는다.
+	 *
+	 * @param type 프레임 유형
+	 * @param payload payload
+	 * @return Message
+	 * @throws IOException 프레임 유형과 메시지가 다르거나 허용되지 않은 클래스가 포함된 경우
+	 */
+	public static Message decode(byte type, byte[] payload) throws IOException {
+		return decode(type, payload, null);
+	}
+
+	/**
+	 * 프레임의 payload를 메시지로 읽는다.
+	 *
+	 * @param type 프레임 유형
+	 * @param payload payload
+	 * @param codec BINARY 형식을 읽을 코덱
+	 * @return Message
+	 * @throws IOException 프레임 유형과 메시지가 다르거나 메시지 형식이 잘못된 경우
+	 */
+	public static Message decode(byte type, byte[] payload, BinaryMessageCodec codec) throws IOException {
+		if((type & BINARY) != 0) {
+			if(codec == null)
+				throw new IOException("Binary message format is not enabled.");
+
+			Message message = codec.decode(ByteBuffer.wrap(payload));
+
+			if(getType(message) != (type & ~BINARY))
+				throw new IOException("Frame type " + type + " does not match the message: " + message);
+
+			return message;
+		}
+
+		ObjectInputStream ois = new MessageInputStream(new ByteArrayInputStream(payload));
+		Object message;
+
+		try {
+			message = ois.readObject();
+		} catch(ClassNotFoundException e) {
+			throw new IOException("Unknown message class: " + e.getMessage());
+		} finally {
+			ois.close();
+		}
+
+		if(!(message instanceof Message) || getType((Message)message) != type)
+			throw new IOException("Frame type " + type + " does not match the message: " + message);
+
+		return (Message)message;
+	}
+
+	public static byte getType(Message message) {
+		if(message instanceof QueryMessage)
+			return QUERY;
+		if(message instanceof TransactionMessage)
+			return TRANSACTION;
+		if(message instanceof ResultMessage)
+			return RESULT;
+
+		throw new IllegalArgumentException("Unsupported message: " + message);
+	}
+
+	/**
+	 * 내부 배열을 복사하지 않고 ByteBuffer로 감싸기 위한 ByteArrayOutputStream.
+	 */
+	private static final class FrameOutputStream extends ByteArrayOutputStream {
+
+		public FrameOutputStream() {
+			super(512);
+		}
+
+		public ByteBuffer toByteBuffer() {
+			return ByteBuffer.wrap(buf, 0, count);
+		}
+
+	}
+
+	/**
+	 * 메시지를 구성하는 클래스만 역직렬화한다.
+	 */
+	private static final class MessageInputStream extends ObjectInputStream {
+
+		public MessageInputStream(InputStream in) throws IOException {
+			super(in);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			if(!isAllowed(desc.getName()))
+				throw new InvalidClassException(desc.getName(), "Not allowed in a message.");
+
+			return super.resolveClass(desc);
+		}
+
+		private static boolean isAllowed(String name) {
+			int dimensions = 0;
+
+			while(name.charAt(dimensions) == '[') {
+				dimensions++;
+			}
+
+			if(dimensions > 0) {
+				// 기본형 배열은 허용하고, 객체 배열은 원소의 클래스로 판단한다.
+				if(name.charAt(dimensions) != 'L')
+					return true;
+
+				name = name.substring(dimensions + 1, name.length() - 1);
+			}
+
+			for(String prefix : ALLOWED_CLASS_PREFIXES) {
+				if(name.startsWith(prefix))
+					return true;
+			}
+
+			return false;
+		}
+
+	}
+
+}
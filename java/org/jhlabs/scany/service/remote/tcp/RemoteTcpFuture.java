@@ -0,0 +1,100 @@
+/**
+ *
+ */
+package org.jhlabs.scany.service.remote.tcp;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jhlabs.scany.service.message.ResultMessage;
+
+/**
+ * 원격 TCP 서비스에 보낸 요청의 응답.
+ *
+ * <pre>
+ * 요청을 보낸 스레드는 응답을 기다리지 않고 다른 요청을 더 보낼 수 있다.
+ * 제한 시간 안에 응답이 오지 않으면 cancel()로 요청을 취소하며, 나중에 도착한 응답은 버려진다.
+ * 연결이 끊어지면 응답을 기다리는 모든 요청은 실패(ExecutionException)한다.
+ * </pre>
+ *
+ * @author Gulendol
+ */
+public class RemoteTcpFuture implements Future<ResultMessage> {
+
+	private final RemoteTcpConnection connection;
+
+	private final int requestId;
+
+	private final CountDownLatch latch = new CountDownLatch(1);
+
+	private volatile ResultMessage resultMessage;
+
+	private volatile Throwable failure;
+
+	private volatile boolean cancelled;
+
+	RemoteTcpFuture(RemoteTcpConnection connection, int requestId) {
+		this.connection = connection;
+		this.requestId = requestId;
+	}
+
+	public int getRequestId() {
+		return requestId;
+	}
+
+	void complete(ResultMessage resultMessage) {
+		this.resultMessage = resultMessage;
+		latch.countDown();
+	}
+
+	void fail(Throwable failure) {
+		this.failure = failure;
+		latch.countDown();
+	}
+
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		if(isDone())
+			return false;
+
+		connection.remove(requestId);
+		cancelled = true;
+		latch.countDown();
+
+		return true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public boolean isDone() {
+		return (latch.getCount() == 0);
+	}
+
+	public ResultMessage get() throws InterruptedException, ExecutionException {
+		latch.await();
+		return report();
+	}
+
+	public ResultMessage get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		if(!latch.await(timeout, unit))
+			throw new TimeoutException("No response within " + unit.toMillis(timeout) + " ms. " + connection);
+
+		return report();
+	}
+
+	private ResultMessage report() throws ExecutionException {
+		if(cancelled)
+			throw new CancellationException();
+
+		if(failure != null)
+			throw new ExecutionException(failure);
+
+		return resultMessage;
+	}
+
+}
@@ -1,69 +1,40 @@
-/**
- * 
- */
-package org.jhlabs.scany.service.remote.tcp;
-
-import java.util.Iterator;
-
-import org.jhlabs.scany.engine.entity.Record;
-import org.jhlabs.scany.engine.entity.RecordList;
-import org.jhlabs.scany.engine.entity.Relation;
-import org.jhlabs.scany.engine.search.AnySearcher;
-import org.jhlabs.scany.engine.search.AnySearcherException;
-import org.jhlabs.scany.engine.search.SearchModel;
-
-/**
- *
- * @author Gulendol
- *
- * <p>Created: 2011. 11. 6. 오후 4:46:36</p>
- *
- */
-public class RemoteTcpSearcher extends SearchModel implements AnySearcher {
-
-	public RemoteTcpSearcher(Relation relation) throws AnySearcherException {
-		super(relation);
-		// TODO Auto-generated constructor stub
-	}
-
-	public RecordList search(String queryString) throws AnySearcherException {
-		// TODO Auto-generated method stub
-		return null;
-	}
-
-	public RecordList search(int pageNo) throws AnySearcherException {
-		// TODO Auto-generated method stub
-		return null;
-	}
-
-	public RecordList search(String queryString, int pageNo) throws AnySearcherException {
-		// TODO Auto-generated method stub
-		return null;
-	}
-
-	public RecordList random() throws AnySearcherException {
-		// TODO Auto-generated method stub
-		return null;
-	}
-
-	public RecordList random(String queryString) throws AnySearcherException {
-		// TODO Auto-generated method stub
-		return null;
-	}
-
-	public RecordList seek(int start, int maxRecords, boolean reverse) throws AnySearcherException {
-		// TODO Auto-generated method stub
-		return null;
-	}
-
-	public Iterator<Record> interator(int numHitsToCollect) throws AnySearcherException {
-		// TODO Auto-generated method stub
-		return null;
-	}
-
-	public Iterator<Record> interator(String queryString, int numHitsToCollect) throws AnySearcherException {
-		// TODO Auto-generated method stub
-		return null;
-	}
-
-}
+/**
+ *
+ */
+package org.jhlabs.scany.service.remote.tcp;
+
+import java.io.IOException;
+
+import org.jhlabs.scany.engine.entity.Relation;
+import org.jhlabs.scany.engine.search.AnySearcherException;
+import org.jhlabs.scany.service.message.QueryMessage;
+import org.jhlabs.scany.service.message.ResultMessage;
+import org.jhlabs.scany.service.remote.AbstractRemoteSearcher;
+
+/**
+ * 검색 메시지를 원격 TCP 서버에 보낸다.
+ * 연결은 RemoteTcpConnectionPool에서 공유하며, 제한 시간(timeout)은 검색마다 적용한다.
+ *
+ * @author Gulendol
+ *
+ * <p>Created: 2011. 11. 6. 오후 4:46:36</p>
+ *
+ */
+public class RemoteTcpSearcher extends AbstractRemoteSearcher {
+
+	private final RemoteTcpConnectionPool connectionPool;
+
+	public RemoteTcpSearcher(Relation relation, RemoteTcpConnectionPool connectionPool) throws AnySearcherException {
+		super(relation);
+		this.connectionPool = connectionPool;
+	}
+
+	protected ResultMessage send(QueryMessage queryMessage) throws IOException {
+		return connectionPool.execute(queryMessage);
+	}
+
+	protected String getEndpoint() {
+		return connectionPool.getName();
+	}
+
+}
@@ -0,0 +1,637 @@
+/**
+ *
+ */
+package org.jhlabs.scany.service.remote.tcp;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jhlabs.scany.context.ScanyContext;
+import org.jhlabs.scany.context.builder.ScanyContextBuilder;
+import org.jhlabs.scany.context.rule.RemoteTcpServiceRule;
+import org.jhlabs.scany.context.rule.ServerRule;
+import org.jhlabs.scany.service.AnyService;
+import org.jhlabs.scany.service.local.LocalService;
+import org.jhlabs.scany.service.message.BinaryMessageCodec;
+import org.jhlabs.scany.service.message.Message;
+import org.jhlabs.scany.service.message.MessageHandler;
+import org.jhlabs.scany.service.message.ResultMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 원격 TCP 검색 서버.
+ *
+ * <pre>
+ * 논블로킹 NIO 셀렉터를 사용하며, 코어마다 하나의 이벤트 루프 스레드를 둔다.
+ * 받아들인 연결은 이벤트 루프에 번갈아 배정되고, 연결의 모든 읽기와 쓰기는 배정된 이벤트 루프가 한다.
+ *
+ * 이벤트 루프는 프레임(RemoteTcpFrame)을 읽어서 작업 스레드에 넘기기만 하고, 검색과 트랜잭션은 작업 스레드가 처리한다.
+ * 하나의 연결로 여러 요청을 동시에 보낼 수 있으며, 응답은 처리가 끝난 순서대로 요청 ID를 붙여서 보낸다.
+ * 따라서 느린 검색이 같은 연결이나 같은 이벤트 루프의 다른 요청을 막지 않는다.
+ *
+ * 연결마다 응답을 보내지 않은 요청이 maxPendingRequests에 이르면 응답을 보낼 때까지 그 연결에서 읽지 않는다.
+ * 포트를 0으로 지정하면 임의의 포트를 사용하며, 바인딩된 포트는 getPort()로 얻는다.
+ * </pre>
+ *
+ * @author Gulendol
+ *
+ * @see RemoteTcpFrame
+ * @see MessageHandler
+ */
+public class RemoteTcpServer {
+
+	private static final Logger logger = LoggerFactory.getLogger(RemoteTcpServer.class);
+
+	public static final int DEFAULT_PORT = 9700;
+
+	private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+	private final RemoteTcpServiceRule remoteTcpServiceRule;
+
+	private final MessageHandler messageHandler;
+
+	private final BinaryMessageCodec binaryMessageCodec;
+
+	private int eventLoopThreads = Runtime.getRuntime().availableProcessors();
+
+	private int workerThreads = Runtime.getRuntime().availableProcessors() * 2;
+
+	private int maxPendingRequests = 256;
+
+	private ServerSocketChannel serverChannel;
+
+	private Thread acceptor;
+
+	private EventLoop[] eventLoops;
+
+	private ExecutorService workers;
+
+	private volatile boolean running;
+
+	public RemoteTcpServer(RemoteTcpServiceRule remoteTcpServiceRule, AnyService anyService) {
+		this.remoteTcpServiceRule = remoteTcpServiceRule;
+		this.messageHandler = new MessageHandler(anyService);
+		this.binaryMessageCodec = new BinaryMessageCodec(remoteTcpServiceRule.getSchema());
+	}
+
+	public int getEventLoopThreads() {
+		return eventLoopThreads;
+	}
+
+	/**
+	 * 이벤트 루프 스레드의 수를 지정한다. 기본값은 코어의 수이다.
+	 *
+	 * @param eventLoopThreads the event loop threads
+	 */
+	public void setEventLoopThreads(int eventLoopThreads) {
+		this.eventLoopThreads = eventLoopThreads;
+	}
+
+	public int getWorkerThreads() {
+		return workerThreads;
+	}
+
+	/**
+	 * 검색과 트랜잭션을 처리할 작업 스레드의 수를 지정한다. 기본값은 코어 수의 두 배이다.
+	 *
+	 * @param workerThreads the worker threads
+	 */
+	public void setWorkerThreads(int workerThreads) {
+		this.workerThreads = workerThreads;
+	}
+
+	public int getMaxPendingRequests() {
+		return maxPendingRequests;
+	}
+
+	/**
+	 * 연결마다 응답을 보내지 않은 요청의 최대 수를 지정한다.
+	 *
+	 * @param maxPendingRequests the max pending requests
+	 */
+	public void setMaxPendingRequests(int maxPendingRequests) {
+		this.maxPendingRequests = maxPendingRequests;
+	}
+
+	/**
+	 * 서버를 시작한다.
+	 *
+	 * @throws IOException 포트를 바인딩할 수 없는 경우
+	 */
+	public synchronized void start() throws IOException {
+		if(running)
+			throw new IllegalStateException("Server already started.");
+
+		String host = remoteTcpServiceRule.getHost();
+		int port = (remoteTcpServiceRule.getPort() == null) ? DEFAULT_PORT : remoteTcpServiceRule.getPort().intValue();
+		InetSocketAddress address = (host == null || host.length() == 0) ? new InetSocketAddress(port) : new InetSocketAddress(host, port);
+
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.socket().setReuseAddress(true);
+		serverChannel.socket().bind(address, 1024);
+
+		running = true;
+
+		workers = Executors.newFixedThreadPool(workerThreads, new NamedThreadFactory("scany-tcp-worker-"));
+		eventLoops = new EventLoop[eventLoopThreads];
+
+		for(int i = 0; i < eventLoops.length; i++) {
+			eventLoops[i] = new EventLoop(Selector.open());
+			eventLoops[i].thread = new Thread(eventLoops[i], "scany-tcp-loop-" + i);
+			eventLoops[i].thread.start();
+		}
+
+		acceptor = new Thread(new Runnable() {
+			public void run() {
+				accept();
+			}
+		}, "scany-tcp-acceptor");
+		acceptor.start();
+
+		logger.info("Remote TCP server started. {} ({} event loops, {} workers)", new Object[] { serverChannel.socket().getLocalSocketAddress(), eventLoopThreads, workerThreads });
+	}
+
+	/**
+	 * 서버를 종료한다. 처리 중인 요청은 끝날 때까지 기다리지만, 응답은 보내지 않을 수 있다.
+	 */
+	public synchronized void stop() {
+		if(!running)
+			return;
+
+		running = false;
+
+		try {
+			serverChannel.close();
+		} catch(IOException e) {
+			logger.warn("Failed to close server channel.", e);
+		}
+
+		workers.shutdown();
+
+		try {
+			acceptor.join();
+
+			for(EventLoop eventLoop : eventLoops) {
+				eventLoop.selector.wakeup();
+				eventLoop.thread.join();
+			}
+
+			workers.awaitTermination(10, TimeUnit.SECONDS);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		logger.info("Remote TCP server stopped.");
+	}
+
+	/**
+	 * 바인딩된 포트를 반환한다.
+	 *
+	 * @return the port
+	 */
+	public int getPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	private void accept() {
+		int next = 0;
+
+		while(running) {
+			try {
+				SocketChannel channel = serverChannel.accept();
+				channel.configureBlocking(false);
+				channel.socket().setTcpNoDelay(true);
+
+				eventLoops[next++ % eventLoops.length].register(channel);
+			} catch(ClosedChannelException e) {
+				break;
+			} catch(IOException e) {
+				if(running)
+					logger.error("Failed to accept connection.", e);
+			}
+		}
+	}
+
+	/**
+	 * 하나의 셀렉터로 배정된 연결의 읽기와 쓰기를 처리하는 이벤트 루프.
+	 */
+	private final class EventLoop implements Runnable {
+
+		private final Selector selector;
+
+		private final Queue<SocketChannel> registrations = new ConcurrentLinkedQueue<SocketChannel>();
+
+		private final Queue<Connection> flushes = new ConcurrentLinkedQueue<Connection>();
+
+		private final AtomicBoolean wakenUp = new AtomicBoolean();
+
+		private Thread thread;
+
+		public EventLoop(Selector selector) {
+			this.selector = selector;
+		}
+
+		public void register(SocketChannel channel) {
+			registrations.offer(channel);
+			wakeup();
+		}
+
+		public void flush(Connection connection) {
+			flushes.offer(connection);
+			wakeup();
+		}
+
+		private void wakeup() {
+			if(wakenUp.compareAndSet(false, true))
+				selector.wakeup();
+		}
+
+		public void run() {
+			while(running) {
+				try {
+					selector.select();
+					wakenUp.set(false);
+
+					processRegistrations();
+					processFlushes();
+
+					Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+
+					while(iter.hasNext()) {
+						SelectionKey key = iter.next();
+						iter.remove();
+
+						Connection connection = (Connection)key.attachment();
+
+						try {
+							if(key.isReadable())
+								connection.read();
+
+							if(key.isValid() && key.isWritable())
+								connection.write();
+						} catch(CancelledKeyException e) {
+							connection.close();
+						} catch(IOException e) {
+							logger.debug("Connection closed. {} - {}", connection, e.toString());
+							connection.close();
+						}
+					}
+				} catch(Exception e) {
+					logger.error("Unexpected error in event loop.", e);
+				}
+			}
+
+			for(SelectionKey key : selector.keys()) {
+				((Connection)key.attachment()).close();
+			}
+
+			SocketChannel channel;
+
+			while((channel = registrations.poll()) != null) {
+				try {
+					channel.close();
+				} catch(IOException e) {
+					// ignore
+				}
+			}
+
+			try {
+				selector.close();
+			} catch(IOException e) {
+				logger.warn("Failed to close selector.", e);
+			}
+		}
+
+		private void processRegistrations() {
+			SocketChannel channel;
+
+			while((channel = registrations.poll()) != null) {
+				Connection connection = new Connection(this, channel);
+
+				try {
+					connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+				} catch(IOException e) {
+					logger.warn("Failed to register connection.", e);
+					connection.close();
+				}
+			}
+		}
+
+		private void processFlushes() {
+			Connection connection;
+
+			while((connection = flushes.poll()) != null) {
+				connection.flushScheduled.set(false);
+
+				try {
+					connection.write();
+				} catch(CancelledKeyException e) {
+					connection.close();
+				} catch(IOException e) {
+					logger.debug("Connection closed. {} - {}", connection, e.toString());
+					connection.close();
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * 클라이언트 연결.
+	 * 읽기와 쓰기는 이벤트 루프 스레드에서만 하며, 작업 스레드는 응답 프레임을 쓰기 큐에 넣고 이벤트 루프를 깨운다.
+	 */
+	private final class Connection {
+
+		private final EventLoop eventLoop;
+
+		private final SocketChannel channel;
+
+		private SelectionKey key;
+
+		private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+		private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<ByteBuffer>();
+
+		private final AtomicInteger pendingRequests = new AtomicInteger();
+
+		private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+		private volatile boolean closed;
+
+		public Connection(EventLoop eventLoop, SocketChannel channel) {
+			this.eventLoop = eventLoop;
+			this.channel = channel;
+		}
+
+		/**
+		 * 읽을 수 있는 만큼 읽어서 완성된 프레임을 모두 작업 스레드에 넘긴다.
+		 */
+		public void read() throws IOException {
+			if(channel.read(readBuffer) == -1) {
+				close();
+				return;
+			}
+
+			readBuffer.flip();
+
+			int required = 0;
+
+			while(readBuffer.remaining() >= 4) {
+				int length = readBuffer.getInt(readBuffer.position());
+
+				if(length < RemoteTcpFrame.HEADER_SIZE - 4 || length > RemoteTcpFrame.MAX_FRAME_SIZE)
+					throw new IOException("Invalid frame length: " + length);
+
+				if(readBuffer.remaining() < length + 4) {
+					required = length + 4;
+					break;
+				}
+
+				readBuffer.getInt();
+				int requestId = readBuffer.getInt();
+				byte type = readBuffer.get();
+				byte[] payload = new byte[length - (RemoteTcpFrame.HEADER_SIZE - 4)];
+				readBuffer.get(payload);
+
+				dispatch(requestId, type, payload);
+			}
+
+			readBuffer.compact();
+
+			if(required > readBuffer.capacity()) {
+				// 큰 프레임은 버퍼를 늘려서 읽는다.
+				ByteBuffer buffer = ByteBuffer.allocate(required);
+				readBuffer.flip();
+				buffer.put(readBuffer);
+				readBuffer = buffer;
+			} else if(readBuffer.position() == 0 && readBuffer.capacity() > READ_BUFFER_SIZE) {
+				readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+			}
+		}
+
+		private void dispatch(final int requestId, final byte type, final byte[] payload) {
+			if(pendingRequests.incrementAndGet() >= maxPendingRequests)
+				key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+
+			if(type == RemoteTcpFrame.PING) {
+				send(RemoteTcpFrame.ping(requestId));
+				return;
+			}
+
+			try {
+				workers.execute(new Runnable() {
+					public void run() {
+						process(requestId, type, payload);
+					}
+				});
+			} catch(RejectedExecutionException e) {
+				// 서버가 종료 중이다.
+				close();
+			}
+		}
+
+		/**
+		 * 요청을 처리하고 응답 프레임을 보낸다.
+		 * 처리 중에 어떤 예외가 발생해도 오류 응답을 보내며, 응답을 보내지 못하면 연결을 닫는다.
+		 * 보내지 못한 요청은 처리 중인 요청 수에서 빼야 읽기가 멈추지 않는다.
+		 */
+		private void process(int requestId, byte type, byte[] payload) {
+			BinaryMessageCodec codec = ((type & RemoteTcpFrame.BINARY) != 0) ? binaryMessageCodec : null;
+			boolean sent = false;
+
+			try {
+				ResultMessage resultMessage;
+
+				try {
+					Message message = RemoteTcpFrame.decode(type, payload, codec);
+					resultMessage = messageHandler.handle(message);
+				} catch(IOException e) {
+					logger.warn("Invalid request frame from {} - {}", this, e.toString());
+					resultMessage = createErrorMessage(e);
+				} catch(Throwable e) {
+					logger.error("Failed to handle request from " + this, e);
+					resultMessage = createErrorMessage(e);
+				}
+
+				ByteBuffer frame;
+
+				try {
+					frame = RemoteTcpFrame.encode(requestId, resultMessage, codec);
+				} catch(Throwable e) {
+					logger.error("Failed to encode result message.", e);
+					frame = RemoteTcpFrame.encode(requestId, createErrorMessage(e), codec);
+				}
+
+				send(frame);
+				sent = true;
+			} catch(Throwable e) {
+				logger.error("Failed to send result message to " + this, e);
+				close();
+			} finally {
+				if(!sent)
+					pendingRequests.decrementAndGet();
+			}
+		}
+
+		private ResultMessage createErrorMessage(Throwable cause) {
+			ResultMessage resultMessage = new ResultMessage();
+			resultMessage.setError(cause.toString());
+
+			return resultMessage;
+		}
+
+		private void send(ByteBuffer frame) {
+			if(closed)
+				return;
+
+			writeQueue.offer(frame);
+
+			if(flushScheduled.compareAndSet(false, true))
+				eventLoop.flush(this);
+		}
+
+		/**
+		 * 쓰기 큐의 프레임을 쓸 수 있는 만큼 쓴다. 다 쓰지 못하면 OP_WRITE를 기다린다.
+		 */
+		public void write() throws IOException {
+			if(closed || !key.isValid())
+				return;
+
+			int completed = 0;
+			ByteBuffer frame;
+
+			while((frame = writeQueue.peek()) != null) {
+				channel.write(frame);
+
+				if(frame.hasRemaining())
+					break;
+
+				writeQueue.poll();
+				completed++;
+			}
+
+			int ops = key.interestOps();
+
+			if(writeQueue.isEmpty())
+				ops &= ~SelectionKey.OP_WRITE;
+			else
+				ops |= SelectionKey.OP_WRITE;
+
+			if(completed > 0 && pendingRequests.addAndGet(-completed) < maxPendingRequests)
+				ops |= SelectionKey.OP_READ;
+
+			key.interestOps(ops);
+		}
+
+		public void close() {
+			if(closed)
+				return;
+
+			closed = true;
+
+			if(key != null)
+				key.cancel();
+
+			try {
+				channel.close();
+			} catch(IOException e) {
+				// ignore
+			}
+
+			writeQueue.clear();
+		}
+
+		@Override
+		public String toString() {
+			return String.valueOf(channel.socket().getRemoteSocketAddress());
+		}
+
+	}
+
+	/**
+	 * 이름을 붙인 데몬 스레드를 만든다.
+	 */
+	private static final class NamedThreadFactory implements ThreadFactory {
+
+		private final String prefix;
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		public NamedThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, prefix + count.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	}
+
+	/**
+	 * 설정 파일의 server 설정으로 서버를 시작한다.
+	 *
+	 * @param argv 설정 파일의 위치
+	 */
+	public static void main(String argv[]) {
+		if(argv.length < 1) {
+			System.out.println("Usage: java " + RemoteTcpServer.class.getName() + " <scany-config.xml>");
+			return;
+		}
+
+		try {
+			ScanyContextBuilder builder = new ScanyContextBuilder();
+			ScanyContext scanyContext = builder.build(argv[0]);
+			ServerRule serverRule = scanyContext.getServerRule();
+
+			if(serverRule == null || serverRule.getRemoteTcpServiceRule() == null)
+				throw new IllegalArgumentException("Scany's remote tcp server is not defined.");
+
+			if(scanyContext.getLocalServiceRule() == null)
+				throw new IllegalArgumentException("Scany's local service is not defined.");
+
+			// 바이너리 형식의 속성 순번은 로컬 서비스의 스키마를 따른다.
+			if(serverRule.getRemoteTcpServiceRule().getSchema() == null)
+				serverRule.getRemoteTcpServiceRule().setSchema(scanyContext.getLocalServiceRule().getSchema());
+
+			final AnyService anyService = new LocalService(scanyContext.getLocalServiceRule());
+			final RemoteTcpServer server = new RemoteTcpServer(serverRule.getRemoteTcpServiceRule(), anyService);
+
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+				public void run() {
+					server.stop();
+					anyService.close();
+				}
+			});
+
+			server.start();
+		} catch(Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+}
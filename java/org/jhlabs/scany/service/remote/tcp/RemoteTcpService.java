@@ -1,42 +1,97 @@
 /**
- * 
+ *
  */
 package org.jhlabs.scany.service.remote.tcp;
 
+import java.io.IOException;
+import java.util.concurrent.Future;
+
+import org.jhlabs.scany.context.rule.RemoteTcpServiceRule;
+import org.jhlabs.scany.engine.entity.Relation;
 import org.jhlabs.scany.engine.index.AnyIndexer;
 import org.jhlabs.scany.engine.index.AnyIndexerException;
 import org.jhlabs.scany.engine.search.AnySearcher;
 import org.jhlabs.scany.engine.search.AnySearcherException;
 import org.jhlabs.scany.engine.search.SearchModel;
 import org.jhlabs.scany.engine.transaction.AnyTransaction;
+import org.jhlabs.scany.service.AbstractService;
 import org.jhlabs.scany.service.AnyService;
+import org.jhlabs.scany.service.NoSuchRelationException;
+import org.jhlabs.scany.service.message.QueryMessage;
+import org.jhlabs.scany.service.message.ResultMessage;
 
 /**
+ * 원격 TCP 서버(RemoteTcpServer)를 사용하는 서비스.
+ *
+ * <pre>
+ * 같은 서버를 사용하는 서비스는 RemoteTcpConnectionPool을 공유하므로 검색할 때마다 연결하지 않는다.
+ * 사용이 끝나면 close()로 연결 풀을 반환해야 한다.
+ * </pre>
  *
  * @author Gulendol
  *
  * <p>Created: 2011. 11. 6. 오후 4:46:36</p>
  *
  */
-public class RemoteTcpService implements AnyService {
-	
+public class RemoteTcpService extends AbstractService implements AnyService {
+
+	private final RemoteTcpServiceRule remoteTcpServiceRule;
+
+	private final RemoteTcpConnectionPool connectionPool;
+
+	public RemoteTcpService(RemoteTcpServiceRule remoteTcpServiceRule) {
+		this.remoteTcpServiceRule = remoteTcpServiceRule;
+		this.connectionPool = RemoteTcpConnectionPool.acquire(remoteTcpServiceRule);
+	}
+
 	public AnySearcher getSearcher(String relationId) throws AnySearcherException {
-		// TODO Auto-generated method stub
-		return null;
+		return new RemoteTcpSearcher(getRelation(relationId), connectionPool);
 	}
 
 	public SearchModel getSearchModel(String relationId) throws AnySearcherException {
-		// TODO Auto-generated method stub
-		return null;
+		return new SearchModel(getRelation(relationId));
 	}
 
 	public AnyTransaction getTransaction(String relationId) {
-		// TODO Auto-generated method stub
-		return null;
+		return new RemoteTcpTransaction(getRelation(relationId), connectionPool);
 	}
 
 	public AnyIndexer getIndexer(String relationId) throws AnyIndexerException {
 		throw new UnsupportedOperationException("Only local service.");
 	}
-	
+
+	/**
+	 * 검색 메시지를 보내고 응답을 기다리지 않는다.
+	 * 여러 검색을 동시에 보낸 후 응답을 모아서 받을 때 사용한다.
+	 *
+	 * @param queryMessage 검색 메시지
+	 * @return 응답
+	 * @throws AnySearcherException 메시지를 보내지 못한 경우
+	 */
+	public Future<ResultMessage> submit(QueryMessage queryMessage) throws AnySearcherException {
+		getRelation(queryMessage.getRelationId());
+
+		try {
+			return connectionPool.send(queryMessage);
+		} catch(IOException e) {
+			throw new AnySearcherException("Failed to send query message to " + connectionPool.getName(), e);
+		}
+	}
+
+	private Relation getRelation(String relationId) {
+		Relation relation = null;
+
+		if(remoteTcpServiceRule.getSchema() != null)
+			relation = remoteTcpServiceRule.getSchema().getRelation(relationId);
+
+		if(relation == null)
+			throw new NoSuchRelationException(relationId);
+
+		return relation;
+	}
+
+	public void close() {
+		connectionPool.release();
+	}
+
 }
@@ -1,22 +1,32 @@
-package org.jhlabs.scany.service.remote.tcp;
-
-import org.jhlabs.scany.engine.entity.Relation;
-import org.jhlabs.scany.engine.transaction.AbstractTransaction;
-
-public class RemoteTcpTransaction extends AbstractTransaction {
-
-	public RemoteTcpTransaction(Relation relation) {
-		super(relation);
-	}
-	
-	public void commit() {
-		// TODO Auto-generated method stub
-		
-	}
-
-	public void rollback() {
-		// TODO Auto-generated method stub
-		
-	}
-}
-
+package org.jhlabs.scany.service.remote.tcp;
+
+import java.io.IOException;
+
+import org.jhlabs.scany.engine.entity.Relation;
+import org.jhlabs.scany.service.message.ResultMessage;
+import org.jhlabs.scany.service.message.TransactionMessage;
+import org.jhlabs.scany.service.remote.AbstractRemoteTransaction;
+
+/**
+ * 트랜잭션 메시지를 RemoteTcpConnectionPool의 연결로 원격 TCP 서버에 보낸다.
+ *
+ * @author Gulendol
+ */
+public class RemoteTcpTransaction extends AbstractRemoteTransaction {
+
+	private final RemoteTcpConnectionPool connectionPool;
+
+	public RemoteTcpTransaction(Relation relation, RemoteTcpConnectionPool connectionPool) {
+		super(relation);
+		this.connectionPool = connectionPool;
+	}
+
+	protected ResultMessage send(TransactionMessage transactionMessage) throws IOException {
+		return connectionPool.execute(transactionMessage);
+	}
+
+	protected String getEndpoint() {
+		return connectionPool.getName();
+	}
+
+}